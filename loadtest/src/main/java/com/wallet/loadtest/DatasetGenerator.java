@@ -0,0 +1,226 @@
+package com.wallet.loadtest;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+/**
+ * Bulk-loads users, wallets and transaction histories straight into the application's MySQL schema
+ * (created by its migrations), with JDBC batches sent as multi-row inserts.
+ * <p>
+ * Transactions are generated in time order over the last --days. The users involved are drawn from a
+ * Zipfian distribution, so a few users have long histories and most have a handful. Balances are
+ * tracked while generating: debits and transfers the balance cannot cover are DECLINED, as the API
+ * records them, and each wallet ends with the balance its SUCCESS rows add up to. Rows look like the
+ * ones the API writes, with two rows per transfer. Generated users are appended after the existing
+ * ones. They are named loadtest-&lt;id&gt;@example.com and all share the --password.
+ */
+final class DatasetGenerator {
+
+    private static final String INSERT_USER =
+            "INSERT INTO users (id, name, email_id, password, role) VALUES (?, ?, ?, ?, 'USER')";
+    private static final String INSERT_WALLET =
+            "INSERT INTO wallets (user_id, balance, reserved_balance, version) VALUES (?, ?, 0, 0)";
+    private static final String INSERT_TRANSACTION = "INSERT INTO wallet_transactions (sender, receiver, "
+            + "owner_user_id, amount, type, status, description, failure_reason, balance_after_transaction, "
+            + "transaction_time, completed_time, reference_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int PROGRESS_EVERY = 1_000_000;
+
+    private final String jdbcUrl;
+    private final String dbUser;
+    private final String dbPassword;
+    private final int users;
+    private final long transactions;
+    private final int days;
+    private final double theta;
+    private final String password;
+    private final int batchSize;
+    private final SplittableRandom random;
+
+    DatasetGenerator(Options options) {
+        String url = options.string("jdbc-url", "jdbc:mysql://localhost:3306/wallet");
+        this.jdbcUrl = url.contains("rewriteBatchedStatements") ? url
+                : url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        this.dbUser = options.string("db-user", "root");
+        this.dbPassword = options.string("db-password", "root");
+        this.users = options.integer("users", 1_000_000);
+        this.transactions = options.number("transactions", 20L * users);
+        this.days = options.integer("days", 180);
+        this.theta = options.decimal("theta", 0.99);
+        this.password = options.string("password", "loadtest");
+        this.batchSize = options.integer("batch-size", 5_000);
+        this.random = new SplittableRandom(options.number("seed", 42));
+    }
+
+    void run() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, dbUser, dbPassword)) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET unique_checks = 0");
+            }
+            long firstId = firstFreeUserId(connection);
+            long start = System.nanoTime();
+            insertUsers(connection, firstId);
+            log("users", users, start);
+
+            start = System.nanoTime();
+            long[] balances = new long[users];
+            long rows = insertTransactions(connection, firstId, balances);
+            log("transaction rows", rows, start);
+
+            start = System.nanoTime();
+            insertWallets(connection, firstId, balances);
+            log("wallets", users, start);
+            System.out.printf("Generated user ids %d..%d (password \"%s\")%n", firstId, firstId + users - 1, password);
+        }
+    }
+
+    private static long firstFreeUserId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM users")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private void insertUsers(Connection connection, long firstId) throws SQLException {
+        // BCrypt on purpose: logins during the load test pay the same hash check as real ones
+        String hash = new BCryptPasswordEncoder().encode(password);
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_USER)) {
+            for (int i = 0; i < users; i++) {
+                long id = firstId + i;
+                insert.setLong(1, id);
+                insert.setString(2, "Load Test User " + id);
+                insert.setString(3, "loadtest-" + id + "@example.com");
+                insert.setString(4, hash);
+                insert.addBatch();
+                flushIfFull(connection, insert, i + 1);
+            }
+            flush(connection, insert);
+        }
+    }
+
+    private long insertTransactions(Connection connection, long firstId, long[] balances) throws SQLException {
+        ZipfianGenerator activity = new ZipfianGenerator(users, theta);
+        LocalDateTime from = LocalDateTime.now().minusDays(days);
+        long spanMillis = Duration.ofDays(days).toMillis();
+        long rows = 0;
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_TRANSACTION)) {
+            for (long i = 0; i < transactions; i++) {
+                LocalDateTime time = from.plusNanos((long) ((double) i / transactions * spanMillis) * 1_000_000L);
+                int owner = (int) activity.nextItem(random);
+                int kind = random.nextInt(100);
+                if (kind < 30) {
+                    long amount = amount(500_000);
+                    balances[owner] += amount;
+                    add(insert, null, firstId + owner, firstId + owner, amount, "CREDIT", "SUCCESS", null, null,
+                            balances[owner], time);
+                    rows++;
+                } else if (kind < 50 || users == 1) {
+                    long amount = amount(200_000);
+                    boolean covered = balances[owner] >= amount;
+                    if (covered) {
+                        balances[owner] -= amount;
+                    }
+                    add(insert, firstId + owner, null, firstId + owner, amount, "DEBIT", covered ? "SUCCESS" : "DECLINED",
+                            null, covered ? null : "Insufficient balance", balances[owner], time);
+                    rows++;
+                } else {
+                    int receiver = (int) activity.nextItem(random);
+                    if (receiver == owner) {
+                        receiver = (receiver + 1) % users;
+                    }
+                    long amount = amount(100_000);
+                    boolean covered = balances[owner] >= amount;
+                    if (covered) {
+                        balances[owner] -= amount;
+                        balances[receiver] += amount;
+                    }
+                    String status = covered ? "SUCCESS" : "DECLINED";
+                    String failure = covered ? null : "Insufficient balance";
+                    long sender = firstId + owner;
+                    long to = firstId + receiver;
+                    add(insert, sender, to, sender, amount, "TRANSFER_SENT", status, "Transfer to user " + to, failure,
+                            balances[owner], time);
+                    add(insert, sender, to, to, amount, "TRANSFER_RECEIVED", status, "Transfer from user " + sender,
+                            failure, balances[receiver], time);
+                    rows += 2;
+                }
+                flushIfFull(connection, insert, i + 1);
+                if ((i + 1) % PROGRESS_EVERY == 0) {
+                    System.out.printf("  %,d of %,d transactions%n", i + 1, transactions);
+                }
+            }
+            flush(connection, insert);
+        }
+        return rows;
+    }
+
+    private void add(PreparedStatement insert, Long sender, Long receiver, long owner, long amount, String type,
+                     String status, String description, String failureReason, long balanceAfter,
+                     LocalDateTime time) throws SQLException {
+        boolean success = "SUCCESS".equals(status);
+        Timestamp timestamp = Timestamp.valueOf(time);
+        insert.setObject(1, sender);
+        insert.setObject(2, receiver);
+        insert.setLong(3, owner);
+        insert.setBigDecimal(4, BigDecimal.valueOf(amount, 2));
+        insert.setString(5, type);
+        insert.setString(6, status);
+        insert.setString(7, description);
+        insert.setString(8, failureReason);
+        insert.setBigDecimal(9, success ? BigDecimal.valueOf(balanceAfter, 2) : null);
+        insert.setTimestamp(10, timestamp);
+        insert.setTimestamp(11, timestamp);
+        insert.setString(12, "TXN-" + Long.toHexString(random.nextLong() | Long.MIN_VALUE).substring(8));
+        insert.addBatch();
+    }
+
+    private void insertWallets(Connection connection, long firstId, long[] balances) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_WALLET)) {
+            for (int i = 0; i < users; i++) {
+                insert.setLong(1, firstId + i);
+                insert.setBigDecimal(2, BigDecimal.valueOf(balances[i], 2));
+                insert.addBatch();
+                flushIfFull(connection, insert, i + 1);
+            }
+            flush(connection, insert);
+        }
+    }
+
+    /**
+     * Amounts in minor units, log-normally distributed around a tenth of max: many small payments,
+     * a few large ones.
+     */
+    private long amount(long maxMinorUnits) {
+        double amount = Math.exp(Math.log(maxMinorUnits / 10.0) + random.nextDouble() * 2 - 1
+                + (random.nextDouble() + random.nextDouble() + random.nextDouble() - 1.5) * 0.8);
+        return Math.max(100, Math.min(maxMinorUnits, Math.round(amount)));
+    }
+
+    private void flushIfFull(Connection connection, PreparedStatement insert, long added) throws SQLException {
+        if (added % batchSize == 0) {
+            flush(connection, insert);
+        }
+    }
+
+    private static void flush(Connection connection, PreparedStatement insert) throws SQLException {
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    private static void log(String what, long count, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("Inserted %,d %s in %.1f s (%,.0f/s)%n", count, what, seconds, count / seconds);
+    }
+}
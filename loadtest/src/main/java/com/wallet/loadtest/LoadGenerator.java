@@ -0,0 +1,329 @@
+package com.wallet.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives the wallet API with a mix of login, balance, history and transfer requests, for users
+ * picked from a Zipfian distribution over --users-from..--users-to (the ids the generator printed).
+ * fx_transfer requests convert from the base currency into one of --fx-currencies, which need rows in
+ * fx_rates; --mix=fx_transfer:100 measures conversion-heavy transfer throughput.
+ * <p>
+ * Closed loop (--concurrency, the default): each virtual user sends its next request when the last
+ * one returns, which measures service time at that concurrency. Open loop (--rate): requests are
+ * started on a fixed schedule whatever the server does, and latency is measured from when a request
+ * was due rather than when it was sent, so a stalled server shows up in the percentiles instead of
+ * silently lowering the request rate (coordinated omission).
+ * <p>
+ * Latencies go to an HdrHistogram per operation. Per-interval percentiles are printed while running,
+ * then the totals for the measured period, after --warmup, with status codes per operation.
+ */
+final class LoadGenerator {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private enum Operation { LOGIN, BALANCE, HISTORY, TRANSFER, FX_TRANSFER }
+
+    private static final class Stats {
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+        private final Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private Histogram interval;
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final String baseUrl;
+    private final long usersFrom;
+    private final ZipfianGenerator users;
+    private final String password;
+    private final Operation[] mix;
+    private final String[] fxCurrencies;
+    private final int concurrency;
+    private final double rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration reportInterval;
+    private final String histogramFile;
+    private final Map<Operation, Stats> stats = new LinkedHashMap<>();
+    private final Map<Long, String> tokens = new ConcurrentHashMap<>();
+    private volatile boolean measuring;
+
+    LoadGenerator(Options options) {
+        this.baseUrl = options.string("url", "http://localhost:8080");
+        this.usersFrom = options.number("users-from", 1);
+        long usersTo = options.number("users-to", usersFrom);
+        this.users = new ZipfianGenerator(usersTo - usersFrom + 1, options.decimal("theta", 0.99));
+        this.password = options.string("password", "loadtest");
+        this.mix = parseMix(options.string("mix", "balance:60,history:20,transfer:15,login:5"));
+        this.fxCurrencies = options.string("fx-currencies", "USD,EUR").split(",");
+        this.concurrency = options.integer("concurrency", 64);
+        this.rate = options.decimal("rate", 0);
+        this.warmup = options.duration("warmup", Duration.ofSeconds(30));
+        this.duration = options.duration("duration", Duration.ofMinutes(2));
+        this.reportInterval = options.duration("report-interval", Duration.ofSeconds(5));
+        this.histogramFile = options.string("histogram-log", null);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    /**
+     * Weights like balance:60,history:20,transfer:15,login:5, expanded to a 100-slot table.
+     */
+    private static Operation[] parseMix(String spec) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        int sum = 0;
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Bad --mix entry " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            weights.merge(Operation.valueOf(pair[0].trim().toUpperCase()), weight, Integer::sum);
+            sum += weight;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("--mix weights must add up to more than 0");
+        }
+        List<Operation> slots = new ArrayList<>(100);
+        int assigned = 0;
+        for (Map.Entry<Operation, Integer> weight : weights.entrySet()) {
+            assigned += weight.getValue();
+            while (slots.size() < Math.round(assigned * 100.0 / sum)) {
+                slots.add(weight.getKey());
+            }
+        }
+        return slots.toArray(new Operation[0]);
+    }
+
+    void run() throws InterruptedException, FileNotFoundException {
+        System.out.printf("%s against %s for %s after %s warmup%n", rate > 0
+                ? String.format("Open loop at %.0f req/s", rate) : "Closed loop with " + concurrency + " users",
+                baseUrl, duration, warmup);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        Thread load = Thread.ofPlatform().name("load-driver").start(() -> {
+            if (rate > 0) {
+                openLoop(start, end);
+            } else {
+                closedLoop(end);
+            }
+        });
+
+        // Warmup intervals are printed but not kept
+        long nextReport = start + reportInterval.toNanos();
+        long lastSample = start;
+        while (true) {
+            long next = measuring ? nextReport : Math.min(nextReport, measureFrom);
+            if (next >= end) {
+                break;
+            }
+            sleepUntil(next);
+            if (!measuring && next == measureFrom) {
+                sample(false);
+                measuring = true;
+                lastSample = next;
+                if (nextReport == next) {
+                    nextReport += reportInterval.toNanos();
+                }
+                System.out.println("-- warmup done --");
+                continue;
+            }
+            printInterval((next - start) / 1e9, (next - lastSample) / 1e9);
+            lastSample = next;
+            nextReport += reportInterval.toNanos();
+        }
+        load.join();
+        sample(true);
+        printSummary(duration.toNanos() / 1e9);
+    }
+
+    private void closedLoop(long end) {
+        try (ExecutorService virtualUsers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                virtualUsers.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        long started = System.nanoTime();
+                        execute(started);
+                    }
+                });
+            }
+        }
+    }
+
+    private void openLoop(long start, long end) {
+        long intervalNanos = (long) (1e9 / rate);
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long due = start; due < end; due += intervalNanos) {
+                sleepUntil(due);
+                long intended = due;
+                requests.submit(() -> execute(intended));
+            }
+        }
+    }
+
+    /**
+     * Sends one request and records its latency from intendedStart.
+     */
+    private void execute(long intendedStart) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Operation operation = mix[random.nextInt(mix.length)];
+        long user = usersFrom + users.nextItem(random);
+        int status;
+        try {
+            status = switch (operation) {
+                case LOGIN -> login(user);
+                case BALANCE -> get("/api/wallet/" + user + "/balance", user);
+                case HISTORY -> get("/api/wallet/" + user + "/transactions", user);
+                case TRANSFER -> transfer(user, usersFrom + users.nextItem(random), random, null);
+                case FX_TRANSFER -> transfer(user, usersFrom + users.nextItem(random), random,
+                        fxCurrencies[random.nextInt(fxCurrencies.length)].trim());
+            };
+        } catch (Exception e) {
+            // Connection failures are reported as status 0
+            status = 0;
+        }
+        Stats operationStats = stats.get(operation);
+        operationStats.recorder.recordValue(Math.min(System.nanoTime() - intendedStart, HIGHEST_TRACKABLE_NANOS));
+        if (measuring) {
+            operationStats.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+    }
+
+    private int login(long user) throws Exception {
+        String body = "{\"email\":\"loadtest-" + user + "@example.com\",\"password\":\"" + password + "\"}";
+        HttpResponse<String> response = client.send(post("/api/auth/login", body, null),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher token = TOKEN.matcher(response.body());
+        if (response.statusCode() == 200 && token.find()) {
+            tokens.put(user, token.group(1));
+        }
+        return response.statusCode();
+    }
+
+    private int get(String path, long user) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30)).GET();
+        authorize(request, user);
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int transfer(long sender, long receiver, ThreadLocalRandom random, String receiverCurrency) throws Exception {
+        String amount = String.format("%d.%02d", 1 + random.nextInt(50), random.nextInt(100));
+        String body = "{\"sender\":" + sender + ",\"receiver\":" + receiver + ",\"transferAmount\":" + amount
+                + (receiverCurrency != null ? ",\"receiverCurrency\":\"" + receiverCurrency + "\"" : "") + "}";
+        return client.send(post("/api/wallet/transfer", body, sender), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+
+    private HttpRequest post(String path, String body, Long user) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (user != null) {
+            authorize(request, user);
+        }
+        return request.build();
+    }
+
+    private void authorize(HttpRequest.Builder request, long user) {
+        String token = tokens.get(user);
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+    }
+
+    private void sample(boolean keep) {
+        for (Stats operationStats : stats.values()) {
+            operationStats.interval = operationStats.recorder.getIntervalHistogram(operationStats.interval);
+            if (keep) {
+                operationStats.total.add(operationStats.interval);
+            }
+        }
+    }
+
+    private void printInterval(double elapsedSeconds, double seconds) {
+        sample(measuring);
+        StringBuilder line = new StringBuilder(String.format("[%6.1fs]", elapsedSeconds));
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Histogram interval = entry.getValue().interval;
+            if (interval.getTotalCount() > 0) {
+                line.append(String.format(" %s %,.0f/s p50=%.1fms p99=%.1fms |", entry.getKey().name().toLowerCase(),
+                        interval.getTotalCount() / seconds, millis(interval.getValueAtPercentile(50)),
+                        millis(interval.getValueAtPercentile(99))));
+            }
+        }
+        System.out.println(line);
+    }
+
+    private void printSummary(double seconds) throws FileNotFoundException {
+        System.out.printf("%n%-9s %10s %9s %9s %9s %9s %9s %9s  %s%n", "operation", "requests", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "statuses");
+        long requests = 0;
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Histogram total = entry.getValue().total;
+            if (total.getTotalCount() == 0) {
+                continue;
+            }
+            requests += total.getTotalCount();
+            System.out.printf("%-9s %,10d %,9.0f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    entry.getKey().name().toLowerCase(), total.getTotalCount(), total.getTotalCount() / seconds,
+                    millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(90)),
+                    millis(total.getValueAtPercentile(99)), millis(total.getValueAtPercentile(99.9)),
+                    millis(total.getMaxValue()), new TreeMap<>(entry.getValue().statuses));
+        }
+        System.out.printf("total     %,10d %,9.0f%n", requests, requests / seconds);
+        if (histogramFile != null) {
+            try (PrintStream out = new PrintStream(histogramFile)) {
+                HistogramLogWriter writer = new HistogramLogWriter(out);
+                writer.outputLogFormatVersion();
+                for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+                    Histogram total = entry.getValue().total.copy();
+                    total.setTag(entry.getKey().name().toLowerCase());
+                    writer.outputIntervalHistogram(total);
+                }
+            }
+            System.out.println("Histograms written to " + histogramFile);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.wallet.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of the load-test jar.
+ * Run with: java -jar target/wallet-loadtest.jar generate|run [--name=value ...]
+ */
+public final class LoadTestMain {
+
+    private static final String USAGE = """
+            Usage:
+              generate  Load synthetic users, wallets and transaction histories into MySQL
+                        --jdbc-url=jdbc:mysql://localhost:3306/wallet --db-user=root --db-password=root
+                        --users=1000000 --transactions=<20 x users> --days=180 --theta=0.99
+                        --password=loadtest --batch-size=5000 --seed=42
+              run       Drive the HTTP API and report latency percentiles
+                        --url=http://localhost:8080 --users-from=<first id> --users-to=<last id>
+                        --mix=balance:60,history:20,transfer:15,login:5 --theta=0.99 --password=loadtest
+                        --fx-currencies=USD,EUR (receiver currencies of fx_transfer; need rows in fx_rates)
+                        --concurrency=64 (closed loop) or --rate=<req/s> (open loop)
+                        --warmup=30s --duration=2m --report-interval=5s --histogram-log=<file.hlog>
+            """;
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.print(USAGE);
+            System.exit(1);
+        }
+        Options options = new Options(args, 1);
+        switch (args[0]) {
+            case "generate" -> new DatasetGenerator(options).run();
+            case "run" -> new LoadGenerator(options).run();
+            default -> {
+                System.err.println("Unknown command " + args[0] + " in " + Arrays.toString(args));
+                System.out.print(USAGE);
+                System.exit(1);
+            }
+        }
+    }
+}
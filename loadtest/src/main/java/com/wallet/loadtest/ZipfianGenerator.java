@@ -0,0 +1,77 @@
+package com.wallet.loadtest;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Zipfian ranks over [0, items), rank 0 the most popular, with the rejection-free method of Gray et
+ * al. ("Quickly generating billion-record synthetic databases") as used by YCSB. theta = 0.99 gives
+ * the usual heavy skew: with a million items the hottest 1% receive about two thirds of the draws.
+ * <p>
+ * {@link #nextItem} spreads the ranks over the item space with a fixed permutation, so the hot users
+ * are scattered across the id range instead of being the lowest ids. Thread-safe; callers pass their
+ * own random source.
+ */
+final class ZipfianGenerator {
+
+    // Prime multipliers; the permutation needs one that does not divide the item count
+    private static final long SCRAMBLE = 1_000_000_007L;
+    private static final long SCRAMBLE_FALLBACK = 998_244_353L;
+
+    private final long items;
+    private final double theta;
+    private final double zetan;
+    private final double alpha;
+    private final double eta;
+    private final long scramble;
+
+    ZipfianGenerator(long items, double theta) {
+        if (items < 1 || items > Long.MAX_VALUE / SCRAMBLE || theta <= 0 || theta >= 1) {
+            throw new IllegalArgumentException("Need 1 to " + Long.MAX_VALUE / SCRAMBLE + " items and 0 < theta < 1");
+        }
+        this.items = items;
+        this.theta = theta;
+        this.zetan = zeta(items, theta);
+        this.alpha = 1 / (1 - theta);
+        this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+        this.scramble = items % SCRAMBLE == 0 ? SCRAMBLE_FALLBACK : SCRAMBLE;
+    }
+
+    long items() {
+        return items;
+    }
+
+    /**
+     * @return a rank; 0 is drawn most often.
+     */
+    long nextRank(RandomGenerator random) {
+        double u = random.nextDouble();
+        double uz = u * zetan;
+        if (uz < 1) {
+            return 0;
+        }
+        if (uz < 1 + Math.pow(0.5, theta)) {
+            return Math.min(1, items - 1);
+        }
+        return Math.min(items - 1, (long) (items * Math.pow(eta * u - eta + 1, alpha)));
+    }
+
+    /**
+     * @return an item in [0, items); each rank always maps to the same item.
+     */
+    long nextItem(RandomGenerator random) {
+        return itemOf(nextRank(random));
+    }
+
+    // rank * scramble stays below 2^63 for up to about nine billion items
+    long itemOf(long rank) {
+        return Math.floorMod(rank * scramble, items);
+    }
+
+    static double zeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,41 @@
+package com.wallet.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZipfianGeneratorTest {
+
+    @Test
+    void drawsRanksWithZipfFrequencies() {
+        ZipfianGenerator zipf = new ZipfianGenerator(1_000, 0.99);
+        SplittableRandom random = new SplittableRandom(7);
+        int draws = 1_000_000;
+        int[] counts = new int[1_000];
+        for (int i = 0; i < draws; i++) {
+            long rank = zipf.nextRank(random);
+            assertTrue(rank >= 0 && rank < 1_000);
+            counts[(int) rank]++;
+        }
+        // P(rank k) = 1 / ((k + 1)^theta * zeta(n))
+        double zetan = ZipfianGenerator.zeta(1_000, 0.99);
+        assertEquals(draws / zetan, counts[0], draws / zetan * 0.02, "rank 0");
+        assertEquals(draws / (Math.pow(2, 0.99) * zetan), counts[1], draws / zetan * 0.02, "rank 1");
+        assertTrue(counts[0] > counts[10] && counts[10] > counts[100] && counts[100] > counts[999]);
+    }
+
+    @Test
+    void scattersRanksOverEveryItem() {
+        ZipfianGenerator zipf = new ZipfianGenerator(10_007, 0.99);
+        boolean[] seen = new boolean[10_007];
+        for (long rank = 0; rank < 10_007; rank++) {
+            int item = (int) zipf.itemOf(rank);
+            assertTrue(!seen[item], "item " + item + " drawn for two ranks");
+            seen[item] = true;
+        }
+        assertTrue(zipf.itemOf(1) != 1, "ranks should not map onto themselves");
+    }
+}
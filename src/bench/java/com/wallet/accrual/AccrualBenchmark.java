@@ -0,0 +1,227 @@
+package com.wallet.accrual;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Wallets credited per second by the {@link AccrualJob} over all wallets, for each given parallelism,
+ * against the per-wallet path it replaces: the statements addMoney issues for one credit (PENDING
+ * insert, PROCESSING, wallet load and update, SUCCESS, outbox event; three commits), timed on a sample
+ * and extrapolated.
+ * <p>
+ * Needs a scratch MySQL schema migrated by the application (V1-V4). Wallets are added until there are
+ * the requested number, with random balances; every pass credits all of them again and leaves its
+ * ledger rows. The throttle is off. The URL should include rewriteBatchedStatements=true, as the
+ * application's does.
+ * Run with (after mvn -Pbench test-compile): java -cp target/classes:target/bench-classes:&lt;dependencies&gt; com.wallet.accrual.AccrualBenchmark
+ * "jdbc:mysql://localhost:3306/wallet_bench?rewriteBatchedStatements=true" user password
+ * [wallets, default 10000000] [parallelism list, default 1,4,8] [chunk size, default 1000]
+ */
+public class AccrualBenchmark {
+
+    private static final BigDecimal RATE = new BigDecimal("0.0001");
+    private static final BigDecimal MIN_BALANCE = new BigDecimal("0.01");
+    private static final int SEED_BATCH = 10_000;
+    private static final int PER_WALLET_SAMPLE = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        long wallets = args.length > 3 ? Long.parseLong(args[3]) : 10_000_000L;
+        String[] parallelisms = (args.length > 4 ? args[4] : "1,4,8").split(",");
+        int chunkSize = args.length > 5 ? Integer.parseInt(args[5]) : 1000;
+        int maxParallelism = 1;
+        for (String parallelism : parallelisms) {
+            maxParallelism = Math.max(maxParallelism, Integer.parseInt(parallelism.trim()));
+        }
+
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(args[0]);
+            dataSource.setUsername(args[1]);
+            dataSource.setPassword(args[2]);
+            dataSource.setMaximumPoolSize(maxParallelism + 2);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+            seed(dataSource, wallets);
+            long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallets", Long.class);
+            System.out.printf("%,d wallets, chunk size %,d%n", total, chunkSize);
+
+            double perWalletRate = perWallet(dataSource, maxParallelism);
+            System.out.printf("%-24s %,10.0f wallets/s  (%d threads, %,d wallet sample)  all wallets ~%,.0f s%n",
+                    "addMoney per wallet", perWalletRate, maxParallelism, PER_WALLET_SAMPLE, total / perWalletRate);
+
+            for (String value : parallelisms) {
+                int parallelism = Integer.parseInt(value.trim());
+                AccrualJob job = new AccrualJob(jdbcTemplate, transactionManager, new SimpleMeterRegistry(),
+                        new AccrualThrottle(0, () -> 0, 10, 1000), parallelism, chunkSize);
+                BigDecimal before = sumBalances(jdbcTemplate);
+                AccrualJob.Run run = job.startOrResume("benchmark-" + System.currentTimeMillis(), RATE, MIN_BALANCE,
+                        "Benchmark interest");
+                AccrualJob.Report report = job.execute(run);
+                BigDecimal credited = sumBalances(jdbcTemplate).subtract(before);
+                System.out.printf("%-24s %,10.0f wallets/s  %,d wallets in %,.1f s, credited %s (balances moved %s)%s%n",
+                        "batch, parallelism " + parallelism, report.wallets() / (report.elapsed().toNanos() / 1e9),
+                        report.wallets(), report.elapsed().toNanos() / 1e9, report.amount(), credited,
+                        report.complete() ? "" : "  INCOMPLETE: " + report.chunksLeft() + " chunks left");
+            }
+        }
+    }
+
+    private static void seed(HikariDataSource dataSource, long wallets) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long existing;
+            long nextId;
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT COUNT(*), COALESCE(MAX(user_id), 0) FROM wallets")) {
+                rs.next();
+                existing = rs.getLong(1);
+                nextId = rs.getLong(2) + 1;
+            }
+            if (existing >= wallets) {
+                return;
+            }
+            System.out.printf("Adding %,d wallets...%n", wallets - existing);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO wallets "
+                    + "(user_id, balance, reserved_balance, version) VALUES (?, ?, 0, 0)")) {
+                for (long added = 0; added < wallets - existing; added++) {
+                    insert.setLong(1, nextId++);
+                    insert.setBigDecimal(2, BigDecimal.valueOf(random.nextLong(0, 1_000_000), 2));
+                    insert.addBatch();
+                    if ((added + 1) % SEED_BATCH == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+        }
+    }
+
+    /**
+     * Credits of a random sample of wallets, each as addMoney writes it, on the given number of threads.
+     */
+    private static double perWallet(HikariDataSource dataSource, int threads) throws Exception {
+        long maxId;
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(user_id) FROM wallets")) {
+            rs.next();
+            maxId = rs.getLong(1);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                try (Connection connection = dataSource.getConnection()) {
+                    connection.setAutoCommit(false);
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < PER_WALLET_SAMPLE / threads; i++) {
+                        creditOne(connection, random.nextLong(1, maxId + 1));
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        return (PER_WALLET_SAMPLE / threads) * threads / seconds;
+    }
+
+    private static void creditOne(Connection connection, long userId) throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long transactionId;
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO wallet_transactions (receiver, "
+                + "owner_user_id, amount, type, status, description, transaction_time, reference_id) "
+                + "VALUES (?, ?, 0, 'CREDIT', 'PENDING', 'Benchmark interest', ?, 'BENCH')",
+                Statement.RETURN_GENERATED_KEYS)) {
+            insert.setLong(1, userId);
+            insert.setLong(2, userId);
+            insert.setTimestamp(3, now);
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                transactionId = keys.getLong(1);
+            }
+        }
+        connection.commit();
+        try (PreparedStatement processing = connection.prepareStatement(
+                "UPDATE wallet_transactions SET status = 'PROCESSING' WHERE id = ? AND status = 'PENDING'")) {
+            processing.setLong(1, transactionId);
+            processing.executeUpdate();
+        }
+        connection.commit();
+
+        BigDecimal balance;
+        long version;
+        try (PreparedStatement load = connection.prepareStatement(
+                "SELECT balance, version FROM wallets WHERE user_id = ?")) {
+            load.setLong(1, userId);
+            try (ResultSet rs = load.executeQuery()) {
+                if (!rs.next()) {
+                    connection.rollback();
+                    return;
+                }
+                balance = rs.getBigDecimal(1);
+                version = rs.getLong(2);
+            }
+        }
+        BigDecimal credit = balance.multiply(RATE).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal after = balance.add(credit);
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE wallets SET balance = ?, version = ? WHERE user_id = ? AND version = ?")) {
+            update.setBigDecimal(1, after);
+            update.setLong(2, version + 1);
+            update.setLong(3, userId);
+            update.setLong(4, version);
+            update.executeUpdate();
+        }
+        try (PreparedStatement complete = connection.prepareStatement("UPDATE wallet_transactions SET amount = ?, "
+                + "status = 'SUCCESS', balance_after_transaction = ?, completed_time = ? WHERE id = ? "
+                + "AND status IN ('PENDING', 'PROCESSING')")) {
+            complete.setBigDecimal(1, credit);
+            complete.setBigDecimal(2, after);
+            complete.setTimestamp(3, now);
+            complete.setLong(4, transactionId);
+            complete.executeUpdate();
+        }
+        try (PreparedStatement outbox = connection.prepareStatement("INSERT INTO wallet_outbox (wallet_id, "
+                + "transaction_id, reference_id, transaction_type, status, amount, balance_after_transaction, "
+                + "created_at) VALUES (?, ?, 'BENCH', 'CREDIT', 'SUCCESS', ?, ?, ?)")) {
+            outbox.setLong(1, userId);
+            outbox.setLong(2, transactionId);
+            outbox.setBigDecimal(3, credit);
+            outbox.setBigDecimal(4, after);
+            outbox.setTimestamp(5, now);
+            outbox.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    private static BigDecimal sumBalances(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(balance), 0) FROM wallets", BigDecimal.class);
+    }
+}
@@ -0,0 +1,72 @@
+package com.wallet.archive;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.WalletTransaction;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Latency of an owner lookup in an archive segment as the segment grows; it should stay flat.
+ * Run with (after mvn -Pbench test-compile): java -cp target/classes:target/bench-classes com.wallet.archive.ArchiveSegmentBenchmark [rowsPerOwner] [groupSize]
+ */
+public class ArchiveSegmentBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rowsPerOwner = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int groupSize = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        Path directory = Files.createTempDirectory("archive-bench");
+        for (int rows : new int[]{100_000, 1_000_000, 4_000_000}) {
+            Path path = directory.resolve("ledger-" + rows + ".seg");
+            int owners = rows / rowsPerOwner;
+            long start = System.nanoTime();
+            try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(path, groupSize)) {
+                long id = 0;
+                for (long owner = 0; owner < owners; owner++) {
+                    for (int i = 0; i < rowsPerOwner; i++) {
+                        WalletTransaction row = transaction(++id, owner, -i);
+                        row.setDescription("Transfer to user " + (owner + i));
+                        writer.append(row);
+                    }
+                }
+                writer.finish();
+            }
+            long writeMillis = (System.nanoTime() - start) / 1_000_000;
+
+            ArchiveSegment segment = ArchiveSegment.open(path);
+            Random random = new Random(42);
+            for (int i = 0; i < 20_000; i++) {
+                segment.findByOwner(random.nextInt(owners));
+            }
+            long[] latencies = new long[50_000];
+            for (int i = 0; i < latencies.length; i++) {
+                long owner = random.nextInt(owners);
+                long t = System.nanoTime();
+                segment.findByOwner(owner);
+                latencies[i] = System.nanoTime() - t;
+            }
+            Arrays.sort(latencies);
+            System.out.printf("rows=%,d file=%,d KB write=%d ms lookup p50=%.1f us p99=%.1f us%n", rows,
+                    Files.size(path) >> 10, writeMillis, latencies[latencies.length / 2] / 1e3,
+                    latencies[latencies.length * 99 / 100] / 1e3);
+        }
+    }
+
+    private static WalletTransaction transaction(long id, long owner, int hoursFromStart) {
+        WalletTransaction transaction = new WalletTransaction();
+        transaction.setId(id);
+        transaction.setOwnerUserId(owner);
+        transaction.setAmount(new BigDecimal("12.50"));
+        transaction.setType(TransactionType.TRANSFER_SENT);
+        transaction.setStatus(TransactionStatus.SUCCESS);
+        transaction.setBalanceAfterTransaction(new BigDecimal("100.00"));
+        transaction.setTransactionTime(LocalDateTime.of(2026, 1, 1, 0, 0).plusHours(hoursFromStart));
+        return transaction;
+    }
+}
@@ -0,0 +1,116 @@
+package com.wallet.engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transfer throughput of the in-memory engine with a real fsynced journal and a no-op projection.
+ * Each client keeps a window of transfers in flight, like concurrent HTTP requests do.
+ * After the run the engine is restarted from disk and total money is checked to be unchanged.
+ * Run with (after mvn -Pbench test-compile): java -cp target/classes:target/bench-classes com.wallet.engine.BalanceEngineBenchmark [clients] [transfers] [accounts]
+ */
+public class BalanceEngineBenchmark {
+
+    private static final long INITIAL_BALANCE = 1_000_000;
+    private static final int WINDOW = 256;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int transfersPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 250_000;
+        int accounts = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        Path directory = Files.createTempDirectory("engine-bench");
+
+        BalanceEngine engine = newEngine(directory, accounts);
+        engine.start();
+
+        AtomicLong declined = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<CompletableFuture<LedgerEvent>> window = new ArrayList<>(WINDOW);
+                for (int i = 0; i < transfersPerClient; i++) {
+                    long from = random.nextInt(accounts) + 1;
+                    long to = random.nextInt(accounts) + 1;
+                    window.add(engine.transfer(from, to, random.nextInt(1, 500), null, null));
+                    if (window.size() == WINDOW) {
+                        drain(window, declined);
+                    }
+                }
+                drain(window, declined);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long transfers = (long) clients * transfersPerClient;
+        System.out.printf("clients=%d transfers=%,d declined=%,d transfers/s=%,.0f%n",
+                clients, transfers, declined.get(), transfers / seconds);
+
+        long before = total(engine, accounts);
+        engine.stop();
+
+        long recoveryStart = System.nanoTime();
+        BalanceEngine restarted = newEngine(directory, accounts);
+        restarted.start();
+        System.out.printf("recovered in %.0f ms at seq %,d%n",
+                (System.nanoTime() - recoveryStart) / 1e6, restarted.durableSeq());
+        long after = total(restarted, accounts);
+        restarted.stop();
+        System.out.printf("total before=%,d after=%,d expected=%,d%n", before, after, accounts * INITIAL_BALANCE);
+        if (before != after || after != accounts * INITIAL_BALANCE) {
+            throw new IllegalStateException("Money was created or lost");
+        }
+        deleteRecursively(directory);
+    }
+
+    private static BalanceEngine newEngine(Path directory, int accounts) {
+        LedgerProjection noOp = new LedgerProjection() {
+            private volatile long seq;
+
+            @Override
+            public long projectedSeq() {
+                return seq;
+            }
+
+            @Override
+            public void project(List<LedgerEvent> events) {
+                seq = events.get(events.size() - 1).getSeq();
+            }
+        };
+        return new BalanceEngine(directory, noOp,
+                userId -> userId >= 1 && userId <= accounts ? INITIAL_BALANCE : null,
+                1 << 16, 2_000_000, accounts);
+    }
+
+    private static void drain(List<CompletableFuture<LedgerEvent>> window, AtomicLong declined) {
+        for (CompletableFuture<LedgerEvent> result : window) {
+            if (result.join().getStatus() == LedgerEvent.Status.DECLINED) {
+                declined.incrementAndGet();
+            }
+        }
+        window.clear();
+    }
+
+    private static long total(BalanceEngine engine, int accounts) {
+        long total = 0;
+        for (long userId = 1; userId <= accounts; userId++) {
+            total += engine.balance(userId).join().getBalanceAfter();
+        }
+        return total;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (var paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.wallet.fx;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Conversions per second of the transfer path's rate lookup, on all threads at once while the rates
+ * are reloaded every millisecond: the {@link FxRates} snapshot swapped through an AtomicReference,
+ * against one shared rate map behind a read-write lock that divides out the cross rate per conversion.
+ * End-to-end transfer throughput with conversions is measured with the load test's fx_transfer mix.
+ * Run with (after mvn -Pbench test-compile): java -cp target/classes:target/bench-classes com.wallet.fx.FxConversionBenchmark [threads] [seconds]
+ */
+public class FxConversionBenchmark {
+
+    private static final String[] CURRENCIES = {"INR", "USD", "EUR", "GBP", "JPY", "AED", "SGD", "CHF"};
+    private static final BigDecimal[] AMOUNTS = {new BigDecimal("12.00"), new BigDecimal("999.00"),
+            new BigDecimal("1.00"), new BigDecimal("25000.00")};
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        AtomicReference<FxRates> snapshot = new AtomicReference<>(new FxRates("INR", rates(0), Instant.now()));
+        run("snapshot", threads, seconds,
+                tick -> snapshot.set(new FxRates("INR", rates(tick), Instant.now())),
+                (amount, from, to) -> snapshot.get().convert(amount, from, to).amount());
+
+        LockedRates locked = new LockedRates(rates(0));
+        run("read-write lock", threads, seconds, tick -> locked.replace(rates(tick)), locked::convert);
+    }
+
+    private interface Converter {
+        BigDecimal convert(BigDecimal amount, String from, String to);
+    }
+
+    private interface Reload {
+        void reload(long tick);
+    }
+
+    private static void run(String name, int threads, int seconds, Reload reload, Converter converter)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder conversions = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long durationNanos = TimeUnit.SECONDS.toNanos(seconds);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            new Thread(() -> {
+                long local = 0;
+                int i = seed;
+                BigDecimal sink = BigDecimal.ZERO;
+                while (System.nanoTime() - start < durationNanos) {
+                    for (int j = 0; j < 1_000; j++, i++) {
+                        sink = converter.convert(AMOUNTS[i & 3], CURRENCIES[i & 7], CURRENCIES[(i >>> 3) & 7]);
+                    }
+                    local += 1_000;
+                }
+                conversions.add(local + (sink.signum() > 1 ? 1 : 0));
+                done.countDown();
+            }).start();
+        }
+        Thread reloader = new Thread(() -> {
+            long tick = 0;
+            while (running.get()) {
+                reload.reload(++tick);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        reloader.start();
+        done.await();
+        running.set(false);
+        reloader.join();
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-16s threads=%d conversions/s=%,.0f ns/conversion/thread=%.1f%n", name, threads,
+                conversions.sum() / elapsed, elapsed * 1e9 * threads / conversions.sum());
+    }
+
+    /**
+     * Rates that move a little with every reload, so each swap installs a different table.
+     */
+    private static Map<String, BigDecimal> rates(long tick) {
+        BigDecimal drift = BigDecimal.valueOf(tick % 100, 4);
+        Map<String, BigDecimal> rates = new HashMap<>();
+        rates.put("USD", new BigDecimal("83.1200").add(drift));
+        rates.put("EUR", new BigDecimal("90.4500").add(drift));
+        rates.put("GBP", new BigDecimal("105.7000").add(drift));
+        rates.put("JPY", new BigDecimal("0.5600").add(drift));
+        rates.put("AED", new BigDecimal("22.6300").add(drift));
+        rates.put("SGD", new BigDecimal("61.9000").add(drift));
+        rates.put("CHF", new BigDecimal("94.2000").add(drift));
+        return rates;
+    }
+
+    /**
+     * The shape the snapshot replaces: a shared table updated in place, so readers take a lock and
+     * derive the cross rate themselves.
+     */
+    private static final class LockedRates {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, BigDecimal> rates = new HashMap<>();
+
+        LockedRates(Map<String, BigDecimal> initial) {
+            replace(initial);
+        }
+
+        void replace(Map<String, BigDecimal> updated) {
+            lock.writeLock().lock();
+            try {
+                rates.clear();
+                rates.put("INR", BigDecimal.ONE);
+                rates.putAll(updated);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        BigDecimal convert(BigDecimal amount, String from, String to) {
+            BigDecimal rate;
+            lock.readLock().lock();
+            try {
+                rate = rates.get(from).divide(rates.get(to), MathContext.DECIMAL128)
+                        .setScale(FxRates.RATE_SCALE, RoundingMode.HALF_EVEN);
+            } finally {
+                lock.readLock().unlock();
+            }
+            return amount.multiply(rate).setScale(to.equals("JPY") ? 0 : 2, RoundingMode.HALF_EVEN);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.wallet.journal;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rows touched, commits, redo log bytes and stored bytes per successful transfer, for the two-row
+ * ledger (wallet_transactions) and the double-entry journal (journal_entries + postings). Replays the
+ * statements WalletService issues for each; the wallet updates and outbox rows are the same in both
+ * and left out.
+ * <p>
+ * Needs a MySQL schema the application has created its tables in, and an otherwise idle server
+ * (redo bytes are a global counter). Its own rows are deleted afterwards.
+ * Run with (after mvn -Pbench test-compile): java -cp target/classes:target/bench-classes:mysql-connector-j.jar
+ * com.wallet.journal.LedgerWriteBenchmark jdbc:mysql://localhost:3306/wallet user password [transfers]
+ */
+public class LedgerWriteBenchmark {
+
+    private static final long FIRST_USER = 1_000_000_000L;
+
+    public static void main(String[] args) throws SQLException {
+        int transfers = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2])) {
+            connection.setAutoCommit(false);
+            measure(connection, "wallet_transactions", transfers, LedgerWriteBenchmark::rowsTransfer,
+                    "DELETE FROM wallet_transactions WHERE owner_user_id >= " + FIRST_USER);
+            measure(connection, "journal_entries+postings", transfers, LedgerWriteBenchmark::journalTransfer,
+                    "DELETE FROM postings WHERE wallet_user_id >= " + FIRST_USER,
+                    "DELETE FROM journal_entries WHERE from_user_id >= " + FIRST_USER);
+        }
+    }
+
+    private interface Transfer {
+        /**
+         * @return rows inserted or updated.
+         */
+        int run(Connection connection, long from, long to) throws SQLException;
+    }
+
+    private static void measure(Connection connection, String name, int transfers, Transfer transfer,
+                                String... cleanup) throws SQLException {
+        long storedBefore = storedBytes(connection);
+        long redoBefore = redoBytes(connection);
+        long commitsBefore = commits(connection);
+        long rows = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < transfers; i++) {
+            long from = FIRST_USER + (i * 2L) % 10_000;
+            rows += transfer.run(connection, from, from + 1);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long redo = redoBytes(connection) - redoBefore;
+        long commits = commits(connection) - commitsBefore;
+        long stored = storedBytes(connection) - storedBefore;
+        System.out.printf("%-26s rows/transfer=%.1f commits/transfer=%.1f redo bytes/transfer=%,d "
+                        + "stored bytes/transfer=%,d transfers/s=%,.0f%n", name, (double) rows / transfers,
+                (double) commits / transfers, redo / transfers, stored / transfers, transfers / seconds);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : cleanup) {
+                statement.executeUpdate(sql);
+            }
+        }
+        connection.commit();
+    }
+
+    // PENDING insert of both rows, PENDING -> PROCESSING, then SUCCESS with the balance on each row
+    private static int rowsTransfer(Connection connection, long from, long to) throws SQLException {
+        int rows = 0;
+        List<Long> ids = new ArrayList<>(2);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO wallet_transactions (amount, "
+                + "balance_after_transaction, completed_time, description, failure_reason, owner_user_id, receiver, "
+                + "reference_id, sender, status, transaction_time, type) VALUES (?, NULL, NULL, ?, NULL, ?, ?, ?, ?, "
+                + "'PENDING', ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            for (boolean sent : new boolean[]{true, false}) {
+                insert.setBigDecimal(1, new BigDecimal("25.00"));
+                insert.setString(2, sent ? "Transfer to user " + to : "Transfer from user " + from);
+                insert.setLong(3, sent ? from : to);
+                insert.setLong(4, to);
+                insert.setString(5, referenceId());
+                insert.setLong(6, from);
+                insert.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
+                insert.setString(8, sent ? "TRANSFER_SENT" : "TRANSFER_RECEIVED");
+                rows += insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    ids.add(keys.getLong(1));
+                }
+            }
+        }
+        connection.commit();
+        try (PreparedStatement processing = connection.prepareStatement("UPDATE wallet_transactions SET status = "
+                + "'PROCESSING' WHERE id IN (?, ?) AND status = 'PENDING'")) {
+            processing.setLong(1, ids.get(0));
+            processing.setLong(2, ids.get(1));
+            rows += processing.executeUpdate();
+        }
+        connection.commit();
+        try (PreparedStatement complete = connection.prepareStatement("UPDATE wallet_transactions SET status = "
+                + "'SUCCESS', balance_after_transaction = ?, failure_reason = NULL, completed_time = ? WHERE id = ? "
+                + "AND status IN ('PENDING', 'PROCESSING')")) {
+            for (Long id : ids) {
+                complete.setBigDecimal(1, new BigDecimal("975.00"));
+                complete.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                complete.setLong(3, id);
+                rows += complete.executeUpdate();
+            }
+        }
+        connection.commit();
+        return rows;
+    }
+
+    // PENDING entry, then PENDING -> SUCCESS and both postings in the balance transaction
+    private static int journalTransfer(Connection connection, long from, long to) throws SQLException {
+        int rows;
+        long id;
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO journal_entries (amount, "
+                + "completed_time, created_time, description, failure_reason, from_user_id, reference_id, status, "
+                + "to_user_id) VALUES (?, NULL, ?, NULL, NULL, ?, ?, 'PENDING', ?)", Statement.RETURN_GENERATED_KEYS)) {
+            insert.setBigDecimal(1, new BigDecimal("25.00"));
+            insert.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            insert.setLong(3, from);
+            insert.setString(4, referenceId());
+            insert.setLong(5, to);
+            rows = insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                id = keys.getLong(1);
+            }
+        }
+        connection.commit();
+        try (PreparedStatement complete = connection.prepareStatement("UPDATE journal_entries SET status = 'SUCCESS', "
+                + "failure_reason = NULL, completed_time = ? WHERE id = ? AND status = 'PENDING'");
+             PreparedStatement posting = connection.prepareStatement("INSERT INTO postings (amount, balance_after, "
+                     + "journal_id, wallet_user_id) VALUES (?, ?, ?, ?)")) {
+            complete.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            complete.setLong(2, id);
+            rows += complete.executeUpdate();
+            for (boolean sent : new boolean[]{true, false}) {
+                posting.setBigDecimal(1, new BigDecimal(sent ? "-25.00" : "25.00"));
+                posting.setBigDecimal(2, new BigDecimal(sent ? "975.00" : "1025.00"));
+                posting.setLong(3, id);
+                posting.setLong(4, sent ? from : to);
+                rows += posting.executeUpdate();
+            }
+        }
+        connection.commit();
+        return rows;
+    }
+
+    private static String referenceId() {
+        return "TXN-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private static long redoBytes(Connection connection) throws SQLException {
+        return globalStatus(connection, "Innodb_os_log_written");
+    }
+
+    private static long commits(Connection connection) throws SQLException {
+        return globalStatus(connection, "Com_commit");
+    }
+
+    private static long globalStatus(Connection connection, String name) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SHOW GLOBAL STATUS LIKE '" + name + "'")) {
+            result.next();
+            return result.getLong(2);
+        }
+    }
+
+    // Data and index pages of the tables involved; page granular, so use enough transfers
+    private static long storedBytes(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE wallet_transactions, journal_entries, postings");
+            try (ResultSet result = statement.executeQuery("SELECT SUM(data_length + index_length) "
+                    + "FROM information_schema.tables WHERE table_schema = DATABASE() "
+                    + "AND table_name IN ('wallet_transactions', 'journal_entries', 'postings')")) {
+                result.next();
+                return result.getLong(1);
+            }
+        }
+    }
+}
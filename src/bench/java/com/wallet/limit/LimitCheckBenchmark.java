@@ -0,0 +1,63 @@
+package com.wallet.limit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost of a limit check (check and add) with millions of tracked users, plus the heap they take.
+ * Run with (after mvn -Pbench test-compile): java -Xmx4g -cp target/classes:target/bench-classes com.wallet.limit.LimitCheckBenchmark [users] [threads]
+ */
+public class LimitCheckBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long durationNanos = TimeUnit.SECONDS.toNanos(5);
+
+        long heapBefore = usedHeap();
+        SlidingWindowCounters counters = new SlidingWindowCounters(users, 64);
+        SlidingWindowCounters.Limits limits = new SlidingWindowCounters.Limits(Long.MAX_VALUE >> 20, 1_000_000, Long.MAX_VALUE >> 20);
+        long now = System.currentTimeMillis();
+        for (int user = 0; user < users; user++) {
+            counters.tryAdd(user, 100, now, limits);
+        }
+        System.out.printf("users=%,d heap=%,d MB (%d bytes/user)%n", counters.size(),
+                (usedHeap() - heapBefore) >> 20, (usedHeap() - heapBefore) / users);
+
+        LongAdder checks = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            new Thread(() -> {
+                long x = seed * 0x9E3779B97F4A7C15L + 1;
+                long local = 0;
+                while (System.nanoTime() - start < durationNanos) {
+                    long millis = System.currentTimeMillis();
+                    for (int j = 0; j < 1_000; j++) {
+                        // xorshift: random users, so most checks miss the CPU caches as they would in production
+                        x ^= x << 13;
+                        x ^= x >>> 7;
+                        x ^= x << 17;
+                        counters.tryAdd((x & Long.MAX_VALUE) % users, 1, millis, limits);
+                    }
+                    local += 1_000;
+                }
+                checks.add(local);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("threads=%d checks/s=%,.0f ns/check/thread=%.1f%n",
+                threads, checks.sum() / seconds, seconds * 1e9 * threads / checks.sum());
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,174 @@
+package com.wallet.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of simulated transfer requests, each doing some balance arithmetic and the
+ * logging of the transfer path, with:
+ * <ul>
+ *     <li>the previous logging: initiation and completion at INFO with amounts and balances, written
+ *     synchronously to the appender;</li>
+ *     <li>every completion as a key-value line through the async appender;</li>
+ *     <li>the default: async, with successes sampled at 10%;</li>
+ *     <li>logging off.</li>
+ * </ul>
+ * Lines go to a temporary file with the pattern of logback-spring.xml, the file is deleted afterwards.
+ * Run with (after mvn -Pbench test-compile): java -cp target/classes:target/bench-classes:&lt;dependencies&gt;
+ * com.wallet.logging.LoggingThroughputBenchmark [threads] [seconds per mode]
+ */
+public class LoggingThroughputBenchmark {
+
+    private static final String PATTERN =
+            "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p 4242 --- [%15.15t] %-40.40logger{39} : %m %kvp%n";
+    private static final int SAMPLES_PER_THREAD = 1 << 20;
+
+    private interface Request {
+        void handle(long from, long to, BigDecimal amount, BigDecimal fromBalance, BigDecimal toBalance);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 2;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        File file = File.createTempFile("wallet-logging-benchmark", ".log");
+        try {
+            Logger serviceLog = LoggerFactory.getLogger("com.wallet.service.WalletService");
+            Request previous = (from, to, amount, fromBalance, toBalance) -> {
+                serviceLog.info("Initiating transfer of {} from {} to {}", amount, from, to);
+                BigDecimal[] after = work(amount, fromBalance, toBalance);
+                serviceLog.info("Transfer completed from {} to {}. Sender balance: {}, Receiver balance: {}",
+                        from, to, after[0], after[1]);
+                consume(after);
+            };
+            OperationLog everyLine = new OperationLog(new LogSampler(1, Map.of()));
+            OperationLog sampled = new OperationLog(0.1, "balance:0.01,history:0.01");
+            run("sync, every line (previous)", previous, file, false, Level.INFO, threads, seconds);
+            run("async, every line", structured(everyLine), file, true, Level.INFO, threads, seconds);
+            run("async, sampled (default)", structured(sampled), file, true, Level.INFO, threads, seconds);
+            run("off", structured(sampled), file, true, Level.OFF, threads, seconds);
+        } finally {
+            ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+            file.delete();
+        }
+    }
+
+    private static Request structured(OperationLog operationLog) {
+        return (from, to, amount, fromBalance, toBalance) -> {
+            long start = System.nanoTime();
+            BigDecimal[] after = work(amount, fromBalance, toBalance);
+            operationLog.completed("transfer", from, to, "TXN-" + Long.toHexString(start & 0xFFFFFFFFL), start);
+            consume(after);
+        };
+    }
+
+    private static volatile long sink;
+
+    // Keeps the arithmetic from being optimized away
+    private static void consume(BigDecimal[] balances) {
+        sink += balances[0].unscaledValue().longValue() ^ balances[1].unscaledValue().longValue();
+    }
+
+    // Stand-in for the request's own work: the balance arithmetic of a transfer
+    private static BigDecimal[] work(BigDecimal amount, BigDecimal fromBalance, BigDecimal toBalance) {
+        BigDecimal fee = amount.multiply(new BigDecimal("0.0025")).setScale(2, RoundingMode.HALF_EVEN);
+        return new BigDecimal[]{fromBalance.subtract(amount).subtract(fee), toBalance.add(amount)};
+    }
+
+    private static void run(String name, Request request, File file, boolean async, Level level, int threads,
+                            int seconds) throws InterruptedException {
+        Appender<ILoggingEvent> appender = configure(file, async, level);
+        long[][] latencies = new long[threads][SAMPLES_PER_THREAD];
+        int[] counts = new int[threads];
+        long[] requests = new long[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long handled = 0;
+                while (System.nanoTime() < end) {
+                    BigDecimal amount = BigDecimal.valueOf(random.nextLong(100, 100_000), 2);
+                    BigDecimal fromBalance = BigDecimal.valueOf(random.nextLong(100_000, 10_000_000), 2);
+                    BigDecimal toBalance = BigDecimal.valueOf(random.nextLong(0, 10_000_000), 2);
+                    long before = System.nanoTime();
+                    request.handle(random.nextLong(1, 1_000_000), random.nextLong(1, 1_000_000), amount,
+                            fromBalance, toBalance);
+                    if (counts[thread] < SAMPLES_PER_THREAD) {
+                        latencies[thread][counts[thread]++] = System.nanoTime() - before;
+                    }
+                    handled++;
+                }
+                requests[thread] = handled;
+                done.countDown();
+            }, "request-" + t).start();
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        appender.stop();
+
+        long total = Arrays.stream(requests).sum();
+        long[] all = new long[Arrays.stream(counts).sum()];
+        int position = 0;
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(latencies[t], 0, all, position, counts[t]);
+            position += counts[t];
+        }
+        Arrays.sort(all);
+        System.out.printf("%-29s %,12.0f req/s  p50=%,6d ns  p99=%,8d ns  p99.9=%,9d ns  log=%,d KB%n", name,
+                total / elapsed, all[all.length / 2], all[(int) (all.length * 0.99)],
+                all[(int) (all.length * 0.999)], file.length() >> 10);
+    }
+
+    private static Appender<ILoggingEvent> configure(File file, boolean async, Level level) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        ch.qos.logback.classic.Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.setLevel(level);
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setName("FILE");
+        fileAppender.setFile(file.getPath());
+        fileAppender.setAppend(false);
+        fileAppender.setEncoder(encoder);
+        fileAppender.start();
+        if (!async) {
+            root.addAppender(fileAppender);
+            return fileAppender;
+        }
+        // Same settings as logback-spring.xml
+        AsyncAppender asyncAppender = new AsyncAppender();
+        asyncAppender.setContext(context);
+        asyncAppender.setName("ASYNC");
+        asyncAppender.setQueueSize(8192);
+        asyncAppender.setDiscardingThreshold(1638);
+        asyncAppender.setIncludeCallerData(false);
+        asyncAppender.setMaxFlushTime(2000);
+        asyncAppender.addAppender(fileAppender);
+        asyncAppender.start();
+        root.addAppender(asyncAppender);
+        return asyncAppender;
+    }
+}
@@ -0,0 +1,108 @@
+package com.wallet.onboarding;
+
+import com.wallet.dto.BulkOnboardingReport;
+import com.wallet.dto.CreateUserRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Onboarding 100k users: the way UserService.createUser does it, one user at a time (email check,
+ * user insert, wallet insert, one BCrypt hash and one commit per user), against
+ * {@link BulkOnboardingService}. The serial path takes hours at this size, so it runs on a sample and
+ * is extrapolated. The bulk import is then repeated with the same emails, which reports every row as
+ * DUPLICATE_EMAIL.
+ * <p>
+ * Needs a MySQL schema the application has created its tables in. Its own users and wallets are
+ * deleted afterwards.
+ * Run with (after mvn -Pbench test-compile): java -cp target/classes:target/bench-classes:&lt;dependencies&gt;
+ * com.wallet.onboarding.BulkOnboardingBenchmark jdbc:mysql://localhost:3306/wallet user password [users] [serial sample]
+ */
+public class BulkOnboardingBenchmark {
+
+    private static final String EMAIL_PREFIX = "bench-onboard-";
+
+    public static void main(String[] args) throws SQLException {
+        int users = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+        int sample = args.length > 4 ? Integer.parseInt(args[4]) : 1_000;
+        String url = args[0].contains("rewriteBatchedStatements") ? args[0]
+                : args[0] + (args[0].contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, args[1], args[2]);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        PasswordEncoder encoder = new BCryptPasswordEncoder();
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        try {
+            double serialMillis = serial(dataSource.getConnection(), encoder, run, sample);
+            System.out.printf("serial:     %,d users in %,.0f ms -> %,.1f s per 100k users%n",
+                    sample, serialMillis, serialMillis / sample * 100_000 / 1000);
+
+            BulkOnboardingService service = new BulkOnboardingService(jdbcTemplate,
+                    new DataSourceTransactionManager(dataSource), encoder, new SimpleMeterRegistry(), 0, 1000, users);
+            List<CreateUserRequest> rows = new ArrayList<>(users);
+            for (int i = 0; i < users; i++) {
+                rows.add(new CreateUserRequest("User " + i, EMAIL_PREFIX + run + "-b" + i + "@example.com",
+                        "password-" + i));
+            }
+            report("bulk", service.onboard(rows), users);
+            report("duplicates", service.onboard(rows), users);
+            service.shutdown();
+        } finally {
+            jdbcTemplate.update("DELETE w FROM wallets w JOIN users u ON u.id = w.user_id WHERE u.email_id LIKE ?",
+                    EMAIL_PREFIX + run + "-%");
+            jdbcTemplate.update("DELETE FROM users WHERE email_id LIKE ?", EMAIL_PREFIX + run + "-%");
+        }
+    }
+
+    private static void report(String name, BulkOnboardingReport report, int users) {
+        System.out.printf("%-11s %,d users in %,d ms -> %,.1f s per 100k users; created=%,d failures=%,d%n",
+                name + ":", users, report.getElapsedMillis(), report.getElapsedMillis() / (double) users * 100,
+                report.getCreated(), report.getFailures().size());
+    }
+
+    // The statements createUser issues through JPA, one transaction per user
+    private static double serial(Connection connection, PasswordEncoder encoder, String run, int sample)
+            throws SQLException {
+        try (connection;
+             PreparedStatement find = connection.prepareStatement("SELECT id FROM users WHERE email_id = ?");
+             PreparedStatement user = connection.prepareStatement("INSERT INTO users (name, email_id, password, role) "
+                     + "VALUES (?, ?, ?, 'USER')", Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement wallet = connection.prepareStatement("INSERT INTO wallets (user_id, balance, "
+                     + "reserved_balance, version) VALUES (?, 0, 0, 0)")) {
+            connection.setAutoCommit(false);
+            long start = System.nanoTime();
+            for (int i = 0; i < sample; i++) {
+                String email = EMAIL_PREFIX + run + "-s" + i + "@example.com";
+                find.setString(1, email);
+                try (ResultSet existing = find.executeQuery()) {
+                    if (existing.next()) {
+                        throw new IllegalStateException("User already exists with the email");
+                    }
+                }
+                user.setString(1, "User " + i);
+                user.setString(2, email);
+                user.setString(3, encoder.encode("password-" + i));
+                user.executeUpdate();
+                long id;
+                try (ResultSet keys = user.getGeneratedKeys()) {
+                    keys.next();
+                    id = keys.getLong(1);
+                }
+                wallet.setLong(1, id);
+                wallet.executeUpdate();
+                connection.commit();
+            }
+            return (System.nanoTime() - start) / 1e6;
+        }
+    }
+}
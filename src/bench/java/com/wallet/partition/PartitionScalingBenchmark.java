@@ -0,0 +1,78 @@
+package com.wallet.partition;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Uniform credit traffic against a running cluster, sent straight to each wallet's owner.
+ * Start 1, 2 and 4 nodes (see application-partition.properties) and run once per cluster size;
+ * throughput should grow close to linearly because no two nodes write the same wallet rows.
+ * Wallets 1..users must exist. Set WALLET_AUTH to an Authorization header value if needed.
+ * Run with (after mvn -Pbench test-compile): java -cp target/classes:target/bench-classes com.wallet.partition.PartitionScalingBenchmark users threads seconds node1=url node2=url ...
+ */
+public class PartitionScalingBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int users = Integer.parseInt(args[0]);
+        int threads = Integer.parseInt(args[1]);
+        int seconds = Integer.parseInt(args[2]);
+        Map<String, String> nodes = new TreeMap<>();
+        for (int i = 3; i < args.length; i++) {
+            String[] node = args[i].split("=", 2);
+            nodes.put(node[0], node[1]);
+        }
+        HashRing ring = new HashRing(nodes);
+        String authorization = System.getenv("WALLET_AUTH");
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+        LongAdder ok = new LongAdder();
+        LongAdder errors = new LongAdder();
+        Map<String, LongAdder> perNode = new ConcurrentHashMap<>();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    long userId = random.nextLong(1, users + 1);
+                    String owner = ring.ownerOf(userId);
+                    HttpRequest.Builder request = HttpRequest.newBuilder(
+                                    URI.create(ring.urlOf(owner) + "/api/wallet/" + userId + "/add"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"amount\":1.00,\"description\":\"bench\"}"));
+                    if (authorization != null) {
+                        request.header("Authorization", authorization);
+                    }
+                    try {
+                        HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            ok.increment();
+                            perNode.computeIfAbsent(owner, n -> new LongAdder()).increment();
+                        } else {
+                            errors.increment();
+                        }
+                    } catch (Exception e) {
+                        errors.increment();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("nodes=%d threads=%d credits/s=%,.0f errors=%d%n",
+                nodes.size(), threads, ok.sum() / elapsed, errors.sum());
+        perNode.forEach((node, count) -> System.out.printf("  %s: %,.0f/s%n", node, count.sum() / elapsed));
+    }
+}
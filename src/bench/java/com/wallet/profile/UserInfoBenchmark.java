@@ -0,0 +1,110 @@
+package com.wallet.profile;
+
+import com.wallet.dto.UserProfile;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one /api/users/{id}/info lookup, without the HTTP layer: the full User row as findById
+ * loaded it, the profile projection, and the projection behind {@link UserProfileCache}. User ids
+ * follow a skewed distribution (a quarter of the users get most of the reads), so the cache hit ratio
+ * is printed too.
+ * <p>
+ * Without arguments only the cache is measured, with an in-memory loader. With a MySQL schema the
+ * application has created its tables in, the queries run against its existing users.
+ * Run with (after mvn -Pbench test-compile): java -cp target/classes:target/bench-classes[:mysql-connector-j.jar]
+ * com.wallet.profile.UserInfoBenchmark [jdbc:mysql://localhost:3306/wallet user password] [lookups]
+ */
+public class UserInfoBenchmark {
+
+    private interface Loader {
+        UserProfile load(long id) throws SQLException;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        int lookups = args.length == 1 ? Integer.parseInt(args[0]) : args.length > 3 ? Integer.parseInt(args[3]) : 200_000;
+        if (args.length < 3) {
+            long users = 100_000;
+            UserProfileCache cache = cache(users);
+            run("cache (memory loader)", users, lookups, cached(id -> new UserProfile(id, "User " + id,
+                    id + "@example.com", "USER"), cache));
+            printHitRatio(cache);
+            return;
+        }
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2]);
+             PreparedStatement full = connection.prepareStatement(
+                     "SELECT id, name, email_id, password, role FROM users WHERE id = ?");
+             PreparedStatement projection = connection.prepareStatement(
+                     "SELECT id, name, email_id, role FROM users WHERE id = ?")) {
+            long users;
+            try (ResultSet max = connection.createStatement().executeQuery("SELECT MAX(id) FROM users")) {
+                max.next();
+                users = max.getLong(1);
+            }
+            if (users == 0) {
+                throw new IllegalStateException("No users to look up");
+            }
+            int queries = Math.min(lookups, 20_000);
+            run("full entity", users, queries, id -> query(full, id));
+            run("projection", users, queries, id -> query(projection, id));
+            UserProfileCache cache = cache(users);
+            run("cache + projection", users, lookups, cached(id -> query(projection, id), cache));
+            printHitRatio(cache);
+        }
+    }
+
+    private static UserProfileCache cache(long users) {
+        // Room for a tenth of the users, the default entry bound at a million users
+        return new UserProfileCache((int) Math.max(1, users / 10), 300, TimeUnit.SECONDS);
+    }
+
+    private static void printHitRatio(UserProfileCache cache) {
+        System.out.printf("%-22s hit ratio=%.3f entries=%,d%n", "", (double) cache.hits()
+                / (cache.hits() + cache.misses()), cache.size());
+    }
+
+    private static Loader cached(Loader loader, UserProfileCache cache) {
+        return id -> {
+            UserProfile profile = cache.get(id);
+            if (profile == null) {
+                long generation = cache.generation();
+                profile = loader.load(id);
+                if (profile != null) {
+                    cache.put(profile, generation);
+                }
+            }
+            return profile;
+        };
+    }
+
+    private static UserProfile query(PreparedStatement statement, long id) throws SQLException {
+        statement.setLong(1, id);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? new UserProfile(resultSet.getLong("id"), resultSet.getString("name"),
+                    resultSet.getString("email_id"), resultSet.getString("role")) : null;
+        }
+    }
+
+    private static void run(String name, long users, int lookups, Loader loader) throws SQLException {
+        SplittableRandom random = new SplittableRandom(42);
+        long hotUsers = Math.max(1, users / 4);
+        long[] nanos = new long[lookups];
+        for (int i = 0; i < lookups; i++) {
+            // 90% of reads go to the hottest quarter of users
+            long id = 1 + (random.nextInt(10) < 9 ? random.nextLong(hotUsers) : random.nextLong(users));
+            long start = System.nanoTime();
+            loader.load(id);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-22s lookups=%,d p50=%,d ns p99=%,d ns mean=%,.0f ns%n", name, lookups,
+                nanos[lookups / 2], nanos[(int) (lookups * 0.99)], Arrays.stream(nanos).average().orElse(0));
+    }
+}
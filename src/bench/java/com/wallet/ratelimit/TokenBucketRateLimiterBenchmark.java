@@ -0,0 +1,56 @@
+package com.wallet.ratelimit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput of limiter checks across cores.
+ * Run with (after mvn -Pbench test-compile): java -cp target/classes:target/bench-classes com.wallet.ratelimit.TokenBucketRateLimiterBenchmark [threads] [keys]
+ */
+public class TokenBucketRateLimiterBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int keyCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        long durationNanos = TimeUnit.SECONDS.toNanos(5);
+
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(keyCount * 2, 5, TimeUnit.MINUTES);
+        TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(20, 10);
+        String[] keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = i + ":transfer";
+        }
+
+        LongAdder checks = new LongAdder();
+        LongAdder admitted = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            Thread worker = new Thread(() -> {
+                int i = seed * 7919;
+                long local = 0;
+                long localAdmitted = 0;
+                while (System.nanoTime() - start < durationNanos) {
+                    for (int j = 0; j < 1_000; j++) {
+                        if (limiter.tryAcquire(keys[(i++ & Integer.MAX_VALUE) % keyCount], limit) == 0) {
+                            localAdmitted++;
+                        }
+                    }
+                    local += 1_000;
+                }
+                checks.add(local);
+                admitted.add(localAdmitted);
+                done.countDown();
+            });
+            worker.start();
+        }
+        done.await();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("threads=%d keys=%d checks/s=%,.0f ns/check/thread=%.1f admitted=%,d%n",
+                threads, keyCount, checks.sum() / seconds,
+                seconds * 1e9 * threads / checks.sum(), admitted.sum());
+    }
+}
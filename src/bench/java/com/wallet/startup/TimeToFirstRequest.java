@@ -0,0 +1,70 @@
+package com.wallet.startup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching the application to its first HTTP response, over several cold starts. Any
+ * status counts (an unauthenticated request gets 401/403), since what is measured is the server
+ * answering. The application's output goes to time-to-first-request.log.
+ * <p>
+ * Needs the database the application connects to. Before/after, from the project directory, after mvn -Pbench test-compile:
+ * java -cp target/bench-classes com.wallet.startup.TimeToFirstRequest 5 http://localhost:8080/api/users/1/info
+ * java -jar target/wallet-0.0.1-SNAPSHOT.jar
+ * and the same with the startup profile, AOT and the CDS archive (see application-startup.properties).
+ */
+public class TimeToFirstRequest {
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.parseInt(args[0]);
+        URI uri = URI.create(args[1]);
+        List<String> command = Arrays.asList(args).subList(2, args.length);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        File log = new File("time-to-first-request.log");
+
+        long[] millis = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+                    .start();
+            try {
+                int status = awaitFirstResponse(client, uri, process);
+                millis[run] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                System.out.printf("run %d: %,d ms (HTTP %d)%n", run + 1, millis[run], status);
+            } finally {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        }
+        Arrays.sort(millis);
+        System.out.printf("time to first request: min %,d ms, median %,d ms, max %,d ms%n",
+                millis[0], millis[runs / 2], millis[runs - 1]);
+    }
+
+    private static int awaitFirstResponse(HttpClient client, URI uri, Process process) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).GET().build();
+        while (true) {
+            try {
+                return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException notListening) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue()
+                            + " before answering; see time-to-first-request.log");
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -2,9 +2,9 @@ package com.wallet;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@EnableRetry
+@EnableScheduling
 @SpringBootApplication
 public class WalletApplication {
 
@@ -0,0 +1,282 @@
+package com.wallet.accrual;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Credits interest (or cashback) of balance * rate to every wallet with at least min-balance, as a
+ * batch over user_id ranges instead of one addMoney per wallet.
+ * <p>
+ * A run splits [min user_id, max user_id] as of its start into fixed chunks of chunk-size ids, and
+ * parallel workers (virtual threads) take chunks in order. Each chunk is one transaction:
+ * <ol>
+ *     <li>The chunk's wallets are locked and read with one range SELECT ... FOR UPDATE.</li>
+ *     <li>One set-based UPDATE adds ROUND(balance * rate, 2) to all of them.</li>
+ *     <li>The CREDIT ledger rows and their outbox events are inserted as JDBC batches.</li>
+ *     <li>The chunk's checkpoint row is inserted into accrual_chunks.</li>
+ * </ol>
+ * So a chunk is credited exactly once: a run interrupted by a failure or a restart is resumed under
+ * the same run key and skips the chunks with a checkpoint. Rounding is half up (MySQL's ROUND on
+ * decimals); the Java side computes the same amounts for the ledger rows and the UPDATE's row count
+ * is checked against them. Online writers see the version change and retry as on any conflict.
+ */
+public class AccrualJob {
+
+    private static final Logger log = LoggerFactory.getLogger(AccrualJob.class);
+    private static final String LOCK_CHUNK = "SELECT user_id, balance FROM wallets "
+            + "WHERE user_id >= ? AND user_id < ? AND balance >= ? ORDER BY user_id FOR UPDATE";
+    private static final String CREDIT_CHUNK = "UPDATE wallets SET balance = balance + ROUND(balance * ?, 2), "
+            + "version = version + 1 WHERE user_id >= ? AND user_id < ? AND balance >= ? AND ROUND(balance * ?, 2) > 0";
+    private static final String INSERT_TRANSACTION = "INSERT INTO wallet_transactions "
+            + "(receiver, owner_user_id, amount, type, status, description, balance_after_transaction, "
+            + "transaction_time, completed_time, reference_id) VALUES (?, ?, ?, 'CREDIT', 'SUCCESS', ?, ?, ?, ?, ?)";
+    private static final String INSERT_OUTBOX = "INSERT INTO wallet_outbox "
+            + "(wallet_id, reference_id, transaction_type, status, amount, balance_after_transaction, created_at) "
+            + "VALUES (?, ?, 'CREDIT', 'SUCCESS', ?, ?, ?)";
+    private static final String INSERT_CHECKPOINT = "INSERT INTO accrual_chunks "
+            + "(run_id, chunk_index, wallets, amount, completed_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AccrualThrottle throttle;
+    private final int parallelism;
+    private final int chunkSize;
+    private final Counter walletsCredited;
+    private final Timer chunkTimer;
+    private final Timer backoffTimer;
+    private volatile boolean stopping;
+
+    /**
+     * Parameters of a run, fixed when it starts so a resumed run credits the same amounts.
+     */
+    public record Run(long id, String runKey, BigDecimal rate, BigDecimal minBalance, String description,
+                      long minUserId, long maxUserId, int chunkSize, boolean completed) {
+
+        long chunks() {
+            return maxUserId < minUserId ? 0 : (maxUserId - minUserId) / chunkSize + 1;
+        }
+    }
+
+    /**
+     * Outcome of one execution: chunks credited now, chunks already checkpointed before, and chunks
+     * left for a later attempt (failed, or not reached before a stop).
+     */
+    public record Report(String runKey, long chunks, long chunksCredited, long chunksSkipped, long chunksLeft,
+                         long wallets, BigDecimal amount, Duration elapsed) {
+
+        public boolean complete() {
+            return chunksLeft == 0;
+        }
+    }
+
+    public AccrualJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                      MeterRegistry meterRegistry, AccrualThrottle throttle, int parallelism, int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.throttle = throttle;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.walletsCredited = meterRegistry.counter("wallet.accrual.wallets");
+        this.chunkTimer = Timer.builder("wallet.accrual.chunk")
+                .description("Time to lock, credit and checkpoint one chunk of wallets")
+                .register(meterRegistry);
+        this.backoffTimer = Timer.builder("wallet.accrual.backoff")
+                .description("Time workers paused because requests were waiting for connections")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The run with this key, started now if it does not exist yet. A COMPLETED run is returned as is.
+     */
+    public Run startOrResume(String runKey, BigDecimal rate, BigDecimal minBalance, String description) {
+        Run existing = run(runKey);
+        if (existing != null) {
+            return existing;
+        }
+        Map<String, Object> range = jdbcTemplate.queryForMap(
+                "SELECT COALESCE(MIN(user_id), 0) AS min_id, COALESCE(MAX(user_id), -1) AS max_id FROM wallets");
+        try {
+            jdbcTemplate.update("INSERT INTO accrual_runs (run_key, rate, min_balance, description, min_user_id, "
+                            + "max_user_id, chunk_size, status, started_at) VALUES (?, ?, ?, ?, ?, ?, ?, 'RUNNING', ?)",
+                    runKey, rate, minBalance, description, ((Number) range.get("min_id")).longValue(),
+                    ((Number) range.get("max_id")).longValue(), chunkSize, Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DuplicateKeyException e) {
+            // Started by another instance at the same moment; use its parameters
+        }
+        return run(runKey);
+    }
+
+    /**
+     * Keys of the runs that were started but not finished, oldest first.
+     */
+    public List<String> unfinishedRuns() {
+        return jdbcTemplate.queryForList("SELECT run_key FROM accrual_runs WHERE status = 'RUNNING' ORDER BY id",
+                String.class);
+    }
+
+    /**
+     * Credit every chunk of the run that has no checkpoint yet, and mark the run COMPLETED if none is left.
+     */
+    public Report execute(Run run) {
+        long start = System.nanoTime();
+        long chunks = run.chunks();
+        BitSet done = new BitSet();
+        jdbcTemplate.query("SELECT chunk_index FROM accrual_chunks WHERE run_id = ?",
+                (RowCallbackHandler) rs -> done.set(Math.toIntExact(rs.getLong(1))), run.id());
+        long skipped = done.cardinality();
+
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong credited = new AtomicLong();
+        AtomicLong wallets = new AtomicLong();
+        AtomicReference<BigDecimal> amount = new AtomicReference<>(BigDecimal.ZERO);
+        ExecutorService workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("accrual-", 1).factory());
+        try {
+            for (int w = 0; w < parallelism; w++) {
+                workers.execute(() -> {
+                    while (!stopping && !failed.get()) {
+                        long chunk = nextChunk.getAndIncrement();
+                        if (chunk >= chunks) {
+                            return;
+                        }
+                        if (done.get(Math.toIntExact(chunk))) {
+                            continue;
+                        }
+                        try {
+                            Chunk result = chunkTimer.record(() -> creditChunk(run, chunk));
+                            credited.incrementAndGet();
+                            wallets.addAndGet(result.wallets());
+                            amount.accumulateAndGet(result.amount(), BigDecimal::add);
+                            walletsCredited.increment(result.wallets());
+                            backoffTimer.record(throttle.acquire(result.wallets()), TimeUnit.NANOSECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        } catch (Exception e) {
+                            // Stop here rather than fail every chunk the same way; the next attempt resumes
+                            failed.set(true);
+                            log.error("Accrual run {} chunk {} failed, stopping until the next attempt: {}",
+                                    run.runKey(), chunk, e.getMessage());
+                        }
+                    }
+                });
+            }
+        } finally {
+            workers.shutdown();
+            awaitQuietly(workers);
+        }
+
+        Report report = new Report(run.runKey(), chunks, credited.get(), skipped, chunks - skipped - credited.get(),
+                wallets.get(), amount.get(), Duration.ofNanos(System.nanoTime() - start));
+        if (report.complete()) {
+            complete(run);
+        }
+        log.info("Accrual run {}: {} wallets credited {} in {} ms; chunks {} done, {} already done, {} left",
+                run.runKey(), report.wallets(), report.amount(), report.elapsed().toMillis(),
+                report.chunksCredited(), report.chunksSkipped(), report.chunksLeft());
+        return report;
+    }
+
+    /**
+     * Finish the chunks in progress and stop taking new ones; the rest is resumed by the next execution.
+     */
+    public void stop() {
+        stopping = true;
+    }
+
+    private record Chunk(int wallets, BigDecimal amount) {
+    }
+
+    private Chunk creditChunk(Run run, long chunk) {
+        long from = run.minUserId() + chunk * run.chunkSize();
+        long to = from + run.chunkSize();
+        return transactionTemplate.execute(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp time = Timestamp.valueOf(now);
+            String referenceId = "ACR-" + run.id();
+            List<Object[]> transactions = new ArrayList<>();
+            List<Object[]> outbox = new ArrayList<>();
+            BigDecimal[] total = {BigDecimal.ZERO};
+            jdbcTemplate.query(LOCK_CHUNK, rs -> {
+                BigDecimal balance = rs.getBigDecimal("balance");
+                BigDecimal credit = balance.multiply(run.rate()).setScale(2, RoundingMode.HALF_UP);
+                if (credit.signum() <= 0) {
+                    return;
+                }
+                long userId = rs.getLong("user_id");
+                BigDecimal balanceAfter = balance.add(credit);
+                transactions.add(new Object[]{userId, userId, credit, run.description(), balanceAfter, time, time,
+                        referenceId});
+                outbox.add(new Object[]{userId, referenceId, credit, balanceAfter, time});
+                total[0] = total[0].add(credit);
+            }, from, to, run.minBalance());
+
+            if (!transactions.isEmpty()) {
+                int updated = jdbcTemplate.update(CREDIT_CHUNK, run.rate(), from, to, run.minBalance(), run.rate());
+                if (updated != transactions.size()) {
+                    throw new IllegalStateException("Credited " + updated + " wallets but computed "
+                            + transactions.size() + " credits");
+                }
+                jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactions);
+                jdbcTemplate.batchUpdate(INSERT_OUTBOX, outbox);
+            }
+            jdbcTemplate.update(INSERT_CHECKPOINT, run.id(), chunk, transactions.size(), total[0], time);
+            return new Chunk(transactions.size(), total[0]);
+        });
+    }
+
+    private void complete(Run run) {
+        jdbcTemplate.update("UPDATE accrual_runs r SET status = 'COMPLETED', completed_at = ?, "
+                        + "wallets_credited = (SELECT COALESCE(SUM(c.wallets), 0) FROM accrual_chunks c WHERE c.run_id = r.id), "
+                        + "amount_credited = (SELECT COALESCE(SUM(c.amount), 0) FROM accrual_chunks c WHERE c.run_id = r.id) "
+                        + "WHERE r.id = ? AND r.status = 'RUNNING'",
+                Timestamp.valueOf(LocalDateTime.now()), run.id());
+    }
+
+    /**
+     * @return null if no run with this key was started.
+     */
+    public Run run(String runKey) {
+        List<Run> runs = jdbcTemplate.query("SELECT id, run_key, rate, min_balance, description, min_user_id, "
+                        + "max_user_id, chunk_size, status FROM accrual_runs WHERE run_key = ?",
+                (rs, row) -> new Run(rs.getLong("id"), rs.getString("run_key"), rs.getBigDecimal("rate"),
+                        rs.getBigDecimal("min_balance"), rs.getString("description"), rs.getLong("min_user_id"),
+                        rs.getLong("max_user_id"), rs.getInt("chunk_size"), "COMPLETED".equals(rs.getString("status"))),
+                runKey);
+        return runs.isEmpty() ? null : runs.get(0);
+    }
+
+    private static void awaitQuietly(ExecutorService workers) {
+        try {
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Waiting for accrual workers to finish their chunks");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.wallet.accrual;
+
+import com.wallet.engine.BalanceEngine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Runs the {@link AccrualJob} on wallet.accrual.cron, one run per day under the key
+ * &lt;name&gt;-&lt;date&gt;: first any earlier run left unfinished, then today's. Run it on one
+ * instance only (wallet.accrual.enabled); a second one would wait on the same chunk locks and then
+ * fail on their checkpoints.
+ * The job backs off while requests wait for database connections (hikaricp.connections.pending).
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.accrual.enabled", havingValue = "true")
+public class AccrualScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(AccrualScheduler.class);
+
+    private final AccrualJob job;
+    private final String name;
+    private final BigDecimal rate;
+    private final BigDecimal minBalance;
+    private final String description;
+    private final boolean engineMode;
+
+    public AccrualScheduler(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry, ObjectProvider<BalanceEngine> balanceEngine,
+                            @Value("${wallet.accrual.name:interest}") String name,
+                            @Value("${wallet.accrual.rate:0.0001}") BigDecimal rate,
+                            @Value("${wallet.accrual.min-balance:1.00}") BigDecimal minBalance,
+                            @Value("${wallet.accrual.description:Interest}") String description,
+                            @Value("${wallet.accrual.parallelism:4}") int parallelism,
+                            @Value("${wallet.accrual.chunk-size:1000}") int chunkSize,
+                            @Value("${wallet.accrual.max-wallets-per-second:20000}") long maxWalletsPerSecond,
+                            @Value("${wallet.accrual.max-backoff-ms:2000}") long maxBackoffMillis) {
+        if (rate.signum() < 0 || minBalance.signum() < 0) {
+            throw new IllegalArgumentException("wallet.accrual.rate and wallet.accrual.min-balance cannot be negative");
+        }
+        AccrualThrottle throttle = new AccrualThrottle(maxWalletsPerSecond, () -> pendingConnections(meterRegistry),
+                10, maxBackoffMillis);
+        this.job = new AccrualJob(jdbcTemplate, transactionManager, meterRegistry, throttle, parallelism, chunkSize);
+        this.name = name;
+        this.rate = rate;
+        this.minBalance = minBalance;
+        this.description = description;
+        this.engineMode = balanceEngine.getIfAvailable() != null;
+    }
+
+    @Scheduled(cron = "${wallet.accrual.cron:0 0 2 * * *}")
+    public void accrue() {
+        if (engineMode) {
+            // The engine's memory holds the balances; a database update would be overwritten
+            log.warn("Accrual is not supported with wallet.engine.mode=memory");
+            return;
+        }
+        String todayKey = name + "-" + LocalDate.now();
+        for (String runKey : job.unfinishedRuns()) {
+            if (!runKey.equals(todayKey) && !job.execute(job.run(runKey)).complete()) {
+                return;
+            }
+        }
+        AccrualJob.Run today = job.startOrResume(todayKey, rate, minBalance, description);
+        if (!today.completed()) {
+            job.execute(today);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        job.stop();
+    }
+
+    private static int pendingConnections(MeterRegistry meterRegistry) {
+        return (int) meterRegistry.find("hikaricp.connections.pending").gauges().stream()
+                .mapToDouble(Gauge::value)
+                .sum();
+    }
+}
@@ -0,0 +1,61 @@
+package com.wallet.accrual;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Keeps the accrual batch from crowding out online traffic. Chunks are paced to at most
+ * maxWalletsPerSecond over all workers (0 for no pacing), and while requests are waiting for a
+ * database connection (the pressure signal) workers back off with a doubling pause before their
+ * next chunk.
+ */
+public class AccrualThrottle {
+
+    private final double nanosPerWallet;
+    private final IntSupplier pressure;
+    private final long minBackoffNanos;
+    private final long maxBackoffNanos;
+    private long nextFreeNanos;
+
+    public AccrualThrottle(long maxWalletsPerSecond, IntSupplier pressure, long minBackoffMillis, long maxBackoffMillis) {
+        this.nanosPerWallet = maxWalletsPerSecond > 0 ? 1e9 / maxWalletsPerSecond : 0;
+        this.pressure = pressure;
+        this.minBackoffNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, minBackoffMillis));
+        this.maxBackoffNanos = Math.max(minBackoffNanos, TimeUnit.MILLISECONDS.toNanos(maxBackoffMillis));
+    }
+
+    /**
+     * Account for wallets just written and wait until the next chunk may start.
+     *
+     * @return nanoseconds spent backing off because of pressure, not counting the pacing.
+     */
+    public long acquire(int wallets) throws InterruptedException {
+        long pace = reserve(wallets, System.nanoTime());
+        if (pace > 0) {
+            TimeUnit.NANOSECONDS.sleep(pace);
+        }
+        long backedOff = 0;
+        long backoff = minBackoffNanos;
+        while (pressure.getAsInt() > 0) {
+            TimeUnit.NANOSECONDS.sleep(backoff);
+            backedOff += backoff;
+            backoff = Math.min(backoff * 2, maxBackoffNanos);
+        }
+        return backedOff;
+    }
+
+    /**
+     * Book the time the given wallets take at the maximum rate, after whatever is already booked.
+     * A worker that was idle does not build up credit for a burst.
+     *
+     * @return how long the caller has to wait for its slot.
+     */
+    synchronized long reserve(int wallets, long nowNanos) {
+        if (nanosPerWallet == 0) {
+            return 0;
+        }
+        long slot = Math.max(nextFreeNanos, nowNanos);
+        nextFreeNanos = slot + (long) (wallets * nanosPerWallet);
+        return nextFreeNanos - nowNanos;
+    }
+}
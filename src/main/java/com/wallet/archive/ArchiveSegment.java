@@ -0,0 +1,275 @@
+package com.wallet.archive;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.WalletTransaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable, memory-mapped segment of archived ledger rows, written by {@link ArchiveSegmentWriter}.
+ * <p>
+ * Rows are sorted by owner, newest first per owner, and stored in row groups. Each column of a
+ * group is a separately deflated block. At the end of the file come the owner index (owner, first
+ * row, row count, sorted by owner), the group directory (offset, compressed and raw length per
+ * column) and a fixed trailer with the time range. A lookup binary-searches the owner index in the
+ * mapping and inflates only the groups holding that owner's rows, so its cost does not depend on
+ * the segment size.
+ * <p>
+ * Version 2 added the currency and FX rate columns; version 1 segments are still read, without them.
+ */
+public final class ArchiveSegment {
+
+    static final int MAGIC = 0x57534547; // "WSEG"
+    static final int VERSION = 2;
+    static final int TRAILER_BYTES = 4 * 8 + 6 * 4;
+    static final int OWNER_ENTRY_BYTES = 16;
+    static final int DIRECTORY_ENTRY_BYTES = 16;
+    static final long NULL_LONG = Long.MIN_VALUE;
+    static final byte NULL_SCALE = Byte.MIN_VALUE;
+
+    static final int ID = 0;
+    static final int SENDER = 1;
+    static final int RECEIVER = 2;
+    static final int OWNER = 3;
+    static final int AMOUNT = 4;
+    static final int TYPE = 5;
+    static final int STATUS = 6;
+    static final int DESCRIPTION = 7;
+    static final int FAILURE_REASON = 8;
+    static final int BALANCE_AFTER = 9;
+    static final int TRANSACTION_TIME = 10;
+    static final int COMPLETED_TIME = 11;
+    static final int REFERENCE_ID = 12;
+    static final int CURRENCY = 13;
+    static final int FX_RATE = 14;
+    static final int COLUMNS = 15;
+    private static final int VERSION_1_COLUMNS = 13;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long ownerIndexOffset;
+    private final long directoryOffset;
+    private final LocalDateTime minTime;
+    private final LocalDateTime maxTime;
+    private final int rowCount;
+    private final int groupSize;
+    private final int ownerCount;
+    private final int columnCount;
+
+    private ArchiveSegment(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        int trailer = buffer.capacity() - TRAILER_BYTES;
+        if (trailer < 0 || buffer.getInt(trailer + TRAILER_BYTES - 4) != MAGIC) {
+            throw new IOException("Not an archive segment: " + path);
+        }
+        int version = buffer.getInt(trailer + TRAILER_BYTES - 8);
+        if (version != VERSION && version != 1) {
+            throw new IOException("Unsupported archive segment version: " + path);
+        }
+        this.columnCount = version == 1 ? VERSION_1_COLUMNS : COLUMNS;
+        this.ownerIndexOffset = buffer.getLong(trailer);
+        this.directoryOffset = buffer.getLong(trailer + 8);
+        this.minTime = fromMicros(buffer.getLong(trailer + 16));
+        this.maxTime = fromMicros(buffer.getLong(trailer + 24));
+        this.rowCount = buffer.getInt(trailer + 32);
+        this.groupSize = buffer.getInt(trailer + 36);
+        this.ownerCount = buffer.getInt(trailer + 40);
+    }
+
+    /**
+     * Map a segment. The mapping stays valid after the channel is closed and lives as long as the segment.
+     */
+    public static ArchiveSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Archive segment too large to map: " + path);
+            }
+            return new ArchiveSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public LocalDateTime minTime() {
+        return minTime;
+    }
+
+    public LocalDateTime maxTime() {
+        return maxTime;
+    }
+
+    /**
+     * The owner's rows in this segment, newest first.
+     */
+    public List<WalletTransaction> findByOwner(long ownerUserId) {
+        int entry = findOwnerEntry(ownerUserId);
+        if (entry < 0) {
+            return List.of();
+        }
+        long entryOffset = ownerIndexOffset + (long) entry * OWNER_ENTRY_BYTES;
+        int first = buffer.getInt((int) entryOffset + 8);
+        int count = buffer.getInt((int) entryOffset + 12);
+        List<WalletTransaction> rows = new ArrayList<>(count);
+        int end = first + count;
+        for (int group = first / groupSize; group * groupSize < end; group++) {
+            int groupStart = group * groupSize;
+            readGroup(group, Math.max(first, groupStart) - groupStart, Math.min(end, groupStart + groupSize) - groupStart, rows);
+        }
+        return rows;
+    }
+
+    private int findOwnerEntry(long ownerUserId) {
+        int low = 0;
+        int high = ownerCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long owner = buffer.getLong((int) (ownerIndexOffset + (long) mid * OWNER_ENTRY_BYTES));
+            if (owner < ownerUserId) {
+                low = mid + 1;
+            } else if (owner > ownerUserId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decode rows [from, to) of a group; earlier rows are skipped field by field, since some columns are variable-length.
+     */
+    private void readGroup(int group, int from, int to, List<WalletTransaction> rows) {
+        DataInputStream[] columns = new DataInputStream[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            columns[column] = new DataInputStream(new ByteArrayInputStream(inflate(group, column)));
+        }
+        try {
+            for (int row = 0; row < from; row++) {
+                skipRow(columns);
+            }
+            for (int row = from; row < to; row++) {
+                WalletTransaction transaction = new WalletTransaction();
+                transaction.setId(columns[ID].readLong());
+                transaction.setSender(readNullableLong(columns[SENDER]));
+                transaction.setReceiver(readNullableLong(columns[RECEIVER]));
+                transaction.setOwnerUserId(columns[OWNER].readLong());
+                transaction.setAmount(readDecimal(columns[AMOUNT]));
+                transaction.setType(TransactionType.valueOf(columns[TYPE].readUTF()));
+                transaction.setStatus(TransactionStatus.valueOf(columns[STATUS].readUTF()));
+                transaction.setDescription(readNullableString(columns[DESCRIPTION]));
+                transaction.setFailureReason(readNullableString(columns[FAILURE_REASON]));
+                transaction.setBalanceAfterTransaction(readDecimal(columns[BALANCE_AFTER]));
+                transaction.setTransactionTime(fromMicros(columns[TRANSACTION_TIME].readLong()));
+                transaction.setCompletedTime(fromMicros(columns[COMPLETED_TIME].readLong()));
+                transaction.setReferenceId(readNullableString(columns[REFERENCE_ID]));
+                if (columnCount > CURRENCY) {
+                    transaction.setCurrency(readNullableString(columns[CURRENCY]));
+                    transaction.setFxRate(readDecimal(columns[FX_RATE]));
+                }
+                rows.add(transaction);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt archive segment " + path, e);
+        }
+    }
+
+    private byte[] inflate(int group, int column) {
+        int entry = (int) (directoryOffset + ((long) group * columnCount + column) * DIRECTORY_ENTRY_BYTES);
+        int offset = (int) buffer.getLong(entry);
+        int compressedLength = buffer.getInt(entry + 8);
+        byte[] raw = new byte[buffer.getInt(entry + 12)];
+        Inflater inflater = new Inflater();
+        try {
+            ByteBuffer compressed = buffer.slice(offset, compressedLength);
+            inflater.setInput(compressed);
+            int inflated = 0;
+            while (inflated < raw.length) {
+                int n = inflater.inflate(raw, inflated, raw.length - inflated);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != raw.length) {
+                throw new IllegalStateException("Truncated column block in archive segment " + path);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt column block in archive segment " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void skipRow(DataInputStream[] columns) throws IOException {
+        for (int column : new int[]{ID, SENDER, RECEIVER, OWNER, TRANSACTION_TIME, COMPLETED_TIME}) {
+            columns[column].skipNBytes(8);
+        }
+        columns[AMOUNT].skipNBytes(9);
+        columns[BALANCE_AFTER].skipNBytes(9);
+        columns[TYPE].skipNBytes(columns[TYPE].readUnsignedShort());
+        columns[STATUS].skipNBytes(columns[STATUS].readUnsignedShort());
+        for (int column : new int[]{DESCRIPTION, FAILURE_REASON, REFERENCE_ID}) {
+            skipNullableString(columns[column]);
+        }
+        if (columns.length > CURRENCY) {
+            skipNullableString(columns[CURRENCY]);
+            columns[FX_RATE].skipNBytes(9);
+        }
+    }
+
+    private static void skipNullableString(DataInputStream in) throws IOException {
+        if (in.readBoolean()) {
+            in.skipNBytes(in.readUnsignedShort());
+        }
+    }
+
+    private static Long readNullableLong(DataInputStream in) throws IOException {
+        long value = in.readLong();
+        return value == NULL_LONG ? null : value;
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        byte scale = in.readByte();
+        long unscaled = in.readLong();
+        return scale == NULL_SCALE ? null : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return time == null ? NULL_LONG : time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        if (micros == NULL_LONG) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
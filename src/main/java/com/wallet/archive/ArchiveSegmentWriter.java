@@ -0,0 +1,201 @@
+package com.wallet.archive;
+
+import com.wallet.entity.WalletTransaction;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.Deflater;
+
+import static com.wallet.archive.ArchiveSegment.*;
+
+/**
+ * Streams rows into a new {@link ArchiveSegment}. Rows must arrive sorted by owner (and newest first
+ * per owner); only the current row group is buffered. The file is written under a temporary name,
+ * fsynced and renamed, so a segment either exists complete or not at all.
+ */
+public class ArchiveSegmentWriter implements Closeable {
+
+    private final Path target;
+    private final Path temporary;
+    private final FileOutputStream file;
+    private final DataOutputStream out;
+    private final int groupSize;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final ByteArrayOutputStream[] columnBytes = new ByteArrayOutputStream[COLUMNS];
+    private final DataOutputStream[] columns = new DataOutputStream[COLUMNS];
+    private final ByteArrayOutputStream ownerIndex = new ByteArrayOutputStream();
+    private final DataOutputStream ownerOut = new DataOutputStream(ownerIndex);
+    private final ByteArrayOutputStream directory = new ByteArrayOutputStream();
+    private final DataOutputStream directoryOut = new DataOutputStream(directory);
+    private final byte[] deflateBuffer = new byte[64 * 1024];
+
+    private long position;
+    private int rowCount;
+    private int rowsInGroup;
+    private int groupCount;
+    private int ownerCount;
+    private long currentOwner;
+    private int currentOwnerFirst;
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+    private boolean finished;
+
+    public ArchiveSegmentWriter(Path target, int groupSize) throws IOException {
+        this.target = target;
+        this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        this.file = new FileOutputStream(temporary.toFile());
+        this.out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+        this.groupSize = groupSize;
+        for (int column = 0; column < COLUMNS; column++) {
+            columnBytes[column] = new ByteArrayOutputStream(groupSize * 16);
+            columns[column] = new DataOutputStream(columnBytes[column]);
+        }
+    }
+
+    public void append(WalletTransaction row) throws IOException {
+        long owner = row.getOwnerUserId();
+        if (rowCount == 0 || owner != currentOwner) {
+            if (rowCount > 0 && owner < currentOwner) {
+                throw new IllegalArgumentException("Rows must be sorted by owner: " + owner + " after " + currentOwner);
+            }
+            closeOwner();
+            currentOwner = owner;
+            currentOwnerFirst = rowCount;
+        }
+        columns[ID].writeLong(row.getId());
+        columns[SENDER].writeLong(row.getSender() == null ? NULL_LONG : row.getSender());
+        columns[RECEIVER].writeLong(row.getReceiver() == null ? NULL_LONG : row.getReceiver());
+        columns[OWNER].writeLong(owner);
+        writeDecimal(columns[AMOUNT], row.getAmount());
+        columns[TYPE].writeUTF(row.getType().name());
+        columns[STATUS].writeUTF(row.getStatus().name());
+        writeNullableString(columns[DESCRIPTION], row.getDescription());
+        writeNullableString(columns[FAILURE_REASON], row.getFailureReason());
+        writeDecimal(columns[BALANCE_AFTER], row.getBalanceAfterTransaction());
+        long time = toMicros(row.getTransactionTime());
+        columns[TRANSACTION_TIME].writeLong(time);
+        columns[COMPLETED_TIME].writeLong(toMicros(row.getCompletedTime()));
+        writeNullableString(columns[REFERENCE_ID], row.getReferenceId());
+        writeNullableString(columns[CURRENCY], row.getCurrency());
+        writeDecimal(columns[FX_RATE], row.getFxRate());
+        if (time != NULL_LONG) {
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+        }
+        rowCount++;
+        if (++rowsInGroup == groupSize) {
+            flushGroup();
+        }
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Write the index and trailer, fsync and move the segment into place.
+     */
+    public Path finish() throws IOException {
+        flushGroup();
+        closeOwner();
+        long ownerIndexOffset = position;
+        write(ownerIndex.toByteArray());
+        long directoryOffset = position;
+        write(directory.toByteArray());
+        out.writeLong(ownerIndexOffset);
+        out.writeLong(directoryOffset);
+        out.writeLong(rowCount == 0 ? NULL_LONG : minTime);
+        out.writeLong(rowCount == 0 ? NULL_LONG : maxTime);
+        out.writeInt(rowCount);
+        out.writeInt(groupSize);
+        out.writeInt(ownerCount);
+        out.writeInt(groupCount);
+        out.writeInt(VERSION);
+        out.writeInt(MAGIC);
+        out.flush();
+        file.getChannel().force(true);
+        out.close();
+        finished = true;
+        return Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Abandon an unfinished segment.
+     */
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        if (!finished) {
+            out.close();
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void closeOwner() throws IOException {
+        if (rowCount > currentOwnerFirst) {
+            ownerOut.writeLong(currentOwner);
+            ownerOut.writeInt(currentOwnerFirst);
+            ownerOut.writeInt(rowCount - currentOwnerFirst);
+            ownerCount++;
+        }
+    }
+
+    private void flushGroup() throws IOException {
+        if (rowsInGroup == 0) {
+            return;
+        }
+        for (int column = 0; column < COLUMNS; column++) {
+            byte[] raw = columnBytes[column].toByteArray();
+            long offset = position;
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            int compressed = 0;
+            while (!deflater.finished()) {
+                int n = deflater.deflate(deflateBuffer);
+                write(deflateBuffer, n);
+                compressed += n;
+            }
+            directoryOut.writeLong(offset);
+            directoryOut.writeInt(compressed);
+            directoryOut.writeInt(raw.length);
+            columnBytes[column].reset();
+        }
+        groupCount++;
+        rowsInGroup = 0;
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        write(bytes, bytes.length);
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        out.write(bytes, 0, length);
+        position += length;
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_SCALE);
+            out.writeLong(0);
+            return;
+        }
+        out.writeByte(value.scale());
+        out.writeLong(value.unscaledValue().longValueExact());
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.wallet.archive;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.WalletTransaction;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read side of the cold tier: the archived ledger segments in wallet.archive.directory, one per month,
+ * newest first. History reads append a user's archived rows to the rows still in the database.
+ * <p>
+ * With several instances the directory must be shared storage. Each instance rescans it every
+ * wallet.archive.rescan-interval-ms for segments another instance's archiver wrote; the archiver only
+ * removes a month from the database once its segment is older than two rescans.
+ */
+@Component
+public class LedgerArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerArchive.class);
+    private static final String PREFIX = "ledger-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private volatile List<ArchiveSegment> segments = List.of();
+
+    public LedgerArchive(@Value("${wallet.archive.directory:wallet-archive}") String directory,
+                         MeterRegistry meterRegistry) {
+        this.directory = Path.of(directory);
+        load();
+        Gauge.builder("wallet.archive.segments", this, archive -> archive.segments.size())
+                .description("Archived ledger segments")
+                .register(meterRegistry);
+        Gauge.builder("wallet.archive.rows", this,
+                        archive -> archive.segments.stream().mapToLong(ArchiveSegment::rowCount).sum())
+                .description("Ledger rows in archived segments")
+                .register(meterRegistry);
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public Path pathOf(YearMonth month) {
+        return directory.resolve(PREFIX + month + SUFFIX);
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    public synchronized void add(ArchiveSegment segment) {
+        if (segments.stream().anyMatch(existing -> existing.path().equals(segment.path()))) {
+            return;
+        }
+        List<ArchiveSegment> updated = new ArrayList<>(segments);
+        updated.add(segment);
+        updated.sort(Comparator.comparing(ArchiveSegment::minTime).reversed());
+        segments = List.copyOf(updated);
+    }
+
+    /**
+     * The user's rows from the database followed by their archived rows, newest first.
+     * Rows that are in both (archived but not yet removed from the database) appear once.
+     *
+     * @param status only archived rows with this status, or null for all.
+     */
+    public List<WalletTransaction> appendArchived(Long ownerUserId, List<WalletTransaction> hot, TransactionStatus status) {
+        List<ArchiveSegment> current = segments;
+        if (current.isEmpty()) {
+            return hot;
+        }
+        Set<Long> hotIds = new HashSet<>();
+        for (WalletTransaction transaction : hot) {
+            hotIds.add(transaction.getId());
+        }
+        List<WalletTransaction> merged = new ArrayList<>(hot);
+        for (ArchiveSegment segment : current) {
+            for (WalletTransaction transaction : segment.findByOwner(ownerUserId)) {
+                if ((status == null || transaction.getStatus() == status) && !hotIds.contains(transaction.getId())) {
+                    merged.add(transaction);
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Load segments written since the last scan.
+     */
+    @Scheduled(fixedDelayString = "${wallet.archive.rescan-interval-ms:60000}",
+            initialDelayString = "${wallet.archive.rescan-interval-ms:60000}")
+    public void rescan() {
+        int before = segments.size();
+        scan();
+        if (segments.size() > before) {
+            log.info("Loaded {} new archived ledger segments from {}", segments.size() - before, directory);
+        }
+    }
+
+    private void load() {
+        scan();
+        log.info("Loaded {} archived ledger segments from {}", segments.size(), directory);
+    }
+
+    private void scan() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Set<Path> loaded = new HashSet<>();
+        for (ArchiveSegment segment : segments) {
+            loaded.add(segment.path());
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                if (loaded.contains(file)) {
+                    continue;
+                }
+                try {
+                    ArchiveSegment segment = ArchiveSegment.open(file);
+                    if (segment.rowCount() > 0) {
+                        add(segment);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.error("Skipping unreadable archive segment {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not list archive directory " + directory, e);
+        }
+    }
+}
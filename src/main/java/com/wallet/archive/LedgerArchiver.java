@@ -0,0 +1,171 @@
+package com.wallet.archive;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.WalletTransaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Moves whole months older than wallet.archive.retention-months out of wallet_transactions into
+ * {@link ArchiveSegment} files, oldest month first:
+ * <ol>
+ *     <li>The month's rows are streamed in owner order into a new segment (fsynced, then renamed).</li>
+ *     <li>The segment's row count is checked against the table and it is added to the {@link LedgerArchive},
+ *     so history reads see the rows in both places for a while, never in neither.</li>
+ *     <li>Once the segment is older than two archive rescans, so every instance sharing
+ *     wallet.archive.directory has loaded it, the month's partition is dropped, or its rows deleted in
+ *     batches if it has none. A month written in this run is removed by the next one.</li>
+ * </ol>
+ * A crash at any step is picked up by the next run: an existing segment is reused and only the
+ * removal is repeated. Months that still have PENDING or PROCESSING rows are left for later.
+ * Enable it on one instance; the others only read the archive.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.archive.enabled", havingValue = "true")
+public class LedgerArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerArchiver.class);
+    private static final String SELECT_MONTH = "SELECT id, sender, receiver, owner_user_id, amount, type, status, "
+            + "description, failure_reason, balance_after_transaction, transaction_time, completed_time, reference_id, "
+            + "currency, fx_rate FROM wallet_transactions WHERE transaction_time >= ? AND transaction_time < ? "
+            + "ORDER BY owner_user_id, transaction_time DESC, id DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final LedgerPartitions partitions;
+    private final LedgerArchive archive;
+    private final int retentionMonths;
+    private final int partitionsAhead;
+    private final int groupSize;
+    private final int deleteBatchSize;
+    private final boolean partitionTable;
+    private final long removalGraceMillis;
+    private final Counter archivedRows;
+
+    public LedgerArchiver(JdbcTemplate jdbcTemplate, DataSource dataSource, LedgerArchive archive, MeterRegistry meterRegistry,
+                          @Value("${wallet.archive.retention-months:6}") int retentionMonths,
+                          @Value("${wallet.archive.partitions-ahead:3}") int partitionsAhead,
+                          @Value("${wallet.archive.group-size:256}") int groupSize,
+                          @Value("${wallet.archive.delete-batch-size:10000}") int deleteBatchSize,
+                          @Value("${wallet.archive.partition-table:false}") boolean partitionTable,
+                          @Value("${wallet.archive.rescan-interval-ms:60000}") long rescanIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // MySQL Connector/J streams rows one by one only with this fetch size
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.partitions = new LedgerPartitions(jdbcTemplate);
+        this.archive = archive;
+        this.retentionMonths = retentionMonths;
+        this.partitionsAhead = partitionsAhead;
+        this.groupSize = groupSize;
+        this.deleteBatchSize = deleteBatchSize;
+        this.partitionTable = partitionTable;
+        this.removalGraceMillis = 2 * rescanIntervalMillis;
+        this.archivedRows = meterRegistry.counter("wallet.archive.archived.rows");
+    }
+
+    @Scheduled(cron = "${wallet.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        YearMonth current = YearMonth.now();
+        try {
+            if (partitionTable && partitions.partitionTable(current, partitionsAhead)) {
+                log.info("Partitioned wallet_transactions by month up to {}", current.plusMonths(partitionsAhead));
+            }
+            partitions.ensureMonthsAhead(current, partitionsAhead);
+            YearMonth cutoff = current.minusMonths(retentionMonths);
+            while (true) {
+                LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(transaction_time) FROM wallet_transactions",
+                        LocalDateTime.class);
+                if (oldest == null || !YearMonth.from(oldest).isBefore(cutoff) || !archiveMonth(YearMonth.from(oldest))) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Ledger archiving failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean archiveMonth(YearMonth month) throws IOException {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        Long open = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_transactions WHERE transaction_time >= ? "
+                + "AND transaction_time < ? AND status IN ('PENDING', 'PROCESSING')", Long.class, from, to);
+        if (open != null && open > 0) {
+            log.warn("Not archiving {}: {} transactions are still open", month, open);
+            return false;
+        }
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_transactions WHERE transaction_time >= ? "
+                + "AND transaction_time < ?", Long.class, from, to);
+
+        long start = System.currentTimeMillis();
+        Path path = archive.pathOf(month);
+        if (!Files.exists(path)) {
+            Files.createDirectories(path.getParent());
+            try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(path, groupSize)) {
+                streamingJdbcTemplate.query(SELECT_MONTH, resultSet -> {
+                    try {
+                        writer.append(toTransaction(resultSet));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, from, to);
+                writer.finish();
+            }
+        }
+        ArchiveSegment segment = ArchiveSegment.open(path);
+        // A previous run may have removed part of the month already, never more than it archived
+        if (rows == null || segment.rowCount() < rows) {
+            log.error("Archive segment {} has {} rows but the table has {}; discarding it", path, segment.rowCount(), rows);
+            Files.delete(path);
+            return false;
+        }
+        archive.add(segment);
+        if (Files.getLastModifiedTime(path).toMillis() > System.currentTimeMillis() - removalGraceMillis) {
+            log.info("Archived {} to {}; its rows stay in the table until every instance has loaded the segment",
+                    month, path);
+            return false;
+        }
+        partitions.removeMonth(month, deleteBatchSize);
+        archivedRows.increment(rows);
+        log.info("Archived {} ledger rows of {} to {} in {} ms", rows, month, path, System.currentTimeMillis() - start);
+        return true;
+    }
+
+    private static WalletTransaction toTransaction(ResultSet resultSet) throws SQLException {
+        WalletTransaction transaction = new WalletTransaction();
+        transaction.setId(resultSet.getLong("id"));
+        transaction.setSender(resultSet.getObject("sender", Long.class));
+        transaction.setReceiver(resultSet.getObject("receiver", Long.class));
+        transaction.setOwnerUserId(resultSet.getLong("owner_user_id"));
+        transaction.setAmount(resultSet.getBigDecimal("amount"));
+        transaction.setType(TransactionType.valueOf(resultSet.getString("type")));
+        transaction.setStatus(TransactionStatus.valueOf(resultSet.getString("status")));
+        transaction.setDescription(resultSet.getString("description"));
+        transaction.setFailureReason(resultSet.getString("failure_reason"));
+        transaction.setBalanceAfterTransaction(resultSet.getBigDecimal("balance_after_transaction"));
+        transaction.setTransactionTime(resultSet.getObject("transaction_time", LocalDateTime.class));
+        transaction.setCompletedTime(resultSet.getObject("completed_time", LocalDateTime.class));
+        transaction.setReferenceId(resultSet.getString("reference_id"));
+        transaction.setCurrency(resultSet.getString("currency"));
+        transaction.setFxRate(resultSet.getBigDecimal("fx_rate"));
+        return transaction;
+    }
+}
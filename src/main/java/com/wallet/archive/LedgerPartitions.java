@@ -0,0 +1,101 @@
+package com.wallet.archive;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Monthly RANGE COLUMNS partitions of wallet_transactions: p_old for everything before partitioning,
+ * one pYYYYMM per month, and pmax as the catch-all. Without partitioning, the same operations fall
+ * back to batched deletes.
+ * <p>
+ * Every unique key of a partitioned table must contain the partition column, so partitioning makes
+ * the primary key (id, transaction_time); AUTO_INCREMENT still keeps ids unique. Partitioning copies
+ * the table, so it only runs when wallet.archive.partition-table is set, in a maintenance window.
+ */
+class LedgerPartitions {
+
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    LedgerPartitions(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Partition an unpartitioned table: p_old ends where the current month starts, then the months up
+     * to current + monthsAhead, then pmax.
+     *
+     * @return false if the table was already partitioned.
+     */
+    boolean partitionTable(YearMonth current, int monthsAhead) {
+        if (!existing().isEmpty()) {
+            return false;
+        }
+        StringBuilder partitions = new StringBuilder("PARTITION p_old VALUES LESS THAN (" + lessThan(current.minusMonths(1)) + ")");
+        for (YearMonth month = current; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            partitions.append(", PARTITION ").append(NAME.format(month)).append(" VALUES LESS THAN (").append(lessThan(month)).append(')');
+        }
+        partitions.append(", PARTITION pmax VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE wallet_transactions DROP PRIMARY KEY, ADD PRIMARY KEY (id, transaction_time)");
+        jdbcTemplate.execute("ALTER TABLE wallet_transactions PARTITION BY RANGE COLUMNS (transaction_time) (" + partitions + ")");
+        return true;
+    }
+
+    /**
+     * Split the months up to current + monthsAhead off pmax, so new rows never land in the catch-all.
+     */
+    void ensureMonthsAhead(YearMonth current, int monthsAhead) {
+        Set<String> existing = existing();
+        if (!existing.contains("pmax")) {
+            return;
+        }
+        for (YearMonth month = current; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            String name = NAME.format(month);
+            if (!existing.contains(name)) {
+                jdbcTemplate.execute("ALTER TABLE wallet_transactions REORGANIZE PARTITION pmax INTO ("
+                        + "PARTITION " + name + " VALUES LESS THAN (" + lessThan(month) + "), "
+                        + "PARTITION pmax VALUES LESS THAN (MAXVALUE))");
+            }
+        }
+    }
+
+    /**
+     * Remove a month's rows: drop its partition (instant, no undo log) or delete in batches.
+     */
+    void removeMonth(YearMonth month, int deleteBatchSize) {
+        String name = NAME.format(month);
+        if (existing().contains(name)) {
+            jdbcTemplate.execute("ALTER TABLE wallet_transactions DROP PARTITION " + name);
+            return;
+        }
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        // Each batch commits on its own, which keeps the undo log and lock footprint small
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM wallet_transactions WHERE transaction_time >= ? AND transaction_time < ? LIMIT ?",
+                    from, to, deleteBatchSize);
+        } while (deleted > 0);
+    }
+
+    /**
+     * Upper bound of a month's partition: the start of the next month.
+     */
+    private static String lessThan(YearMonth month) {
+        return "'" + month.plusMonths(1).atDay(1) + " 00:00:00'";
+    }
+
+    private Set<String> existing() {
+        List<String> names = jdbcTemplate.queryForList("SELECT partition_name FROM information_schema.partitions "
+                + "WHERE table_schema = DATABASE() AND table_name = 'wallet_transactions' "
+                + "AND partition_name IS NOT NULL", String.class);
+        return new HashSet<>(names);
+    }
+}
@@ -0,0 +1,97 @@
+package com.wallet.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Load shedding for the wallet API. Reads and writes each get an adaptive {@link ConcurrencyLimiter}
+ * driven by the latency of the requests it admitted, which is dominated by their database
+ * transactions. When MySQL slows down the limits shrink, and requests over them get an immediate
+ * 503 instead of waiting for a connection on a Tomcat thread. Balance reads may use the whole read
+ * limit; other reads leave wallet.concurrency.read.reserved-for-balance of it to them.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+    private static final String WALLET_PATH = "/api/wallet/";
+
+    private final boolean enabled;
+    private final ConcurrencyLimiter readLimiter;
+    private final ConcurrencyLimiter writeLimiter;
+    private final Counter readRejected;
+    private final Counter writeRejected;
+
+    public ConcurrencyLimitFilter(@Value("${wallet.concurrency.enabled:true}") boolean enabled,
+                                  @Value("${wallet.concurrency.read.initial-limit:50}") int readInitial,
+                                  @Value("${wallet.concurrency.read.max-limit:150}") int readMax,
+                                  @Value("${wallet.concurrency.read.reserved-for-balance:0.2}") double reservedForBalance,
+                                  @Value("${wallet.concurrency.write.initial-limit:20}") int writeInitial,
+                                  @Value("${wallet.concurrency.write.max-limit:100}") int writeMax,
+                                  @Value("${wallet.concurrency.min-limit:4}") int minLimit,
+                                  @Value("${wallet.concurrency.latency-tolerance:1.5}") double tolerance,
+                                  MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.readLimiter = new ConcurrencyLimiter(new GradientLimit(readInitial, minLimit, readMax, tolerance),
+                reservedForBalance);
+        this.writeLimiter = new ConcurrencyLimiter(new GradientLimit(writeInitial, minLimit, writeMax, tolerance), 0);
+        this.readRejected = meterRegistry.counter("wallet.concurrency.rejected", "traffic", "read");
+        this.writeRejected = meterRegistry.counter("wallet.concurrency.rejected", "traffic", "write");
+        register(meterRegistry, "read", readLimiter);
+        register(meterRegistry, "write", writeLimiter);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(WALLET_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean read = HttpMethod.GET.matches(request.getMethod());
+        ConcurrencyLimiter limiter = read ? readLimiter : writeLimiter;
+        if (!limiter.tryAcquire(read && request.getRequestURI().endsWith("/balance"))) {
+            (read ? readRejected : writeRejected).increment();
+            log.debug("Shedding {} {}: {} in flight, limit {}", request.getMethod(), request.getRequestURI(),
+                    limiter.inFlight(), limiter.limit());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Service overloaded, try again shortly\",\"errorCode\":\"OVERLOADED\"}");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    private static void register(MeterRegistry meterRegistry, String traffic, ConcurrencyLimiter limiter) {
+        Gauge.builder("wallet.concurrency.limit", limiter, ConcurrencyLimiter::limit)
+                .tag("traffic", traffic)
+                .description("Adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("wallet.concurrency.in.flight", limiter, ConcurrencyLimiter::inFlight)
+                .tag("traffic", traffic)
+                .description("Requests currently admitted")
+                .register(meterRegistry);
+    }
+}
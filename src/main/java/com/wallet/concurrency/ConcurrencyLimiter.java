@@ -0,0 +1,55 @@
+package com.wallet.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits requests while fewer than the {@link GradientLimit} are in flight. Callers without
+ * priority may only fill part of the limit, so the rest stays free for priority requests
+ * (balance reads) when the limit is reached.
+ */
+public final class ConcurrencyLimiter {
+
+    private final GradientLimit limit;
+    private final double normalShare;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int current;
+
+    public ConcurrencyLimiter(GradientLimit limit, double reservedForPriority) {
+        this.limit = limit;
+        this.normalShare = 1.0 - reservedForPriority;
+        this.current = limit.limit();
+    }
+
+    /**
+     * @return false if the request should be rejected; otherwise the caller must call
+     * {@link #release(long)} when it completes.
+     */
+    public boolean tryAcquire(boolean priority) {
+        int allowed = priority ? current : Math.max(1, (int) (current * normalShare));
+        while (true) {
+            int running = inFlight.get();
+            if (running >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(running, running + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Complete an admitted request and feed its latency to the limit.
+     */
+    public void release(long rttNanos) {
+        int running = inFlight.getAndDecrement();
+        current = limit.onSample(rttNanos, running);
+    }
+
+    public int limit() {
+        return current;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,100 @@
+package com.wallet.concurrency;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that follows observed latency, in the style of Netflix's gradient limiter.
+ * A fast average of recent latencies is compared with a slow one that stands for the latency
+ * without queueing:
+ * <ul>
+ *     <li>while they agree, the limit grows by about its square root per sample, probing for capacity;</li>
+ *     <li>once recent latency exceeds the long-term one by more than the tolerance, the limit is
+ *     scaled down by their ratio (at most halved per sample), which drains the queue building up
+ *     downstream, e.g. requests waiting for a database connection.</li>
+ * </ul>
+ * Samples taken while less than half the limit was in use say nothing about capacity and do not
+ * raise the limit. When latency has dropped well below the long-term average, the latter is
+ * pulled down so the limit can recover after an incident.
+ * <p>
+ * Every completed request offers a sample, so a sample that finds another one being applied is
+ * dropped instead of waiting: the averages need a steady stream of samples, not every one.
+ */
+public final class GradientLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double shortAlpha;
+    private final double longAlpha;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Written under the lock, read without it
+    private volatile double limit;
+    private volatile double shortRtt;
+    private volatile double longRtt;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = 0.2;
+        this.shortAlpha = 2.0 / (10 + 1);
+        this.longAlpha = 2.0 / (600 + 1);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * @return the limit after taking the latency of a completed request into account, or the current
+     * limit if another sample was being applied.
+     */
+    public int onSample(long rttNanos, int inFlight) {
+        if (!lock.tryLock()) {
+            return (int) limit;
+        }
+        try {
+            return apply(rttNanos, inFlight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int apply(long rttNanos, int inFlight) {
+        double shortRtt = this.shortRtt;
+        double longRtt = this.longRtt;
+        double limit = this.limit;
+        if (longRtt == 0) {
+            this.shortRtt = rttNanos;
+            this.longRtt = rttNanos;
+            return (int) limit;
+        }
+        shortRtt += shortAlpha * (rttNanos - shortRtt);
+        longRtt += longAlpha * (shortRtt - longRtt);
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        this.shortRtt = shortRtt;
+        this.longRtt = longRtt;
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        if (gradient == 1.0 && inFlight < limit / 2) {
+            return (int) limit;
+        }
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + target * smoothing));
+        this.limit = limit;
+        return (int) limit;
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public long shortRttNanos() {
+        return (long) shortRtt;
+    }
+
+    public long longRttNanos() {
+        return (long) longRtt;
+    }
+}
@@ -1,19 +1,24 @@
 package com.wallet.controller;
 
 import com.wallet.dto.*;
+import com.wallet.onboarding.BulkOnboardingService;
 import com.wallet.service.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
     private final UserService userService;
+    private final BulkOnboardingService bulkOnboardingService;
 
-    public UserController(UserService userService){
+    public UserController(UserService userService, BulkOnboardingService bulkOnboardingService){
         this.userService = userService;
+        this.bulkOnboardingService = bulkOnboardingService;
     }
 
     @PostMapping
@@ -25,6 +30,16 @@ public class UserController {
         return  new ResponseEntity<>(user, HttpStatus.CREATED);
     }
 
+    // Partner migrations: creates what it can and reports the rows it could not
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createUsers(@RequestBody List<CreateUserRequest> createUserRequests){
+        if (createUserRequests.size() > bulkOnboardingService.getMaxRows()){
+            return new ResponseEntity<>(ApiResponse.error("At most " + bulkOnboardingService.getMaxRows()
+                    + " users per request"), HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(bulkOnboardingService.onboard(createUserRequests));
+    }
+
     @GetMapping("/{id}/info")
     public ResponseEntity<?> getUserInfo(@PathVariable Long id) {
 
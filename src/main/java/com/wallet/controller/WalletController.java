@@ -3,13 +3,18 @@ package com.wallet.controller;
 import com.wallet.dto.*;
 import com.wallet.dto.TransactionStatus;
 import com.wallet.entity.WalletTransaction;
+import com.wallet.service.HoldService;
+import com.wallet.service.ScheduledTransferService;
 import com.wallet.service.WalletService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -19,10 +24,15 @@ import java.util.List;
 public class WalletController {
     private static final Logger log = LoggerFactory.getLogger(WalletController.class);
     private final WalletService walletService;
+    private final HoldService holdService;
+    private final ScheduledTransferService scheduledTransferService;
 
     @Autowired
-    public WalletController(WalletService walletService) {
+    public WalletController(WalletService walletService, HoldService holdService,
+                            ScheduledTransferService scheduledTransferService) {
         this.walletService = walletService;
+        this.holdService = holdService;
+        this.scheduledTransferService = scheduledTransferService;
     }
 
     /**
@@ -88,33 +98,46 @@ public class WalletController {
 
     /**
      * Check Balance API.
-     * To check the balance in Wallet using the UserID.
+     * To check the balance in Wallet using the UserID, in the base currency and any other currencies held.
+     * Answers 304 without reading the balance when If-None-Match matches the wallet version.
      *
      * @param userId UserId.
      * @return Response with Balance.
      */
     @GetMapping("/{userId}/balance")
-    public ResponseEntity<ApiResponse<BalanceResponse>> checkBalance(@PathVariable Long userId) {
+    public ResponseEntity<ApiResponse<BalanceResponse>> checkBalance(@PathVariable Long userId, WebRequest request) {
+        // Taken before the read, so a concurrent change can only make the tag older than the body
+        String etag = walletService.balanceETag(userId);
+        if (etag != null && request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
         BigDecimal balance = walletService.checkBalance(userId);
-        BalanceResponse balanceResponse = new BalanceResponse(userId, balance);
+        BalanceResponse balanceResponse = new BalanceResponse(userId, balance, walletService.baseCurrency(),
+                walletService.currencyBalances(userId));
         balanceResponse.setMessage("Balance fetched successfully");
-        return ResponseEntity.ok(ApiResponse.success(balanceResponse));
+        return withETag(etag).body(ApiResponse.success(balanceResponse));
     }
 
     /**
      * Transactions API.
      * To view all the transactions related to the User fetched by userId.
+     * Answers 304 when If-None-Match matches the current state of the history.
      *
      * @param userId UserID.
      * @return All the Transactions.
      */
     @GetMapping("/{userId}/transactions")
-    public ResponseEntity<ApiResponse<List<TransactionResponse>>> getHistory(@PathVariable Long userId) {
+    public ResponseEntity<ApiResponse<List<TransactionResponse>>> getHistory(@PathVariable Long userId,
+                                                                             WebRequest request) {
+        String etag = walletService.historyETag(userId);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
         List<WalletTransaction> walletTransactions = walletService.checkTransactions(userId);
         List<TransactionResponse> transactionResponses = walletTransactions.stream()
                 .map(walletService::buildTransactionResponse)
                 .toList();
-        return ResponseEntity.ok(ApiResponse.success(transactionResponses));
+        return withETag(etag).body(ApiResponse.success(transactionResponses));
     }
 
     /**
@@ -128,12 +151,139 @@ public class WalletController {
     @GetMapping("/{userId}/transactions/status/{status}")
     public ResponseEntity<ApiResponse<List<TransactionResponse>>> getTransactionsByStatus(
             @PathVariable Long userId,
-            @PathVariable String status) {
+            @PathVariable String status,
+            WebRequest request) {
         TransactionStatus transactionStatus = TransactionStatus.valueOf(status.toUpperCase());
+        String etag = walletService.historyETag(userId);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
         List<WalletTransaction> walletTransactions = walletService.getTransactionsByStatus(userId, transactionStatus);
         List<TransactionResponse> transactionResponses = walletTransactions.stream()
                 .map(walletService::buildTransactionResponse)
                 .toList();
-        return ResponseEntity.ok(ApiResponse.success(transactionResponses));
+        return withETag(etag).body(ApiResponse.success(transactionResponses));
     }
-}
\ No newline at end of file
+
+    /**
+     * Hold API.
+     * To reserve an amount in the Wallet until it is captured, released or expires.
+     *
+     * @param userId  User Id
+     * @param request Amount, description and expiry
+     * @return The hold.
+     */
+    @PostMapping("/{userId}/holds")
+    public ResponseEntity<ApiResponse<HoldResponse>> placeHold(
+            @PathVariable Long userId,
+            @Valid @RequestBody HoldRequest request) {
+        HoldResponse response = holdService.placeHold(userId, request);
+        return ResponseEntity.ok(ApiResponse.success("Hold placed", response));
+    }
+
+    /**
+     * Capture API.
+     * To debit all or part of a hold; the rest is released.
+     *
+     * @param userId  User Id
+     * @param holdId  Hold Id
+     * @param request Optional amount to capture, defaults to the full hold
+     * @return The captured hold.
+     */
+    @PostMapping("/{userId}/holds/{holdId}/capture")
+    public ResponseEntity<ApiResponse<HoldResponse>> captureHold(
+            @PathVariable Long userId,
+            @PathVariable Long holdId,
+            @Valid @RequestBody(required = false) CaptureRequest request) {
+        HoldResponse response = holdService.captureHold(userId, holdId, request);
+        return ResponseEntity.ok(ApiResponse.success("Hold captured", response));
+    }
+
+    /**
+     * Release API.
+     * To give the held amount back to the Wallet balance.
+     *
+     * @param userId User Id
+     * @param holdId Hold Id
+     * @return The released hold.
+     */
+    @PostMapping("/{userId}/holds/{holdId}/release")
+    public ResponseEntity<ApiResponse<HoldResponse>> releaseHold(
+            @PathVariable Long userId,
+            @PathVariable Long holdId) {
+        HoldResponse response = holdService.releaseHold(userId, holdId);
+        return ResponseEntity.ok(ApiResponse.success("Hold released", response));
+    }
+
+    /**
+     * Scheduled Transfer API.
+     * To transfer an amount to another Wallet once at a later time, or daily, weekly or monthly.
+     *
+     * @param userId  Sender User Id
+     * @param request Receiver, amount, frequency, start and optional end
+     * @return The scheduled transfer.
+     */
+    @PostMapping("/{userId}/scheduled-transfers")
+    public ResponseEntity<ApiResponse<ScheduledTransferResponse>> scheduleTransfer(
+            @PathVariable Long userId,
+            @Valid @RequestBody ScheduledTransferRequest request) {
+        ScheduledTransferResponse response = scheduledTransferService.create(userId, request);
+        return ResponseEntity.ok(ApiResponse.success("Transfer scheduled", response));
+    }
+
+    /**
+     * Scheduled Transfers API.
+     * To view the scheduled transfers the User sends.
+     *
+     * @param userId User Id
+     * @return All the scheduled transfers, newest first.
+     */
+    @GetMapping("/{userId}/scheduled-transfers")
+    public ResponseEntity<ApiResponse<List<ScheduledTransferResponse>>> getScheduledTransfers(
+            @PathVariable Long userId) {
+        return ResponseEntity.ok(ApiResponse.success(scheduledTransferService.list(userId)));
+    }
+
+    /**
+     * Scheduled Transfer Runs API.
+     * To view the latest occurrences of a scheduled transfer and their outcome.
+     *
+     * @param userId     User Id
+     * @param scheduleId Scheduled transfer Id
+     * @return The latest runs, newest first.
+     */
+    @GetMapping("/{userId}/scheduled-transfers/{scheduleId}/runs")
+    public ResponseEntity<ApiResponse<List<ScheduledTransferRunResponse>>> getScheduledTransferRuns(
+            @PathVariable Long userId,
+            @PathVariable Long scheduleId) {
+        return ResponseEntity.ok(ApiResponse.success(scheduledTransferService.runs(userId, scheduleId)));
+    }
+
+    /**
+     * Cancel Scheduled Transfer API.
+     * To stop the further occurrences of a scheduled transfer.
+     *
+     * @param userId     User Id
+     * @param scheduleId Scheduled transfer Id
+     * @return The cancelled scheduled transfer.
+     */
+    @PostMapping("/{userId}/scheduled-transfers/{scheduleId}/cancel")
+    public ResponseEntity<ApiResponse<ScheduledTransferResponse>> cancelScheduledTransfer(
+            @PathVariable Long userId,
+            @PathVariable Long scheduleId) {
+        ScheduledTransferResponse response = scheduledTransferService.cancel(userId, scheduleId);
+        return ResponseEntity.ok(ApiResponse.success("Scheduled transfer cancelled", response));
+    }
+
+    /**
+     * Weak ETags, so they stay valid when the body is gzipped; no-cache makes clients revalidate.
+     */
+    private static ResponseEntity.BodyBuilder withETag(String etag) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        return etag != null ? builder.eTag(etag) : builder;
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+    }
+}
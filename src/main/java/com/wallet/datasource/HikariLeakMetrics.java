@@ -0,0 +1,55 @@
+package com.wallet.datasource;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hikari only reports leaks (leak-detection-threshold) as WARN logs from ProxyLeakTask.
+ * This counts them as hikaricp.connections.leaks so they show up next to the pool metrics.
+ */
+@Component
+public class HikariLeakMetrics {
+
+    private static final String LEAK_LOGGER = "com.zaxxer.hikari.pool.ProxyLeakTask";
+
+    private final Counter leaks;
+    private final AppenderBase<ILoggingEvent> appender = new AppenderBase<>() {
+        @Override
+        protected void append(ILoggingEvent event) {
+            if (event.getMessage() != null && event.getMessage().startsWith("Connection leak detection triggered")) {
+                leaks.increment();
+            }
+        }
+    };
+
+    public HikariLeakMetrics(MeterRegistry meterRegistry) {
+        this.leaks = Counter.builder("hikaricp.connections.leaks")
+                .description("Connections held longer than the leak detection threshold")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void attach() {
+        if (LoggerFactory.getLogger(LEAK_LOGGER) instanceof Logger logger) {
+            appender.setName("hikari-leak-metrics");
+            appender.setContext(logger.getLoggerContext());
+            appender.start();
+            logger.addAppender(appender);
+        }
+    }
+
+    @PreDestroy
+    public void detach() {
+        if (LoggerFactory.getLogger(LEAK_LOGGER) instanceof Logger logger) {
+            logger.detachAppender(appender);
+        }
+        appender.stop();
+    }
+}
@@ -0,0 +1,33 @@
+package com.wallet.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ * Falls back to the primary when the replica is lagging or the caller needs read-your-writes.
+ * Wrapped in a LazyConnectionDataSourceProxy so the key is resolved at the first statement,
+ * after the transaction's read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final BooleanSupplier replicaUsable;
+
+    public ReadWriteRoutingDataSource(BooleanSupplier replicaUsable) {
+        this.replicaUsable = replicaUsable;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReadYourWritesRouting.isPrimaryForced()
+                && replicaUsable.getAsBoolean()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,123 @@
+package com.wallet.datasource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which users mutated their wallet recently and sends their reads to the primary
+ * until the replica can be trusted to have caught up. The replica stays in rotation while its
+ * reported lag is at most wallet.datasource.replica.max-lag-ms, but that lag is whole seconds
+ * (truncated) and only polled every lag-check-interval-ms, so a replica in rotation can be up to
+ * max-lag + interval + 1 s behind. The read-your-writes window is that sum.
+ * When replica routing is disabled every read goes to the single datasource anyway.
+ */
+@Component
+public class ReadYourWritesRouting {
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    // Granularity of Seconds_Behind_Source
+    static final long LAG_RESOLUTION_MILLIS = 1_000;
+
+    private final ConcurrentHashMap<Long, Long> lastWriteMillis = new ConcurrentHashMap<>();
+    private final long windowMillis;
+    private final int maxTrackedUsers;
+    private final LongSupplier clock;
+    // Size at which the next write prunes expired entries; see markWritten
+    private volatile int pruneAt;
+    private final AtomicBoolean pruning = new AtomicBoolean();
+
+    @Autowired
+    public ReadYourWritesRouting(@Value("${wallet.datasource.replica.max-lag-ms:1000}") long maxLagMillis,
+                                 @Value("${wallet.datasource.replica.lag-check-interval-ms:1000}") long lagCheckIntervalMillis,
+                                 @Value("${wallet.datasource.replica.max-tracked-users:100000}") int maxTrackedUsers) {
+        this(maxLagMillis, lagCheckIntervalMillis, maxTrackedUsers, System::currentTimeMillis);
+    }
+
+    ReadYourWritesRouting(long maxLagMillis, long lagCheckIntervalMillis, int maxTrackedUsers, LongSupplier clock) {
+        this.windowMillis = maxLagMillis + lagCheckIntervalMillis + LAG_RESOLUTION_MILLIS;
+        this.maxTrackedUsers = maxTrackedUsers;
+        this.clock = clock;
+        this.pruneAt = maxTrackedUsers;
+    }
+
+    /**
+     * How long after a committed write the user's reads stay on the primary.
+     */
+    long windowMillis() {
+        return windowMillis;
+    }
+
+    static boolean isPrimaryForced() {
+        return Boolean.TRUE.equals(FORCE_PRIMARY.get());
+    }
+
+    /**
+     * Record a write for the user once the surrounding transaction commits.
+     */
+    public void recordWrite(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markWritten(userId);
+                }
+            });
+        } else {
+            markWritten(userId);
+        }
+    }
+
+    /**
+     * Run a read for the user, on the primary if they wrote within the window.
+     * Must be called inside the read-only transaction, before its first query.
+     */
+    public <T> T read(Long userId, Supplier<T> query) {
+        if (!wroteRecently(userId)) {
+            return query.get();
+        }
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            FORCE_PRIMARY.remove();
+        }
+    }
+
+    /**
+     * When the user's last committed write was recorded, or 0 if none is remembered.
+     */
+    public long lastWriteMillis(Long userId) {
+        Long writtenAt = lastWriteMillis.get(userId);
+        return writtenAt != null ? writtenAt : 0;
+    }
+
+    private boolean wroteRecently(Long userId) {
+        Long writtenAt = lastWriteMillis.get(userId);
+        return writtenAt != null && clock.getAsLong() - writtenAt <= windowMillis;
+    }
+
+    private void markWritten(Long userId) {
+        long now = clock.getAsLong();
+        lastWriteMillis.put(userId, now);
+        if (lastWriteMillis.size() > pruneAt && pruning.compareAndSet(false, true)) {
+            try {
+                lastWriteMillis.values().removeIf(writtenAt -> now - writtenAt > windowMillis);
+                // When most users wrote within the window little is removed; waiting for the map to
+                // grow by half again keeps the scans amortized instead of one per write
+                int remaining = lastWriteMillis.size();
+                pruneAt = Math.max(maxTrackedUsers, remaining + remaining / 2);
+            } finally {
+                pruning.set(false);
+            }
+        }
+    }
+}
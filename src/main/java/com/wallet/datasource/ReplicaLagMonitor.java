@@ -0,0 +1,53 @@
+package com.wallet.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Polls the replica's reported lag and takes it out of rotation while it exceeds the tolerance.
+ * A server that reports no replication status (e.g. a second standalone local instance) is
+ * treated as caught up.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate replicaJdbc;
+    private final long maxLagMillis;
+    private volatile boolean usable = true;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagMillis) {
+        this.replicaJdbc = new JdbcTemplate(replicaDataSource);
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.datasource.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        boolean nowUsable;
+        try {
+            // Seconds_Behind_Source is NULL while replication is stopped or broken
+            List<Long> lag = replicaJdbc.query("SHOW REPLICA STATUS",
+                    (rs, row) -> {
+                        long seconds = rs.getLong("Seconds_Behind_Source");
+                        return rs.wasNull() ? null : seconds;
+                    });
+            nowUsable = lag.isEmpty() || (lag.get(0) != null && lag.get(0) <= maxLagMillis / 1000);
+        } catch (Exception e) {
+            log.warn("Replica lag check failed: {}", e.getMessage());
+            nowUsable = false;
+        }
+        if (nowUsable != usable) {
+            log.warn("Replica {} for reads", nowUsable ? "back in rotation" : "taken out of rotation");
+        }
+        usable = nowUsable;
+    }
+}
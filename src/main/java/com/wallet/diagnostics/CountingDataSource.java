@@ -0,0 +1,174 @@
+package com.wallet.diagnostics;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts the JDBC calls made through its connections into the current {@link StatementCounter} scope.
+ * Connections, statements and result sets are wrapped in JDK proxies, which costs a reflective call
+ * per JDBC method, so it is only installed when wallet.diagnostics.statements.enabled is set.
+ */
+public class CountingDataSource extends DelegatingDataSource {
+
+    public CountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection target) {
+        return (Connection) Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class}, new ConnectionHandler(target));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getTargetConnection":
+                    return target;
+                case "commit", "rollback":
+                    StatementCounter.roundTrip();
+                    break;
+                default:
+                    break;
+            }
+            Object result = CountingDataSource.invoke(target, method, args);
+            Class<?> type = switch (method.getName()) {
+                case "createStatement" -> Statement.class;
+                case "prepareStatement" -> PreparedStatement.class;
+                case "prepareCall" -> CallableStatement.class;
+                default -> null;
+            };
+            return type == null ? result : Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler((Statement) result, (Connection) proxy));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final Connection connection;
+        private int batched;
+
+        private StatementHandler(Statement target, Connection connection) {
+            this.target = target;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return connection;
+                default:
+                    break;
+            }
+            Object result = CountingDataSource.invoke(target, method, args);
+            switch (name) {
+                case "addBatch" -> batched++;
+                case "clearBatch" -> batched = 0;
+                case "execute" -> {
+                    StatementCounter.statements(1);
+                    StatementCounter.roundTrip();
+                    if (!(Boolean) result) {
+                        StatementCounter.rows(target.getUpdateCount());
+                    }
+                }
+                case "executeQuery" -> {
+                    StatementCounter.statements(1);
+                    StatementCounter.roundTrip();
+                    return wrap((ResultSet) result);
+                }
+                case "executeUpdate", "executeLargeUpdate" -> {
+                    StatementCounter.statements(1);
+                    StatementCounter.roundTrip();
+                    StatementCounter.rows(((Number) result).longValue());
+                }
+                case "executeBatch" -> {
+                    executedBatch();
+                    for (int count : (int[]) result) {
+                        StatementCounter.rows(count);
+                    }
+                }
+                case "executeLargeBatch" -> {
+                    executedBatch();
+                    for (long count : (long[]) result) {
+                        StatementCounter.rows(count);
+                    }
+                }
+                case "getResultSet" -> {
+                    return result == null ? null : wrap((ResultSet) result);
+                }
+                default -> {
+                }
+            }
+            return result;
+        }
+
+        private void executedBatch() {
+            StatementCounter.statements(batched);
+            StatementCounter.roundTrip();
+            batched = 0;
+        }
+
+        private static ResultSet wrap(ResultSet target) {
+            return (ResultSet) Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("equals")) {
+                            return proxy == args[0];
+                        }
+                        if (method.getName().equals("hashCode")) {
+                            return System.identityHashCode(proxy);
+                        }
+                        Object result = CountingDataSource.invoke(target, method, args);
+                        if (method.getName().equals("next") && (Boolean) result) {
+                            StatementCounter.rows(1);
+                        }
+                        return result;
+                    });
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.wallet.diagnostics;
+
+import java.util.function.Supplier;
+
+/**
+ * Tally of the JDBC work done for one unit of work, such as a request or a service call: statements
+ * executed (each statement of a JDBC batch counts), database round trips (executes, batch executes,
+ * commits and rollbacks) and rows (read from result sets, or reported as affected by writes).
+ * <p>
+ * {@link CountingDataSource} adds to the scope open on the calling thread; nothing is counted without
+ * one. A closed scope adds its counts to the scope it was opened in. Work handed to another thread,
+ * like a wallet lane, is counted in the caller's scope when wrapped with {@link #propagate}. The
+ * caller has to wait for that work before reading the counts.
+ */
+public final class StatementCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final Scope parent;
+        private long statements;
+        private long roundTrips;
+        private long rows;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        public long statements() {
+            return statements;
+        }
+
+        public long roundTrips() {
+            return roundTrips;
+        }
+
+        public long rows() {
+            return rows;
+        }
+
+        @Override
+        public void close() {
+            if (parent == null) {
+                CURRENT.remove();
+                return;
+            }
+            parent.statements += statements;
+            parent.roundTrips += roundTrips;
+            parent.rows += rows;
+            CURRENT.set(parent);
+        }
+
+        @Override
+        public String toString() {
+            return statements + " statements, " + roundTrips + " round trips, " + rows + " rows";
+        }
+    }
+
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Runs command in the caller's scope, on whichever thread executes it.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> command) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return command;
+        }
+        return () -> {
+            Scope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                return command.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    static void statements(long count) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.statements += count;
+        }
+    }
+
+    static void roundTrip() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.roundTrips++;
+        }
+    }
+
+    static void rows(long count) {
+        Scope scope = CURRENT.get();
+        if (scope != null && count > 0) {
+            scope.rows += count;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.wallet.diagnostics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Statement counting, enabled with wallet.diagnostics.statements.enabled=true. Wraps the application's
+ * dataSource bean (the pool, or the read-write router with replicas) in a {@link CountingDataSource}
+ * and reports the counts per request.
+ */
+@Configuration
+@ConditionalOnProperty(name = "wallet.diagnostics.statements.enabled", havingValue = "true")
+public class StatementDiagnosticsConfig {
+
+    @Bean
+    public static BeanPostProcessor countingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Only the bean Hibernate and JdbcTemplate use, so routed connections are not counted twice
+                return bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)
+                        && "dataSource".equals(beanName) ? new CountingDataSource(dataSource) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public StatementDiagnosticsFilter statementDiagnosticsFilter() {
+        return new StatementDiagnosticsFilter();
+    }
+}
@@ -0,0 +1,39 @@
+package com.wallet.diagnostics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Reports the JDBC work of each request in X-Db-Statements, X-Db-Round-Trips and X-Db-Rows response
+ * headers, and in a debug log line. The body is buffered so the headers can still be set after the
+ * controller has written it.
+ */
+public class StatementDiagnosticsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementDiagnosticsFilter.class);
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            try {
+                filterChain.doFilter(request, buffered);
+            } finally {
+                buffered.setHeader("X-Db-Statements", Long.toString(scope.statements()));
+                buffered.setHeader("X-Db-Round-Trips", Long.toString(scope.roundTrips()));
+                buffered.setHeader("X-Db-Rows", Long.toString(scope.rows()));
+                log.debug("{} {}: {}", request.getMethod(), request.getRequestURI(), scope);
+                buffered.copyBodyToResponse();
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Getter
 @Setter
@@ -12,7 +13,8 @@ public class BalanceResponse {
 
     private Long userId;
     private BigDecimal balance;
-    private String currency; // e.g., "USD", "EUR", etc.
+    private String currency; // base currency of balance, e.g. "INR"
+    private Map<String, BigDecimal> currencyBalances; // balances held in other currencies
     private LocalDateTime timestamp;
     private String message;
 
@@ -20,10 +22,11 @@ public class BalanceResponse {
         this.timestamp = LocalDateTime.now();
     }
 
-    public BalanceResponse(Long userId, BigDecimal balance) {
+    public BalanceResponse(Long userId, BigDecimal balance, String currency, Map<String, BigDecimal> currencyBalances) {
         this.userId = userId;
         this.balance = balance;
-        this.currency = "INR"; // Default or configurable
+        this.currency = currency;
+        this.currencyBalances = currencyBalances;
         this.timestamp = LocalDateTime.now();
     }
 }
@@ -0,0 +1,68 @@
+package com.wallet.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk onboarding request: counts, plus one entry per row that was not created.
+ * Row numbers are zero-based positions in the request.
+ */
+public class BulkOnboardingReport {
+
+    private final int requested;
+    private final int created;
+    private final List<RowFailure> failures;
+    private final long elapsedMillis;
+
+    public BulkOnboardingReport(int requested, int created, List<RowFailure> failures, long elapsedMillis) {
+        this.requested = requested;
+        this.created = created;
+        this.failures = failures;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public List<RowFailure> getFailures() {
+        return failures;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public static class RowFailure {
+        private final int row;
+        private final String email;
+        private final String errorCode;  // DUPLICATE_EMAIL, INVALID, FAILED
+        private final String message;
+
+        public RowFailure(int row, String email, String errorCode, String message) {
+            this.row = row;
+            this.email = email;
+            this.errorCode = errorCode;
+            this.message = message;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getErrorCode() {
+            return errorCode;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
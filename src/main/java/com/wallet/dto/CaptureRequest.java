@@ -0,0 +1,20 @@
+package com.wallet.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class CaptureRequest {
+
+    // Amount to debit; defaults to the full hold. Any remainder is released.
+    @DecimalMin(value = "0.01", message = "Amount must be greater than or equal to 0.01")
+    @Digits(integer = 10, fraction = 2, message = "Amount can have up to 10 integer digits and 2 decimal digits")
+    private BigDecimal amount;
+}
@@ -8,6 +8,15 @@ public class CreateUserRequest {
     private String email;
     private String password;
 
+    public CreateUserRequest() {
+    }
+
+    public CreateUserRequest(String name, String email, String password) {
+        this.name = name;
+        this.email = email;
+        this.password = password;
+    }
+
     public String getEmail() {
         return email;
     }
@@ -0,0 +1,30 @@
+package com.wallet.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class HoldRequest {
+
+    @NotNull(message = "Amount cannot be null")
+    @DecimalMin(value = "0.01", message = "Amount must be greater than or equal to 0.01")
+    @Digits(integer = 10, fraction = 2, message = "Amount can have up to 10 integer digits and 2 decimal digits")
+    private BigDecimal amount;
+
+    private String description;
+
+    // Released automatically after this many seconds unless captured; 7 days by default
+    @Min(value = 1, message = "Expiry must be at least 1 second")
+    @Max(value = 2_592_000, message = "Expiry can be at most 30 days")
+    private Long expiresInSeconds = 604_800L;
+}
@@ -0,0 +1,21 @@
+package com.wallet.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class HoldResponse {
+    private Long holdId;
+    private Long userId;
+    private String referenceId;
+    private BigDecimal amount;
+    private BigDecimal capturedAmount;
+    private String holdStatus;  // ACTIVE, CAPTURED, RELEASED, EXPIRED
+    private String description;
+    private LocalDateTime createdDate;
+    private LocalDateTime expiresAt;
+    private LocalDateTime completedDate;
+    private Long captureTransactionId;
+}
@@ -0,0 +1,38 @@
+package com.wallet.dto;
+
+import com.wallet.entity.ScheduleFrequency;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class ScheduledTransferRequest {
+
+    @NotNull(message = "Receiver cannot be null")
+    private Long receiver;
+
+    @NotNull(message = "Amount cannot be null")
+    @DecimalMin(value = "0.01", message = "Amount must be greater than or equal to 0.01")
+    @Digits(integer = 10, fraction = 2, message = "Amount can have up to 10 integer digits and 2 decimal digits")
+    private BigDecimal amount;
+
+    private String description;
+
+    // ONCE, DAILY, WEEKLY or MONTHLY
+    @NotNull(message = "Frequency cannot be null")
+    private ScheduleFrequency frequency;
+
+    // First occurrence; now when not given
+    private LocalDateTime startAt;
+
+    // No occurrence after this time; runs until cancelled when not given
+    private LocalDateTime endAt;
+}
@@ -0,0 +1,22 @@
+package com.wallet.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class ScheduledTransferResponse {
+    private Long scheduleId;
+    private Long sender;
+    private Long receiver;
+    private BigDecimal amount;
+    private String description;
+    private String frequency;
+    private String scheduleStatus;  // ACTIVE, COMPLETED, CANCELLED
+    private LocalDateTime startAt;
+    private LocalDateTime endAt;
+    private Long runCount;
+    private LocalDateTime nextRunAt;
+    private LocalDateTime createdDate;
+}
@@ -0,0 +1,16 @@
+package com.wallet.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ScheduledTransferRunResponse {
+    private Long occurrence;
+    private String referenceId;
+    private String runStatus;  // CLAIMED, SUCCESS, DECLINED, LIMIT_EXCEEDED, FAILED, SKIPPED
+    private LocalDateTime scheduledFor;
+    private LocalDateTime claimedDate;
+    private LocalDateTime completedDate;
+    private String failureReason;
+}
@@ -10,6 +10,8 @@ public class TransactionResponse {
     private Long transactionId;
     private String referenceId;
     private BigDecimal amount;
+    private String currency;
+    private BigDecimal fxRate;
     private String transactionType;
     private String transactionStatus;  // PENDING, SUCCESS, FAILED, etc.
     private LocalDateTime transactionDate;
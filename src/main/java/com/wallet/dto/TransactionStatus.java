@@ -7,5 +7,6 @@ public enum TransactionStatus {
     FAILED,       // Transaction failed (insufficient balance, validation error, etc.)
     CANCELLED,    // Transaction cancelled by user/system
     REVERSED,     // Transaction reversed (for rollbacks/refunds)
-    DECLINED
+    DECLINED,
+    LIMIT_EXCEEDED // Declined by the per-user spending or velocity limits
 }
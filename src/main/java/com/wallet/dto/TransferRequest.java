@@ -15,6 +15,9 @@ public class TransferRequest {
     private Long receiver;
     private BigDecimal transferAmount;
     private String description;
+    // Currency the amount is debited in, and the one the receiver is credited in; both default to the base currency
+    private String currency;
+    private String receiverCurrency;
 
     public TransferRequest(Long receiver, Long sender, BigDecimal transferAmount) {
         this.receiver = receiver;
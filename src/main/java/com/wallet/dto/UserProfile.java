@@ -0,0 +1,35 @@
+package com.wallet.dto;
+
+/**
+ * Public view of a user: everything but the password hash. Loaded by a projection query and
+ * cached, so it is immutable.
+ */
+public class UserProfile {
+    private final Long id;
+    private final String name;
+    private final String emailId;
+    private final String role;
+
+    public UserProfile(Long id, String name, String emailId, String role) {
+        this.id = id;
+        this.name = name;
+        this.emailId = emailId;
+        this.role = role;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmailId() {
+        return emailId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+}
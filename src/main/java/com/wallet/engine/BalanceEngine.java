@@ -0,0 +1,468 @@
+package com.wallet.engine;
+
+import com.wallet.exception.WalletBusyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-memory balance engine (LMAX style).
+ * <p>
+ * Commands go through a ring buffer to a single sequencer thread that owns all balances, so
+ * there is no locking on the hot path. The sequencer applies a batch, appends the resulting
+ * events to the journal, forces it to disk and only then completes the callers' futures (group
+ * commit). Events are handed to a {@link LedgerProjection} thread that writes them to the database.
+ * <p>
+ * Every checkpointInterval events the balances are snapshotted; on start the engine loads the last
+ * checkpoint and replays the journal after it. Journal segments are deleted once they are covered
+ * by both the checkpoint and the projection.
+ * <p>
+ * Accounts the engine has not seen yet are loaded on a separate pool; commands touching them wait
+ * aside (in arrival order per account) while the sequencer keeps serving everyone else.
+ */
+public class BalanceEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceEngine.class);
+    private static final int MAX_BATCH = 4096;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final int LOADER_THREADS = 4;
+
+    /**
+     * Loads a wallet the engine has not seen yet, e.g. one created after the engine started.
+     */
+    public interface AccountLoader {
+        /**
+         * @return balance in minor units, or null if the wallet does not exist.
+         */
+        Long load(long userId);
+    }
+
+    private final Path directory;
+    private final LedgerProjection projection;
+    private final AccountLoader accountLoader;
+    private final CommandRingBuffer<Command> ring;
+    private final long checkpointInterval;
+    private final int expectedAccounts;
+
+    private final ConcurrentLinkedQueue<LedgerEvent> projectionQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong projectedSeq = new AtomicLong();
+    private final AtomicLong durableSeq = new AtomicLong();
+    private final ExecutorService checkpointWriter = Executors.newSingleThreadExecutor(r -> daemon(r, "engine-checkpoint"));
+    private final ExecutorService accountLoads = Executors.newFixedThreadPool(LOADER_THREADS, r -> daemon(r, "engine-account-loader"));
+    private final ConcurrentLinkedQueue<LoadedAccount> loadedAccounts = new ConcurrentLinkedQueue<>();
+    // Sequencer thread only: commands waiting for an account load, by the account they wait for
+    private final Map<Long, ArrayDeque<Command>> awaitingLoad = new HashMap<>();
+
+    private LongLongMap balances;
+    private Journal journal;
+    private long seq;
+    private long lastCheckpointSeq;
+    private volatile boolean running;
+    private volatile Throwable failure;
+    private Thread sequencer;
+    private Thread projector;
+
+    public BalanceEngine(Path directory, LedgerProjection projection, AccountLoader accountLoader,
+                         int ringCapacity, long checkpointInterval, int expectedAccounts) {
+        this.directory = directory;
+        this.projection = projection;
+        this.accountLoader = accountLoader;
+        this.ring = new CommandRingBuffer<>(ringCapacity);
+        this.checkpointInterval = checkpointInterval;
+        this.expectedAccounts = expectedAccounts;
+    }
+
+    /**
+     * Rebuild state from checkpoint + journal, then start the sequencer and projector threads.
+     */
+    public void start() throws IOException {
+        Checkpoint checkpoint = Checkpoint.read(directory, expectedAccounts);
+        balances = checkpoint.balances;
+        lastCheckpointSeq = checkpoint.seq;
+        long alreadyProjected = projection.projectedSeq();
+        projectedSeq.set(alreadyProjected);
+
+        journal = new Journal(directory);
+        long replayFrom = Math.min(checkpoint.seq, alreadyProjected);
+        seq = journal.recover(replayFrom, event -> {
+            if (event.getSeq() > checkpoint.seq) {
+                apply(event);
+            }
+            if (event.getSeq() > alreadyProjected) {
+                projectionQueue.add(event);
+            }
+        });
+        seq = Math.max(seq, checkpoint.seq);
+        journal.openForAppend(seq + 1);
+        durableSeq.set(seq);
+        log.info("Balance engine recovered {} accounts at seq {} (checkpoint {}, projected {})",
+                balances.size(), seq, checkpoint.seq, alreadyProjected);
+
+        running = true;
+        sequencer = daemon(this::runSequencer, "engine-sequencer");
+        projector = daemon(this::runProjector, "engine-projector");
+        sequencer.start();
+        projector.start();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            if (sequencer != null) {
+                sequencer.join(TimeUnit.SECONDS.toMillis(5));
+            }
+            if (projector != null) {
+                projector.join(TimeUnit.SECONDS.toMillis(5));
+            }
+            accountLoads.shutdownNow();
+            checkpointWriter.shutdown();
+            checkpointWriter.awaitTermination(30, TimeUnit.SECONDS);
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Closing journal failed: {}", e.getMessage());
+        }
+    }
+
+    public CompletableFuture<LedgerEvent> credit(long userId, long amount, String referenceId, String description) {
+        return submit(new Command(LedgerEvent.Type.CREDIT, userId, 0, amount, referenceId, description));
+    }
+
+    public CompletableFuture<LedgerEvent> debit(long userId, long amount, String referenceId, String description) {
+        return submit(new Command(LedgerEvent.Type.DEBIT, userId, 0, amount, referenceId, description));
+    }
+
+    public CompletableFuture<LedgerEvent> transfer(long fromUserId, long toUserId, long amount,
+                                                   String referenceId, String description) {
+        return submit(new Command(LedgerEvent.Type.TRANSFER, fromUserId, toUserId, amount, referenceId, description));
+    }
+
+    /**
+     * Balance as of all previously acknowledged commands; the result's balanceAfter holds it.
+     */
+    public CompletableFuture<LedgerEvent> balance(long userId) {
+        return submit(new Command(null, userId, 0, 0, null, null));
+    }
+
+    public int queueDepth() {
+        return ring.size();
+    }
+
+    public long durableSeq() {
+        return durableSeq.get();
+    }
+
+    public long projectedSeq() {
+        return projectedSeq.get();
+    }
+
+    private CompletableFuture<LedgerEvent> submit(Command command) {
+        if (failure != null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Balance engine stopped", failure));
+        }
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Balance engine is not running"));
+        }
+        if (!ring.offer(command)) {
+            return CompletableFuture.failedFuture(new WalletBusyException("Balance engine is busy, try again later"));
+        }
+        return command.result;
+    }
+
+    private void runSequencer() {
+        List<Command> batch = new ArrayList<>(MAX_BATCH);
+        List<LedgerEvent> events = new ArrayList<>(MAX_BATCH * 2);
+        List<Command> completed = new ArrayList<>(MAX_BATCH);
+        while (running || ring.size() > 0) {
+            boolean loaded = !loadedAccounts.isEmpty();
+            if (ring.drainTo(batch, MAX_BATCH) == 0 && !loaded) {
+                ring.awaitItems(IDLE_WAIT_NANOS);
+                continue;
+            }
+            try {
+                LoadedAccount account;
+                while ((account = loadedAccounts.poll()) != null) {
+                    resume(account, events, completed);
+                }
+                for (Command command : batch) {
+                    processOrReject(command, events, completed);
+                }
+                if (!events.isEmpty()) {
+                    journal.append(events);
+                    journal.force();
+                    durableSeq.set(seq);
+                    projectionQueue.addAll(events);
+                }
+                for (Command command : completed) {
+                    command.result.complete(command.outcome);
+                }
+                if (seq - lastCheckpointSeq >= checkpointInterval) {
+                    checkpoint();
+                }
+            } catch (Throwable t) {
+                // Memory may now be ahead of the journal: stop instead of acknowledging anything else
+                failure = t;
+                running = false;
+                log.error("Balance engine halted: {}", t.getMessage(), t);
+                for (Command command : batch) {
+                    command.result.completeExceptionally(t);
+                }
+                // Includes commands resumed after a load in this round
+                for (Command command : completed) {
+                    command.result.completeExceptionally(t);
+                }
+                failAwaitingLoad(t);
+                drainAndFail(t);
+                return;
+            } finally {
+                batch.clear();
+                events.clear();
+                completed.clear();
+            }
+        }
+        failAwaitingLoad(new IllegalStateException("Balance engine stopped"));
+    }
+
+    private void processOrReject(Command command, List<LedgerEvent> events, List<Command> completed) {
+        try {
+            process(command, events, completed);
+        } catch (RuntimeException e) {
+            // Rejected before any state change, e.g. overflow
+            command.result.completeExceptionally(e);
+        }
+    }
+
+    private void process(Command command, List<LedgerEvent> events, List<Command> completed) {
+        if (awaitLoad(command, command.userId)
+                || (command.type == LedgerEvent.Type.TRANSFER && awaitLoad(command, command.otherUserId))) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long balance = balances.get(command.userId);
+        if (command.type == null) {
+            command.outcome = new LedgerEvent(seq, LedgerEvent.Type.OPEN, LedgerEvent.Status.SUCCESS,
+                    command.userId, 0, 0, balance, 0, now, null, null);
+            completed.add(command);
+            return;
+        }
+        // Work out the balances before taking a sequence number, so an overflow leaves no gap
+        LedgerEvent.Status status = LedgerEvent.Status.SUCCESS;
+        long balanceAfter = balance;
+        long otherBalanceAfter = 0;
+        switch (command.type) {
+            case CREDIT -> balanceAfter = Math.addExact(balance, command.amount);
+            case DEBIT -> {
+                if (balance < command.amount) {
+                    status = LedgerEvent.Status.DECLINED;
+                } else {
+                    balanceAfter = balance - command.amount;
+                }
+            }
+            default -> {
+                long receiverBalance = balances.get(command.otherUserId);
+                otherBalanceAfter = receiverBalance;
+                if (balance < command.amount) {
+                    status = LedgerEvent.Status.DECLINED;
+                } else if (command.userId != command.otherUserId) {
+                    balanceAfter = balance - command.amount;
+                    otherBalanceAfter = Math.addExact(receiverBalance, command.amount);
+                }
+            }
+        }
+        LedgerEvent event = new LedgerEvent(++seq, command.type, status, command.userId, command.otherUserId,
+                command.amount, balanceAfter, otherBalanceAfter, now, command.referenceId, command.description);
+        apply(event);
+        events.add(event);
+        command.outcome = event;
+        completed.add(command);
+    }
+
+    /**
+     * Park the command if the account is not in memory yet, or if earlier commands are already
+     * waiting for it, starting the load on first use.
+     *
+     * @return true if the command was parked.
+     */
+    private boolean awaitLoad(Command command, long userId) {
+        ArrayDeque<Command> waiting = awaitingLoad.get(userId);
+        if (waiting == null) {
+            if (balances.containsKey(userId)) {
+                return false;
+            }
+            waiting = new ArrayDeque<>();
+            awaitingLoad.put(userId, waiting);
+            startLoad(userId);
+        }
+        waiting.add(command);
+        return true;
+    }
+
+    private void startLoad(long userId) {
+        Thread wake = Thread.currentThread();
+        try {
+            accountLoads.execute(() -> {
+                LoadedAccount loaded;
+                try {
+                    loaded = new LoadedAccount(userId, accountLoader.load(userId), null);
+                } catch (RuntimeException e) {
+                    loaded = new LoadedAccount(userId, null, e);
+                }
+                loadedAccounts.add(loaded);
+                LockSupport.unpark(wake);
+            });
+        } catch (RuntimeException e) {
+            // Pool already shut down
+            loadedAccounts.add(new LoadedAccount(userId, null, e));
+        }
+    }
+
+    /**
+     * Called on the sequencer thread when a load finishes. The account is journaled as an OPEN event
+     * so replay does not depend on the database, then the commands that waited for it run in order.
+     */
+    private void resume(LoadedAccount account, List<LedgerEvent> events, List<Command> completed) {
+        ArrayDeque<Command> waiting = awaitingLoad.remove(account.userId());
+        if (waiting == null) {
+            return;
+        }
+        if (account.error() != null || account.balance() == null) {
+            RuntimeException error = account.error() != null ? account.error()
+                    : new RuntimeException("Wallet not found for the id : " + account.userId());
+            waiting.forEach(command -> command.result.completeExceptionally(error));
+            return;
+        }
+        if (!balances.containsKey(account.userId())) {
+            LedgerEvent open = new LedgerEvent(++seq, LedgerEvent.Type.OPEN, LedgerEvent.Status.SUCCESS,
+                    account.userId(), 0, 0, account.balance(), 0, System.currentTimeMillis(), null, null);
+            apply(open);
+            events.add(open);
+        }
+        for (Command command : waiting) {
+            processOrReject(command, events, completed);
+        }
+    }
+
+    private void failAwaitingLoad(Throwable cause) {
+        awaitingLoad.values().forEach(waiting -> waiting.forEach(command -> command.result.completeExceptionally(cause)));
+        awaitingLoad.clear();
+    }
+
+    private void apply(LedgerEvent event) {
+        if (event.getStatus() != LedgerEvent.Status.SUCCESS) {
+            return;
+        }
+        balances.put(event.getUserId(), event.getBalanceAfter());
+        if (event.getType() == LedgerEvent.Type.TRANSFER) {
+            balances.put(event.getOtherUserId(), event.getOtherBalanceAfter());
+        }
+    }
+
+    /**
+     * Called on the sequencer thread after a durable batch: rotate the journal and write the
+     * snapshot in the background.
+     */
+    private void checkpoint() throws IOException {
+        long checkpointSeq = seq;
+        LongLongMap snapshot = balances.copy();
+        journal.rotate(checkpointSeq + 1);
+        lastCheckpointSeq = checkpointSeq;
+        checkpointWriter.execute(() -> {
+            try {
+                Checkpoint.write(directory, checkpointSeq, snapshot);
+                Journal.deleteSegmentsUpTo(directory, Math.min(checkpointSeq, projectedSeq.get()));
+                log.info("Balance engine checkpoint written at seq {}", checkpointSeq);
+            } catch (IOException e) {
+                log.error("Checkpoint at seq {} failed: {}", checkpointSeq, e.getMessage());
+            }
+        });
+    }
+
+    private void runProjector() {
+        List<LedgerEvent> batch = new ArrayList<>(1000);
+        while (running || !projectionQueue.isEmpty()) {
+            LedgerEvent event;
+            while (batch.size() < 1000 && (event = projectionQueue.poll()) != null) {
+                batch.add(event);
+            }
+            if (batch.isEmpty()) {
+                sleep(5);
+                continue;
+            }
+            try {
+                projection.project(batch);
+                projectedSeq.set(batch.get(batch.size() - 1).getSeq());
+                batch.clear();
+            } catch (Exception e) {
+                // Keep the batch and retry; the journal still has it if we crash meanwhile
+                log.error("Projection of {} events failed, retrying: {}", batch.size(), e.getMessage());
+                sleep(1000);
+                if (failure != null && !running) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void drainAndFail(Throwable cause) {
+        List<Command> rest = new ArrayList<>();
+        while (ring.drainTo(rest, MAX_BATCH) > 0) {
+            rest.forEach(command -> command.result.completeExceptionally(cause));
+            rest.clear();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private record LoadedAccount(long userId, Long balance, RuntimeException error) {
+    }
+
+    private static final class Command {
+        final LedgerEvent.Type type;
+        final long userId;
+        final long otherUserId;
+        final long amount;
+        final String referenceId;
+        final String description;
+        final CompletableFuture<LedgerEvent> result = new CompletableFuture<>();
+        LedgerEvent outcome;
+
+        Command(LedgerEvent.Type type, long userId, long otherUserId, long amount,
+                String referenceId, String description) {
+            this.type = type;
+            this.userId = userId;
+            this.otherUserId = otherUserId;
+            this.amount = amount;
+            this.referenceId = referenceId;
+            this.description = description;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.wallet.engine;
+
+import com.wallet.repository.WalletRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+
+/**
+ * In-memory balance engine (wallet.engine.mode=memory).
+ * Only one node may run it against a database, and the database engine must not write
+ * balances at the same time: the engine's memory is the source of truth.
+ */
+@Configuration
+@ConditionalOnProperty(name = "wallet.engine.mode", havingValue = "memory")
+public class BalanceEngineConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public BalanceEngine balanceEngine(@Value("${wallet.engine.directory:wallet-engine}") String directory,
+                                       @Value("${wallet.engine.ring-capacity:65536}") int ringCapacity,
+                                       @Value("${wallet.engine.checkpoint-every-events:1000000}") long checkpointInterval,
+                                       @Value("${wallet.engine.expected-accounts:1000000}") int expectedAccounts,
+                                       DataSource dataSource,
+                                       PlatformTransactionManager transactionManager,
+                                       WalletRepository walletRepository,
+                                       MeterRegistry meterRegistry) {
+        LedgerProjection projection = new DatabaseLedgerProjection(new JdbcTemplate(dataSource), transactionManager);
+        BalanceEngine engine = new BalanceEngine(Path.of(directory), projection,
+                userId -> walletRepository.findById(userId)
+                        .map(wallet -> wallet.getBalance().movePointRight(2).longValueExact())
+                        .orElse(null),
+                ringCapacity, checkpointInterval, expectedAccounts);
+
+        Gauge.builder("wallet.engine.queue.depth", engine, BalanceEngine::queueDepth)
+                .description("Commands waiting for the sequencer")
+                .register(meterRegistry);
+        Gauge.builder("wallet.engine.projection.lag", engine, e -> e.durableSeq() - e.projectedSeq())
+                .description("Journaled events not yet written to the database")
+                .register(meterRegistry);
+        return engine;
+    }
+}
@@ -0,0 +1,86 @@
+package com.wallet.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot of all balances as of a journal sequence number.
+ * Written to a temp file, synced and atomically renamed, so a crash leaves the previous one intact.
+ */
+final class Checkpoint {
+
+    private static final String FILE = "checkpoint.bin";
+    private static final int MAGIC = 0x57414C31;
+
+    final long seq;
+    final LongLongMap balances;
+
+    Checkpoint(long seq, LongLongMap balances) {
+        this.seq = seq;
+        this.balances = balances;
+    }
+
+    static void write(Path directory, long seq, LongLongMap balances) throws IOException {
+        Path tmp = directory.resolve(FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32());
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGIC);
+            out.writeLong(seq);
+            out.writeInt(balances.size());
+            balances.forEach((userId, balance) -> {
+                try {
+                    out.writeLong(userId);
+                    out.writeLong(balance);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+            long crc = checked.getChecksum().getValue();
+            out.writeLong(crc);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp, directory.resolve(FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the last checkpoint, or an empty one at seq 0 if none was written yet.
+     */
+    static Checkpoint read(Path directory, int expectedAccounts) throws IOException {
+        Path path = directory.resolve(FILE);
+        if (!Files.exists(path)) {
+            return new Checkpoint(0, new LongLongMap(expectedAccounts));
+        }
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 1 << 16), new CRC32());
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a checkpoint file: " + path);
+            }
+            long seq = in.readLong();
+            int count = in.readInt();
+            LongLongMap balances = new LongLongMap(Math.max(count, expectedAccounts));
+            for (int i = 0; i < count; i++) {
+                balances.put(in.readLong(), in.readLong());
+            }
+            long computed = checked.getChecksum().getValue();
+            if (in.readLong() != computed) {
+                throw new IOException("Checkpoint checksum mismatch: " + path);
+            }
+            return new Checkpoint(seq, balances);
+        }
+    }
+}
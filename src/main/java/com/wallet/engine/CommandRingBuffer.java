@@ -0,0 +1,84 @@
+package com.wallet.engine;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi-producer / single-consumer ring buffer.
+ * Producers claim a sequence with a CAS and publish into the slot; the consumer drains published
+ * slots in sequence order and frees them. A slot claimed but not yet published stops the drain
+ * until it is, so order is preserved.
+ */
+final class CommandRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile boolean consumerWaiting;
+    private volatile Thread consumer;
+
+    CommandRingBuffer(int requestedCapacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * @return false when the buffer is full.
+     */
+    boolean offer(T item) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        slots.setRelease((int) t & mask, item);
+        if (consumerWaiting) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Consumer side: move up to max published items into out.
+     */
+    int drainTo(List<T> out, int max) {
+        long h = head;
+        int n = 0;
+        while (n < max) {
+            int i = (int) h & mask;
+            T item = slots.getAcquire(i);
+            if (item == null) {
+                break;
+            }
+            slots.setRelease(i, null);
+            out.add(item);
+            h++;
+            n++;
+        }
+        head = h;
+        return n;
+    }
+
+    /**
+     * Consumer side: park briefly if nothing is published.
+     */
+    void awaitItems(long maxWaitNanos) {
+        consumer = Thread.currentThread();
+        consumerWaiting = true;
+        if (slots.getAcquire((int) head & mask) == null) {
+            LockSupport.parkNanos(this, maxWaitNanos);
+        }
+        consumerWaiting = false;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
@@ -0,0 +1,154 @@
+package com.wallet.engine;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.EngineProjectionState;
+import com.wallet.entity.TransactionType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Projects engine events into wallet_transactions, wallet_outbox and wallets with JDBC batches.
+ * Each batch commits together with the new projected sequence, so a batch redelivered after a
+ * crash is skipped instead of written twice.
+ */
+public class DatabaseLedgerProjection implements LedgerProjection {
+
+    private static final String INSERT_TRANSACTION = "INSERT INTO wallet_transactions "
+            + "(sender, receiver, owner_user_id, amount, type, status, description, failure_reason, "
+            + "balance_after_transaction, transaction_time, completed_time, reference_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_OUTBOX = "INSERT INTO wallet_outbox "
+            + "(wallet_id, reference_id, transaction_type, status, amount, balance_after_transaction, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_WALLET =
+            "UPDATE wallets SET balance = ?, version = version + 1 WHERE user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public DatabaseLedgerProjection(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public long projectedSeq() {
+        List<Long> seq = jdbcTemplate.queryForList(
+                "SELECT projected_seq FROM engine_projection_state WHERE id = ?", Long.class,
+                EngineProjectionState.SINGLETON_ID);
+        return seq.isEmpty() ? 0 : seq.get(0);
+    }
+
+    @Override
+    public void project(List<LedgerEvent> events) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            List<Long> current = jdbcTemplate.queryForList(
+                    "SELECT projected_seq FROM engine_projection_state WHERE id = ? FOR UPDATE", Long.class,
+                    EngineProjectionState.SINGLETON_ID);
+            long projected = current.isEmpty() ? 0 : current.get(0);
+
+            List<Object[]> transactions = new ArrayList<>();
+            List<Object[]> outbox = new ArrayList<>();
+            Map<Long, Long> latestBalances = new LinkedHashMap<>();
+            long lastSeq = projected;
+            for (LedgerEvent event : events) {
+                if (event.getSeq() <= projected) {
+                    continue;
+                }
+                lastSeq = event.getSeq();
+                collect(event, transactions, outbox, latestBalances);
+            }
+            if (lastSeq == projected) {
+                return;
+            }
+
+            if (!transactions.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactions);
+                jdbcTemplate.batchUpdate(INSERT_OUTBOX, outbox);
+            }
+            if (!latestBalances.isEmpty()) {
+                List<Object[]> wallets = new ArrayList<>(latestBalances.size());
+                latestBalances.forEach((userId, balance) -> wallets.add(new Object[]{toAmount(balance), userId}));
+                jdbcTemplate.batchUpdate(UPDATE_WALLET, wallets);
+            }
+            if (current.isEmpty()) {
+                jdbcTemplate.update("INSERT INTO engine_projection_state (id, projected_seq) VALUES (?, ?)",
+                        EngineProjectionState.SINGLETON_ID, lastSeq);
+            } else {
+                jdbcTemplate.update("UPDATE engine_projection_state SET projected_seq = ? WHERE id = ?",
+                        lastSeq, EngineProjectionState.SINGLETON_ID);
+            }
+        });
+    }
+
+    /**
+     * Map one event to the same ledger rows the database engine writes: one row per owner.
+     */
+    private void collect(LedgerEvent event, List<Object[]> transactions, List<Object[]> outbox,
+                         Map<Long, Long> latestBalances) {
+        boolean success = event.getStatus() == LedgerEvent.Status.SUCCESS;
+        TransactionStatus status = success ? TransactionStatus.SUCCESS : TransactionStatus.DECLINED;
+        String failureReason = success ? null : "Insufficient balance";
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(event.getTimestampMillis()), ZoneId.systemDefault());
+        BigDecimal amount = toAmount(event.getAmount());
+
+        switch (event.getType()) {
+            case OPEN -> {
+                // Balance loaded from the database; nothing to write
+            }
+            case CREDIT -> addRow(transactions, outbox, null, event.getUserId(), event.getUserId(), amount,
+                    TransactionType.CREDIT, status, event.getDescription(), failureReason,
+                    balanceAfter(success, event.getBalanceAfter()), time, event.getReferenceId());
+            case DEBIT -> addRow(transactions, outbox, event.getUserId(), null, event.getUserId(), amount,
+                    TransactionType.DEBIT, status, event.getDescription(), failureReason,
+                    balanceAfter(success, event.getBalanceAfter()), time, event.getReferenceId());
+            case TRANSFER -> {
+                addRow(transactions, outbox, event.getUserId(), event.getOtherUserId(), event.getUserId(), amount,
+                        TransactionType.TRANSFER_SENT, status, description(event, "Transfer to user " + event.getOtherUserId()),
+                        failureReason, balanceAfter(success, event.getBalanceAfter()), time, event.getReferenceId());
+                addRow(transactions, outbox, event.getUserId(), event.getOtherUserId(), event.getOtherUserId(), amount,
+                        TransactionType.TRANSFER_RECEIVED, status, description(event, "Transfer from user " + event.getUserId()),
+                        failureReason, balanceAfter(success, event.getOtherBalanceAfter()), time, event.getReferenceId());
+            }
+        }
+        if (success && event.getType() != LedgerEvent.Type.OPEN) {
+            latestBalances.put(event.getUserId(), event.getBalanceAfter());
+            if (event.getType() == LedgerEvent.Type.TRANSFER) {
+                latestBalances.put(event.getOtherUserId(), event.getOtherBalanceAfter());
+            }
+        }
+    }
+
+    private static void addRow(List<Object[]> transactions, List<Object[]> outbox, Long sender, Long receiver,
+                               Long owner, BigDecimal amount, TransactionType type, TransactionStatus status,
+                               String description, String failureReason, BigDecimal balanceAfter,
+                               LocalDateTime time, String referenceId) {
+        Timestamp timestamp = Timestamp.valueOf(time);
+        transactions.add(new Object[]{sender, receiver, owner, amount, type.name(), status.name(), description,
+                failureReason, balanceAfter, timestamp, timestamp, referenceId});
+        outbox.add(new Object[]{owner, referenceId, type.name(), status.name(), amount, balanceAfter, timestamp});
+    }
+
+    private static BigDecimal balanceAfter(boolean success, long minorUnits) {
+        return success ? toAmount(minorUnits) : null;
+    }
+
+    private static String description(LedgerEvent event, String fallback) {
+        return event.getDescription() != null && !event.getDescription().isEmpty() ? event.getDescription() : fallback;
+    }
+
+    static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, 2);
+    }
+}
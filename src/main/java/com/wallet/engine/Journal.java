@@ -0,0 +1,271 @@
+package com.wallet.engine;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only command journal, split into segments named after their first sequence number.
+ * Each record is [length][crc32][payload]. Only the newest segment can end in a torn record
+ * (a segment is forced before the next one is started), so recovery cuts that tail off; a bad
+ * record anywhere else is corruption of acknowledged events and stops recovery instead.
+ * Written by the sequencer thread only.
+ */
+final class Journal implements Closeable {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final int FIXED_PAYLOAD = 8 + 1 + 1 + 8 * 6 + 2 + 2;
+
+    private final Path directory;
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+
+    Journal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Replay every intact record with seq > fromSeq and truncate a torn tail. Call
+     * {@link #openForAppend} afterwards.
+     *
+     * @return the last intact sequence number, or fromSeq if there is none.
+     * @throws IOException also when a segment other than the newest non-empty one is corrupt.
+     */
+    long recover(long fromSeq, Consumer<LedgerEvent> replay) throws IOException {
+        Files.createDirectories(directory);
+        long lastSeq = fromSeq;
+        List<Path> segments = segments(directory);
+        for (int s = 0; s < segments.size(); s++) {
+            Path segment = segments.get(s);
+            long validLength = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+                while (true) {
+                    byte[] payload = readPayload(in);
+                    if (payload == null) {
+                        break;
+                    }
+                    validLength += 8 + payload.length;
+                    LedgerEvent event = decode(payload);
+                    if (event.getSeq() > lastSeq) {
+                        lastSeq = event.getSeq();
+                    }
+                    if (event.getSeq() > fromSeq) {
+                        replay.accept(event);
+                    }
+                }
+            }
+            if (validLength < Files.size(segment)) {
+                List<Path> later = segments.subList(s + 1, segments.size());
+                for (Path next : later) {
+                    if (Files.size(next) > 0) {
+                        throw new IOException("Journal segment " + segment.getFileName() + " is corrupt at byte "
+                                + validLength + " and followed by " + next.getFileName()
+                                + "; its records were acknowledged, restore the segment before starting");
+                    }
+                }
+                // The torn record was never acknowledged
+                try (FileChannel truncate = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                    truncate.truncate(validLength);
+                    truncate.force(true);
+                }
+                for (Path empty : later) {
+                    Files.delete(empty);
+                }
+                break;
+            }
+        }
+        return lastSeq;
+    }
+
+    /**
+     * Open the segment the next record, nextSeq, goes to: the newest one if it is named for exactly
+     * that record (it was started and nothing reached it), otherwise a new one named after it, so
+     * segment names always give the first sequence number they hold.
+     */
+    void openForAppend(long nextSeq) throws IOException {
+        open(segmentPath(nextSeq));
+    }
+
+    void append(List<LedgerEvent> events) throws IOException {
+        for (LedgerEvent event : events) {
+            byte[] reference = bytes(event.getReferenceId());
+            byte[] description = bytes(event.getDescription());
+            int payload = FIXED_PAYLOAD + reference.length + description.length;
+            if (buffer.remaining() < payload + 8) {
+                flushBuffer();
+                if (buffer.capacity() < payload + 8) {
+                    buffer = ByteBuffer.allocateDirect(payload + 8);
+                }
+            }
+            int start = buffer.position();
+            buffer.putInt(payload);
+            buffer.putInt(0);
+            buffer.putLong(event.getSeq());
+            buffer.put((byte) event.getType().ordinal());
+            buffer.put((byte) event.getStatus().ordinal());
+            buffer.putLong(event.getUserId());
+            buffer.putLong(event.getOtherUserId());
+            buffer.putLong(event.getAmount());
+            buffer.putLong(event.getBalanceAfter());
+            buffer.putLong(event.getOtherBalanceAfter());
+            buffer.putLong(event.getTimestampMillis());
+            buffer.putShort((short) reference.length);
+            buffer.put(reference);
+            buffer.putShort((short) description.length);
+            buffer.put(description);
+
+            CRC32 crc = new CRC32();
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(start + 8).limit(buffer.position());
+            crc.update(slice);
+            buffer.putInt(start + 4, (int) crc.getValue());
+        }
+        flushBuffer();
+    }
+
+    /**
+     * Make everything appended so far durable. Acknowledgements wait for this.
+     */
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Start a new segment whose first record will be nextSeq.
+     */
+    void rotate(long nextSeq) throws IOException {
+        flushBuffer();
+        channel.force(false);
+        channel.close();
+        open(segmentPath(nextSeq));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            flushBuffer();
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    /**
+     * Delete segments whose records are all <= seq. The newest segment is always kept.
+     */
+    static void deleteSegmentsUpTo(Path directory, long seq) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            long lastSeqInSegment = firstSeq(segments.get(i + 1)) - 1;
+            if (lastSeqInSegment > seq) {
+                break;
+            }
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private void open(Path segment) throws IOException {
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private Path segmentPath(long firstSeq) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX));
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private static long firstSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static byte[] bytes(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > Short.MAX_VALUE ? Arrays.copyOf(bytes, Short.MAX_VALUE) : bytes;
+    }
+
+    /**
+     * @return the payload of the next intact record, or null at end of file or at a torn/corrupt record.
+     */
+    private static byte[] readPayload(DataInputStream in) throws IOException {
+        int length;
+        int expectedCrc;
+        byte[] payload;
+        try {
+            length = in.readInt();
+            expectedCrc = in.readInt();
+            if (length < FIXED_PAYLOAD || length > (1 << 20)) {
+                return null;
+            }
+            payload = new byte[length];
+            in.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == expectedCrc ? payload : null;
+    }
+
+    private static LedgerEvent decode(byte[] payload) {
+        ByteBuffer p = ByteBuffer.wrap(payload);
+        long seq = p.getLong();
+        LedgerEvent.Type type = LedgerEvent.Type.values()[p.get()];
+        LedgerEvent.Status status = LedgerEvent.Status.values()[p.get()];
+        long userId = p.getLong();
+        long otherUserId = p.getLong();
+        long amount = p.getLong();
+        long balanceAfter = p.getLong();
+        long otherBalanceAfter = p.getLong();
+        long timestamp = p.getLong();
+        String reference = string(p);
+        String description = string(p);
+        return new LedgerEvent(seq, type, status, userId, otherUserId, amount, balanceAfter, otherBalanceAfter,
+                timestamp, reference, description);
+    }
+
+    private static String string(ByteBuffer p) {
+        int length = p.getShort();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        p.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,67 @@
+package com.wallet.engine;
+
+/**
+ * Outcome of one command, as journaled and projected. Amounts and balances are in minor units.
+ */
+public final class LedgerEvent {
+
+    public enum Type { OPEN, CREDIT, DEBIT, TRANSFER }
+
+    public enum Status { SUCCESS, DECLINED }
+
+    private final long seq;
+    private final Type type;
+    private final Status status;
+    private final long userId;
+    private final long otherUserId;
+    private final long amount;
+    private final long balanceAfter;
+    private final long otherBalanceAfter;
+    private final long timestampMillis;
+    private final String referenceId;
+    private final String description;
+
+    LedgerEvent(long seq, Type type, Status status, long userId, long otherUserId, long amount,
+                long balanceAfter, long otherBalanceAfter, long timestampMillis,
+                String referenceId, String description) {
+        this.seq = seq;
+        this.type = type;
+        this.status = status;
+        this.userId = userId;
+        this.otherUserId = otherUserId;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+        this.otherBalanceAfter = otherBalanceAfter;
+        this.timestampMillis = timestampMillis;
+        this.referenceId = referenceId;
+        this.description = description;
+    }
+
+    public long getSeq() { return seq; }
+
+    public Type getType() { return type; }
+
+    public Status getStatus() { return status; }
+
+    /**
+     * Account the command was issued for: the credited/debited wallet, or the transfer sender.
+     */
+    public long getUserId() { return userId; }
+
+    /**
+     * Transfer receiver; 0 for single-wallet events.
+     */
+    public long getOtherUserId() { return otherUserId; }
+
+    public long getAmount() { return amount; }
+
+    public long getBalanceAfter() { return balanceAfter; }
+
+    public long getOtherBalanceAfter() { return otherBalanceAfter; }
+
+    public long getTimestampMillis() { return timestampMillis; }
+
+    public String getReferenceId() { return referenceId; }
+
+    public String getDescription() { return description; }
+}
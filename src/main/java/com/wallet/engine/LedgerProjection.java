@@ -0,0 +1,21 @@
+package com.wallet.engine;
+
+import java.util.List;
+
+/**
+ * Writes journaled events to the database asynchronously.
+ * Implementations must be idempotent per sequence number: after a restart events since the
+ * last projected sequence are delivered again.
+ */
+public interface LedgerProjection {
+
+    /**
+     * @return the highest sequence number already projected.
+     */
+    long projectedSeq();
+
+    /**
+     * Project events in sequence order.
+     */
+    void project(List<LedgerEvent> events);
+}
@@ -0,0 +1,107 @@
+package com.wallet.engine;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing long -> long map (userId -> balance in minor units).
+ * No boxing and two flat arrays, so a snapshot is two array copies. Not thread-safe:
+ * only the sequencer thread touches the live instance.
+ */
+final class LongLongMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    LongLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private LongLongMap(long[] keys, long[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.length - 1;
+        this.size = size;
+    }
+
+    boolean containsKey(long key) {
+        return keys[indexOf(key)] == key;
+    }
+
+    /**
+     * Value for the key; callers check containsKey first.
+     */
+    long get(long key) {
+        int i = indexOf(key);
+        return keys[i] == key ? values[i] : 0L;
+    }
+
+    void put(long key, long value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Reserved key");
+        }
+        int i = indexOf(key);
+        if (keys[i] != key) {
+            keys[i] = key;
+            if (++size * 2 > keys.length) {
+                values[i] = value;
+                rehash(keys.length * 2);
+                return;
+            }
+        }
+        values[i] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    LongLongMap copy() {
+        return new LongLongMap(keys.clone(), values.clone(), size);
+    }
+
+    interface Visitor {
+        void visit(long key, long value);
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        int i = (int) (h ^ (h >>> 32)) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = indexOf(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
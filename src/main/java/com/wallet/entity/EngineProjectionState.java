@@ -0,0 +1,32 @@
+package com.wallet.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Highest journal sequence of the in-memory balance engine that has been written to the database.
+ * Single row, updated in the same transaction as the projected ledger rows.
+ */
+@Entity
+@Table(name = "engine_projection_state")
+public class EngineProjectionState {
+
+    public static final long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "projected_seq", nullable = false)
+    private Long projectedSeq;
+
+    protected EngineProjectionState() {
+    }
+
+    public EngineProjectionState(long projectedSeq) {
+        this.id = SINGLETON_ID;
+        this.projectedSeq = projectedSeq;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getProjectedSeq() { return projectedSeq; }
+}
@@ -0,0 +1,88 @@
+package com.wallet.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Authorization that reserves part of a wallet's balance until it is captured, released or expires.
+ */
+@Entity
+@Table(name = "fund_holds",
+        indexes = {
+                @Index(name = "idx_hold_status_expiry", columnList = "status, expires_at"),
+                @Index(name = "idx_hold_user", columnList = "user_id")
+        })
+public class FundHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "captured_amount", precision = 19, scale = 2)
+    private BigDecimal capturedAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private HoldStatus status;
+
+    @Column(name = "reference_id")
+    private String referenceId;
+
+    private String description;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    protected FundHold() {
+    }
+
+    public FundHold(Long userId, BigDecimal amount, String referenceId, String description, LocalDateTime expiresAt) {
+        this.userId = userId;
+        this.amount = amount;
+        this.referenceId = referenceId;
+        this.description = description;
+        this.status = HoldStatus.ACTIVE;
+        this.createdAt = LocalDateTime.now();
+        this.expiresAt = expiresAt;
+    }
+
+    public void complete(HoldStatus status, BigDecimal capturedAmount, LocalDateTime completedAt) {
+        this.status = status;
+        this.capturedAmount = capturedAmount;
+        this.completedAt = completedAt;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getUserId() { return userId; }
+
+    public BigDecimal getAmount() { return amount; }
+
+    public BigDecimal getCapturedAmount() { return capturedAmount; }
+
+    public HoldStatus getStatus() { return status; }
+
+    public String getReferenceId() { return referenceId; }
+
+    public String getDescription() { return description; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+}
@@ -0,0 +1,40 @@
+package com.wallet.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the FX rate table: base-currency units per unit of the currency (wallet.currency.base).
+ * Maintained outside the application; {@link com.wallet.fx.FxRateService} reloads it into memory.
+ */
+@Entity
+@Table(name = "fx_rates")
+public class FxRate {
+
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    @Column(nullable = false, precision = 19, scale = 10)
+    private BigDecimal rate;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    protected FxRate() {
+    }
+
+    public FxRate(String currency, BigDecimal rate) {
+        this.currency = currency;
+        this.rate = rate;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getCurrency() { return currency; }
+
+    public BigDecimal getRate() { return rate; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,8 @@
+package com.wallet.entity;
+
+public enum HoldStatus {
+    ACTIVE,    // Funds reserved, waiting for capture or release
+    CAPTURED,  // Held funds (or part of them) were debited
+    RELEASED,  // Released by the merchant/user before expiry
+    EXPIRED    // Released automatically at expiry
+}
@@ -0,0 +1,89 @@
+package com.wallet.entity;
+
+import com.wallet.dto.TransactionStatus;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A transfer in the double-entry ledger: amount, description and status are stored once here,
+ * the effect on each wallet is a {@link Posting} written when the entry succeeds.
+ */
+@Entity
+@Table(name = "journal_entries",
+        indexes = {
+                @Index(name = "idx_journal_from_status", columnList = "from_user_id, status"),
+                @Index(name = "idx_journal_to_status", columnList = "to_user_id, status"),
+                @Index(name = "idx_journal_reference", columnList = "reference_id")
+        })
+public class JournalEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "reference_id", nullable = false, length = 32)
+    private String referenceId;
+
+    @Column(name = "from_user_id", nullable = false)
+    private Long fromUserId;
+
+    @Column(name = "to_user_id", nullable = false)
+    private Long toUserId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    // Null when the caller gave none; the per-wallet default text is derived on read
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private TransactionStatus status;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    @Column(name = "created_time", nullable = false)
+    private LocalDateTime createdTime;
+
+    @Column(name = "completed_time")
+    private LocalDateTime completedTime;
+
+    protected JournalEntry() {
+    }
+
+    public JournalEntry(String referenceId, Long fromUserId, Long toUserId, BigDecimal amount, String description) {
+        this.referenceId = referenceId;
+        this.fromUserId = fromUserId;
+        this.toUserId = toUserId;
+        this.amount = amount;
+        this.description = description;
+        this.status = TransactionStatus.PENDING;
+        this.createdTime = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+
+    public String getReferenceId() { return referenceId; }
+
+    public Long getFromUserId() { return fromUserId; }
+
+    public Long getToUserId() { return toUserId; }
+
+    public BigDecimal getAmount() { return amount; }
+
+    public String getDescription() { return description; }
+
+    public TransactionStatus getStatus() { return status; }
+    public void setStatus(TransactionStatus status) { this.status = status; }
+
+    public String getFailureReason() { return failureReason; }
+    public void setFailureReason(String failureReason) { this.failureReason = failureReason; }
+
+    public LocalDateTime getCreatedTime() { return createdTime; }
+
+    public LocalDateTime getCompletedTime() { return completedTime; }
+    public void setCompletedTime(LocalDateTime completedTime) { this.completedTime = completedTime; }
+}
@@ -0,0 +1,91 @@
+package com.wallet.entity;
+
+import com.wallet.dto.TransactionStatus;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Wallet event waiting to be relayed to downstream systems.
+ * Written in the same transaction as the ledger status change it describes.
+ */
+@Entity
+@Table(name = "wallet_outbox",
+        indexes = @Index(name = "idx_outbox_unpublished", columnList = "published_at, id"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @Column(name = "reference_id")
+    private String referenceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false)
+    private TransactionType transactionType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionStatus status;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "balance_after_transaction")
+    private BigDecimal balanceAfterTransaction;
+
+    // Null for the base currency
+    @Column(length = 3)
+    private String currency;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    protected OutboxEvent() {
+    }
+
+    public OutboxEvent(WalletTransaction transaction) {
+        this.walletId = transaction.getOwnerUserId();
+        this.transactionId = transaction.getId();
+        this.referenceId = transaction.getReferenceId();
+        this.transactionType = transaction.getType();
+        this.status = transaction.getStatus();
+        this.amount = transaction.getAmount();
+        this.balanceAfterTransaction = transaction.getBalanceAfterTransaction();
+        this.currency = transaction.getCurrency();
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+
+    public Long getWalletId() { return walletId; }
+
+    public Long getTransactionId() { return transactionId; }
+
+    public String getReferenceId() { return referenceId; }
+
+    public TransactionType getTransactionType() { return transactionType; }
+
+    public TransactionStatus getStatus() { return status; }
+
+    public BigDecimal getAmount() { return amount; }
+
+    public BigDecimal getBalanceAfterTransaction() { return balanceAfterTransaction; }
+
+    public String getCurrency() { return currency; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public LocalDateTime getPublishedAt() { return publishedAt; }
+}
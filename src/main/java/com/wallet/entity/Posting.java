@@ -0,0 +1,54 @@
+package com.wallet.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One wallet's side of a posted {@link JournalEntry}: the signed amount and the balance after it.
+ * The postings of an entry always sum to zero.
+ */
+@Entity
+@Table(name = "postings",
+        indexes = {
+                @Index(name = "idx_posting_wallet", columnList = "wallet_user_id, id"),
+                @Index(name = "idx_posting_journal", columnList = "journal_id")
+        })
+public class Posting {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "journal_id", nullable = false)
+    private Long journalId;
+
+    @Column(name = "wallet_user_id", nullable = false)
+    private Long walletUserId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "balance_after", nullable = false, precision = 19, scale = 2)
+    private BigDecimal balanceAfter;
+
+    protected Posting() {
+    }
+
+    public Posting(Long journalId, Long walletUserId, BigDecimal amount, BigDecimal balanceAfter) {
+        this.journalId = journalId;
+        this.walletUserId = walletUserId;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getJournalId() { return journalId; }
+
+    public Long getWalletUserId() { return walletUserId; }
+
+    public BigDecimal getAmount() { return amount; }
+
+    public BigDecimal getBalanceAfter() { return balanceAfter; }
+}
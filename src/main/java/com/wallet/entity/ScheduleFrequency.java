@@ -0,0 +1,26 @@
+package com.wallet.entity;
+
+import java.time.LocalDateTime;
+
+public enum ScheduleFrequency {
+    ONCE,
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    /**
+     * Due time of the n-th occurrence (0 is the first), counted from the start rather than from the
+     * previous occurrence, so a monthly transfer starting on the 31st runs on the last day of shorter
+     * months and returns to the 31st afterwards.
+     *
+     * @return null when there is no such occurrence (a one-off transfer after its first run).
+     */
+    public LocalDateTime occurrence(LocalDateTime start, long n) {
+        return switch (this) {
+            case ONCE -> n == 0 ? start : null;
+            case DAILY -> start.plusDays(n);
+            case WEEKLY -> start.plusWeeks(n);
+            case MONTHLY -> start.plusMonths(n);
+        };
+    }
+}
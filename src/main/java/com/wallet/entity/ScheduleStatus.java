@@ -0,0 +1,7 @@
+package com.wallet.entity;
+
+public enum ScheduleStatus {
+    ACTIVE,     // Has a next occurrence in next_run_at
+    COMPLETED,  // Every occurrence up to the end date has been claimed
+    CANCELLED   // Cancelled by the sender; an occurrence already claimed still runs
+}
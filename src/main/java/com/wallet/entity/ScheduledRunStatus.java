@@ -0,0 +1,10 @@
+package com.wallet.entity;
+
+public enum ScheduledRunStatus {
+    CLAIMED,        // Claimed by a scheduler, transfer not confirmed yet
+    SUCCESS,
+    DECLINED,       // Insufficient balance
+    LIMIT_EXCEEDED, // Declined by the sender's spending limits
+    FAILED,
+    SKIPPED         // Claimed more than wallet.schedule.max-lateness-minutes late; no transfer was made
+}
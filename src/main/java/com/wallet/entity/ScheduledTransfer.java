@@ -0,0 +1,107 @@
+package com.wallet.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Standing instruction to transfer an amount from the sender to the receiver once or at a fixed
+ * frequency. next_run_at is the due time of occurrence run_count; schedulers find due rows through
+ * idx_schedule_due and advance them when they claim an occurrence.
+ */
+@Entity
+@Table(name = "scheduled_transfers",
+        indexes = {
+                @Index(name = "idx_schedule_due", columnList = "status, next_run_at"),
+                @Index(name = "idx_schedule_sender", columnList = "sender_id")
+        })
+public class ScheduledTransfer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sender_id", nullable = false)
+    private Long senderId;
+
+    @Column(name = "receiver_id", nullable = false)
+    private Long receiverId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ScheduleFrequency frequency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ScheduleStatus status;
+
+    @Column(name = "start_at", nullable = false)
+    private LocalDateTime startAt;
+
+    // Last time an occurrence may be due; open-ended when null
+    @Column(name = "end_at")
+    private LocalDateTime endAt;
+
+    // Occurrences claimed so far
+    @Column(name = "run_count", nullable = false)
+    private long runCount;
+
+    // Null once the schedule is no longer active
+    @Column(name = "next_run_at")
+    private LocalDateTime nextRunAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    protected ScheduledTransfer() {
+    }
+
+    public ScheduledTransfer(Long senderId, Long receiverId, BigDecimal amount, String description,
+                             ScheduleFrequency frequency, LocalDateTime startAt, LocalDateTime endAt) {
+        this.senderId = senderId;
+        this.receiverId = receiverId;
+        this.amount = amount;
+        this.description = description;
+        this.frequency = frequency;
+        this.status = ScheduleStatus.ACTIVE;
+        this.startAt = startAt;
+        this.endAt = endAt;
+        this.nextRunAt = startAt;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public void cancel() {
+        this.status = ScheduleStatus.CANCELLED;
+        this.nextRunAt = null;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getSenderId() { return senderId; }
+
+    public Long getReceiverId() { return receiverId; }
+
+    public BigDecimal getAmount() { return amount; }
+
+    public String getDescription() { return description; }
+
+    public ScheduleFrequency getFrequency() { return frequency; }
+
+    public ScheduleStatus getStatus() { return status; }
+
+    public LocalDateTime getStartAt() { return startAt; }
+
+    public LocalDateTime getEndAt() { return endAt; }
+
+    public long getRunCount() { return runCount; }
+
+    public LocalDateTime getNextRunAt() { return nextRunAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,68 @@
+package com.wallet.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One occurrence of a {@link ScheduledTransfer}. The row is inserted when the occurrence is claimed;
+ * the unique (schedule_id, occurrence) key makes sure each occurrence is claimed, and so transferred,
+ * at most once. The transfer runs under reference_id, which links the run to its ledger rows.
+ */
+@Entity
+@Table(name = "scheduled_transfer_runs",
+        uniqueConstraints = @UniqueConstraint(name = "uk_schedule_run_occurrence",
+                columnNames = {"schedule_id", "occurrence"}),
+        indexes = @Index(name = "idx_schedule_run_status_claimed", columnList = "status, claimed_at"))
+public class ScheduledTransferRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "schedule_id", nullable = false)
+    private Long scheduleId;
+
+    @Column(nullable = false)
+    private long occurrence;
+
+    @Column(name = "scheduled_for", nullable = false)
+    private LocalDateTime scheduledFor;
+
+    @Column(name = "reference_id", nullable = false, length = 32)
+    private String referenceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ScheduledRunStatus status;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    @Column(name = "claimed_at", nullable = false)
+    private LocalDateTime claimedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    protected ScheduledTransferRun() {
+    }
+
+    public Long getId() { return id; }
+
+    public Long getScheduleId() { return scheduleId; }
+
+    public long getOccurrence() { return occurrence; }
+
+    public LocalDateTime getScheduledFor() { return scheduledFor; }
+
+    public String getReferenceId() { return referenceId; }
+
+    public ScheduledRunStatus getStatus() { return status; }
+
+    public String getFailureReason() { return failureReason; }
+
+    public LocalDateTime getClaimedAt() { return claimedAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+}
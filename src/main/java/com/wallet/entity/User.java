@@ -1,5 +1,6 @@
 package com.wallet.entity;
 
+import com.wallet.profile.UserProfileInvalidation;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,6 +8,7 @@ import java.util.Objects;
 
 
 @Entity
+@EntityListeners(UserProfileInvalidation.class)
 @Table(name = "users", uniqueConstraints = @UniqueConstraint(columnNames = "emailId"))
 public class User {
     @Id
@@ -14,6 +14,10 @@ public class Wallet {
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    // Funds held for open authorizations; already taken out of balance
+    @Column(name = "reserved_balance", nullable = false, precision = 19, scale = 2)
+    private BigDecimal reservedBalance = BigDecimal.ZERO;
+
     @Version
     private Long version;
 
@@ -34,6 +38,10 @@ public class Wallet {
         return balance;
     }
 
+    public BigDecimal getReservedBalance() {
+        return reservedBalance;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -49,4 +57,19 @@ public class Wallet {
     public void debit(BigDecimal amount){
         this.balance = this.balance.subtract(amount);
     }
+
+    public void hold(BigDecimal amount){
+        this.balance = this.balance.subtract(amount);
+        this.reservedBalance = this.reservedBalance.add(amount);
+    }
+
+    public void captureHold(BigDecimal heldAmount, BigDecimal capturedAmount){
+        this.reservedBalance = this.reservedBalance.subtract(heldAmount);
+        this.balance = this.balance.add(heldAmount.subtract(capturedAmount));
+    }
+
+    public void releaseHold(BigDecimal amount){
+        this.reservedBalance = this.reservedBalance.subtract(amount);
+        this.balance = this.balance.add(amount);
+    }
 }
@@ -0,0 +1,61 @@
+package com.wallet.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * A wallet's balance in a currency other than the base currency, which stays in {@link Wallet}.
+ * Rows are created by the first credit in the currency and only changed with conditional updates.
+ */
+@Entity
+@Table(name = "wallet_currency_balances")
+@IdClass(WalletCurrencyBalance.Key.class)
+public class WalletCurrencyBalance {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    protected WalletCurrencyBalance() {
+    }
+
+    public Long getUserId() { return userId; }
+
+    public String getCurrency() { return currency; }
+
+    public BigDecimal getBalance() { return balance; }
+
+    public static class Key implements Serializable {
+
+        private Long userId;
+        private String currency;
+
+        protected Key() {
+        }
+
+        public Key(Long userId, String currency) {
+            this.userId = userId;
+            this.currency = currency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(userId, key.userId) && Objects.equals(currency, key.currency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, currency);
+        }
+    }
+}
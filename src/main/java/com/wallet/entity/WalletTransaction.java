@@ -6,7 +6,13 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "wallet_transactions")
+@Table(name = "wallet_transactions",
+        indexes = {
+                @Index(name = "idx_txn_owner_time", columnList = "owner_user_id, transaction_time"),
+                @Index(name = "idx_txn_reference_type", columnList = "reference_id, type"),
+                @Index(name = "idx_txn_type_status_time", columnList = "type, status, transaction_time"),
+                @Index(name = "idx_txn_time", columnList = "transaction_time")
+        })
 public class WalletTransaction {
 
     @Id
@@ -38,7 +44,8 @@ public class WalletTransaction {
     @Column(name = "balance_after_transaction")
     private BigDecimal balanceAfterTransaction;
 
-    @Column(name = "transaction_time")
+    // Monthly partition key, see LedgerPartitions
+    @Column(name = "transaction_time", nullable = false)
     private LocalDateTime transactionTime;
 
     @Column(name = "completed_time")
@@ -47,6 +54,14 @@ public class WalletTransaction {
     @Column(name = "reference_id")
     private String referenceId;
 
+    // Null for amounts in the base currency (wallet.currency.base)
+    @Column(length = 3)
+    private String currency;
+
+    // Rate applied to a cross-currency transfer: receiver amount = sender amount * rate, on both rows
+    @Column(name = "fx_rate", precision = 19, scale = 10)
+    private BigDecimal fxRate;
+
     // Constructors
     public WalletTransaction() {
         this.transactionTime = LocalDateTime.now();
@@ -66,6 +81,18 @@ public class WalletTransaction {
         this.completedTime = LocalDateTime.now();
     }
 
+    public void markAsDeclined(String failureReason) {
+        this.status = TransactionStatus.DECLINED;
+        this.failureReason = failureReason;
+        this.completedTime = LocalDateTime.now();
+    }
+
+    public void markAsLimitExceeded(String failureReason) {
+        this.status = TransactionStatus.LIMIT_EXCEEDED;
+        this.failureReason = failureReason;
+        this.completedTime = LocalDateTime.now();
+    }
+
     public void markAsCancelled() {
         this.status = TransactionStatus.CANCELLED;
         this.completedTime = LocalDateTime.now();
@@ -116,4 +143,10 @@ public class WalletTransaction {
 
     public String getReferenceId() { return referenceId; }
     public void setReferenceId(String referenceId) { this.referenceId = referenceId; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    public BigDecimal getFxRate() { return fxRate; }
+    public void setFxRate(BigDecimal fxRate) { this.fxRate = fxRate; }
 }
\ No newline at end of file
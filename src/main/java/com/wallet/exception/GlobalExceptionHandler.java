@@ -13,6 +13,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(LimitExceededException.class)
+    public ResponseEntity<ApiError> handleLimitExceeded(LimitExceededException ex) {
+        ApiError error = new ApiError( ex.getMessage(), "LIMIT_EXCEEDED" );
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(FxRateUnavailableException.class)
+    public ResponseEntity<ApiError> handleFxRateUnavailable(FxRateUnavailableException ex) {
+        ApiError error = new ApiError( ex.getMessage(), "FX_RATE_UNAVAILABLE" );
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(WalletBusyException.class)
+    public ResponseEntity<ApiError> handleWalletBusy(WalletBusyException ex) {
+        ApiError error = new ApiError( ex.getMessage(), "WALLET_BUSY" );
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiError> handleRuntime(RuntimeException ex) {
         ApiError error = new ApiError( ex.getMessage(), "RUNTIME_ERROR" );
@@ -0,0 +1,10 @@
+package com.wallet.exception;
+
+/**
+ * Thrown when a wallet's command lane is full and the request is shed instead of queued.
+ */
+public class WalletBusyException extends RuntimeException {
+    public WalletBusyException(String message) {
+        super(message);
+    }
+}
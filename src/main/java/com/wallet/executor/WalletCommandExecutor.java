@@ -0,0 +1,175 @@
+package com.wallet.executor;
+
+import com.wallet.diagnostics.StatementCounter;
+import com.wallet.exception.WalletBusyException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Runs wallet mutations on striped single-writer lanes: hash(userId) picks a lane, each lane
+ * has one worker thread fed by a lock-free multi-producer queue, so commands for the same wallet
+ * never race each other on Wallet.@Version. Each command is run on its own, in its own
+ * transaction; an idle worker parks until a submit unparks it.
+ * <p>
+ * Commands block their lane for as long as they run, JDBC included, so the lane count is also the
+ * cap on concurrent wallet writes: size wallet.executor.lanes to the connections writes may use.
+ * A command touching two wallets in different lanes runs on the lower lane's worker while it
+ * holds the higher lane's lock, which stalls the higher lane for that command too. Lanes are
+ * always locked in ascending order, so this cannot deadlock. Queues are bounded; a full lane
+ * rejects with WalletBusyException.
+ */
+public class WalletCommandExecutor {
+
+    private final Lane[] lanes;
+    private final int queueCapacity;
+    private final LongAdder rejected = new LongAdder();
+
+    public WalletCommandExecutor(int laneCount, int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i);
+        }
+    }
+
+    public <T> T execute(Long userId, Supplier<T> command) {
+        return submit(lanes[laneOf(userId)], command);
+    }
+
+    /**
+     * Run a command that mutates two wallets, e.g. a transfer.
+     */
+    public <T> T execute(Long firstUserId, Long secondUserId, Supplier<T> command) {
+        int a = laneOf(firstUserId);
+        int b = laneOf(secondUserId);
+        if (a == b) {
+            return submit(lanes[a], command);
+        }
+        Lane higher = lanes[Math.max(a, b)];
+        return submit(lanes[Math.min(a, b)], () -> {
+            higher.lock.lock();
+            try {
+                return command.get();
+            } finally {
+                higher.lock.unlock();
+            }
+        });
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    public int queueDepth(int lane) {
+        return lanes[lane].size.get();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.running = false;
+            LockSupport.unpark(lane.worker);
+        }
+    }
+
+    private int laneOf(Long userId) {
+        int h = Long.hashCode(userId);
+        h ^= (h >>> 16);
+        return Math.floorMod(h * 0x9E3779B9, lanes.length);
+    }
+
+    private <T> T submit(Lane lane, Supplier<T> command) {
+        if (Thread.currentThread() == lane.worker) {
+            // Already on this lane (re-entrant call); run inline instead of waiting on ourselves
+            return command.get();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // The lane works on the caller's behalf, so its statements count towards the caller's request
+        Supplier<T> counted = StatementCounter.propagate(command);
+        Runnable task = () -> {
+            try {
+                result.complete(counted.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        };
+        if (!lane.offer(task)) {
+            rejected.increment();
+            throw new WalletBusyException("Wallet is busy, try again later");
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private final class Lane implements Runnable {
+
+        private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Thread worker;
+        private volatile boolean waiting;
+        private volatile boolean running = true;
+
+        Lane(int index) {
+            this.worker = new Thread(this, "wallet-lane-" + index);
+            this.worker.setDaemon(true);
+            this.worker.start();
+        }
+
+        boolean offer(Runnable task) {
+            if (size.incrementAndGet() > queueCapacity) {
+                size.decrementAndGet();
+                return false;
+            }
+            queue.offer(task);
+            if (waiting) {
+                LockSupport.unpark(worker);
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Runnable task = queue.poll();
+                if (task == null) {
+                    // offer() enqueues before it reads waiting, and we set waiting before we re-check
+                    // the queue, so a task offered now either is seen here or unparks us
+                    waiting = true;
+                    if (queue.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    waiting = false;
+                    continue;
+                }
+                size.decrementAndGet();
+                // Cross-lane commands from a lower lane take this lock to get in between our commands
+                lock.lock();
+                try {
+                    task.run();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
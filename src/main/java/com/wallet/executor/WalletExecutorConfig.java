@@ -0,0 +1,35 @@
+package com.wallet.executor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Single-writer lanes for wallet mutations (wallet.executor.enabled).
+ * When disabled, WalletService runs critical sections on the request thread.
+ */
+@Configuration
+@ConditionalOnProperty(name = "wallet.executor.enabled", havingValue = "true")
+public class WalletExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public WalletCommandExecutor walletCommandExecutor(@Value("${wallet.executor.lanes:8}") int lanes,
+                                                       @Value("${wallet.executor.queue-capacity:1024}") int queueCapacity,
+                                                       MeterRegistry meterRegistry) {
+        WalletCommandExecutor executor = new WalletCommandExecutor(lanes, queueCapacity);
+        for (int i = 0; i < lanes; i++) {
+            int lane = i;
+            Gauge.builder("wallet.executor.queue.depth", executor, e -> e.queueDepth(lane))
+                    .tag("lane", String.valueOf(lane))
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("wallet.executor.rejected", executor, WalletCommandExecutor::rejectedCount)
+                .description("Commands rejected because their lane was full")
+                .register(meterRegistry);
+        return executor;
+    }
+}
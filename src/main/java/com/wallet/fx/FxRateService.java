@@ -0,0 +1,101 @@
+package com.wallet.fx;
+
+import com.wallet.entity.FxRate;
+import com.wallet.exception.FxRateUnavailableException;
+import com.wallet.repository.FxRateRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the fx_rates table in memory as an immutable {@link FxRates} snapshot. Conversions read the
+ * current snapshot with one volatile read and never touch the database; a refresh builds a new
+ * snapshot and swaps it in whole, so a conversion never sees half of an update.
+ * A snapshot that could not be refreshed for longer than wallet.fx.max-age-seconds is refused.
+ */
+@Component
+public class FxRateService {
+
+    private static final Logger log = LoggerFactory.getLogger(FxRateService.class);
+
+    private final FxRateRepository rateRepository;
+    private final String baseCurrency;
+    private final Duration maxAge;
+    private final AtomicReference<FxRates> snapshot = new AtomicReference<>();
+    private volatile Instant lastRefresh;
+
+    public FxRateService(FxRateRepository rateRepository, MeterRegistry meterRegistry,
+                         @Value("${wallet.currency.base:INR}") String baseCurrency,
+                         @Value("${wallet.fx.max-age-seconds:86400}") long maxAgeSeconds) {
+        this.rateRepository = rateRepository;
+        this.baseCurrency = baseCurrency;
+        this.maxAge = maxAgeSeconds > 0 ? Duration.ofSeconds(maxAgeSeconds) : null;
+        // Fails at startup on a base currency the snapshot cannot hold
+        new FxRates(baseCurrency, Map.of(), Instant.now());
+        Gauge.builder("wallet.fx.rates.age", this,
+                        service -> service.lastRefresh == null ? 0
+                                : Duration.between(service.lastRefresh, Instant.now()).toSeconds())
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public String baseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * The current snapshot, loading it on first use.
+     */
+    public FxRates rates() {
+        FxRates rates = snapshot.get();
+        if (rates == null) {
+            refresh();
+            rates = snapshot.get();
+            if (rates == null) {
+                throw new FxRateUnavailableException("FX rates are not loaded");
+            }
+        }
+        if (maxAge != null && lastRefresh.plus(maxAge).isBefore(Instant.now())) {
+            throw new FxRateUnavailableException("FX rates were last loaded at " + lastRefresh);
+        }
+        return rates;
+    }
+
+    public FxRates.Conversion convert(BigDecimal amount, String from, String to) {
+        return rates().convert(amount, from, to);
+    }
+
+    /**
+     * Reload the table and swap in a new snapshot if any rate changed. On failure the previous
+     * snapshot stays in use until it is older than the maximum age.
+     */
+    @Scheduled(fixedDelayString = "${wallet.fx.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        try {
+            Map<String, BigDecimal> rates = new HashMap<>();
+            for (FxRate rate : rateRepository.findAll()) {
+                rates.put(rate.getCurrency(), rate.getRate());
+            }
+            FxRates loaded = new FxRates(baseCurrency, rates, Instant.now());
+            FxRates current = snapshot.get();
+            if (!loaded.sameRates(current)) {
+                snapshot.set(loaded);
+                log.info("Loaded FX rates for {} currencies against {}", rates.size(), baseCurrency);
+            }
+            lastRefresh = loaded.loadedAt();
+        } catch (Exception e) {
+            log.warn("FX rate refresh failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.wallet.fx;
+
+import com.wallet.exception.FxRateUnavailableException;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the FX rate table. Rates are given as base-currency units per unit of each
+ * currency; every cross rate is divided out once when the snapshot is built, so a conversion is two
+ * map lookups, a multiplication and a rounding.
+ * <p>
+ * The rate applied to a conversion is the cross rate rounded to {@link #RATE_SCALE} decimals, and the
+ * converted amount is exactly amount * applied rate rounded half-even to the target currency's minor
+ * unit, so it can be recomputed from the recorded rate. Currencies with more than two decimals are
+ * left out: balances are stored with two.
+ */
+public final class FxRates {
+
+    public static final int RATE_SCALE = 10;
+    private static final int MAX_DIGITS = 2;
+
+    private final String baseCurrency;
+    private final Map<String, BigDecimal> rates;
+    private final Map<String, Map<String, BigDecimal>> crossRates;
+    private final Map<String, Integer> digits;
+    private final Instant loadedAt;
+
+    public record Conversion(String from, String to, BigDecimal rate, BigDecimal amount) {
+    }
+
+    /**
+     * @param rates base-currency units per unit of each currency; the base currency itself may be left out.
+     */
+    public FxRates(String baseCurrency, Map<String, BigDecimal> rates, Instant loadedAt) {
+        if (fractionDigits(baseCurrency) < 0) {
+            throw new IllegalArgumentException("Unsupported base currency: " + baseCurrency);
+        }
+        Map<String, BigDecimal> accepted = new HashMap<>();
+        accepted.put(baseCurrency, BigDecimal.ONE);
+        rates.forEach((currency, rate) -> {
+            if (!currency.equals(baseCurrency) && rate.signum() > 0 && fractionDigits(currency) >= 0) {
+                accepted.put(currency, rate);
+            }
+        });
+        Map<String, Map<String, BigDecimal>> cross = new HashMap<>();
+        Map<String, Integer> fractionDigits = new HashMap<>();
+        accepted.forEach((from, fromRate) -> {
+            Map<String, BigDecimal> row = new HashMap<>();
+            accepted.forEach((to, toRate) -> row.put(to, from.equals(to) ? BigDecimal.ONE
+                    : fromRate.divide(toRate, MathContext.DECIMAL128).setScale(RATE_SCALE, RoundingMode.HALF_EVEN)));
+            cross.put(from, Map.copyOf(row));
+            fractionDigits.put(from, fractionDigits(from));
+        });
+        this.baseCurrency = baseCurrency;
+        this.rates = Map.copyOf(accepted);
+        this.crossRates = Map.copyOf(cross);
+        this.digits = Map.copyOf(fractionDigits);
+        this.loadedAt = loadedAt;
+    }
+
+    public String baseCurrency() {
+        return baseCurrency;
+    }
+
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+
+    public boolean supports(String currency) {
+        return rates.containsKey(currency);
+    }
+
+    /**
+     * Whether the other snapshot has the same base and rates, i.e. swapping it in changes nothing.
+     */
+    public boolean sameRates(FxRates other) {
+        return other != null && baseCurrency.equals(other.baseCurrency) && rates.equals(other.rates);
+    }
+
+    /**
+     * Convert an amount given in the source currency's minor unit.
+     */
+    public Conversion convert(BigDecimal amount, String from, String to) {
+        Map<String, BigDecimal> row = crossRates.get(from);
+        BigDecimal rate = row == null ? null : row.get(to);
+        if (rate == null) {
+            throw new FxRateUnavailableException("No FX rate from " + from + " to " + to);
+        }
+        if (amount.stripTrailingZeros().scale() > digits.get(from)) {
+            throw new RuntimeException("Amount must have at most " + digits.get(from) + " decimal places in " + from);
+        }
+        BigDecimal converted = amount.multiply(rate).setScale(digits.get(to), RoundingMode.HALF_EVEN);
+        return new Conversion(from, to, rate, converted);
+    }
+
+    /**
+     * Minor-unit digits of an ISO 4217 code, or -1 when it is unknown or has more than two.
+     */
+    private static int fractionDigits(String currency) {
+        try {
+            int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+            return digits >= 0 && digits <= MAX_DIGITS ? digits : -1;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
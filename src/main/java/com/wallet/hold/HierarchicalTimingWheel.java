@@ -0,0 +1,164 @@
+package com.wallet.hold;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel (as in the Linux kernel timers) for hold expiries.
+ * Level 0 has 256 slots of one tick; each higher level has 64 slots, each spanning a whole
+ * lower level. Scheduling and cancelling are O(1); a timer is moved down at most once per
+ * level before it fires, so expiry is O(1) amortized per hold, whatever the number of open holds.
+ * With 1 s ticks the four levels cover about 2 years; later deadlines are parked in the top level
+ * and re-placed when it comes round.
+ */
+public class HierarchicalTimingWheel {
+
+    private static final int LEVEL0_BITS = 8;
+    private static final int LEVEL_BITS = 6;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = 1L << (LEVEL0_BITS + LEVEL_BITS * (LEVELS - 1));
+
+    private static final class Timer {
+        final long id;
+        final long deadlineTick;
+        Timer prev;
+        Timer next;
+        Timer[] bucket;
+        int slot;
+
+        Timer(long id, long deadlineTick) {
+            this.id = id;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final Timer[][] levels = new Timer[LEVELS][];
+    private final Map<Long, Timer> timers = new HashMap<>();
+    private long currentTick;
+
+    public HierarchicalTimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        levels[0] = new Timer[1 << LEVEL0_BITS];
+        for (int level = 1; level < LEVELS; level++) {
+            levels[level] = new Timer[1 << LEVEL_BITS];
+        }
+    }
+
+    /**
+     * Schedule (or reschedule) id to fire at deadlineMillis. Deadlines in the past fire on the next tick.
+     */
+    public synchronized void schedule(long id, long deadlineMillis) {
+        cancel(id);
+        // Round up so a timer never fires before its deadline
+        long deadlineTick = Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis);
+        Timer timer = new Timer(id, deadlineTick);
+        timers.put(id, timer);
+        place(timer);
+    }
+
+    public synchronized boolean cancel(long id) {
+        Timer timer = timers.remove(id);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    /**
+     * Advance to nowMillis and hand every due id to the consumer.
+     * The consumer runs under the wheel's lock, so it should only collect ids.
+     */
+    public synchronized void advance(long nowMillis, LongConsumer expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            int slot = (int) (currentTick & ((1 << LEVEL0_BITS) - 1));
+            Timer timer = levels[0][slot];
+            levels[0][slot] = null;
+            while (timer != null) {
+                Timer next = timer.next;
+                timers.remove(timer.id);
+                timer.bucket = null;
+                expired.accept(timer.id);
+                timer = next;
+            }
+        }
+    }
+
+    /**
+     * When a lower level wraps, move the matching slot of the level above down a level.
+     */
+    private void cascade() {
+        int shift = LEVEL0_BITS;
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            int slot = (int) ((currentTick >>> shift) & ((1 << LEVEL_BITS) - 1));
+            Timer timer = levels[level][slot];
+            levels[level][slot] = null;
+            while (timer != null) {
+                Timer next = timer.next;
+                timer.prev = null;
+                timer.next = null;
+                place(timer);
+                timer = next;
+            }
+            shift += LEVEL_BITS;
+        }
+    }
+
+    private void place(Timer timer) {
+        long delta = timer.deadlineTick - currentTick;
+        long tick = delta < MAX_DELTA ? timer.deadlineTick : currentTick + MAX_DELTA - 1;
+        int level;
+        int slot;
+        if (delta < (1L << LEVEL0_BITS)) {
+            level = 0;
+            slot = (int) (tick & ((1 << LEVEL0_BITS) - 1));
+        } else {
+            level = 1;
+            int shift = LEVEL0_BITS;
+            while (level < LEVELS - 1 && delta >= (1L << (shift + LEVEL_BITS))) {
+                level++;
+                shift += LEVEL_BITS;
+            }
+            slot = (int) ((tick >>> shift) & ((1 << LEVEL_BITS) - 1));
+        }
+        Timer[] bucket = levels[level];
+        timer.bucket = bucket;
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = bucket[slot];
+        if (bucket[slot] != null) {
+            bucket[slot].prev = timer;
+        }
+        bucket[slot] = timer;
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.bucket == null) {
+            return;
+        }
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            timer.bucket[timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.bucket = null;
+        timer.prev = null;
+        timer.next = null;
+    }
+}
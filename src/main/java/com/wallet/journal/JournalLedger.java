@@ -0,0 +1,189 @@
+package com.wallet.journal;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.JournalEntry;
+import com.wallet.entity.OutboxEvent;
+import com.wallet.entity.Posting;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.WalletTransaction;
+import com.wallet.repository.JournalEntryRepository;
+import com.wallet.repository.OutboxEventRepository;
+import com.wallet.repository.PostingRepository;
+import com.wallet.repository.WalletTransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Double-entry ledger for same-node transfers (wallet.ledger.journal.enabled). A transfer is one
+ * {@link JournalEntry} holding amount, description and status, plus one {@link Posting} per wallet
+ * written when it succeeds, instead of two full wallet_transactions rows updated through every status.
+ * <p>
+ * History reads see journaled transfers as the same per-wallet TRANSFER_SENT / TRANSFER_RECEIVED rows
+ * as before, and outbox events keep their shape, so API responses and consumers do not change.
+ * Journal ids and wallet_transactions ids are separate sequences, so those rows carry the negated
+ * journal id ({@link #viewId}) and never share an id with a ledger row.
+ */
+@Component
+public class JournalLedger {
+
+    private final boolean enabled;
+    private final JournalEntryRepository journalRepository;
+    private final PostingRepository postingRepository;
+    private final OutboxEventRepository outboxRepository;
+
+    public JournalLedger(@Value("${wallet.ledger.journal.enabled:false}") boolean enabled,
+                         JournalEntryRepository journalRepository, PostingRepository postingRepository,
+                         OutboxEventRepository outboxRepository) {
+        this.enabled = enabled;
+        this.journalRepository = journalRepository;
+        this.postingRepository = postingRepository;
+        this.outboxRepository = outboxRepository;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Insert a PENDING entry, committed on its own before any wallet lock is taken.
+     */
+    public JournalEntry open(String referenceId, Long fromUserId, Long toUserId, BigDecimal amount, String description) {
+        return journalRepository.save(new JournalEntry(referenceId, fromUserId, toUserId, amount, description));
+    }
+
+    /**
+     * Post an entry inside the caller's transaction: PENDING -> SUCCESS and the two postings.
+     * Throws if the entry is no longer pending, so the caller's balance change rolls back with it.
+     */
+    public void post(JournalEntry entry, BigDecimal senderBalance, BigDecimal receiverBalance) {
+        LocalDateTime now = LocalDateTime.now();
+        if (journalRepository.complete(entry.getId(), TransactionStatus.SUCCESS, null, now) != 1) {
+            throw new RuntimeException("Transaction is no longer pending");
+        }
+        entry.setStatus(TransactionStatus.SUCCESS);
+        entry.setCompletedTime(now);
+        postingRepository.saveAll(List.of(
+                new Posting(entry.getId(), entry.getFromUserId(), entry.getAmount().negate(), senderBalance),
+                new Posting(entry.getId(), entry.getToUserId(), entry.getAmount(), receiverBalance)));
+        outboxRepository.save(new OutboxEvent(view(entry, true, senderBalance)));
+        outboxRepository.save(new OutboxEvent(view(entry, false, receiverBalance)));
+    }
+
+    /**
+     * Write the terminal status of an entry that was not posted, inside the caller's transaction.
+     *
+     * @return false if the entry was already completed and nothing was written.
+     */
+    public boolean complete(JournalEntry entry, TransactionStatus status, String failureReason) {
+        LocalDateTime now = LocalDateTime.now();
+        if (journalRepository.complete(entry.getId(), status, failureReason, now) == 0) {
+            return false;
+        }
+        entry.setStatus(status);
+        entry.setFailureReason(failureReason);
+        entry.setCompletedTime(now);
+        if (status != TransactionStatus.FAILED) {
+            outboxRepository.save(new OutboxEvent(view(entry, true, null)));
+            outboxRepository.save(new OutboxEvent(view(entry, false, null)));
+        }
+        return true;
+    }
+
+    /**
+     * The user's journaled transfers as ledger rows, or nothing when the journal is disabled.
+     *
+     * @param status only entries with this status, or null for all.
+     */
+    public List<WalletTransaction> history(Long userId, TransactionStatus status) {
+        if (!enabled) {
+            return List.of();
+        }
+        List<WalletTransaction> rows = new ArrayList<>();
+        if (status == null || status == TransactionStatus.SUCCESS) {
+            for (PostingRepository.PostedRow posted : postingRepository.findPostedByWallet(userId)) {
+                rows.add(view(posted));
+            }
+        }
+        if (status != TransactionStatus.SUCCESS) {
+            for (JournalEntry entry : journalRepository.findUnposted(userId)) {
+                if (status == null || entry.getStatus() == status) {
+                    rows.add(view(entry, userId.equals(entry.getFromUserId()), null));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Null when the journal is disabled.
+     */
+    public WalletTransactionRepository.HistoryVersion historyVersion(Long userId) {
+        return enabled ? journalRepository.findHistoryVersion(userId) : null;
+    }
+
+    /**
+     * Transaction id under which a journal entry appears in history and outbox events.
+     */
+    public static long viewId(long journalId) {
+        return -journalId;
+    }
+
+    /**
+     * Ledger rows and journaled transfers as one history, newest first.
+     */
+    public static List<WalletTransaction> merge(List<WalletTransaction> ledger, List<WalletTransaction> journaled) {
+        if (journaled.isEmpty()) {
+            return ledger;
+        }
+        List<WalletTransaction> merged = new ArrayList<>(ledger.size() + journaled.size());
+        merged.addAll(ledger);
+        merged.addAll(journaled);
+        merged.sort(Comparator.comparing(WalletTransaction::getTransactionTime).reversed());
+        return merged;
+    }
+
+    private static WalletTransaction view(JournalEntry entry, boolean sent, BigDecimal balanceAfter) {
+        WalletTransaction transaction = transferRow(sent, entry.getFromUserId(), entry.getToUserId(),
+                entry.getAmount(), entry.getDescription());
+        transaction.setId(viewId(entry.getId()));
+        transaction.setReferenceId(entry.getReferenceId());
+        transaction.setStatus(entry.getStatus());
+        transaction.setFailureReason(entry.getFailureReason());
+        transaction.setBalanceAfterTransaction(balanceAfter);
+        transaction.setTransactionTime(entry.getCreatedTime());
+        transaction.setCompletedTime(entry.getCompletedTime());
+        return transaction;
+    }
+
+    private static WalletTransaction view(PostingRepository.PostedRow posted) {
+        WalletTransaction transaction = transferRow(posted.getAmount().signum() < 0, posted.getFromUserId(),
+                posted.getToUserId(), posted.getAmount().abs(), posted.getDescription());
+        transaction.setId(viewId(posted.getJournalId()));
+        transaction.setReferenceId(posted.getReferenceId());
+        transaction.setStatus(TransactionStatus.SUCCESS);
+        transaction.setBalanceAfterTransaction(posted.getBalanceAfter());
+        transaction.setTransactionTime(posted.getCreatedTime());
+        transaction.setCompletedTime(posted.getCompletedTime());
+        return transaction;
+    }
+
+    private static WalletTransaction transferRow(boolean sent, Long fromUserId, Long toUserId,
+                                                 BigDecimal amount, String description) {
+        WalletTransaction transaction = new WalletTransaction();
+        transaction.setSender(fromUserId);
+        transaction.setReceiver(toUserId);
+        transaction.setOwnerUserId(sent ? fromUserId : toUserId);
+        transaction.setAmount(amount);
+        transaction.setType(sent ? TransactionType.TRANSFER_SENT : TransactionType.TRANSFER_RECEIVED);
+        // Same defaults WalletService used to store on each row
+        transaction.setDescription(description != null ? description
+                : sent ? "Transfer to user " + toUserId : "Transfer from user " + fromUserId);
+        return transaction;
+    }
+}
@@ -0,0 +1,321 @@
+package com.wallet.limit;
+
+import java.util.Arrays;
+
+/**
+ * Per-user spending windows in primitive arrays.
+ * Each user has a ring of 60 per-minute buckets (the last hour) and a ring of 24 per-hour buckets
+ * (the last day). A bucket packs the transaction count in the top 16 bits and the amount in minor
+ * units in the low 48 bits. Running hour and day totals in the same packing are kept next to the
+ * rings, so a check reads two totals instead of summing 84 buckets. Rings are rotated lazily when a
+ * user is touched (expired buckets are subtracted from the totals), so idle users cost nothing
+ * until they are swept.
+ * <p>
+ * Users live in open-addressing tables split into segments, each guarded by its own lock, so a
+ * check-and-add is atomic per user without a global lock. Memory is bounded by maxUsers
+ * (about {@value #BYTES_PER_USER} bytes per tracked user); users idle for a day are swept when a
+ * segment fills up.
+ */
+public class SlidingWindowCounters {
+
+    public enum Result { OK, HOURLY_AMOUNT, HOURLY_COUNT, DAILY_AMOUNT, TABLE_FULL }
+
+    /**
+     * Buckets, totals, row key and last minute of a user, plus its share of the hash index.
+     */
+    public static final int BYTES_PER_USER = 720;
+
+    /**
+     * Limits in minor units and transaction counts.
+     */
+    public static final class Limits {
+        private final long hourlyAmount;
+        private final long hourlyCount;
+        private final long dailyAmount;
+
+        public Limits(long hourlyAmount, long hourlyCount, long dailyAmount) {
+            this.hourlyAmount = hourlyAmount;
+            this.hourlyCount = hourlyCount;
+            this.dailyAmount = dailyAmount;
+        }
+
+        /**
+         * Whether one more transaction of amount fits on top of the given window totals.
+         */
+        public Result check(long hourAmount, long hourCount, long dayAmount, long amount) {
+            if (hourCount + 1 > hourlyCount) {
+                return Result.HOURLY_COUNT;
+            }
+            if (hourAmount + amount > hourlyAmount) {
+                return Result.HOURLY_AMOUNT;
+            }
+            if (dayAmount + amount > dailyAmount) {
+                return Result.DAILY_AMOUNT;
+            }
+            return Result.OK;
+        }
+    }
+
+    static final int MINUTES = 60;
+    static final int HOURS = 24;
+    private static final int HOUR_TOTAL = MINUTES + HOURS;
+    private static final int DAY_TOTAL = HOUR_TOTAL + 1;
+    private static final int STRIDE = DAY_TOTAL + 1;
+    private static final long COUNT_UNIT = 1L << 48;
+    private static final long AMOUNT_MASK = COUNT_UNIT - 1;
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int DAY_MINUTES = MINUTES * HOURS;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    public SlidingWindowCounters(int maxUsers, int segmentCount) {
+        int count = segmentCount <= 1 ? 1 : Integer.highestOneBit((segmentCount - 1) << 1);
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        int perSegment = Math.max(16, maxUsers / count);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Add the amount unless that would exceed a limit; check and add are atomic for the user.
+     */
+    public Result tryAdd(long userId, long amount, long nowMillis, Limits limits) {
+        long hash = mix(userId);
+        return segment(hash).tryAdd(userId, hash, amount, (int) (nowMillis / 60_000), limits);
+    }
+
+    /**
+     * Add unconditionally, e.g. when rebuilding from the ledger.
+     *
+     * @return false if the table is full.
+     */
+    public boolean add(long userId, long amount, long atMillis, long nowMillis) {
+        long hash = mix(userId);
+        return segment(hash).add(userId, hash, amount, (int) (atMillis / 60_000), (int) (nowMillis / 60_000), 1);
+    }
+
+    /**
+     * Take back an amount added at atMillis, e.g. when the debit it was reserved for failed.
+     */
+    public void subtract(long userId, long amount, long atMillis, long nowMillis) {
+        long hash = mix(userId);
+        segment(hash).add(userId, hash, -amount, (int) (atMillis / 60_000), (int) (nowMillis / 60_000), -1);
+    }
+
+    /**
+     * Take back part of an amount added at atMillis and keep its transaction counted, e.g. the
+     * uncaptured rest of a hold.
+     */
+    public void reduce(long userId, long amount, long atMillis, long nowMillis) {
+        long hash = mix(userId);
+        segment(hash).add(userId, hash, -amount, (int) (atMillis / 60_000), (int) (nowMillis / 60_000), 0);
+    }
+
+    /**
+     * How many users fit in a memory budget.
+     */
+    public static int usersFor(long memoryBytes) {
+        return (int) Math.min(Integer.MAX_VALUE, memoryBytes / BYTES_PER_USER);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    private Segment segment(long hash) {
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    /**
+     * Hash index (keys -> row) over densely packed rows, so bucket memory follows the number of
+     * tracked users rather than the table capacity.
+     */
+    private static final class Segment {
+        private final int maxSize;
+        private long[] keys;
+        private int[] rowOfSlot;
+        private int mask;
+        private long[] rowKeys;
+        private int[] lastMinute;
+        private long[] buckets;
+        private int size;
+        private int lastSweepMinute = Integer.MIN_VALUE;
+
+        Segment(int maxSize) {
+            this.maxSize = maxSize;
+            allocateIndex(16);
+            allocateRows(8);
+        }
+
+        synchronized Result tryAdd(long userId, long hash, long amount, int nowMinute, Limits limits) {
+            int row = rowFor(userId, hash, nowMinute);
+            if (row < 0) {
+                return Result.TABLE_FULL;
+            }
+            rotate(row, nowMinute);
+            int base = row * STRIDE;
+            long hour = buckets[base + HOUR_TOTAL];
+            Result result = limits.check(hour & AMOUNT_MASK, hour >>> 48, buckets[base + DAY_TOTAL] & AMOUNT_MASK, amount);
+            if (result != Result.OK) {
+                return result;
+            }
+            long delta = COUNT_UNIT + amount;
+            buckets[base + nowMinute % MINUTES] += delta;
+            buckets[base + HOUR_TOTAL] += delta;
+            buckets[base + MINUTES + (nowMinute / MINUTES) % HOURS] += delta;
+            buckets[base + DAY_TOTAL] += delta;
+            return Result.OK;
+        }
+
+        synchronized boolean add(long userId, long hash, long amount, int atMinute, int nowMinute, int count) {
+            int row = rowFor(userId, hash, nowMinute);
+            if (row < 0) {
+                return false;
+            }
+            rotate(row, nowMinute);
+            if (atMinute > nowMinute) {
+                return true;
+            }
+            int base = row * STRIDE;
+            long delta = count * COUNT_UNIT + amount;
+            if (nowMinute - atMinute < MINUTES) {
+                buckets[base + atMinute % MINUTES] += delta;
+                buckets[base + HOUR_TOTAL] += delta;
+            }
+            if (nowMinute / MINUTES - atMinute / MINUTES < HOURS) {
+                buckets[base + MINUTES + (atMinute / MINUTES) % HOURS] += delta;
+                buckets[base + DAY_TOTAL] += delta;
+            }
+            return true;
+        }
+
+        /**
+         * Clear the buckets that fell out of the windows since the user was last touched.
+         */
+        private void rotate(int row, int nowMinute) {
+            int last = lastMinute[row];
+            if (nowMinute <= last) {
+                return;
+            }
+            int base = row * STRIDE;
+            for (int m = last + 1, end = Math.min(nowMinute, last + MINUTES); m <= end; m++) {
+                buckets[base + HOUR_TOTAL] -= buckets[base + m % MINUTES];
+                buckets[base + m % MINUTES] = 0;
+            }
+            int lastHour = last / MINUTES;
+            int nowHour = nowMinute / MINUTES;
+            for (int h = lastHour + 1, end = Math.min(nowHour, lastHour + HOURS); h <= end; h++) {
+                buckets[base + DAY_TOTAL] -= buckets[base + MINUTES + h % HOURS];
+                buckets[base + MINUTES + h % HOURS] = 0;
+            }
+            lastMinute[row] = nowMinute;
+        }
+
+        /**
+         * Find or insert the user's row; -1 when the segment is full of active users.
+         */
+        private int rowFor(long userId, long hash, int nowMinute) {
+            int slot = (int) hash & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == userId) {
+                    return rowOfSlot[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size >= maxSize) {
+                // At most one sweep a minute, so a full segment does not compact on every miss
+                if (nowMinute == lastSweepMinute) {
+                    return -1;
+                }
+                lastSweepMinute = nowMinute;
+                sweep(nowMinute - DAY_MINUTES);
+                if (size >= maxSize) {
+                    return -1;
+                }
+                return rowFor(userId, hash, nowMinute);
+            }
+            if ((size + 1) * 2 > keys.length) {
+                allocateIndex(keys.length * 2);
+                reindex();
+                return rowFor(userId, hash, nowMinute);
+            }
+            if (size == rowKeys.length) {
+                allocateRows(Math.min(maxSize, size + (size >> 1) + 1));
+            }
+            int row = size++;
+            keys[slot] = userId;
+            rowOfSlot[slot] = row;
+            rowKeys[row] = userId;
+            // A fresh user starts with empty rings rotated to now
+            lastMinute[row] = nowMinute;
+            Arrays.fill(buckets, row * STRIDE, (row + 1) * STRIDE, 0);
+            return row;
+        }
+
+        /**
+         * Drop users with no activity in the last day (their windows are all zero) by compacting rows.
+         */
+        private void sweep(int keepIfTouchedAfter) {
+            int kept = 0;
+            for (int row = 0; row < size; row++) {
+                if (lastMinute[row] <= keepIfTouchedAfter) {
+                    continue;
+                }
+                if (kept != row) {
+                    rowKeys[kept] = rowKeys[row];
+                    lastMinute[kept] = lastMinute[row];
+                    System.arraycopy(buckets, row * STRIDE, buckets, kept * STRIDE, STRIDE);
+                }
+                kept++;
+            }
+            size = kept;
+            Arrays.fill(keys, EMPTY);
+            reindex();
+        }
+
+        private void reindex() {
+            for (int row = 0; row < size; row++) {
+                int slot = (int) mix(rowKeys[row]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = rowKeys[row];
+                rowOfSlot[slot] = row;
+            }
+        }
+
+        private void allocateIndex(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            rowOfSlot = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        private void allocateRows(int capacity) {
+            rowKeys = rowKeys == null ? new long[capacity] : Arrays.copyOf(rowKeys, capacity);
+            lastMinute = lastMinute == null ? new int[capacity] : Arrays.copyOf(lastMinute, capacity);
+            buckets = buckets == null ? new long[capacity * STRIDE] : Arrays.copyOf(buckets, capacity * STRIDE);
+        }
+    }
+
+    /**
+     * MurmurHash3 fmix64.
+     */
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,276 @@
+package com.wallet.limit;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.TransactionType;
+import com.wallet.exception.LimitExceededException;
+import com.wallet.repository.FundHoldRepository;
+import com.wallet.repository.JournalEntryRepository;
+import com.wallet.repository.WalletTransactionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user hourly/daily spending and hourly count limits on debits and outgoing transfers.
+ * Checks run against {@link SlidingWindowCounters} in memory, so the hot path does no aggregate
+ * query. A check reserves the amount; callers release it if the debit does not go through.
+ * A hold reserves its amount when placed and keeps the reservation until it is captured (the
+ * uncaptured rest is given back), released or expired, so holds count as spending while open.
+ * <p>
+ * The windows are rebuilt from the last day of ledger rows and open holds on startup. Until that
+ * is done, and for users that do not fit in wallet.limits.max-memory-mb, limits are checked
+ * against the ledger. With wallet.ledger.journal.enabled, posted journal entries count as the
+ * sender's spending too.
+ */
+@Component
+public class VelocityLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(VelocityLimiter.class);
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+    private static final long DAY_MILLIS = 24 * 3_600_000L;
+    private static final List<TransactionType> SPENDING_TYPES = List.of(TransactionType.DEBIT, TransactionType.TRANSFER_SENT);
+    // PROCESSING covers cross-partition transfers whose debit is already reserved
+    private static final List<TransactionStatus> SPENDING_STATUSES = List.of(TransactionStatus.SUCCESS, TransactionStatus.PROCESSING);
+
+    private final boolean enabled;
+    private final long dailyAmount;
+    private final SlidingWindowCounters.Limits limits;
+    private final SlidingWindowCounters counters;
+    private final WalletTransactionRepository transactionRepository;
+    private final JournalEntryRepository journalRepository;
+    private final FundHoldRepository holdRepository;
+    private final boolean journalEnabled;
+    private final MeterRegistry meterRegistry;
+    // Reservation token of each open hold counted in the windows, by hold id
+    private final Map<Long, Long> holdTokens = new ConcurrentHashMap<>();
+    private volatile boolean rebuilt;
+
+    public VelocityLimiter(@Value("${wallet.limits.enabled:true}") boolean enabled,
+                           @Value("${wallet.limits.hourly-amount:10000}") BigDecimal hourlyAmount,
+                           @Value("${wallet.limits.hourly-count:60}") long hourlyCount,
+                           @Value("${wallet.limits.daily-amount:50000}") BigDecimal dailyAmount,
+                           @Value("${wallet.limits.max-memory-mb:64}") long maxMemoryMb,
+                           @Value("${wallet.limits.segments:64}") int segments,
+                           @Value("${wallet.ledger.journal.enabled:false}") boolean journalEnabled,
+                           WalletTransactionRepository transactionRepository,
+                           JournalEntryRepository journalRepository,
+                           FundHoldRepository holdRepository,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.dailyAmount = toMinorUnits(dailyAmount);
+        this.limits = new SlidingWindowCounters.Limits(toMinorUnits(hourlyAmount), hourlyCount, this.dailyAmount);
+        this.counters = new SlidingWindowCounters(
+                enabled ? SlidingWindowCounters.usersFor(maxMemoryMb << 20) : 0, enabled ? segments : 1);
+        this.transactionRepository = transactionRepository;
+        this.journalRepository = journalRepository;
+        this.holdRepository = holdRepository;
+        this.journalEnabled = journalEnabled;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("wallet.limits.tracked.users", counters, SlidingWindowCounters::size)
+                .description("Users with spending windows in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count amount against the user's limits, or throw if it does not fit.
+     *
+     * @return a token for {@link #release(Long, BigDecimal, long)}; 0 if nothing was reserved in memory.
+     */
+    public long reserve(Long userId, BigDecimal amount) {
+        if (!enabled) {
+            return 0;
+        }
+        long minor = clamp(amount);
+        long now = System.currentTimeMillis();
+        SlidingWindowCounters.Result result = rebuilt
+                ? counters.tryAdd(userId, minor, now, limits)
+                : SlidingWindowCounters.Result.TABLE_FULL;
+        if (result == SlidingWindowCounters.Result.OK) {
+            return now;
+        }
+        if (result == SlidingWindowCounters.Result.TABLE_FULL) {
+            result = checkLedger(userId, minor, now);
+            if (result == SlidingWindowCounters.Result.OK) {
+                return 0;
+            }
+        }
+        meterRegistry.counter("wallet.limits.declined", "limit", result.name().toLowerCase()).increment();
+        throw new LimitExceededException(message(result));
+    }
+
+    /**
+     * Give back a reservation whose debit was declined or failed.
+     */
+    public void release(Long userId, BigDecimal amount, long token) {
+        if (token != 0) {
+            counters.subtract(userId, clamp(amount), token, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Keep the reservation made for a hold until the hold is completed.
+     */
+    public void holdPlaced(Long holdId, long token) {
+        if (token != 0) {
+            holdTokens.put(holdId, token);
+        }
+    }
+
+    /**
+     * Give back the reservation of a released or expired hold.
+     */
+    public void holdReleased(Long userId, Long holdId, BigDecimal amount) {
+        Long token = holdTokens.remove(holdId);
+        if (token != null) {
+            release(userId, amount, token);
+        }
+    }
+
+    /**
+     * The captured part of a hold stays counted as spending; the rest of its reservation is given back.
+     * A hold this instance has no reservation for (it was placed while the windows were not in use)
+     * only counts the capture.
+     */
+    public void holdCaptured(Long userId, Long holdId, BigDecimal amount, BigDecimal captured) {
+        Long token = holdTokens.remove(holdId);
+        long now = System.currentTimeMillis();
+        if (token != null) {
+            long rest = clamp(amount) - clamp(captured);
+            if (rest > 0) {
+                counters.reduce(userId, rest, token, now);
+            }
+        } else if (enabled && rebuilt) {
+            counters.add(userId, clamp(captured), now, now);
+        }
+    }
+
+    /**
+     * Forget reservations of holds completed elsewhere once they have left the day window.
+     */
+    @Scheduled(fixedDelayString = "${wallet.limits.hold-token-sweep-ms:3600000}")
+    public void forgetExpiredHoldTokens() {
+        long dayAgo = System.currentTimeMillis() - DAY_MILLIS;
+        holdTokens.values().removeIf(token -> token < dayAgo);
+    }
+
+    /**
+     * Load the last day of spending. Requests meanwhile are checked against the ledger; a final pass
+     * after switching over picks up rows written during the rebuild (a request racing the switch may
+     * be counted twice, which only errs towards declining).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        LocalDateTime since = toLocalDateTime(started - DAY_MILLIS);
+        SpendingSource ledger = (afterId, before) -> transactionRepository.findSpendingAfter(afterId, since, before,
+                SPENDING_TYPES, SPENDING_STATUSES, PageRequest.of(0, REBUILD_PAGE_SIZE));
+        SpendingSource journal = (afterId, before) -> journalEnabled
+                ? journalRepository.findSpendingAfter(afterId, since, before, PageRequest.of(0, REBUILD_PAGE_SIZE))
+                : List.of();
+        SpendingSource holds = (afterId, before) -> holdRepository.findActiveSpendingAfter(afterId, since, before,
+                PageRequest.of(0, REBUILD_PAGE_SIZE));
+        long lastLedgerId = load(ledger, 0L, toLocalDateTime(started), false);
+        long lastJournalId = load(journal, 0L, toLocalDateTime(started), false);
+        long lastHoldId = load(holds, 0L, toLocalDateTime(started), true);
+        long switchedAt = System.currentTimeMillis();
+        rebuilt = true;
+        load(ledger, lastLedgerId, toLocalDateTime(switchedAt), false);
+        load(journal, lastJournalId, toLocalDateTime(switchedAt), false);
+        load(holds, lastHoldId, toLocalDateTime(switchedAt), true);
+        log.info("Spending windows rebuilt for {} users in {} ms", counters.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Keyset pages of spending rows of one table.
+     */
+    private interface SpendingSource {
+        List<WalletTransactionRepository.SpendingRow> page(long afterId, LocalDateTime before);
+    }
+
+    /**
+     * @param holds whether the rows are open holds, whose reservations are kept for their completion.
+     */
+    private long load(SpendingSource source, long afterId, LocalDateTime before, boolean holds) {
+        long now = System.currentTimeMillis();
+        while (true) {
+            List<WalletTransactionRepository.SpendingRow> page = source.page(afterId, before);
+            for (WalletTransactionRepository.SpendingRow row : page) {
+                long at = toEpochMillis(row.getTransactionTime());
+                if (counters.add(row.getOwnerUserId(), clamp(row.getAmount()), at, now) && holds) {
+                    holdTokens.put(row.getId(), at);
+                }
+            }
+            if (page.size() < REBUILD_PAGE_SIZE) {
+                return page.isEmpty() ? afterId : page.get(page.size() - 1).getId();
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Not atomic with concurrent debits of the same user, so the limits are approximate for them.
+     */
+    private SlidingWindowCounters.Result checkLedger(Long userId, long minor, long now) {
+        LocalDateTime hourAgo = toLocalDateTime(now - 3_600_000L);
+        LocalDateTime dayAgo = toLocalDateTime(now - DAY_MILLIS);
+        WalletTransactionRepository.SpendingTotals totals = transactionRepository.sumSpending(userId, hourAgo, dayAgo,
+                SPENDING_TYPES, SPENDING_STATUSES);
+        WalletTransactionRepository.SpendingTotals held = holdRepository.sumActiveHolds(userId, hourAgo, dayAgo);
+        long hourAmount = toMinorUnits(totals.getHourAmount()) + toMinorUnits(held.getHourAmount());
+        long hourCount = totals.getHourCount() + held.getHourCount();
+        long dayAmount = toMinorUnits(totals.getDayAmount()) + toMinorUnits(held.getDayAmount());
+        if (journalEnabled) {
+            WalletTransactionRepository.SpendingTotals journal = journalRepository.sumSpending(userId, hourAgo, dayAgo);
+            hourAmount += toMinorUnits(journal.getHourAmount());
+            hourCount += journal.getHourCount();
+            dayAmount += toMinorUnits(journal.getDayAmount());
+        }
+        return limits.check(hourAmount, hourCount, dayAmount, minor);
+    }
+
+    /**
+     * Amounts above the daily limit are capped just over it, which keeps them inside a bucket.
+     */
+    private long clamp(BigDecimal amount) {
+        return Math.min(toMinorUnits(amount), dailyAmount + 1);
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue();
+    }
+
+    private static String message(SlidingWindowCounters.Result result) {
+        return switch (result) {
+            case HOURLY_AMOUNT -> "Hourly spending limit exceeded";
+            case HOURLY_COUNT -> "Hourly transaction count limit exceeded";
+            default -> "Daily spending limit exceeded";
+        };
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
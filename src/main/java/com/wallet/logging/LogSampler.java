@@ -0,0 +1,56 @@
+package com.wallet.logging;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which routine log lines are written: each category (an operation such as "transfer") logs
+ * the given fraction of its lines, chosen at random so no shared counter is touched on the hot path.
+ * Rates are between 0 (never) and 1 (always).
+ */
+public class LogSampler {
+
+    private final double defaultRate;
+    private final Map<String, Double> rates;
+
+    public LogSampler(double defaultRate, Map<String, Double> rates) {
+        this.defaultRate = checkRate(defaultRate);
+        this.rates = new HashMap<>();
+        rates.forEach((category, rate) -> this.rates.put(category, checkRate(rate)));
+    }
+
+    /**
+     * Rates per category written as category:rate pairs separated by commas, e.g. "balance:0.01,history:0.01".
+     */
+    public static LogSampler parse(double defaultRate, String rates) {
+        Map<String, Double> parsed = new HashMap<>();
+        for (String pair : rates.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            String[] parts = pair.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected category:rate but got " + pair.trim());
+            }
+            parsed.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+        }
+        return new LogSampler(defaultRate, parsed);
+    }
+
+    public boolean sample(String category) {
+        double rate = rates.getOrDefault(category, defaultRate);
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    public double rate(String category) {
+        return rates.getOrDefault(category, defaultRate);
+    }
+
+    private static double checkRate(double rate) {
+        if (rate < 0 || rate > 1 || Double.isNaN(rate)) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + rate);
+        }
+        return rate;
+    }
+}
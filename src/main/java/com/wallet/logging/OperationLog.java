@@ -0,0 +1,68 @@
+package com.wallet.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Outcome log lines of wallet operations, with the details as key-value pairs (operation, userId,
+ * counterpartyId, referenceId, status, durationMicros) instead of formatted into the message.
+ * <p>
+ * Successes are routine and sampled per operation with wallet.logging.success-sample-rate and
+ * wallet.logging.success-sample-rates. Declines (WARN) and failures (ERROR) are always written.
+ * Nothing here formats an amount or balance; the values are only rendered by the appender, and only
+ * for the lines that are kept.
+ */
+@Component
+public class OperationLog {
+
+    private static final Logger log = LoggerFactory.getLogger(OperationLog.class);
+
+    private final LogSampler sampler;
+
+    @Autowired
+    public OperationLog(@Value("${wallet.logging.success-sample-rate:0.1}") double defaultRate,
+                        @Value("${wallet.logging.success-sample-rates:balance:0.01,history:0.01}") String rates) {
+        this(LogSampler.parse(defaultRate, rates));
+    }
+
+    public OperationLog(LogSampler sampler) {
+        this.sampler = sampler;
+    }
+
+    public void completed(String operation, Long userId, Long counterpartyId, String referenceId, long startNanos) {
+        if (log.isInfoEnabled() && sampler.sample(operation)) {
+            fields(log.atInfo(), operation, userId, counterpartyId, referenceId, "SUCCESS", startNanos)
+                    .log("{} completed", operation);
+        }
+    }
+
+    public void declined(String operation, Long userId, Long counterpartyId, String referenceId, String reason,
+                         long startNanos) {
+        fields(log.atWarn(), operation, userId, counterpartyId, referenceId, "DECLINED", startNanos)
+                .log("{} declined: {}", operation, reason);
+    }
+
+    public void failed(String operation, Long userId, Long counterpartyId, String referenceId, String reason,
+                       long startNanos) {
+        fields(log.atError(), operation, userId, counterpartyId, referenceId, "FAILED", startNanos)
+                .log("{} failed: {}", operation, reason);
+    }
+
+    private static LoggingEventBuilder fields(LoggingEventBuilder event, String operation, Long userId,
+                                              Long counterpartyId, String referenceId, String status,
+                                              long startNanos) {
+        event = event.addKeyValue("operation", operation).addKeyValue("userId", userId);
+        if (counterpartyId != null) {
+            event = event.addKeyValue("counterpartyId", counterpartyId);
+        }
+        if (referenceId != null) {
+            event = event.addKeyValue("referenceId", referenceId);
+        }
+        return event.addKeyValue("status", status)
+                .addKeyValue("durationMicros", (System.nanoTime() - startNanos) / 1_000);
+    }
+}
@@ -0,0 +1,209 @@
+package com.wallet.onboarding;
+
+import com.wallet.dto.BulkOnboardingReport;
+import com.wallet.dto.BulkOnboardingReport.RowFailure;
+import com.wallet.dto.CreateUserRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates users and their wallets in bulk, for migrating partner user bases.
+ * <p>
+ * Passwords are hashed on a pool of wallet.onboarding.hash-threads (all cores by default), which
+ * keeps hashing later rows while earlier batches are written. Each batch of wallet.onboarding.batch-size
+ * rows is one transaction: a JDBC batch of INSERT IGNORE into users, one SELECT for the ids, and a JDBC
+ * batch of wallets, so a user never exists without its wallet. Existing emails are left to the unique
+ * constraint instead of checked row by row; a row counts as created only if the stored hash is the one
+ * just computed, which also catches a user created concurrently through the API.
+ * <p>
+ * INSERT IGNORE would also turn NULLs and over-long values into warnings, so rows are validated first.
+ * Needs rewriteBatchedStatements=true on the JDBC URL for the batches to be sent as multi-row inserts.
+ */
+@Service
+public class BulkOnboardingService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkOnboardingService.class);
+    // Default VARCHAR length Hibernate gives the users columns
+    private static final int MAX_COLUMN_LENGTH = 255;
+    private static final String INSERT_USER =
+            "INSERT IGNORE INTO users (name, email_id, password, role) VALUES (?, ?, ?, 'USER')";
+    private static final String INSERT_WALLET =
+            "INSERT INTO wallets (user_id, balance, reserved_balance, version) VALUES (?, 0, 0, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ExecutorService hashPool;
+    private final int batchSize;
+    private final int maxRows;
+    private final Counter created;
+    private final Counter duplicate;
+    private final Counter invalid;
+    private final Counter failed;
+
+    public BulkOnboardingService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                 @Value("${wallet.onboarding.hash-threads:0}") int hashThreads,
+                                 @Value("${wallet.onboarding.batch-size:1000}") int batchSize,
+                                 @Value("${wallet.onboarding.max-rows:10000}") int maxRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.hashPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "onboarding-hash-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchSize = Math.max(1, batchSize);
+        this.maxRows = maxRows;
+        this.created = meterRegistry.counter("wallet.onboarding.rows", "outcome", "created");
+        this.duplicate = meterRegistry.counter("wallet.onboarding.rows", "outcome", "duplicate_email");
+        this.invalid = meterRegistry.counter("wallet.onboarding.rows", "outcome", "invalid");
+        this.failed = meterRegistry.counter("wallet.onboarding.rows", "outcome", "failed");
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public BulkOnboardingReport onboard(List<CreateUserRequest> rows) {
+        long start = System.currentTimeMillis();
+        log.info("Bulk onboarding of {} users initiated", rows.size());
+        List<RowFailure> failures = new ArrayList<>();
+
+        // Submit every hash up front; the pool works ahead of the batch being written
+        List<Future<String>> hashes = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            CreateUserRequest row = rows.get(i);
+            String problem = validate(row);
+            if (problem != null) {
+                failures.add(new RowFailure(i, row == null ? null : row.getEmail(), "INVALID", problem));
+                invalid.increment();
+                hashes.add(null);
+            } else {
+                hashes.add(hashPool.submit(() -> passwordEncoder.encode(row.getPassword())));
+            }
+        }
+
+        int createdRows = 0;
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            createdRows += writeBatch(rows, hashes, from, Math.min(rows.size(), from + batchSize), failures);
+        }
+        failures.sort((a, b) -> Integer.compare(a.getRow(), b.getRow()));
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Bulk onboarding finished: {} of {} users created, {} failed, in {} ms",
+                createdRows, rows.size(), failures.size(), elapsed);
+        return new BulkOnboardingReport(rows.size(), createdRows, failures, elapsed);
+    }
+
+    private int writeBatch(List<CreateUserRequest> rows, List<Future<String>> hashes, int from, int to,
+                           List<RowFailure> failures) {
+        List<Integer> indexes = new ArrayList<>(to - from);
+        List<Object[]> users = new ArrayList<>(to - from);
+        List<String> emails = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            if (hashes.get(i) == null) {
+                continue;
+            }
+            CreateUserRequest row = rows.get(i);
+            try {
+                String hash = hashes.get(i).get();
+                indexes.add(i);
+                users.add(new Object[]{row.getName(), row.getEmail(), hash});
+                emails.add(row.getEmail());
+            } catch (ExecutionException e) {
+                failures.add(new RowFailure(i, row.getEmail(), "FAILED", "Password hashing failed"));
+                failed.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Bulk onboarding interrupted", e);
+            }
+        }
+        if (users.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            Map<String, Long> idsByHash = transactionTemplate.execute(status -> {
+                jdbcTemplate.batchUpdate(INSERT_USER, users);
+                // Matched by hash rather than email, which also sidesteps the column's case-insensitive collation
+                Map<String, Long> stored = new HashMap<>();
+                String placeholders = String.join(",", Collections.nCopies(emails.size(), "?"));
+                jdbcTemplate.query("SELECT id, password FROM users WHERE email_id IN (" + placeholders + ")",
+                        resultSet -> {
+                            stored.put(resultSet.getString("password"), resultSet.getLong("id"));
+                        }, emails.toArray());
+                List<Object[]> wallets = new ArrayList<>(users.size());
+                for (Object[] user : users) {
+                    Long id = stored.get((String) user[2]);
+                    if (id != null) {
+                        wallets.add(new Object[]{id});
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_WALLET, wallets);
+                return stored;
+            });
+
+            int createdRows = 0;
+            for (int j = 0; j < users.size(); j++) {
+                if (idsByHash.containsKey((String) users.get(j)[2])) {
+                    createdRows++;
+                } else {
+                    failures.add(new RowFailure(indexes.get(j), emails.get(j), "DUPLICATE_EMAIL",
+                            "User already exists with the email"));
+                    duplicate.increment();
+                }
+            }
+            created.increment(createdRows);
+            return createdRows;
+        } catch (RuntimeException e) {
+            log.error("Bulk onboarding batch of rows {}-{} failed: {}", from, to - 1, e.getMessage(), e);
+            for (int j = 0; j < indexes.size(); j++) {
+                failures.add(new RowFailure(indexes.get(j), emails.get(j), "FAILED", "Batch could not be written"));
+            }
+            failed.increment(indexes.size());
+            return 0;
+        }
+    }
+
+    private static String validate(CreateUserRequest row) {
+        if (row == null || isBlank(row.getName()) || isBlank(row.getEmail()) || isBlank(row.getPassword())) {
+            return "Name, email and password are required";
+        }
+        if (row.getName().length() > MAX_COLUMN_LENGTH || row.getEmail().length() > MAX_COLUMN_LENGTH) {
+            return "Name and email must be at most " + MAX_COLUMN_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdownNow();
+    }
+}
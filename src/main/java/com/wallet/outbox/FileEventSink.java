@@ -0,0 +1,41 @@
+package com.wallet.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Local stand-in for a message queue: appends events as JSON lines to a file.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.outbox.file-sink.enabled", havingValue = "true")
+public class FileEventSink implements WalletEventSink {
+
+    private final Path path;
+
+    public FileEventSink(@Value("${wallet.outbox.file-sink.path:wallet-events.jsonl}") String path) {
+        this.path = Path.of(path);
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void publish(List<WalletEvent> events) throws IOException {
+        StringBuilder lines = new StringBuilder(events.size() * 256);
+        for (WalletEvent event : events) {
+            lines.append(event.toJson()).append('\n');
+        }
+        Files.writeString(path, lines, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+    }
+}
@@ -0,0 +1,30 @@
+package com.wallet.outbox;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Re-publishes wallet events as Spring application events, so in-process consumers
+ * only need an @EventListener for WalletEvent.
+ */
+@Component
+public class InProcessEventSink implements WalletEventSink {
+
+    private final ApplicationEventPublisher publisher;
+
+    public InProcessEventSink(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public String name() {
+        return "in-process";
+    }
+
+    @Override
+    public void publish(List<WalletEvent> events) {
+        events.forEach(publisher::publishEvent);
+    }
+}
@@ -0,0 +1,164 @@
+package com.wallet.outbox;
+
+import com.wallet.entity.OutboxEvent;
+import com.wallet.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the outbox in batches and hands events to every sink.
+ * An event is marked published only after all sinks accepted it (at-least-once).
+ * Events are grouped per wallet; when a wallet's group fails, the wallet is parked with an
+ * exponential backoff and none of its later events are sent until it is retried, so per-wallet
+ * order is kept across redeliveries. Other wallets' events are read past the parked ones, so one
+ * failing wallet does not hold up the rest of the outbox.
+ * Run the relay on one instance only (wallet.outbox.relay.enabled).
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxRepository;
+    private final List<WalletEventSink> sinks;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+    private final long parkBaseMillis;
+    private final long parkMaxMillis;
+    // Wallets whose last publish failed, until they publish; written by the poll thread only
+    private final Map<Long, Parked> parked = new ConcurrentHashMap<>();
+
+    private final Timer lagTimer;
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final AtomicLong oldestPendingAgeMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxEventRepository outboxRepository,
+                       List<WalletEventSink> sinks,
+                       MeterRegistry meterRegistry,
+                       @Value("${wallet.outbox.batch-size:200}") int batchSize,
+                       @Value("${wallet.outbox.max-batches-per-poll:10}") int maxBatchesPerPoll,
+                       @Value("${wallet.outbox.park-base-ms:1000}") long parkBaseMillis,
+                       @Value("${wallet.outbox.park-max-ms:60000}") long parkMaxMillis) {
+        this.outboxRepository = outboxRepository;
+        this.sinks = sinks;
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.parkBaseMillis = parkBaseMillis;
+        this.parkMaxMillis = parkMaxMillis;
+        this.lagTimer = Timer.builder("wallet.outbox.lag")
+                .description("Time from outbox write to publication")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.publishedCounter = meterRegistry.counter("wallet.outbox.published");
+        this.failedCounter = meterRegistry.counter("wallet.outbox.failed");
+        Gauge.builder("wallet.outbox.oldest.pending.age", oldestPendingAgeMillis, AtomicLong::get)
+                .description("Age in ms of the oldest unpublished event seen by the last poll")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("wallet.outbox.parked.wallets", parked, Map::size)
+                .description("Wallets whose events are held back after a failed publish")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A wallet held back after failed publishes, until retryAt (System.nanoTime).
+     */
+    private record Parked(int failures, long retryAt) {
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.outbox.poll-interval-ms:500}")
+    public synchronized void poll() {
+        long now = System.nanoTime();
+        List<Long> skipped = new ArrayList<>();
+        parked.forEach((walletId, state) -> {
+            if (state.retryAt() - now > 0) {
+                skipped.add(walletId);
+            }
+        });
+
+        long afterId = 0;
+        for (int i = 0; i < maxBatchesPerPoll; i++) {
+            List<OutboxEvent> batch = skipped.isEmpty()
+                    ? outboxRepository.findByPublishedAtIsNullAndIdGreaterThanOrderByIdAsc(afterId,
+                    PageRequest.of(0, batchSize))
+                    : outboxRepository.findByPublishedAtIsNullAndIdGreaterThanAndWalletIdNotInOrderByIdAsc(afterId,
+                    skipped, PageRequest.of(0, batchSize));
+            if (i == 0) {
+                oldestPendingAgeMillis.set(batch.isEmpty() ? 0
+                        : Duration.between(batch.get(0).getCreatedAt(), LocalDateTime.now()).toMillis());
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            // Wallets that fail here are left out of the following pages, so their later events wait too
+            skipped.addAll(relay(batch));
+            if (batch.size() < batchSize) {
+                return;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    /**
+     * @return the wallets whose events could not be published, now parked.
+     */
+    private List<Long> relay(List<OutboxEvent> batch) {
+        Map<Long, List<OutboxEvent>> byWallet = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            byWallet.computeIfAbsent(event.getWalletId(), id -> new ArrayList<>()).add(event);
+        }
+
+        List<Long> publishedIds = new ArrayList<>(batch.size());
+        List<Long> failedWallets = new ArrayList<>();
+        for (Map.Entry<Long, List<OutboxEvent>> group : byWallet.entrySet()) {
+            List<WalletEvent> events = group.getValue().stream().map(WalletEvent::new).toList();
+            try {
+                for (WalletEventSink sink : sinks) {
+                    sink.publish(events);
+                }
+                LocalDateTime deliveredAt = LocalDateTime.now();
+                for (OutboxEvent event : group.getValue()) {
+                    publishedIds.add(event.getId());
+                    lagTimer.record(Duration.between(event.getCreatedAt(), deliveredAt));
+                }
+                parked.remove(group.getKey());
+            } catch (Exception e) {
+                failedCounter.increment(events.size());
+                failedWallets.add(group.getKey());
+                Parked previous = parked.get(group.getKey());
+                int failures = previous == null ? 1 : previous.failures() + 1;
+                long backoffMillis = Math.min(parkMaxMillis, parkBaseMillis << Math.min(failures - 1, 20));
+                parked.put(group.getKey(), new Parked(failures, System.nanoTime() + backoffMillis * 1_000_000));
+                log.error("Outbox relay failed for wallet {} ({} in a row), retrying in {} ms: {}", group.getKey(),
+                        failures, backoffMillis, e.getMessage());
+            }
+        }
+
+        if (!publishedIds.isEmpty()) {
+            outboxRepository.markPublished(publishedIds, LocalDateTime.now());
+            publishedCounter.increment(publishedIds.size());
+        }
+        return failedWallets;
+    }
+}
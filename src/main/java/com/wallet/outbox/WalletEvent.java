@@ -0,0 +1,59 @@
+package com.wallet.outbox;
+
+import com.wallet.entity.OutboxEvent;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Event handed to sinks: a terminal status change of one wallet's ledger entry.
+ * The currency is null for amounts in the base currency.
+ */
+@Getter
+public class WalletEvent {
+
+    private final Long eventId;
+    private final Long walletId;
+    private final Long transactionId;
+    private final String referenceId;
+    private final String transactionType;
+    private final String status;
+    private final BigDecimal amount;
+    private final BigDecimal balanceAfterTransaction;
+    private final String currency;
+    private final LocalDateTime occurredAt;
+
+    public WalletEvent(OutboxEvent event) {
+        this.eventId = event.getId();
+        this.walletId = event.getWalletId();
+        this.transactionId = event.getTransactionId();
+        this.referenceId = event.getReferenceId();
+        this.transactionType = event.getTransactionType().toString();
+        this.status = event.getStatus().toString();
+        this.amount = event.getAmount();
+        this.balanceAfterTransaction = event.getBalanceAfterTransaction();
+        this.currency = event.getCurrency();
+        this.occurredAt = event.getCreatedAt();
+    }
+
+    /**
+     * Single-line JSON form used by the file sink.
+     */
+    public String toJson() {
+        return "{\"eventId\":" + eventId
+                + ",\"walletId\":" + walletId
+                + ",\"transactionId\":" + transactionId
+                + ",\"referenceId\":" + quote(referenceId)
+                + ",\"transactionType\":" + quote(transactionType)
+                + ",\"status\":" + quote(status)
+                + ",\"amount\":" + amount
+                + ",\"balanceAfterTransaction\":" + balanceAfterTransaction
+                + ",\"currency\":" + quote(currency)
+                + ",\"occurredAt\":" + quote(String.valueOf(occurredAt)) + "}";
+    }
+
+    private static String quote(String value) {
+        return value == null ? "null" : "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,18 @@
+package com.wallet.outbox;
+
+import java.util.List;
+
+/**
+ * Destination for relayed wallet events.
+ * Delivery is at-least-once: a sink may see the same event again after a relay failure,
+ * and consumers should de-duplicate on eventId. Events of one wallet arrive in order.
+ */
+public interface WalletEventSink {
+
+    String name();
+
+    /**
+     * Publish events of a single wallet, oldest first. Throwing leaves them for redelivery.
+     */
+    void publish(List<WalletEvent> events) throws Exception;
+}
@@ -0,0 +1,80 @@
+package com.wallet.partition;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.WalletTransaction;
+import com.wallet.repository.WalletTransactionRepository;
+import com.wallet.service.WalletService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Settles cross-partition transfers whose sender row stayed PROCESSING, e.g. because this node
+ * restarted between reserve and commit. Each node only settles senders it owns; ownership is a
+ * hash, not a column, so the scan pages past other nodes' rows until it has batchSize of its own.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.partition.enabled", havingValue = "true")
+public class CrossPartitionTransferRecovery {
+
+    private static final Logger log = LoggerFactory.getLogger(CrossPartitionTransferRecovery.class);
+
+    private final WalletTransactionRepository transactionRepository;
+    private final WalletService walletService;
+    private final PartitionRouter router;
+    private final long settleAfterMillis;
+    private final int batchSize;
+
+    public CrossPartitionTransferRecovery(WalletTransactionRepository transactionRepository,
+                                          WalletService walletService,
+                                          PartitionRouter router,
+                                          @Value("${wallet.partition.recovery.settle-after-ms:60000}") long settleAfterMillis,
+                                          @Value("${wallet.partition.recovery.batch-size:100}") int batchSize) {
+        this.transactionRepository = transactionRepository;
+        this.walletService = walletService;
+        this.router = router;
+        this.settleAfterMillis = settleAfterMillis;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.partition.recovery.interval-ms:30000}")
+    public void settleStuckTransfers() {
+        LocalDateTime before = LocalDateTime.now().minusNanos(settleAfterMillis * 1_000_000);
+        long afterId = 0;
+        int settled = 0;
+        while (true) {
+            List<WalletTransaction> page = transactionRepository
+                    .findByTypeAndStatusAndTransactionTimeBeforeAndIdGreaterThanOrderByIdAsc(TransactionType.TRANSFER_SENT,
+                            TransactionStatus.PROCESSING, before, afterId, PageRequest.of(0, batchSize));
+            for (WalletTransaction transaction : page) {
+                if (settled == batchSize) {
+                    return;
+                }
+                afterId = transaction.getId();
+                if (!router.isLocal(transaction.getOwnerUserId())) {
+                    continue;
+                }
+                settled++;
+                try {
+                    TransactionStatus outcome = walletService.recoverCrossPartitionTransfer(transaction);
+                    if (outcome != TransactionStatus.PROCESSING) {
+                        log.info("Settled transfer {} as {}", transaction.getReferenceId(), outcome);
+                    }
+                } catch (Exception e) {
+                    log.error("Could not settle transfer {}: {}", transaction.getReferenceId(), e.getMessage());
+                }
+            }
+            if (page.size() < batchSize) {
+                return;
+            }
+        }
+    }
+}
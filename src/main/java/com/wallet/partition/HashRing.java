@@ -0,0 +1,100 @@
+package com.wallet.partition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring mapping userIds to nodes.
+ * UserIds hash into a fixed number of slots and each slot belongs to the node whose virtual point
+ * follows it on the ring, so a lookup is one array read. Adding a node moves only ~1/N of the slots.
+ */
+public final class HashRing {
+
+    static final int SLOTS = 4096;
+    private static final int VIRTUAL_NODES = 128;
+
+    private final SortedMap<String, String> members;
+    private final String[] slotOwners = new String[SLOTS];
+
+    /**
+     * @param members nodeId -> base URL (e.g. "http://localhost:8081")
+     */
+    public HashRing(Map<String, String> members) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one node");
+        }
+        this.members = Collections.unmodifiableSortedMap(new TreeMap<>(members));
+        TreeMap<Long, String> points = new TreeMap<>();
+        for (String nodeId : this.members.keySet()) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                points.put(hash(nodeId + "#" + i), nodeId);
+            }
+        }
+        for (int slot = 0; slot < SLOTS; slot++) {
+            Map.Entry<Long, String> owner = points.ceilingEntry(mix(slot));
+            slotOwners[slot] = owner != null ? owner.getValue() : points.firstEntry().getValue();
+        }
+    }
+
+    public String ownerOf(long userId) {
+        return slotOwners[slotOf(userId)];
+    }
+
+    public String urlOf(String nodeId) {
+        return members.get(nodeId);
+    }
+
+    public SortedMap<String, String> members() {
+        return members;
+    }
+
+    public HashRing withMember(String nodeId, String url) {
+        TreeMap<String, String> next = new TreeMap<>(members);
+        next.put(nodeId, url);
+        return new HashRing(next);
+    }
+
+    /**
+     * Number of slots whose owner differs between the two rings.
+     */
+    public int movedSlots(HashRing other) {
+        int moved = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (!slotOwners[slot].equals(other.slotOwners[slot])) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    static int slotOf(long userId) {
+        return (int) (mix(userId) & (SLOTS - 1));
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with the 64-bit mixer so nearby names spread out.
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * MurmurHash3 fmix64.
+     */
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,192 @@
+package com.wallet.partition;
+
+import com.wallet.dto.TransferRequest;
+import com.wallet.exception.InsufficientBalanceException;
+import com.wallet.exception.LimitExceededException;
+import com.wallet.exception.WalletBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTTP calls between partition nodes. Internal endpoints carry the shared secret in
+ * X-Partition-Secret; forwarded client requests keep the caller's own headers and carry the
+ * secret too, so the owner node can tell a real hop from a client-supplied forwarding header.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.partition.enabled", havingValue = "true")
+public class PartitionClient {
+
+    static final String SECRET_HEADER = "X-Partition-Secret";
+    private static final String[] FORWARDED_HEADERS = {"Authorization", "Content-Type", "Accept", "If-None-Match"};
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final String secret;
+    private final PartitionRouter router;
+
+    public PartitionClient(PartitionRouter router,
+                           @Value("${wallet.partition.secret}") String secret,
+                           @Value("${wallet.partition.request-timeout-ms:2000}") long timeoutMillis) {
+        this.router = router;
+        this.secret = secret;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    /**
+     * Replay a client request on the owner node and return its response as is.
+     */
+    public HttpResponse<byte[]> forward(String baseUrl, String method, String pathAndQuery,
+                                        Map<String, String> headers, byte[] body) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery))
+                .timeout(timeout)
+                .header(PartitionRouter.FORWARDED_HEADER, router.selfId())
+                .header(SECRET_HEADER, secret)
+                .method(method, body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String name : FORWARDED_HEADERS) {
+            String value = headers.get(name);
+            if (value != null) {
+                request.header(name, value);
+            }
+        }
+        return send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Run a transfer on the sender's owner node under the given reference and surface its errors as
+     * the local exceptions. It goes to the internal endpoint, so it needs no client credentials and
+     * works from scheduler threads too; the caller has already accepted the request.
+     */
+    public void forwardTransfer(String baseUrl, TransferRequest transfer, String referenceId) {
+        String json = "{\"sender\":" + transfer.getSender()
+                + ",\"receiver\":" + transfer.getReceiver()
+                + ",\"transferAmount\":" + transfer.getTransferAmount().toPlainString()
+                + (transfer.getDescription() != null ? ",\"description\":\"" + escape(transfer.getDescription()) + "\"" : "")
+                + (transfer.getCurrency() != null ? ",\"currency\":\"" + escape(transfer.getCurrency()) + "\"" : "")
+                + (transfer.getReceiverCurrency() != null
+                        ? ",\"receiverCurrency\":\"" + escape(transfer.getReceiverCurrency()) + "\"" : "")
+                + "}";
+        HttpResponse<byte[]> response;
+        try {
+            response = forward(baseUrl, "POST", "/internal/partition/transfers/" + referenceId,
+                    Map.of("Content-Type", "application/json"), json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Transfer failed: owner node unreachable");
+        }
+        String body = new String(response.body(), StandardCharsets.UTF_8);
+        if (response.statusCode() == 200) {
+            return;
+        }
+        if (body.contains("\"INSUFFICIENT_BALANCE\"")) {
+            throw new InsufficientBalanceException("Insufficient balance");
+        }
+        if (body.contains("\"LIMIT_EXCEEDED\"")) {
+            throw new LimitExceededException("Spending limit exceeded on owner node");
+        }
+        if (response.statusCode() == 503) {
+            throw new WalletBusyException("Wallet is busy, try again later");
+        }
+        throw new RuntimeException("Transfer failed on owner node with status " + response.statusCode());
+    }
+
+    /**
+     * Ask the receiver's owner to apply the credit half of a cross-partition transfer.
+     *
+     * @return the receiver row's final status, e.g. SUCCESS or FAILED.
+     */
+    public String commitCredit(String baseUrl, String referenceId) throws IOException {
+        return internal(baseUrl, "/internal/partition/transfers/" + referenceId + "/commit", "");
+    }
+
+    /**
+     * Announce this node to a seed; the seed answers with the full membership.
+     */
+    public Map<String, String> join(String seedUrl) throws IOException {
+        return parseMembers(internal(seedUrl, "/internal/partition/join",
+                router.selfId() + " " + router.selfUrl()));
+    }
+
+    public void pushMembers(String baseUrl, Map<String, String> members) throws IOException {
+        internal(baseUrl, "/internal/partition/members", formatMembers(members));
+    }
+
+    private String internal(String baseUrl, String path, String body) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header(SECRET_HEADER, secret)
+                .header("Content-Type", "text/plain")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException(path + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted calling " + request.uri());
+        }
+    }
+
+    /**
+     * Membership wire format: one "nodeId url" pair per line.
+     */
+    static String formatMembers(Map<String, String> members) {
+        StringBuilder out = new StringBuilder();
+        members.forEach((nodeId, url) -> out.append(nodeId).append(' ').append(url).append('\n'));
+        return out.toString();
+    }
+
+    static Map<String, String> parseMembers(String text) {
+        Map<String, String> members = new LinkedHashMap<>();
+        for (String line : text.split("\n")) {
+            String[] parts = line.trim().split(" ");
+            if (parts.length == 2) {
+                members.put(parts[0], parts[1]);
+            }
+        }
+        return members;
+    }
+
+    private static String escape(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.toString();
+    }
+}
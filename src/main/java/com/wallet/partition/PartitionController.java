@@ -0,0 +1,88 @@
+package com.wallet.partition;
+
+import com.wallet.dto.TransferRequest;
+import com.wallet.service.WalletService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Node-to-node endpoints, authenticated with the shared partition secret. Plain text bodies, except
+ * the forwarded transfer, which takes the API's JSON.
+ */
+@RestController
+@RequestMapping("/internal/partition")
+@ConditionalOnProperty(name = "wallet.partition.enabled", havingValue = "true")
+public class PartitionController {
+
+    private final PartitionMembership membership;
+    private final WalletService walletService;
+    private final byte[] secret;
+
+    public PartitionController(PartitionMembership membership, WalletService walletService,
+                               @Value("${wallet.partition.secret}") String secret) {
+        this.membership = membership;
+        this.walletService = walletService;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("/join")
+    public ResponseEntity<String> join(@RequestHeader(PartitionClient.SECRET_HEADER) String secret,
+                                       @RequestBody String body) {
+        if (!authorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        String[] parts = body.trim().split(" ");
+        if (parts.length != 2) {
+            return ResponseEntity.badRequest().body("Expected \"nodeId url\"");
+        }
+        return ResponseEntity.ok(PartitionClient.formatMembers(membership.join(parts[0], parts[1])));
+    }
+
+    @PostMapping("/members")
+    public ResponseEntity<String> members(@RequestHeader(PartitionClient.SECRET_HEADER) String secret,
+                                          @RequestBody String body) {
+        if (!authorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        membership.accept(PartitionClient.parseMembers(body));
+        return ResponseEntity.ok("");
+    }
+
+    /**
+     * Commit the receiver half of a cross-partition transfer. Idempotent: repeating it returns
+     * the receiver row's final status.
+     */
+    @PostMapping("/transfers/{referenceId}/commit")
+    public ResponseEntity<String> commitTransfer(@RequestHeader(PartitionClient.SECRET_HEADER) String secret,
+                                                 @PathVariable String referenceId) {
+        if (!authorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(walletService.commitTransferCredit(referenceId).name());
+    }
+
+    /**
+     * Run a transfer forwarded by a node that does not own the sender, under the reference that
+     * node chose, so its TRANSFER_SENT row or journal entry can be found by that reference.
+     */
+    @PostMapping("/transfers/{referenceId}")
+    public ResponseEntity<String> transfer(@RequestHeader(PartitionClient.SECRET_HEADER) String secret,
+                                           @PathVariable String referenceId,
+                                           @RequestBody TransferRequest request) {
+        if (!authorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        walletService.transfer(request, referenceId);
+        return ResponseEntity.ok("");
+    }
+
+    private boolean authorized(String provided) {
+        return MessageDigest.isEqual(secret, provided.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,119 @@
+package com.wallet.partition;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sends /api/wallet/{userId}/** requests for wallets owned by another node to that node and
+ * relays its response. Transfers carry the wallets in the body and are routed by WalletService.
+ * Requests already forwarded by a node (see {@link PartitionRouter#isForwardedHop}) are served here.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.partition.enabled", havingValue = "true")
+public class PartitionForwardingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionForwardingFilter.class);
+    private static final String WALLET_PATH = "/api/wallet/";
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "proxy-authenticate",
+            "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade", "content-length");
+
+    private final PartitionRouter router;
+    private final PartitionClient client;
+
+    public PartitionForwardingFilter(PartitionRouter router, PartitionClient client) {
+        this.router = router;
+        this.client = client;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(WALLET_PATH) || router.isForwardedHop(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Long userId = pathUserId(request);
+        if (userId == null || router.isLocal(userId)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String ownerUrl = router.ownerUrl(userId);
+        Map<String, String> headers = new HashMap<>();
+        for (String name : Collections.list(request.getHeaderNames())) {
+            headers.put(canonical(name), request.getHeader(name));
+        }
+        String pathAndQuery = request.getRequestURI() + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        try {
+            HttpResponse<byte[]> forwarded = client.forward(ownerUrl, request.getMethod(), pathAndQuery, headers,
+                    request.getInputStream().readAllBytes());
+            response.setStatus(forwarded.statusCode());
+            copyHeaders(forwarded, response);
+            response.getOutputStream().write(forwarded.body());
+        } catch (IOException e) {
+            log.error("Forwarding {} to {} failed: {}", pathAndQuery, ownerUrl, e.getMessage());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Wallet owner node unavailable\",\"errorCode\":\"WALLET_BUSY\"}");
+        }
+    }
+
+    /**
+     * Relay the owner's end-to-end headers (ETag, Cache-Control, Retry-After on a 429 or 503, ...)
+     * so the client sees the same response as from the owner. Hop-by-hop headers describe the
+     * connection to the owner and are left to this node's server.
+     */
+    private static void copyHeaders(HttpResponse<?> forwarded, HttpServletResponse response) {
+        Set<String> hopByHop = new HashSet<>(HOP_BY_HOP_HEADERS);
+        forwarded.headers().allValues("Connection").forEach(value -> {
+            for (String name : value.split(",")) {
+                hopByHop.add(name.trim().toLowerCase(Locale.ROOT));
+            }
+        });
+        forwarded.headers().map().forEach((name, values) -> {
+            if (name.startsWith(":") || hopByHop.contains(name.toLowerCase(Locale.ROOT)) || values.isEmpty()) {
+                return;
+            }
+            response.setHeader(name, values.get(0));
+            values.subList(1, values.size()).forEach(value -> response.addHeader(name, value));
+        });
+    }
+
+    private static Long pathUserId(HttpServletRequest request) {
+        String first = request.getRequestURI().substring(WALLET_PATH.length()).split("/")[0];
+        try {
+            return Long.valueOf(first);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String canonical(String headerName) {
+        return switch (headerName.toLowerCase()) {
+            case "authorization" -> "Authorization";
+            case "content-type" -> "Content-Type";
+            case "accept" -> "Accept";
+            case "if-none-match" -> "If-None-Match";
+            default -> headerName;
+        };
+    }
+}
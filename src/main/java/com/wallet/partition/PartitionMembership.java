@@ -0,0 +1,79 @@
+package com.wallet.partition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Joins the cluster through the configured seeds and spreads membership changes.
+ * A join is handled by the seed it reaches: it adds the node to its ring, pushes the new
+ * membership to every other member and answers with it. Announcing again on a fixed delay
+ * lets nodes that started before their seeds, or missed a push, converge.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.partition.enabled", havingValue = "true")
+public class PartitionMembership {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMembership.class);
+
+    private final PartitionRouter router;
+    private final PartitionClient client;
+    private final List<String> seeds;
+
+    public PartitionMembership(PartitionRouter router, PartitionClient client,
+                               @Value("${wallet.partition.seeds:}") String seeds) {
+        this.router = router;
+        this.client = client;
+        this.seeds = Arrays.stream(seeds.split(","))
+                .map(String::trim)
+                .filter(seed -> !seed.isEmpty() && !seed.equals(router.selfUrl()))
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.partition.announce-interval-ms:10000}")
+    public void announce() {
+        for (String seed : seeds) {
+            try {
+                router.merge(client.join(seed));
+            } catch (IOException e) {
+                log.warn("Partition seed {} not reachable: {}", seed, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Handle a join from another node and return the resulting membership.
+     */
+    public Map<String, String> join(String nodeId, String url) {
+        if (router.merge(Map.of(nodeId, url))) {
+            push(nodeId);
+        }
+        return router.ring().members();
+    }
+
+    public void accept(Map<String, String> members) {
+        router.merge(members);
+    }
+
+    private void push(String joinedNodeId) {
+        Map<String, String> members = router.ring().members();
+        members.forEach((nodeId, url) -> {
+            if (nodeId.equals(router.selfId()) || nodeId.equals(joinedNodeId)) {
+                return;
+            }
+            try {
+                client.pushMembers(url, members);
+            } catch (IOException e) {
+                log.warn("Could not push membership to {}: {}", nodeId, e.getMessage());
+            }
+        });
+    }
+}
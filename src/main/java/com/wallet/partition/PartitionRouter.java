@@ -0,0 +1,113 @@
+package com.wallet.partition;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This node's view of wallet ownership (wallet.partition.enabled).
+ * Each wallet is written by its owner node only, so nodes stop contending on the same rows.
+ * Ownership is an optimization, not a correctness requirement: the version check on wallets still
+ * guards the short window where two nodes disagree during a rebalance.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.partition.enabled", havingValue = "true")
+public class PartitionRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionRouter.class);
+    static final String FORWARDED_HEADER = "X-Wallet-Forwarded-By";
+
+    private final String selfId;
+    private final String selfUrl;
+    private final byte[] secret;
+    private final AtomicReference<HashRing> ring;
+
+    public PartitionRouter(@Value("${wallet.partition.node-id}") String selfId,
+                           @Value("${wallet.partition.self-url}") String selfUrl,
+                           @Value("${wallet.partition.secret}") String secret) {
+        this.selfId = selfId;
+        this.selfUrl = selfUrl;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.ring = new AtomicReference<>(new HashRing(Map.of(selfId, selfUrl)));
+    }
+
+    public String selfId() {
+        return selfId;
+    }
+
+    public String selfUrl() {
+        return selfUrl;
+    }
+
+    public HashRing ring() {
+        return ring.get();
+    }
+
+    public boolean isLocal(Long userId) {
+        return ring.get().ownerOf(userId).equals(selfId);
+    }
+
+    public String ownerUrl(Long userId) {
+        HashRing current = ring.get();
+        return current.urlOf(current.ownerOf(userId));
+    }
+
+    /**
+     * Forward when another node owns the wallet, unless the request was already forwarded to us:
+     * rings can briefly disagree while a join propagates, and one hop is enough.
+     */
+    public boolean shouldForward(Long userId) {
+        return !isLocal(userId) && !isForwardedRequest();
+    }
+
+    /**
+     * A hop from another node: it names the forwarding node and carries the partition secret.
+     * A client sending X-Wallet-Forwarded-By on its own is routed like any other request.
+     */
+    public boolean isForwardedHop(HttpServletRequest request) {
+        String provided = request.getHeader(PartitionClient.SECRET_HEADER);
+        return request.getHeader(FORWARDED_HEADER) != null && provided != null
+                && MessageDigest.isEqual(secret, provided.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Merge a membership list into the ring. Returns true when the ring changed.
+     */
+    public boolean merge(Map<String, String> members) {
+        while (true) {
+            HashRing current = ring.get();
+            SortedMap<String, String> merged = new TreeMap<>(current.members());
+            merged.putAll(members);
+            if (merged.equals(current.members())) {
+                return false;
+            }
+            HashRing next = new HashRing(merged);
+            if (ring.compareAndSet(current, next)) {
+                log.info("Partition ring now has {} nodes {}; {} of {} slots moved", merged.size(),
+                        merged.keySet(), current.movedSlots(next), HashRing.SLOTS);
+                return true;
+            }
+        }
+    }
+
+    private boolean isForwardedRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return isForwardedHop(servletAttributes.getRequest());
+        }
+        return false;
+    }
+}
@@ -0,0 +1,168 @@
+package com.wallet.profile;
+
+import com.wallet.dto.UserProfile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of {@link UserProfile}s by id, with an email -> id index.
+ * <p>
+ * Profiles live in LRU segments, each guarded by its own lock, so memory is bounded by maxEntries
+ * and the least recently read profiles make room for new ones. Entries also expire after the TTL,
+ * which bounds staleness for changes this node does not see. {@link #invalidate} drops a user; a
+ * profile loaded before an invalidation is not cached afterwards, because callers pass the
+ * {@link #generation()} they read before loading it.
+ */
+public class UserProfileCache {
+
+    private static final int SEGMENTS = 16;
+
+    private static final class Entry {
+        private final UserProfile profile;
+        private final long expiresAt;
+
+        private Entry(UserProfile profile, long expiresAt) {
+            this.profile = profile;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<Long, Entry> {
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() <= capacity) {
+                return false;
+            }
+            idByEmail.remove(eldest.getValue().profile.getEmailId(), eldest.getKey());
+            return true;
+        }
+    }
+
+    private final Segment[] segments;
+    private final ConcurrentHashMap<String, Long> idByEmail = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final long ttlNanos;
+
+    public UserProfileCache(int maxEntries, long ttl, TimeUnit unit) {
+        // Small caches get one segment so the bound stays exact
+        int count = maxEntries >= SEGMENTS * 64 ? SEGMENTS : 1;
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(Math.max(1, maxEntries / count));
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    public UserProfile get(Long id) {
+        return get(id, System.nanoTime());
+    }
+
+    public UserProfile getByEmail(String emailId) {
+        return getByEmail(emailId, System.nanoTime());
+    }
+
+    /**
+     * Read before loading a profile from the database, and pass to {@link #put}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(UserProfile profile, long loadedAtGeneration) {
+        put(profile, loadedAtGeneration, System.nanoTime());
+    }
+
+    public void invalidate(Long id) {
+        generation.incrementAndGet();
+        Segment segment = segmentOf(id);
+        synchronized (segment) {
+            Entry removed = segment.remove(id);
+            if (removed != null) {
+                idByEmail.remove(removed.profile.getEmailId(), id);
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    UserProfile get(Long id, long now) {
+        return count(lookup(id, now));
+    }
+
+    UserProfile getByEmail(String emailId, long now) {
+        Long id = idByEmail.get(emailId);
+        UserProfile profile = id == null ? null : lookup(id, now);
+        return count(profile != null && profile.getEmailId().equals(emailId) ? profile : null);
+    }
+
+    void put(UserProfile profile, long loadedAtGeneration, long now) {
+        Segment segment = segmentOf(profile.getId());
+        synchronized (segment) {
+            // Invalidated while it was loading: it may be stale
+            if (generation.get() != loadedAtGeneration) {
+                return;
+            }
+            Entry previous = segment.put(profile.getId(), new Entry(profile, now + ttlNanos));
+            if (previous != null && !previous.profile.getEmailId().equals(profile.getEmailId())) {
+                idByEmail.remove(previous.profile.getEmailId(), profile.getId());
+            }
+            idByEmail.put(profile.getEmailId(), profile.getId());
+        }
+    }
+
+    private UserProfile lookup(Long id, long now) {
+        Segment segment = segmentOf(id);
+        synchronized (segment) {
+            Entry entry = segment.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.expiresAt >= 0) {
+                segment.remove(id);
+                idByEmail.remove(entry.profile.getEmailId(), id);
+                return null;
+            }
+            return entry.profile;
+        }
+    }
+
+    private UserProfile count(UserProfile profile) {
+        (profile == null ? misses : hits).increment();
+        return profile;
+    }
+
+    private Segment segmentOf(Long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return segments[(int) (hash >>> 32) & (segments.length - 1)];
+    }
+}
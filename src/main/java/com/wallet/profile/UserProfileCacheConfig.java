@@ -0,0 +1,39 @@
+package com.wallet.profile;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The user profile cache and its metrics: wallet.user.profile.cache.requests{result=hit|miss},
+ * wallet.user.profile.cache.hit.ratio (since startup) and wallet.user.profile.cache.size.
+ */
+@Configuration
+public class UserProfileCacheConfig {
+
+    @Bean
+    public UserProfileCache userProfileCache(@Value("${wallet.user.profile-cache.max-entries:100000}") int maxEntries,
+                                             @Value("${wallet.user.profile-cache.ttl-seconds:300}") long ttlSeconds,
+                                             MeterRegistry meterRegistry) {
+        UserProfileCache cache = new UserProfileCache(maxEntries, ttlSeconds, TimeUnit.SECONDS);
+        FunctionCounter.builder("wallet.user.profile.cache.requests", cache, UserProfileCache::hits)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("wallet.user.profile.cache.requests", cache, UserProfileCache::misses)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("wallet.user.profile.cache.hit.ratio", cache, c -> {
+                    long total = c.hits() + c.misses();
+                    return total == 0 ? 0 : (double) c.hits() / total;
+                })
+                .register(meterRegistry);
+        Gauge.builder("wallet.user.profile.cache.size", cache, UserProfileCache::size)
+                .register(meterRegistry);
+        return cache;
+    }
+}
@@ -0,0 +1,26 @@
+package com.wallet.profile;
+
+import com.wallet.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity listener on {@link User}: any update or delete through JPA drops the cached profile.
+ * Other nodes, and changes made outside JPA, rely on the cache TTL.
+ */
+@Component
+public class UserProfileInvalidation {
+
+    private final UserProfileCache cache;
+
+    public UserProfileInvalidation(UserProfileCache cache) {
+        this.cache = cache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void invalidate(User user) {
+        cache.invalidate(user.getId());
+    }
+}
@@ -0,0 +1,103 @@
+package com.wallet.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user, per-endpoint throttling for the wallet API.
+ * Runs before the controllers so rejected calls never reach WalletService.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final String WALLET_PATH = "/api/wallet/";
+
+    private final boolean enabled;
+    private final TokenBucketRateLimiter limiter;
+    private final TokenBucketRateLimiter.Limit writeLimit;
+    private final TokenBucketRateLimiter.Limit readLimit;
+
+    public RateLimitFilter(@Value("${wallet.ratelimit.enabled:true}") boolean enabled,
+                           @Value("${wallet.ratelimit.write.capacity:20}") int writeCapacity,
+                           @Value("${wallet.ratelimit.write.refill-per-second:10}") double writeRefill,
+                           @Value("${wallet.ratelimit.read.capacity:100}") int readCapacity,
+                           @Value("${wallet.ratelimit.read.refill-per-second:50}") double readRefill,
+                           @Value("${wallet.ratelimit.max-buckets:100000}") int maxBuckets,
+                           @Value("${wallet.ratelimit.idle-timeout-seconds:300}") long idleTimeoutSeconds) {
+        this.enabled = enabled;
+        this.limiter = new TokenBucketRateLimiter(maxBuckets, idleTimeoutSeconds, TimeUnit.SECONDS);
+        this.writeLimit = new TokenBucketRateLimiter.Limit(writeCapacity, writeRefill);
+        this.readLimit = new TokenBucketRateLimiter.Limit(readCapacity, readRefill);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(WALLET_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String key = bucketKey(request);
+        TokenBucketRateLimiter.Limit limit = HttpMethod.GET.matches(request.getMethod()) ? readLimit : writeLimit;
+
+        long waitNanos = limiter.tryAcquire(key, limit);
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+            log.warn("Rate limit exceeded for {}", key);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Too many requests\",\"errorCode\":\"RATE_LIMITED\"}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Drop idle buckets in the background, so new keys rarely find the table full.
+     */
+    @Scheduled(fixedDelayString = "${wallet.ratelimit.sweep-interval-ms:10000}")
+    public void evictIdleBuckets() {
+        if (enabled) {
+            limiter.evictIdle();
+        }
+    }
+
+    /**
+     * Bucket key is subject + endpoint, e.g. "42:withdrawal" or "alice@x.com:transfer".
+     * Wallet paths carry the userId; /transfer falls back to the caller's identity.
+     */
+    private String bucketKey(HttpServletRequest request) {
+        String[] segments = request.getRequestURI().substring(WALLET_PATH.length()).split("/");
+        if ("transfer".equals(segments[0])) {
+            return caller(request) + ":transfer";
+        }
+        String endpoint = segments.length > 1 ? segments[segments.length - 1] : "wallet";
+        if (segments.length > 2 && "status".equals(segments[2])) {
+            endpoint = "transactions";
+        }
+        return segments[0] + ":" + endpoint;
+    }
+
+    private String caller(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : request.getRemoteAddr();
+    }
+}
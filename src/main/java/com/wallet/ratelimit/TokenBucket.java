@@ -0,0 +1,44 @@
+package com.wallet.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as a GCRA (generic cell rate algorithm).
+ * The whole bucket state is a single "theoretical arrival time", so a check is one CAS
+ * and no allocation.
+ */
+final class TokenBucket {
+
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long now) {
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * Try to take one token.
+     *
+     * @return 0 when the request is admitted, otherwise the nanos to wait before a token is available.
+     */
+    long tryAcquire(long now, long emissionInterval, long burstTolerance) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long start = Math.max(tat, now);
+            long next = start + emissionInterval;
+            long waitNanos = next - now - burstTolerance - emissionInterval;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * A bucket is idle once it has been full for at least the given time; dropping it is lossless.
+     */
+    boolean isIdle(long now, long idleNanos) {
+        return theoreticalArrival.get() + idleNanos <= now;
+    }
+}
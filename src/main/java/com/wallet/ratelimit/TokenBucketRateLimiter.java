@@ -0,0 +1,123 @@
+package com.wallet.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keyed token-bucket limiter.
+ * Buckets live in a ConcurrentHashMap (lock-free reads, striped bins on insert) and each bucket
+ * is a single CAS, so there is no global lock on the hot path. Memory is bounded by maxBuckets.
+ * Idle (full) buckets are dropped by a periodic {@link #evictIdle() sweep}; when a new key finds the
+ * table full, a clock hand examines the next few buckets instead, so admitting a key costs a bounded
+ * amount of work however large the table is.
+ */
+public class TokenBucketRateLimiter {
+
+    /**
+     * Buckets the clock hand examines for one new key before the key is refused.
+     */
+    static final int EVICTION_SCAN = 64;
+
+    /**
+     * Bucket shape: burst capacity and sustained refill rate.
+     */
+    public static final class Limit {
+        private final long emissionInterval;
+        private final long burstTolerance;
+
+        public Limit(int capacity, double refillPerSecond) {
+            if (capacity < 1 || refillPerSecond <= 0) {
+                throw new IllegalArgumentException("Capacity and refill rate must be positive");
+            }
+            this.emissionInterval = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+            this.burstTolerance = emissionInterval * (capacity - 1);
+        }
+    }
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final ReentrantLock clockLock = new ReentrantLock();
+    private Iterator<Map.Entry<String, TokenBucket>> clockHand;
+    private final int maxBuckets;
+    private final long idleNanos;
+    private final long origin = System.nanoTime();
+
+    public TokenBucketRateLimiter(int maxBuckets, long idleTimeout, TimeUnit unit) {
+        this.maxBuckets = maxBuckets;
+        this.idleNanos = unit.toNanos(idleTimeout);
+    }
+
+    /**
+     * Try to admit one request for the key.
+     *
+     * @return 0 when admitted, otherwise the nanos the caller should wait before retrying.
+     */
+    public long tryAcquire(String key, Limit limit) {
+        long now = System.nanoTime() - origin;
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = admitNewKey(key, now);
+            if (bucket == null) {
+                // Table is full of active buckets; shed rather than grow without bound
+                return TimeUnit.SECONDS.toNanos(1);
+            }
+        }
+        return bucket.tryAcquire(now, limit.emissionInterval, limit.burstTolerance);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Drop every bucket that has been full for idleTimeout. Runs off the request path, on a schedule.
+     */
+    public void evictIdle() {
+        long now = System.nanoTime() - origin;
+        for (Map.Entry<String, TokenBucket> entry : buckets.entrySet()) {
+            if (entry.getValue().isIdle(now, idleNanos)) {
+                buckets.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private TokenBucket admitNewKey(String key, long now) {
+        if (buckets.size() >= maxBuckets && !advanceClock(now)) {
+            return null;
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(now));
+    }
+
+    /**
+     * Move the clock hand over at most {@link #EVICTION_SCAN} buckets, dropping idle ones, until the
+     * table has room. Callers queue for the hand rather than give up while another thread holds it:
+     * each turn is bounded, and the turn before may already have made room.
+     *
+     * @return whether there is room for a new bucket.
+     */
+    private boolean advanceClock(long now) {
+        clockLock.lock();
+        try {
+            for (int scanned = 0; buckets.size() >= maxBuckets; scanned++) {
+                if (scanned == EVICTION_SCAN) {
+                    return false;
+                }
+                if (clockHand == null || !clockHand.hasNext()) {
+                    clockHand = buckets.entrySet().iterator();
+                    if (!clockHand.hasNext()) {
+                        return false;
+                    }
+                }
+                Map.Entry<String, TokenBucket> entry = clockHand.next();
+                if (entry.getValue().isIdle(now, idleNanos)) {
+                    buckets.remove(entry.getKey(), entry.getValue());
+                }
+            }
+            return true;
+        } finally {
+            clockLock.unlock();
+        }
+    }
+}
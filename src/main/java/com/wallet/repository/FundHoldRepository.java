@@ -0,0 +1,65 @@
+package com.wallet.repository;
+
+import com.wallet.entity.FundHold;
+import com.wallet.entity.HoldStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FundHoldRepository extends JpaRepository<FundHold, Long> {
+
+    /**
+     * Id and expiry of an open hold, enough to put it on the expiry wheel.
+     */
+    interface HoldExpiry {
+        Long getId();
+
+        LocalDateTime getExpiresAt();
+    }
+
+    // Keyset-paged scan of open holds for rebuilding the expiry wheel on startup
+    @Query("select h.id as id, h.expiresAt as expiresAt from FundHold h "
+            + "where h.status = com.wallet.entity.HoldStatus.ACTIVE and h.id > :afterId order by h.id")
+    List<HoldExpiry> findActiveAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Open holds already past their expiry, oldest first; one range of idx_hold_status_expiry
+    @Query("select h.id as id, h.expiresAt as expiresAt from FundHold h "
+            + "where h.status = com.wallet.entity.HoldStatus.ACTIVE and h.expiresAt < :now order by h.expiresAt")
+    List<HoldExpiry> findActiveExpiredBefore(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Keyset page of open holds for rebuilding the velocity limits; a hold is spending from when it was placed
+    @Query("select h.id as id, h.userId as ownerUserId, h.amount as amount, h.createdAt as transactionTime "
+            + "from FundHold h where h.status = com.wallet.entity.HoldStatus.ACTIVE and h.id > :afterId "
+            + "and h.createdAt >= :since and h.createdAt < :before order by h.id")
+    List<WalletTransactionRepository.SpendingRow> findActiveSpendingAfter(@Param("afterId") Long afterId,
+                                                                          @Param("since") LocalDateTime since,
+                                                                          @Param("before") LocalDateTime before,
+                                                                          Pageable pageable);
+
+    @Query("select coalesce(sum(case when h.createdAt >= :hourAgo then h.amount else 0 end), 0) as hourAmount, "
+            + "coalesce(sum(case when h.createdAt >= :hourAgo then 1 else 0 end), 0) as hourCount, "
+            + "coalesce(sum(h.amount), 0) as dayAmount "
+            + "from FundHold h where h.userId = :userId and h.status = com.wallet.entity.HoldStatus.ACTIVE "
+            + "and h.createdAt >= :dayAgo")
+    WalletTransactionRepository.SpendingTotals sumActiveHolds(@Param("userId") Long userId,
+                                                              @Param("hourAgo") LocalDateTime hourAgo,
+                                                              @Param("dayAgo") LocalDateTime dayAgo);
+
+    // ACTIVE -> terminal status; returns 0 if the hold was already captured, released or expired.
+    // Callers run it inside their own transaction.
+    @Modifying
+    @Query("update FundHold h set h.status = :status, h.capturedAmount = :capturedAmount, "
+            + "h.completedAt = :completedAt where h.id = :id and h.status = com.wallet.entity.HoldStatus.ACTIVE")
+    int complete(@Param("id") Long id,
+                 @Param("status") HoldStatus status,
+                 @Param("capturedAmount") BigDecimal capturedAmount,
+                 @Param("completedAt") LocalDateTime completedAt);
+}
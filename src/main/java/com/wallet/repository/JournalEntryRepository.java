@@ -0,0 +1,60 @@
+package com.wallet.repository;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.JournalEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JournalEntryRepository extends JpaRepository<JournalEntry, Long> {
+
+    // PENDING -> terminal status in one UPDATE; returns 0 if the entry was already completed.
+    // Callers run it inside their own transaction.
+    @Modifying
+    @Query("update JournalEntry j set j.status = :status, j.failureReason = :failureReason, "
+            + "j.completedTime = :completedTime where j.id = :id and j.status = com.wallet.dto.TransactionStatus.PENDING")
+    int complete(@Param("id") Long id,
+                 @Param("status") TransactionStatus status,
+                 @Param("failureReason") String failureReason,
+                 @Param("completedTime") LocalDateTime completedTime);
+
+    // Served by idx_journal_reference
+    Optional<JournalEntry> findByReferenceId(String referenceId);
+
+    // Entries without postings (pending, declined, failed) on either side; ranges of both status indexes
+    @Query("select j from JournalEntry j where (j.fromUserId = :userId or j.toUserId = :userId) "
+            + "and j.status <> com.wallet.dto.TransactionStatus.SUCCESS")
+    List<JournalEntry> findUnposted(@Param("userId") Long userId);
+
+    @Query("select count(j) as count, max(j.id) as lastId, max(j.completedTime) as lastCompleted, "
+            + "coalesce(sum(case when j.status = com.wallet.dto.TransactionStatus.PENDING then 1 else 0 end), 0) as pending, "
+            + "coalesce(sum(case when j.status = com.wallet.dto.TransactionStatus.PROCESSING then 1 else 0 end), 0) as processing "
+            + "from JournalEntry j where j.fromUserId = :userId or j.toUserId = :userId")
+    WalletTransactionRepository.HistoryVersion findHistoryVersion(@Param("userId") Long userId);
+
+    // Keyset page of posted transfers for rebuilding the velocity limits; the sender is the spender
+    @Query("select j.id as id, j.fromUserId as ownerUserId, j.amount as amount, j.createdTime as transactionTime "
+            + "from JournalEntry j where j.id > :afterId and j.createdTime >= :since and j.createdTime < :before "
+            + "and j.status = com.wallet.dto.TransactionStatus.SUCCESS order by j.id")
+    List<WalletTransactionRepository.SpendingRow> findSpendingAfter(@Param("afterId") Long afterId,
+                                                                    @Param("since") LocalDateTime since,
+                                                                    @Param("before") LocalDateTime before,
+                                                                    Pageable pageable);
+
+    @Query("select coalesce(sum(case when j.createdTime >= :hourAgo then j.amount else 0 end), 0) as hourAmount, "
+            + "coalesce(sum(case when j.createdTime >= :hourAgo then 1 else 0 end), 0) as hourCount, "
+            + "coalesce(sum(j.amount), 0) as dayAmount "
+            + "from JournalEntry j where j.fromUserId = :userId and j.status = com.wallet.dto.TransactionStatus.SUCCESS "
+            + "and j.createdTime >= :dayAgo")
+    WalletTransactionRepository.SpendingTotals sumSpending(@Param("userId") Long userId,
+                                                           @Param("hourAgo") LocalDateTime hourAgo,
+                                                           @Param("dayAgo") LocalDateTime dayAgo);
+}
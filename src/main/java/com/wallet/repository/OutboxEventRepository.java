@@ -0,0 +1,30 @@
+package com.wallet.repository;
+
+import com.wallet.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Keyset pages of unpublished events, oldest first, served by idx_outbox_unpublished;
+    // the second leaves out parked wallets
+    List<OutboxEvent> findByPublishedAtIsNullAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    List<OutboxEvent> findByPublishedAtIsNullAndIdGreaterThanAndWalletIdNotInOrderByIdAsc(
+            Long afterId, Collection<Long> walletIds, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :publishedAt where e.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+}
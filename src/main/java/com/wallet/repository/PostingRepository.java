@@ -0,0 +1,38 @@
+package com.wallet.repository;
+
+import com.wallet.entity.Posting;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PostingRepository extends JpaRepository<Posting, Long> {
+
+    /**
+     * A posting with the fields of its journal entry that a history row shows.
+     */
+    interface PostedRow {
+        Long getJournalId();
+        String getReferenceId();
+        Long getFromUserId();
+        Long getToUserId();
+        BigDecimal getAmount();
+        BigDecimal getBalanceAfter();
+        String getDescription();
+        LocalDateTime getCreatedTime();
+        LocalDateTime getCompletedTime();
+    }
+
+    // One range of idx_posting_wallet, then a primary key lookup per entry
+    @Query("select p.journalId as journalId, j.referenceId as referenceId, j.fromUserId as fromUserId, "
+            + "j.toUserId as toUserId, p.amount as amount, p.balanceAfter as balanceAfter, "
+            + "j.description as description, j.createdTime as createdTime, j.completedTime as completedTime "
+            + "from Posting p join JournalEntry j on j.id = p.journalId "
+            + "where p.walletUserId = :userId order by p.id desc")
+    List<PostedRow> findPostedByWallet(@Param("userId") Long userId);
+}
@@ -0,0 +1,29 @@
+package com.wallet.repository;
+
+import com.wallet.entity.ScheduledTransfer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransfer, Long> {
+
+    List<ScheduledTransfer> findBySenderIdOrderByIdDesc(Long senderId);
+
+    // ACTIVE -> CANCELLED for the sender's own schedule; returns 0 if it is not the sender's or no longer active
+    @Transactional
+    @Modifying
+    @Query("update ScheduledTransfer s set s.status = com.wallet.entity.ScheduleStatus.CANCELLED, s.nextRunAt = null "
+            + "where s.id = :id and s.senderId = :senderId and s.status = com.wallet.entity.ScheduleStatus.ACTIVE")
+    int cancel(@Param("id") Long id, @Param("senderId") Long senderId);
+
+    // First entry of idx_schedule_due, for the scheduling lag gauge
+    @Query("select min(s.nextRunAt) from ScheduledTransfer s where s.status = com.wallet.entity.ScheduleStatus.ACTIVE")
+    LocalDateTime findEarliestNextRun();
+}
@@ -0,0 +1,22 @@
+package com.wallet.repository;
+
+import com.wallet.entity.ScheduledRunStatus;
+import com.wallet.entity.ScheduledTransferRun;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ScheduledTransferRunRepository extends JpaRepository<ScheduledTransferRun, Long> {
+
+    // Latest occurrences first, a range of uk_schedule_run_occurrence
+    List<ScheduledTransferRun> findByScheduleIdOrderByOccurrenceDesc(Long scheduleId, Pageable pageable);
+
+    // Claims left unconfirmed by a scheduler that stopped, served by idx_schedule_run_status_claimed
+    List<ScheduledTransferRun> findByStatusAndClaimedAtBeforeOrderByClaimedAtAsc(ScheduledRunStatus status,
+                                                                                 LocalDateTime before,
+                                                                                 Pageable pageable);
+}
@@ -1,12 +1,31 @@
 package com.wallet.repository;
 
+import com.wallet.dto.UserProfile;
 import com.wallet.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByEmailId(String emailId);
+    boolean existsByEmailId(String emailId);
+
+    interface Credentials {
+        Long getId();
+        String getName();
+        String getEmailId();
+        String getPassword();
+        String getRole();
+    }
+
+    @Query("select new com.wallet.dto.UserProfile(u.id, u.name, u.emailId, u.role) from User u where u.id = :id")
+    Optional<UserProfile> findProfileById(@Param("id") Long id);
+
+    // The only query that reads the password hash; for the login credential check
+    @Query("select u.id as id, u.name as name, u.emailId as emailId, u.password as password, u.role as role "
+            + "from User u where u.emailId = :emailId")
+    Optional<Credentials> findCredentialsByEmailId(@Param("emailId") String emailId);
 }
@@ -0,0 +1,34 @@
+package com.wallet.repository;
+
+import com.wallet.entity.WalletCurrencyBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface WalletCurrencyBalanceRepository extends JpaRepository<WalletCurrencyBalance, WalletCurrencyBalance.Key> {
+
+    List<WalletCurrencyBalance> findByUserIdOrderByCurrency(Long userId);
+
+    // Conditional debit; 0 rows when the balance is too low or there is none in the currency.
+    // Callers run it inside their own transaction.
+    @Modifying
+    @Query("update WalletCurrencyBalance b set b.balance = b.balance - :amount "
+            + "where b.userId = :userId and b.currency = :currency and b.balance >= :amount")
+    int debit(@Param("userId") Long userId, @Param("currency") String currency, @Param("amount") BigDecimal amount);
+
+    // Creates the row on the first credit in the currency; the insert and the update both lock it
+    @Modifying
+    @Query(value = "INSERT INTO wallet_currency_balances (user_id, currency, balance) VALUES (:userId, :currency, :amount) "
+            + "ON DUPLICATE KEY UPDATE balance = balance + VALUES(balance)", nativeQuery = true)
+    int credit(@Param("userId") Long userId, @Param("currency") String currency, @Param("amount") BigDecimal amount);
+
+    // Read after a change in the same transaction, which holds the row lock
+    @Query("select b.balance from WalletCurrencyBalance b where b.userId = :userId and b.currency = :currency")
+    BigDecimal findBalance(@Param("userId") Long userId, @Param("currency") String currency);
+}
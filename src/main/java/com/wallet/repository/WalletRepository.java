@@ -2,8 +2,23 @@ package com.wallet.repository;
 
 import com.wallet.entity.Wallet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface WalletRepository extends JpaRepository<Wallet, Long> {
+
+    // Primary-key lookup of the optimistic-lock version only, for ETags
+    @Query("select w.version from Wallet w where w.userId = :userId")
+    Optional<Long> findVersionById(@Param("userId") Long userId);
+
+    // Version bump for a change to one of the wallet's currency balances, so the balance ETag changes too.
+    // Callers run it inside their own transaction, without the wallet loaded.
+    @Modifying
+    @Query("update Wallet w set w.version = w.version + 1 where w.userId = :userId")
+    int touchVersion(@Param("userId") Long userId);
 }
@@ -1,11 +1,21 @@
 package com.wallet.repository;
 
+import com.wallet.entity.TransactionType;
 import com.wallet.entity.WalletTransaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.wallet.dto.TransactionStatus;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, Long> {
@@ -17,4 +27,111 @@ public interface WalletTransactionRepository extends JpaRepository<WalletTransac
     List<WalletTransaction> findByOwnerUserIdAndStatusOrderByTransactionTimeDesc(
             Long ownerUserId,
             TransactionStatus status);
-}
\ No newline at end of file
+
+    // Conditional status change, e.g. PENDING -> PROCESSING; returns the number of rows moved
+    @Transactional
+    @Modifying
+    @Query("update WalletTransaction t set t.status = :to where t.id in :ids and t.status = :from")
+    int transitionStatus(@Param("ids") Collection<Long> ids,
+                         @Param("from") TransactionStatus from,
+                         @Param("to") TransactionStatus to);
+
+    @Transactional
+    @Modifying
+    @Query("update WalletTransaction t set t.status = com.wallet.dto.TransactionStatus.CANCELLED, "
+            + "t.completedTime = :completedTime "
+            + "where t.id = :id and t.status = com.wallet.dto.TransactionStatus.PENDING")
+    int cancelIfPending(@Param("id") Long id, @Param("completedTime") LocalDateTime completedTime);
+
+    // Terminal status write without loading the row; never overwrites a terminal status.
+    // Callers run it inside their own transaction.
+    @Modifying
+    @Query("update WalletTransaction t set t.status = :status, t.balanceAfterTransaction = :balanceAfter, "
+            + "t.failureReason = :failureReason, t.completedTime = :completedTime where t.id = :id "
+            + "and t.status in (com.wallet.dto.TransactionStatus.PENDING, com.wallet.dto.TransactionStatus.PROCESSING)")
+    int complete(@Param("id") Long id,
+                 @Param("status") TransactionStatus status,
+                 @Param("balanceAfter") BigDecimal balanceAfter,
+                 @Param("failureReason") String failureReason,
+                 @Param("completedTime") LocalDateTime completedTime);
+
+    // Both halves of a cross-partition transfer share the reference id
+    Optional<WalletTransaction> findByReferenceIdAndType(String referenceId, TransactionType type);
+
+    // Keyset page of old rows in one type and status, e.g. stuck cross-partition transfers
+    List<WalletTransaction> findByTypeAndStatusAndTransactionTimeBeforeAndIdGreaterThanOrderByIdAsc(
+            TransactionType type, TransactionStatus status, LocalDateTime before, Long afterId, Pageable pageable);
+
+    // Reads the current status from the database, bypassing any entity already in the persistence context
+    @Query("select t.status from WalletTransaction t where t.id = :id")
+    TransactionStatus findStatusById(@Param("id") Long id);
+
+    // Cross-partition reserve: PENDING -> PROCESSING together with the sender's balance after the debit
+    @Modifying
+    @Query("update WalletTransaction t set t.status = com.wallet.dto.TransactionStatus.PROCESSING, "
+            + "t.balanceAfterTransaction = :balanceAfter "
+            + "where t.id = :id and t.status = com.wallet.dto.TransactionStatus.PENDING")
+    int reserve(@Param("id") Long id, @Param("balanceAfter") BigDecimal balanceAfter);
+
+    // Presumed abort of a cross-partition credit; loses against a commit that already moved the row
+    @Transactional
+    @Modifying
+    @Query("update WalletTransaction t set t.status = com.wallet.dto.TransactionStatus.FAILED, "
+            + "t.failureReason = :failureReason, t.completedTime = :completedTime "
+            + "where t.id = :id and t.status = com.wallet.dto.TransactionStatus.PENDING")
+    int abortIfPending(@Param("id") Long id,
+                       @Param("failureReason") String failureReason,
+                       @Param("completedTime") LocalDateTime completedTime);
+
+    interface HistoryVersion {
+        Long getCount();
+        Long getLastId();
+        LocalDateTime getLastCompleted();
+        // Rows not yet completed, by status, so PENDING -> PROCESSING changes the version too
+        Long getPending();
+        Long getProcessing();
+    }
+
+    interface SpendingRow {
+        Long getId();
+        Long getOwnerUserId();
+        BigDecimal getAmount();
+        LocalDateTime getTransactionTime();
+    }
+
+    interface SpendingTotals {
+        BigDecimal getHourAmount();
+        Long getHourCount();
+        BigDecimal getDayAmount();
+    }
+
+    // Changes whenever a row is added or changes status; one range of idx_txn_owner_time
+    @Query("select count(t) as count, max(t.id) as lastId, max(t.completedTime) as lastCompleted, "
+            + "coalesce(sum(case when t.status = com.wallet.dto.TransactionStatus.PENDING then 1 else 0 end), 0) as pending, "
+            + "coalesce(sum(case when t.status = com.wallet.dto.TransactionStatus.PROCESSING then 1 else 0 end), 0) as processing "
+            + "from WalletTransaction t where t.ownerUserId = :userId")
+    HistoryVersion findHistoryVersion(@Param("userId") Long userId);
+
+    // Keyset page of spending rows for rebuilding the velocity limits
+    @Query("select t.id as id, t.ownerUserId as ownerUserId, t.amount as amount, t.transactionTime as transactionTime "
+            + "from WalletTransaction t where t.id > :afterId and t.transactionTime >= :since "
+            + "and t.transactionTime < :before and t.type in :types and t.status in :statuses order by t.id")
+    List<SpendingRow> findSpendingAfter(@Param("afterId") Long afterId,
+                                        @Param("since") LocalDateTime since,
+                                        @Param("before") LocalDateTime before,
+                                        @Param("types") Collection<TransactionType> types,
+                                        @Param("statuses") Collection<TransactionStatus> statuses,
+                                        Pageable pageable);
+
+    // One user's spending over the last hour and day, for users the in-memory windows do not track
+    @Query("select coalesce(sum(case when t.transactionTime >= :hourAgo then t.amount else 0 end), 0) as hourAmount, "
+            + "coalesce(sum(case when t.transactionTime >= :hourAgo then 1 else 0 end), 0) as hourCount, "
+            + "coalesce(sum(t.amount), 0) as dayAmount "
+            + "from WalletTransaction t where t.ownerUserId = :userId and t.transactionTime >= :dayAgo "
+            + "and t.type in :types and t.status in :statuses")
+    SpendingTotals sumSpending(@Param("userId") Long userId,
+                               @Param("hourAgo") LocalDateTime hourAgo,
+                               @Param("dayAgo") LocalDateTime dayAgo,
+                               @Param("types") Collection<TransactionType> types,
+                               @Param("statuses") Collection<TransactionStatus> statuses);
+}
@@ -0,0 +1,28 @@
+package com.wallet.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * "Decorrelated jitter" backoff: each delay is drawn uniformly between the base delay and three
+ * times the previous one, capped. Competing retries spread out instead of waking up together,
+ * while the delay still grows roughly exponentially for a caller that keeps failing.
+ */
+public final class DecorrelatedJitter {
+
+    private final long baseMillis;
+    private final long capMillis;
+
+    public DecorrelatedJitter(long baseMillis, long capMillis) {
+        this.baseMillis = Math.max(1, baseMillis);
+        this.capMillis = Math.max(this.baseMillis, capMillis);
+    }
+
+    public long first() {
+        return next(baseMillis);
+    }
+
+    public long next(long previousMillis) {
+        long upper = Math.max(baseMillis + 1, Math.min(capMillis, previousMillis * 3) + 1);
+        return Math.min(capMillis, ThreadLocalRandom.current().nextLong(baseMillis, upper));
+    }
+}
@@ -0,0 +1,82 @@
+package com.wallet.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cap on retries as a token bucket: every request deposits retryRatio of a token,
+ * every retry takes a whole one, and minRetriesPerSecond trickle in regardless so a quiet process
+ * can still retry. Retries therefore add at most about retryRatio extra load on top of the
+ * requests, however many attempts each request is allowed, which stops retry storms from
+ * multiplying the load during an incident.
+ * <p>
+ * Tokens are kept in thousandths so deposits and withdrawals are single CAS loops.
+ */
+public final class RetryBudget {
+
+    private static final long SCALE = 1_000;
+
+    private final long depositPerRequest;
+    private final double refillPerNano;
+    private final long capacity;
+    private final AtomicLong balance;
+    private final AtomicLong lastRefill;
+
+    public RetryBudget(double retryRatio, double minRetriesPerSecond, double maxTokens, long now) {
+        this.depositPerRequest = Math.round(retryRatio * SCALE);
+        this.refillPerNano = minRetriesPerSecond * SCALE / 1e9;
+        this.capacity = Math.round(maxTokens * SCALE);
+        this.balance = new AtomicLong(capacity);
+        this.lastRefill = new AtomicLong(now);
+    }
+
+    /**
+     * Count a first attempt towards the budget.
+     */
+    public void onRequest() {
+        add(depositPerRequest);
+    }
+
+    /**
+     * Take one retry from the budget.
+     *
+     * @return false if the budget is exhausted and the failure should be returned as is.
+     */
+    public boolean tryAcquireRetry(long now) {
+        refill(now);
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Whole retries currently available.
+     */
+    public double available() {
+        return (double) balance.get() / SCALE;
+    }
+
+    private void refill(long now) {
+        long last = lastRefill.get();
+        long earned = (long) ((now - last) * refillPerNano);
+        // Only the caller that moves lastRefill adds the tokens for that interval
+        if (earned > 0 && lastRefill.compareAndSet(last, now)) {
+            add(earned);
+        }
+    }
+
+    private void add(long tokens) {
+        while (true) {
+            long current = balance.get();
+            long next = Math.min(capacity, current + tokens);
+            if (next == current || balance.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.wallet.retry;
+
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
+import org.hibernate.StaleStateException;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+
+/**
+ * Failures worth retrying, found anywhere in an exception's cause chain. Anything else (validation,
+ * missing wallet, insufficient balance, constraint violations) fails on the first attempt.
+ */
+public enum TransientFailure {
+
+    /** Version check failed: another transaction changed the row first. */
+    OPTIMISTIC_LOCK,
+    /** Chosen as the deadlock victim (MySQL 1213, SQLState 40001). */
+    DEADLOCK,
+    /** Row lock not granted in time (MySQL 1205) or query timed out. */
+    LOCK_TIMEOUT,
+    /**
+     * No connection could be had to start the transaction. A connection lost after that is not
+     * retried: the commit may have gone through, and the balance change would be applied twice.
+     */
+    CONNECTION;
+
+    private static final int MYSQL_DEADLOCK = 1213;
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+
+    /**
+     * @return the kind of transient failure, or null if the failure should not be retried.
+     */
+    public static TransientFailure classify(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            TransientFailure kind = classifyOne(cause);
+            if (kind != null) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    private static TransientFailure classifyOne(Throwable cause) {
+        if (cause instanceof SQLException sql) {
+            return classifySql(sql);
+        }
+        if (cause instanceof OptimisticLockingFailureException || cause instanceof OptimisticLockException
+                || cause instanceof StaleStateException) {
+            return OPTIMISTIC_LOCK;
+        }
+        if (cause instanceof CannotAcquireLockException || cause instanceof PessimisticLockException
+                || cause instanceof QueryTimeoutException) {
+            return LOCK_TIMEOUT;
+        }
+        if (cause instanceof ConcurrencyFailureException) {
+            // Includes DeadlockLoserDataAccessException and other pessimistic lock failures
+            return DEADLOCK;
+        }
+        if (cause instanceof CannotCreateTransactionException) {
+            return CONNECTION;
+        }
+        return null;
+    }
+
+    private static TransientFailure classifySql(SQLException sql) {
+        if (sql.getErrorCode() == MYSQL_DEADLOCK || "40001".equals(sql.getSQLState())) {
+            return DEADLOCK;
+        }
+        if (sql.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT || sql instanceof SQLTimeoutException) {
+            return LOCK_TIMEOUT;
+        }
+        return null;
+    }
+}
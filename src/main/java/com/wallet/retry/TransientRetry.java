@@ -0,0 +1,78 @@
+package com.wallet.retry;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Retries work that failed with a {@link TransientFailure}, with {@link DecorrelatedJitter} backoff
+ * and within the process-wide {@link RetryBudget}. Other failures, and transient ones once the
+ * attempts or the budget are used up, are rethrown unchanged.
+ * <p>
+ * Metrics: wallet.retry.attempts{operation, failure} per retry, wallet.retry.budget.exhausted{operation}
+ * per retry refused by the budget, and wallet.retry.budget.available.
+ */
+@Component
+public class TransientRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(TransientRetry.class);
+
+    private final int maxAttempts;
+    private final DecorrelatedJitter backoff;
+    private final RetryBudget budget;
+    private final MeterRegistry meterRegistry;
+
+    public TransientRetry(@Value("${wallet.retry.max-attempts:3}") int maxAttempts,
+                          @Value("${wallet.retry.base-delay-ms:10}") long baseDelayMillis,
+                          @Value("${wallet.retry.max-delay-ms:200}") long maxDelayMillis,
+                          @Value("${wallet.retry.budget.ratio:0.1}") double budgetRatio,
+                          @Value("${wallet.retry.budget.min-per-second:10}") double budgetMinPerSecond,
+                          @Value("${wallet.retry.budget.max-tokens:100}") double budgetMaxTokens,
+                          MeterRegistry meterRegistry) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoff = new DecorrelatedJitter(baseDelayMillis, maxDelayMillis);
+        this.budget = new RetryBudget(budgetRatio, budgetMinPerSecond, budgetMaxTokens, System.nanoTime());
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("wallet.retry.budget.available", budget, RetryBudget::available)
+                .description("Retries the process-wide retry budget currently allows")
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(String operation, Supplier<T> work) {
+        budget.onRequest();
+        long delay = 0;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (RuntimeException e) {
+                TransientFailure failure = TransientFailure.classify(e);
+                if (failure == null || attempt >= maxAttempts) {
+                    throw e;
+                }
+                if (!budget.tryAcquireRetry(System.nanoTime())) {
+                    meterRegistry.counter("wallet.retry.budget.exhausted", "operation", operation).increment();
+                    throw e;
+                }
+                meterRegistry.counter("wallet.retry.attempts", "operation", operation,
+                        "failure", failure.name().toLowerCase()).increment();
+                delay = attempt == 1 ? backoff.first() : backoff.next(delay);
+                log.debug("Retrying {} after {} ({} ms, attempt {})", operation, failure, delay, attempt + 1);
+                sleep(delay, e);
+            }
+        }
+    }
+
+    private static void sleep(long millis, RuntimeException failure) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.wallet.schedule;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.dto.TransferRequest;
+import com.wallet.entity.JournalEntry;
+import com.wallet.entity.ScheduleFrequency;
+import com.wallet.entity.ScheduleStatus;
+import com.wallet.entity.ScheduledRunStatus;
+import com.wallet.entity.ScheduledTransferRun;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.WalletTransaction;
+import com.wallet.exception.InsufficientBalanceException;
+import com.wallet.exception.LimitExceededException;
+import com.wallet.repository.JournalEntryRepository;
+import com.wallet.repository.ScheduledTransferRepository;
+import com.wallet.repository.ScheduledTransferRunRepository;
+import com.wallet.repository.WalletTransactionRepository;
+import com.wallet.service.WalletService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executes due occurrences of scheduled transfers. Each poll claims batches of due schedules:
+ * <ol>
+ *     <li>One short transaction locks the earliest due rows of idx_schedule_due with
+ *     FOR UPDATE SKIP LOCKED, inserts a CLAIMED run row per occurrence and advances each schedule
+ *     to its next occurrence. Other instances skip the locked rows and claim the next ones, so any
+ *     number of instances can run the scheduler in parallel.</li>
+ *     <li>The claimed transfers run on a worker pool through {@link WalletService#transfer(TransferRequest, String)},
+ *     with the same limits and checks as an API transfer, under the reference SCH-&lt;schedule&gt;-&lt;occurrence&gt;.</li>
+ *     <li>The outcomes are written to the run rows in one batch.</li>
+ * </ol>
+ * The unique (schedule_id, occurrence) key means an occurrence is transferred at most once. Runs
+ * left CLAIMED by an instance that stopped are settled from the ledger row carrying their reference,
+ * or marked FAILED if the transfer never started. Occurrences claimed more than max-lateness after
+ * their due time (e.g. after an outage) are SKIPPED instead of paid late.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.schedule.scheduler.enabled", havingValue = "true", matchIfMissing = true)
+public class ScheduledTransferScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduledTransferScheduler.class);
+    private static final String CLAIM_DUE = "SELECT id, sender_id, receiver_id, amount, description, frequency, "
+            + "start_at, end_at, run_count, next_run_at FROM scheduled_transfers "
+            + "WHERE status = 'ACTIVE' AND next_run_at <= ? ORDER BY next_run_at LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String INSERT_RUN = "INSERT INTO scheduled_transfer_runs "
+            + "(schedule_id, occurrence, scheduled_for, reference_id, status, failure_reason, claimed_at, completed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String ADVANCE = "UPDATE scheduled_transfers SET run_count = ?, next_run_at = ?, status = ? "
+            + "WHERE id = ?";
+    private static final String COMPLETE_RUN = "UPDATE scheduled_transfer_runs SET status = ?, failure_reason = ?, "
+            + "completed_at = ? WHERE schedule_id = ? AND occurrence = ? AND status = 'CLAIMED'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletService walletService;
+    private final ScheduledTransferRepository scheduleRepository;
+    private final ScheduledTransferRunRepository runRepository;
+    private final WalletTransactionRepository transactionRepository;
+    private final JournalEntryRepository journalRepository;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService workers;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+    private final Duration maxLateness;
+    private final Duration staleClaimAfter;
+
+    private final Timer lagTimer;
+    private final AtomicLong oldestDueAgeMillis = new AtomicLong();
+
+    /**
+     * An occurrence claimed in this poll.
+     */
+    private record DueRun(long scheduleId, long occurrence, LocalDateTime scheduledFor, String referenceId,
+                          long senderId, long receiverId, BigDecimal amount, String description) {
+    }
+
+    public ScheduledTransferScheduler(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                      WalletService walletService, ScheduledTransferRepository scheduleRepository,
+                                      ScheduledTransferRunRepository runRepository,
+                                      WalletTransactionRepository transactionRepository,
+                                      JournalEntryRepository journalRepository, MeterRegistry meterRegistry,
+                                      @Value("${wallet.schedule.workers:8}") int workers,
+                                      @Value("${wallet.schedule.batch-size:100}") int batchSize,
+                                      @Value("${wallet.schedule.max-batches-per-poll:20}") int maxBatchesPerPoll,
+                                      @Value("${wallet.schedule.max-lateness-minutes:1440}") long maxLatenessMinutes,
+                                      @Value("${wallet.schedule.stale-claim-minutes:10}") long staleClaimMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.walletService = walletService;
+        this.scheduleRepository = scheduleRepository;
+        this.runRepository = runRepository;
+        this.transactionRepository = transactionRepository;
+        this.journalRepository = journalRepository;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "scheduled-transfer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.maxLateness = Duration.ofMinutes(maxLatenessMinutes);
+        this.staleClaimAfter = Duration.ofMinutes(staleClaimMinutes);
+        this.lagTimer = Timer.builder("wallet.schedule.lag")
+                .description("Time from an occurrence's due time to the start of its transfer")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("wallet.schedule.oldest.due.age", oldestDueAgeMillis, AtomicLong::get)
+                .description("Age in ms of the earliest due occurrence not yet claimed, seen by the last poll")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.schedule.poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            for (int i = 0; i < maxBatchesPerPoll; i++) {
+                List<DueRun> claimed = claimDue();
+                if (!claimed.isEmpty()) {
+                    execute(claimed);
+                }
+                if (claimed.size() < batchSize) {
+                    break;
+                }
+            }
+        } finally {
+            LocalDateTime earliest = scheduleRepository.findEarliestNextRun();
+            oldestDueAgeMillis.set(earliest == null ? 0
+                    : Math.max(0, Duration.between(earliest, LocalDateTime.now()).toMillis()));
+        }
+    }
+
+    /**
+     * Settle runs that stayed CLAIMED for longer than wallet.schedule.stale-claim-minutes.
+     */
+    @Scheduled(fixedDelayString = "${wallet.schedule.recovery-interval-ms:60000}")
+    public void settleStaleClaims() {
+        List<ScheduledTransferRun> stale = runRepository.findByStatusAndClaimedAtBeforeOrderByClaimedAtAsc(
+                ScheduledRunStatus.CLAIMED, LocalDateTime.now().minus(staleClaimAfter), PageRequest.of(0, batchSize));
+        List<Object[]> outcomes = new ArrayList<>();
+        for (ScheduledTransferRun run : stale) {
+            TransactionStatus ledgerStatus = ledgerStatus(run.getReferenceId());
+            if (ledgerStatus == TransactionStatus.PENDING || ledgerStatus == TransactionStatus.PROCESSING) {
+                // Still being settled, e.g. a cross-partition transfer waiting for recovery
+                continue;
+            }
+            ScheduledRunStatus status = ledgerStatus == null ? ScheduledRunStatus.FAILED : toRunStatus(ledgerStatus);
+            String reason = ledgerStatus == null ? "Not executed: the scheduler stopped before the transfer started"
+                    : null;
+            outcomes.add(outcome(run.getScheduleId(), run.getOccurrence(), status, reason));
+            log.warn("Stale claim of scheduled transfer {} occurrence {} settled as {}", run.getScheduleId(),
+                    run.getOccurrence(), status);
+        }
+        if (!outcomes.isEmpty()) {
+            jdbcTemplate.batchUpdate(COMPLETE_RUN, outcomes);
+        }
+    }
+
+    /**
+     * Claim up to batch-size due occurrences in one transaction; the row locks are held only until
+     * it commits, not while the transfers run.
+     */
+    private List<DueRun> claimDue() {
+        return transactionTemplate.execute(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp claimedAt = Timestamp.valueOf(now);
+            List<DueRun> due = new ArrayList<>();
+            List<Object[]> runs = new ArrayList<>();
+            List<Object[]> advances = new ArrayList<>();
+            jdbcTemplate.query(CLAIM_DUE, rs -> {
+                long scheduleId = rs.getLong("id");
+                long occurrence = rs.getLong("run_count");
+                LocalDateTime scheduledFor = rs.getTimestamp("next_run_at").toLocalDateTime();
+                LocalDateTime startAt = rs.getTimestamp("start_at").toLocalDateTime();
+                Timestamp endAt = rs.getTimestamp("end_at");
+                ScheduleFrequency frequency = ScheduleFrequency.valueOf(rs.getString("frequency"));
+                String referenceId = "SCH-" + scheduleId + "-" + occurrence;
+
+                LocalDateTime next = frequency.occurrence(startAt, occurrence + 1);
+                boolean finished = next == null || (endAt != null && next.isAfter(endAt.toLocalDateTime()));
+                advances.add(new Object[]{occurrence + 1, finished ? null : Timestamp.valueOf(next),
+                        (finished ? ScheduleStatus.COMPLETED : ScheduleStatus.ACTIVE).name(), scheduleId});
+
+                if (scheduledFor.plus(maxLateness).isBefore(now)) {
+                    runs.add(new Object[]{scheduleId, occurrence, Timestamp.valueOf(scheduledFor), referenceId,
+                            ScheduledRunStatus.SKIPPED.name(), "Claimed more than the maximum lateness after its due time",
+                            claimedAt, claimedAt});
+                    meterRegistry.counter("wallet.schedule.runs", "status", ScheduledRunStatus.SKIPPED.name()).increment();
+                    return;
+                }
+                runs.add(new Object[]{scheduleId, occurrence, Timestamp.valueOf(scheduledFor), referenceId,
+                        ScheduledRunStatus.CLAIMED.name(), null, claimedAt, null});
+                due.add(new DueRun(scheduleId, occurrence, scheduledFor, referenceId, rs.getLong("sender_id"),
+                        rs.getLong("receiver_id"), rs.getBigDecimal("amount"), rs.getString("description")));
+            }, Timestamp.valueOf(now), batchSize);
+
+            if (!advances.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_RUN, runs);
+                jdbcTemplate.batchUpdate(ADVANCE, advances);
+            }
+            return due;
+        });
+    }
+
+    private void execute(List<DueRun> claimed) {
+        List<CompletableFuture<Object[]>> transfers = claimed.stream()
+                .map(run -> CompletableFuture.supplyAsync(() -> transfer(run), workers))
+                .toList();
+        List<Object[]> outcomes = transfers.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!outcomes.isEmpty()) {
+            jdbcTemplate.batchUpdate(COMPLETE_RUN, outcomes);
+        }
+    }
+
+    /**
+     * @return the run's outcome row, or null to leave it CLAIMED while the ledger still settles it.
+     */
+    private Object[] transfer(DueRun run) {
+        lagTimer.record(Duration.between(run.scheduledFor(), LocalDateTime.now()));
+        TransferRequest request = new TransferRequest(run.receiverId(), run.senderId(), run.amount());
+        request.setDescription(run.description());
+        try {
+            walletService.transfer(request, run.referenceId());
+            return outcome(run.scheduleId(), run.occurrence(), ScheduledRunStatus.SUCCESS, null);
+        } catch (LimitExceededException e) {
+            return outcome(run.scheduleId(), run.occurrence(), ScheduledRunStatus.LIMIT_EXCEEDED, e.getMessage());
+        } catch (InsufficientBalanceException e) {
+            return outcome(run.scheduleId(), run.occurrence(), ScheduledRunStatus.DECLINED, e.getMessage());
+        } catch (Exception e) {
+            TransactionStatus ledgerStatus = ledgerStatus(run.referenceId());
+            if (ledgerStatus == TransactionStatus.PENDING || ledgerStatus == TransactionStatus.PROCESSING) {
+                log.warn("Scheduled transfer {} occurrence {} not settled yet: {}", run.scheduleId(),
+                        run.occurrence(), e.getMessage());
+                return null;
+            }
+            log.error("Scheduled transfer {} occurrence {} failed: {}", run.scheduleId(), run.occurrence(),
+                    e.getMessage());
+            ScheduledRunStatus status = ledgerStatus == TransactionStatus.SUCCESS ? ScheduledRunStatus.SUCCESS
+                    : ScheduledRunStatus.FAILED;
+            return outcome(run.scheduleId(), run.occurrence(), status,
+                    status == ScheduledRunStatus.SUCCESS ? null : e.getMessage());
+        }
+    }
+
+    private Object[] outcome(long scheduleId, long occurrence, ScheduledRunStatus status, String reason) {
+        meterRegistry.counter("wallet.schedule.runs", "status", status.name()).increment();
+        return new Object[]{status.name(), truncate(reason), Timestamp.valueOf(LocalDateTime.now()), scheduleId,
+                occurrence};
+    }
+
+    /**
+     * Status of the transfer made under this reference: its TRANSFER_SENT row, or its journal entry.
+     *
+     * @return null when no transfer was recorded.
+     */
+    private TransactionStatus ledgerStatus(String referenceId) {
+        return transactionRepository.findByReferenceIdAndType(referenceId, TransactionType.TRANSFER_SENT)
+                .map(WalletTransaction::getStatus)
+                .or(() -> journalRepository.findByReferenceId(referenceId).map(JournalEntry::getStatus))
+                .orElse(null);
+    }
+
+    private static ScheduledRunStatus toRunStatus(TransactionStatus status) {
+        return switch (status) {
+            case SUCCESS -> ScheduledRunStatus.SUCCESS;
+            case DECLINED -> ScheduledRunStatus.DECLINED;
+            case LIMIT_EXCEEDED -> ScheduledRunStatus.LIMIT_EXCEEDED;
+            default -> ScheduledRunStatus.FAILED;
+        };
+    }
+
+    private static String truncate(String reason) {
+        return reason != null && reason.length() > 255 ? reason.substring(0, 255) : reason;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Transfers that do not finish in time stay CLAIMED and are settled by settleStaleClaims
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -24,6 +24,8 @@ public class SecurityConfig {
                 .sessionManagement(sm-> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/login", "/api/users").permitAll()
+                        // Node-to-node calls; checked against wallet.partition.secret by PartitionController
+                        .requestMatchers("/internal/partition/**").permitAll()
                                 .anyRequest().authenticated()
                 );
         return httpSecurity.build();
@@ -1,6 +1,7 @@
 package com.wallet.service;
 
-import com.wallet.entity.User;
+import com.wallet.dto.UserProfile;
+import com.wallet.profile.UserProfileCache;
 import com.wallet.repository.UserRepository;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -10,21 +11,27 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JWTService jwtService;
+    private final UserProfileCache profileCache;
 
 
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, JWTService jwtService) {
+    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, JWTService jwtService,
+                       UserProfileCache profileCache) {
         this.jwtService = jwtService;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.profileCache = profileCache;
     }
 
     public String login(String email, String password){
-        User user = userRepository.findByEmailId(email)
+        long generation = profileCache.generation();
+        UserRepository.Credentials user = userRepository.findCredentialsByEmailId(email)
                 .orElseThrow(() -> new RuntimeException("Invalid cred!"));
 
         if (!passwordEncoder.matches(password, user.getPassword())) {
             throw new RuntimeException("Invalid Password");
         }
+        // Profile reads usually follow a login
+        profileCache.put(new UserProfile(user.getId(), user.getName(), user.getEmailId(), user.getRole()), generation);
         return jwtService.generateToken(user.getEmailId(), user.getRole());
     }
 }
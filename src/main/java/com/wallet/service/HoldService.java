@@ -0,0 +1,322 @@
+package com.wallet.service;
+
+import com.wallet.datasource.ReadYourWritesRouting;
+import com.wallet.dto.CaptureRequest;
+import com.wallet.dto.HoldRequest;
+import com.wallet.dto.HoldResponse;
+import com.wallet.engine.BalanceEngine;
+import com.wallet.entity.FundHold;
+import com.wallet.entity.HoldStatus;
+import com.wallet.entity.OutboxEvent;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.Wallet;
+import com.wallet.entity.WalletTransaction;
+import com.wallet.exception.InsufficientBalanceException;
+import com.wallet.hold.HierarchicalTimingWheel;
+import com.wallet.limit.VelocityLimiter;
+import com.wallet.repository.FundHoldRepository;
+import com.wallet.repository.OutboxEventRepository;
+import com.wallet.repository.WalletRepository;
+import com.wallet.repository.WalletTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Card-style authorizations: a hold moves funds from the wallet's balance into its reserved
+ * balance, and is later captured (debited), released, or released automatically at expiry.
+ * Placing, capturing and releasing a hold are each one short critical section on the wallet.
+ * A hold counts against the velocity limits from when it is placed, like a debit of its amount.
+ * Expiries are tracked by an in-memory {@link HierarchicalTimingWheel} rebuilt from the open
+ * holds on startup. The wheel only knows the holds this instance placed or loaded, so a coarse
+ * sweep over idx_hold_status_expiry also expires holds that no running wheel is tracking, e.g.
+ * ones placed by an instance that has since stopped.
+ */
+@Service
+public class HoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldService.class);
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+
+    private final WalletRepository walletRepository;
+    private final FundHoldRepository holdRepository;
+    private final WalletTransactionRepository transactionRepository;
+    private final OutboxEventRepository outboxRepository;
+    private final WalletCriticalSection criticalSection;
+    private final ReadYourWritesRouting readRouting;
+    private final VelocityLimiter velocityLimiter;
+    private final HierarchicalTimingWheel expiryWheel;
+    private final Counter expiredCounter;
+    private final Counter sweptCounter;
+    private final long tickMillis;
+    private final int sweepBatchSize;
+    private final boolean engineMode;
+
+    public HoldService(WalletRepository walletRepository, FundHoldRepository holdRepository,
+                       WalletTransactionRepository transactionRepository, OutboxEventRepository outboxRepository,
+                       WalletCriticalSection criticalSection, ReadYourWritesRouting readRouting,
+                       VelocityLimiter velocityLimiter,
+                       MeterRegistry meterRegistry, ObjectProvider<BalanceEngine> balanceEngine,
+                       @Value("${wallet.hold.tick-ms:1000}") long tickMillis,
+                       @Value("${wallet.hold.sweep-batch-size:500}") int sweepBatchSize) {
+        this.walletRepository = walletRepository;
+        this.holdRepository = holdRepository;
+        this.transactionRepository = transactionRepository;
+        this.outboxRepository = outboxRepository;
+        this.criticalSection = criticalSection;
+        this.readRouting = readRouting;
+        this.velocityLimiter = velocityLimiter;
+        this.expiryWheel = new HierarchicalTimingWheel(tickMillis, System.currentTimeMillis());
+        this.expiredCounter = meterRegistry.counter("wallet.holds.expired");
+        this.sweptCounter = meterRegistry.counter("wallet.holds.expired.swept");
+        this.tickMillis = tickMillis;
+        this.sweepBatchSize = sweepBatchSize;
+        this.engineMode = balanceEngine.getIfAvailable() != null;
+        Gauge.builder("wallet.holds.open", expiryWheel, HierarchicalTimingWheel::size)
+                .description("Open holds tracked by the expiry wheel")
+                .register(meterRegistry);
+    }
+
+    public HoldResponse placeHold(Long userId, HoldRequest request) {
+        requireDatabaseEngine();
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(request.getExpiresInSeconds());
+        String referenceId = "HLD-" + UUID.randomUUID().toString().substring(0, 8);
+        long limitToken = velocityLimiter.reserve(userId, request.getAmount());
+
+        FundHold hold;
+        try {
+            hold = criticalSection.run("hold", userId, null, () -> {
+                Wallet wallet = findWalletById(userId);
+                if (wallet.getBalance().compareTo(request.getAmount()) < 0) {
+                    throw new InsufficientBalanceException("Insufficient balance");
+                }
+                wallet.hold(request.getAmount());
+                walletRepository.save(wallet);
+                readRouting.recordWrite(userId);
+                return holdRepository.save(new FundHold(userId, request.getAmount(), referenceId,
+                        request.getDescription(), expiresAt));
+            });
+        } catch (RuntimeException e) {
+            velocityLimiter.release(userId, request.getAmount(), limitToken);
+            throw e;
+        }
+        velocityLimiter.holdPlaced(hold.getId(), limitToken);
+        expiryWheel.schedule(hold.getId(), toEpochMillis(expiresAt));
+
+        log.info("Hold {} of {} placed for user {}, expires at {}", hold.getId(), hold.getAmount(), userId, expiresAt);
+        return buildHoldResponse(hold, null);
+    }
+
+    /**
+     * Debit all or part of a hold; the rest goes back to the balance.
+     */
+    public HoldResponse captureHold(Long userId, Long holdId, CaptureRequest request) {
+        requireDatabaseEngine();
+        FundHold hold = findActiveHold(userId, holdId);
+        BigDecimal captured = request != null && request.getAmount() != null ? request.getAmount() : hold.getAmount();
+        if (captured.compareTo(hold.getAmount()) > 0) {
+            throw new RuntimeException("Capture amount exceeds the held amount");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        WalletTransaction capture = criticalSection.run("hold.capture", userId, null, () -> {
+            if (holdRepository.complete(holdId, HoldStatus.CAPTURED, captured, now) != 1) {
+                return null;
+            }
+            Wallet wallet = findWalletById(userId);
+            wallet.captureHold(hold.getAmount(), captured);
+            walletRepository.save(wallet);
+
+            WalletTransaction transaction = new WalletTransaction();
+            transaction.setSender(userId);
+            transaction.setOwnerUserId(userId);
+            transaction.setAmount(captured);
+            transaction.setType(TransactionType.DEBIT);
+            transaction.setDescription(hold.getDescription() != null ? hold.getDescription() : "Capture of hold " + holdId);
+            transaction.setReferenceId(hold.getReferenceId());
+            transaction.markAsSuccess(wallet.getBalance());
+            transactionRepository.save(transaction);
+            outboxRepository.save(new OutboxEvent(transaction));
+            readRouting.recordWrite(userId);
+            return transaction;
+        });
+        if (capture == null) {
+            throw new RuntimeException("Hold is no longer active");
+        }
+        expiryWheel.cancel(holdId);
+        hold.complete(HoldStatus.CAPTURED, captured, now);
+        // The hold was checked against the limits when placed; a capture is never declined by them
+        velocityLimiter.holdCaptured(userId, holdId, hold.getAmount(), captured);
+
+        log.info("Hold {} captured {} of {} for user {}", holdId, captured, hold.getAmount(), userId);
+        return buildHoldResponse(hold, capture.getId());
+    }
+
+    public HoldResponse releaseHold(Long userId, Long holdId) {
+        requireDatabaseEngine();
+        FundHold hold = findActiveHold(userId, holdId);
+        LocalDateTime now = LocalDateTime.now();
+        if (!release(hold, HoldStatus.RELEASED, now)) {
+            throw new RuntimeException("Hold is no longer active");
+        }
+        expiryWheel.cancel(holdId);
+        hold.complete(HoldStatus.RELEASED, null, now);
+
+        log.info("Hold {} released for user {}", holdId, userId);
+        return buildHoldResponse(hold, null);
+    }
+
+    /**
+     * Advance the wheel and release the holds that are due.
+     */
+    @Scheduled(fixedDelayString = "${wallet.hold.tick-ms:1000}")
+    public void expireDueHolds() {
+        List<Long> due = new ArrayList<>();
+        expiryWheel.advance(System.currentTimeMillis(), due::add);
+        for (Long holdId : due) {
+            try {
+                expire(holdId);
+            } catch (Exception e) {
+                // Try again on a later tick rather than leave the funds reserved
+                log.error("Could not expire hold {}: {}", holdId, e.getMessage());
+                expiryWheel.schedule(holdId, System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * Backstop for the wheel: expire open holds more than a tick past their expiry. Harmless when a
+     * wheel gets there first, since only one caller can complete a hold.
+     */
+    @Scheduled(fixedDelayString = "${wallet.hold.sweep-interval-ms:60000}",
+            initialDelayString = "${wallet.hold.sweep-interval-ms:60000}")
+    public void sweepExpiredHolds() {
+        List<FundHoldRepository.HoldExpiry> overdue = holdRepository.findActiveExpiredBefore(
+                LocalDateTime.now().minusNanos(tickMillis * 1_000_000), PageRequest.of(0, sweepBatchSize));
+        for (FundHoldRepository.HoldExpiry hold : overdue) {
+            try {
+                if (expire(hold.getId())) {
+                    sweptCounter.increment();
+                }
+            } catch (Exception e) {
+                log.error("Sweep could not expire hold {}: {}", hold.getId(), e.getMessage());
+            }
+        }
+        if (overdue.size() == sweepBatchSize) {
+            log.warn("Hold sweep expired a full batch of {}; more overdue holds wait for the next sweep", sweepBatchSize);
+        }
+    }
+
+    private boolean expire(Long holdId) {
+        return holdRepository.findById(holdId)
+                .filter(hold -> hold.getStatus() == HoldStatus.ACTIVE)
+                .filter(hold -> release(hold, HoldStatus.EXPIRED, LocalDateTime.now()))
+                .map(hold -> {
+                    expiryWheel.cancel(holdId);
+                    expiredCounter.increment();
+                    log.info("Hold {} of {} expired for user {}", holdId, hold.getAmount(), hold.getUserId());
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Put every open hold on the wheel. Holds placed meanwhile are simply scheduled twice,
+     * and holds completed meanwhile are skipped when they fire.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildExpiryWheel() {
+        long afterId = 0;
+        int loaded = 0;
+        while (true) {
+            List<FundHoldRepository.HoldExpiry> page = holdRepository.findActiveAfter(afterId,
+                    PageRequest.of(0, REBUILD_PAGE_SIZE));
+            for (FundHoldRepository.HoldExpiry hold : page) {
+                expiryWheel.schedule(hold.getId(), toEpochMillis(hold.getExpiresAt()));
+            }
+            loaded += page.size();
+            if (page.size() < REBUILD_PAGE_SIZE) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+        log.info("Hold expiry wheel rebuilt with {} open holds", loaded);
+    }
+
+    private boolean release(FundHold hold, HoldStatus status, LocalDateTime now) {
+        Boolean released = criticalSection.run("hold." + status.name().toLowerCase(), hold.getUserId(), null, () -> {
+            if (holdRepository.complete(hold.getId(), status, null, now) != 1) {
+                return false;
+            }
+            Wallet wallet = findWalletById(hold.getUserId());
+            wallet.releaseHold(hold.getAmount());
+            walletRepository.save(wallet);
+            readRouting.recordWrite(hold.getUserId());
+            return true;
+        });
+        if (!Boolean.TRUE.equals(released)) {
+            return false;
+        }
+        velocityLimiter.holdReleased(hold.getUserId(), hold.getId(), hold.getAmount());
+        return true;
+    }
+
+    private FundHold findActiveHold(Long userId, Long holdId) {
+        FundHold hold = holdRepository.findById(holdId)
+                .orElseThrow(() -> new RuntimeException("Hold not found"));
+        if (!hold.getUserId().equals(userId)) {
+            throw new RuntimeException("User not authorized to change this hold");
+        }
+        if (hold.getStatus() != HoldStatus.ACTIVE) {
+            throw new RuntimeException("Hold is no longer active");
+        }
+        return hold;
+    }
+
+    private Wallet findWalletById(Long id) {
+        return walletRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Wallet not found for the id : " + id));
+    }
+
+    private void requireDatabaseEngine() {
+        if (engineMode) {
+            throw new RuntimeException("Holds are not supported with wallet.engine.mode=memory");
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private HoldResponse buildHoldResponse(FundHold hold, Long captureTransactionId) {
+        HoldResponse response = new HoldResponse();
+        response.setHoldId(hold.getId());
+        response.setUserId(hold.getUserId());
+        response.setReferenceId(hold.getReferenceId());
+        response.setAmount(hold.getAmount());
+        response.setCapturedAmount(hold.getCapturedAmount());
+        response.setHoldStatus(hold.getStatus().toString());
+        response.setDescription(hold.getDescription());
+        response.setCreatedDate(hold.getCreatedAt());
+        response.setExpiresAt(hold.getExpiresAt());
+        response.setCompletedDate(hold.getCompletedAt());
+        response.setCaptureTransactionId(captureTransactionId);
+        return response;
+    }
+}
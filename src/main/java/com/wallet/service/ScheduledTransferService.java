@@ -0,0 +1,133 @@
+package com.wallet.service;
+
+import com.wallet.dto.ScheduledTransferRequest;
+import com.wallet.dto.ScheduledTransferResponse;
+import com.wallet.dto.ScheduledTransferRunResponse;
+import com.wallet.entity.ScheduledTransfer;
+import com.wallet.entity.ScheduledTransferRun;
+import com.wallet.repository.ScheduledTransferRepository;
+import com.wallet.repository.ScheduledTransferRunRepository;
+import com.wallet.repository.WalletRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Standing instructions of a sender: creating, listing and cancelling them, and their run history.
+ * The occurrences themselves are executed by the ScheduledTransferScheduler.
+ */
+@Service
+public class ScheduledTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduledTransferService.class);
+    private static final int RUN_HISTORY_LIMIT = 50;
+
+    private final ScheduledTransferRepository scheduleRepository;
+    private final ScheduledTransferRunRepository runRepository;
+    private final WalletRepository walletRepository;
+
+    public ScheduledTransferService(ScheduledTransferRepository scheduleRepository,
+                                    ScheduledTransferRunRepository runRepository,
+                                    WalletRepository walletRepository) {
+        this.scheduleRepository = scheduleRepository;
+        this.runRepository = runRepository;
+        this.walletRepository = walletRepository;
+    }
+
+    public ScheduledTransferResponse create(Long userId, ScheduledTransferRequest request) {
+        if (userId.equals(request.getReceiver())) {
+            throw new RuntimeException("Sender and receiver must be different wallets");
+        }
+        LocalDateTime startAt = request.getStartAt() != null ? request.getStartAt() : LocalDateTime.now();
+        if (startAt.isBefore(LocalDateTime.now().minusMinutes(1))) {
+            throw new RuntimeException("Start time cannot be in the past");
+        }
+        if (request.getEndAt() != null && request.getEndAt().isBefore(startAt)) {
+            throw new RuntimeException("End time must be after the start time");
+        }
+        if (!walletRepository.existsById(userId)) {
+            throw new RuntimeException("Wallet not found for the id : " + userId);
+        }
+        if (!walletRepository.existsById(request.getReceiver())) {
+            throw new RuntimeException("Wallet not found for the id : " + request.getReceiver());
+        }
+
+        ScheduledTransfer schedule = scheduleRepository.save(new ScheduledTransfer(userId, request.getReceiver(),
+                request.getAmount(), request.getDescription(), request.getFrequency(), startAt, request.getEndAt()));
+        log.info("Scheduled transfer {} created for user {}: {} from {}", schedule.getId(), userId,
+                schedule.getFrequency(), startAt);
+        return buildResponse(schedule);
+    }
+
+    public List<ScheduledTransferResponse> list(Long userId) {
+        return scheduleRepository.findBySenderIdOrderByIdDesc(userId).stream()
+                .map(this::buildResponse)
+                .toList();
+    }
+
+    /**
+     * Stop further occurrences. One that a scheduler already claimed still runs.
+     */
+    public ScheduledTransferResponse cancel(Long userId, Long scheduleId) {
+        ScheduledTransfer schedule = findOwnSchedule(userId, scheduleId);
+        if (scheduleRepository.cancel(scheduleId, userId) != 1) {
+            throw new RuntimeException("Scheduled transfer is no longer active");
+        }
+        schedule.cancel();
+        log.info("Scheduled transfer {} cancelled by user {}", scheduleId, userId);
+        return buildResponse(schedule);
+    }
+
+    /**
+     * The latest occurrences of a schedule, newest first.
+     */
+    public List<ScheduledTransferRunResponse> runs(Long userId, Long scheduleId) {
+        findOwnSchedule(userId, scheduleId);
+        return runRepository.findByScheduleIdOrderByOccurrenceDesc(scheduleId, PageRequest.of(0, RUN_HISTORY_LIMIT))
+                .stream()
+                .map(this::buildRunResponse)
+                .toList();
+    }
+
+    private ScheduledTransfer findOwnSchedule(Long userId, Long scheduleId) {
+        ScheduledTransfer schedule = scheduleRepository.findById(scheduleId)
+                .orElseThrow(() -> new RuntimeException("Scheduled transfer not found"));
+        if (!schedule.getSenderId().equals(userId)) {
+            throw new RuntimeException("User not authorized to change this scheduled transfer");
+        }
+        return schedule;
+    }
+
+    private ScheduledTransferResponse buildResponse(ScheduledTransfer schedule) {
+        ScheduledTransferResponse response = new ScheduledTransferResponse();
+        response.setScheduleId(schedule.getId());
+        response.setSender(schedule.getSenderId());
+        response.setReceiver(schedule.getReceiverId());
+        response.setAmount(schedule.getAmount());
+        response.setDescription(schedule.getDescription());
+        response.setFrequency(schedule.getFrequency().toString());
+        response.setScheduleStatus(schedule.getStatus().toString());
+        response.setStartAt(schedule.getStartAt());
+        response.setEndAt(schedule.getEndAt());
+        response.setRunCount(schedule.getRunCount());
+        response.setNextRunAt(schedule.getNextRunAt());
+        response.setCreatedDate(schedule.getCreatedAt());
+        return response;
+    }
+
+    private ScheduledTransferRunResponse buildRunResponse(ScheduledTransferRun run) {
+        ScheduledTransferRunResponse response = new ScheduledTransferRunResponse();
+        response.setOccurrence(run.getOccurrence());
+        response.setReferenceId(run.getReferenceId());
+        response.setRunStatus(run.getStatus().toString());
+        response.setScheduledFor(run.getScheduledFor());
+        response.setClaimedDate(run.getClaimedAt());
+        response.setCompletedDate(run.getCompletedAt());
+        response.setFailureReason(run.getFailureReason());
+        return response;
+    }
+}
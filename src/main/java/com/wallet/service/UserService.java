@@ -1,9 +1,11 @@
 package com.wallet.service;
 
 import com.wallet.dto.CreateUserRequest;
+import com.wallet.dto.UserProfile;
 import com.wallet.dto.UserResponse;
 import com.wallet.entity.User;
 import com.wallet.entity.Wallet;
+import com.wallet.profile.UserProfileCache;
 import com.wallet.repository.UserRepository;
 import com.wallet.repository.WalletRepository;
 import jakarta.transaction.Transactional;
@@ -21,22 +23,24 @@ public class UserService {
     private final UserRepository repository;
     private final WalletRepository walletRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserProfileCache profileCache;
 
     public UserService(UserRepository userRepository, WalletRepository walletRepository,
-                       PasswordEncoder passwordEncoder){
+                       PasswordEncoder passwordEncoder, UserProfileCache profileCache){
         this.repository = userRepository;
         this.walletRepository = walletRepository;
         this.passwordEncoder = passwordEncoder;
+        this.profileCache = profileCache;
     }
 
     @Transactional
     public UserResponse createUser(CreateUserRequest userRequest){
         log.info("User creation request is initiated");
-        repository.findByEmailId(userRequest.getEmail())
-                .ifPresent(user -> {
-                    log.error("User already exists with the email");
-                    throw new RuntimeException("User already exists with the email");
-                });
+        if (profileCache.getByEmail(userRequest.getEmail()) != null
+                || repository.existsByEmailId(userRequest.getEmail())) {
+            log.error("User already exists with the email");
+            throw new RuntimeException("User already exists with the email");
+        }
         User user = new User();
         user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
         user.setName(userRequest.getName());
@@ -57,9 +61,18 @@ public class UserService {
                 savedUser.getRole());
     }
 
-    @Transactional
-    public Optional<User> getUserInfo(Long userId) {
+    /**
+     * From the profile cache, else by a projection query that leaves out the password hash.
+     */
+    public Optional<UserProfile> getUserInfo(Long userId) {
         log.info("Getting user info for user {}", userId);
-        return repository.findById(userId);
+        UserProfile cached = profileCache.get(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long generation = profileCache.generation();
+        Optional<UserProfile> profile = repository.findProfileById(userId);
+        profile.ifPresent(p -> profileCache.put(p, generation));
+        return profile;
     }
 }
@@ -0,0 +1,57 @@
+package com.wallet.service;
+
+import com.wallet.executor.WalletCommandExecutor;
+import com.wallet.retry.TransientRetry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs a wallet balance change in one short transaction, retried on transient failures such as
+ * version conflicts and deadlocks (see {@link TransientRetry}).
+ * The transaction duration is what holds the wallet row lock, recorded as wallet.lock.hold.
+ * With the command executor enabled each attempt runs on the wallets' single-writer lane(s),
+ * so same-wallet commands are serialized instead of colliding on the version check, while the
+ * backoff between attempts leaves the lane free for other commands.
+ */
+@Component
+public class WalletCriticalSection {
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransientRetry retry;
+    private final MeterRegistry meterRegistry;
+    private final WalletCommandExecutor commandExecutor;
+
+    public WalletCriticalSection(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                 TransientRetry retry, ObjectProvider<WalletCommandExecutor> commandExecutor) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retry = retry;
+        this.meterRegistry = meterRegistry;
+        this.commandExecutor = commandExecutor.getIfAvailable();
+    }
+
+    public <T> T run(String operation, Long userId, Long otherUserId, Supplier<T> work) {
+        Timer lockHold = meterRegistry.timer("wallet.lock.hold", "operation", operation);
+        Supplier<T> attempt = () -> {
+            long start = System.nanoTime();
+            try {
+                return transactionTemplate.execute(tx -> work.get());
+            } finally {
+                lockHold.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+        if (commandExecutor == null) {
+            return retry.execute(operation, attempt);
+        }
+        // Each attempt is a separate lane task: the backoff sleeps on the caller, not on the lane
+        return retry.execute(operation, () -> otherUserId == null
+                ? commandExecutor.execute(userId, attempt)
+                : commandExecutor.execute(userId, otherUserId, attempt));
+    }
+}
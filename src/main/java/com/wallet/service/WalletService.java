@@ -2,37 +2,139 @@ package com.wallet.service;
 
 import com.wallet.dto.*;
 import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.JournalEntry;
+import com.wallet.entity.OutboxEvent;
 import com.wallet.entity.TransactionType;
 import com.wallet.entity.Wallet;
 import com.wallet.entity.WalletTransaction;
+import com.wallet.engine.BalanceEngine;
+import com.wallet.engine.LedgerEvent;
+import com.wallet.fx.FxRateService;
+import com.wallet.fx.FxRates;
+import com.wallet.journal.JournalLedger;
+import com.wallet.limit.VelocityLimiter;
+import com.wallet.logging.OperationLog;
 import com.wallet.exception.InsufficientBalanceException;
+import com.wallet.exception.LimitExceededException;
+import com.wallet.exception.WalletBusyException;
+import com.wallet.partition.PartitionClient;
+import com.wallet.partition.PartitionRouter;
+import com.wallet.archive.LedgerArchive;
+import com.wallet.datasource.ReadYourWritesRouting;
+import com.wallet.repository.OutboxEventRepository;
+import com.wallet.repository.WalletCurrencyBalanceRepository;
 import com.wallet.repository.WalletRepository;
 import com.wallet.repository.WalletTransactionRepository;
-import jakarta.transaction.Transactional;
+import com.wallet.singleflight.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Wallet mutations are split into short steps so row locks are only held for the balance change:
+ * <ol>
+ *     <li>PENDING ledger row(s) are inserted and committed on their own.</li>
+ *     <li>PENDING -> PROCESSING is a conditional UPDATE, which also loses against a concurrent cancel.</li>
+ *     <li>The critical section transaction loads the wallet(s), applies the balance change and writes
+ *     the final ledger status plus outbox event. Only this part is retried on conflicts.</li>
+ *     <li>Declines and failures are recorded afterwards in their own transaction; logging happens
+ *     outside all of them.</li>
+ * </ol>
+ * With wallet.engine.mode=memory, credits, debits, transfers and balance reads go to the in-memory
+ * {@link BalanceEngine} instead; ledger history is read from its asynchronous database projection.
+ * With wallet.partition.enabled, transfers are run by the sender's owner node and transfers to a
+ * wallet owned by another node use a reserve/commit protocol over the PENDING rows.
+ * Debits and outgoing transfers are checked against the {@link VelocityLimiter} first and are
+ * recorded as LIMIT_EXCEEDED when over a limit.
+ * Concurrent identical reads of a wallet share one query through {@link SingleFlight}. History reads
+ * continue into the months archived to the {@link LedgerArchive}.
+ * With wallet.ledger.journal.enabled, same-node transfers are written to the double-entry
+ * {@link JournalLedger} instead of as two wallet_transactions rows.
+ * Wallet balances are in the base currency (wallet.currency.base). Transfers may debit and credit other
+ * currencies, held as per-currency balances; the amount is converted at the in-memory {@link FxRateService}
+ * rate, which is recorded on both ledger rows. These always go through wallet_transactions and the database.
+ */
 @Service
 public class WalletService {
 
     private static final Logger log = LoggerFactory.getLogger(WalletService.class);
     private final WalletRepository walletRepository;
     private final WalletTransactionRepository transactionRepository;
+    private final OutboxEventRepository outboxRepository;
+    private final ReadYourWritesRouting readRouting;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletCriticalSection criticalSection;
+    private final MeterRegistry meterRegistry;
+    private final BalanceEngine balanceEngine;
+    private final PartitionRouter partitionRouter;
+    private final PartitionClient partitionClient;
+    private final VelocityLimiter velocityLimiter;
+    private final LedgerArchive ledgerArchive;
+    private final JournalLedger journalLedger;
+    private final OperationLog operationLog;
+    private final WalletCurrencyBalanceRepository currencyBalanceRepository;
+    private final FxRateService fxRateService;
+    private final String baseCurrency;
+    private final TransactionTemplate readTemplate;
+    private final SingleFlight<Long, BigDecimal> balanceReads;
+    private final SingleFlight<Long, List<WalletTransaction>> historyReads;
+    private final SingleFlight<List<Object>, List<WalletTransaction>> statusReads;
 
     @Autowired
-    public WalletService(WalletRepository walletRepository, WalletTransactionRepository transactionRepository) {
+    public WalletService(WalletRepository walletRepository, WalletTransactionRepository transactionRepository,
+                         OutboxEventRepository outboxRepository, ReadYourWritesRouting readRouting,
+                         PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                         WalletCriticalSection criticalSection, VelocityLimiter velocityLimiter,
+                         LedgerArchive ledgerArchive, JournalLedger journalLedger, OperationLog operationLog,
+                         WalletCurrencyBalanceRepository currencyBalanceRepository, FxRateService fxRateService,
+                         ObjectProvider<BalanceEngine> balanceEngine,
+                         ObjectProvider<PartitionRouter> partitionRouter,
+                         ObjectProvider<PartitionClient> partitionClient,
+                         @Value("${wallet.read.single-flight.max-wait-ms:500}") long readMaxWaitMillis) {
         this.walletRepository = walletRepository;
         this.transactionRepository = transactionRepository;
+        this.outboxRepository = outboxRepository;
+        this.readRouting = readRouting;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.criticalSection = criticalSection;
+        this.meterRegistry = meterRegistry;
+        this.balanceEngine = balanceEngine.getIfAvailable();
+        this.partitionRouter = partitionRouter.getIfAvailable();
+        this.partitionClient = partitionClient.getIfAvailable();
+        this.velocityLimiter = velocityLimiter;
+        this.ledgerArchive = ledgerArchive;
+        this.journalLedger = journalLedger;
+        this.operationLog = operationLog;
+        this.currencyBalanceRepository = currencyBalanceRepository;
+        this.fxRateService = fxRateService;
+        this.baseCurrency = fxRateService.baseCurrency();
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.balanceReads = new SingleFlight<>(readMaxWaitMillis,
+                meterRegistry.counter("wallet.read.coalesced", "read", "balance")::increment);
+        this.historyReads = new SingleFlight<>(readMaxWaitMillis,
+                meterRegistry.counter("wallet.read.coalesced", "read", "transactions")::increment);
+        this.statusReads = new SingleFlight<>(readMaxWaitMillis,
+                meterRegistry.counter("wallet.read.coalesced", "read", "transactions.status")::increment);
     }
 
     /**
@@ -44,15 +146,15 @@ public class WalletService {
     }
 
     /**
-     * Create transaction record with PENDING status
+     * Create transaction record with PENDING status (not yet saved)
      */
-    private WalletTransaction createPendingTransaction(
+    private WalletTransaction newPendingTransaction(
             Long sender,
             Long receiver,
             BigDecimal amount,
             TransactionType type,
             String description,
-            Long ownerUserId) { // Add ownerUserId parameter
+            Long ownerUserId) {
 
         WalletTransaction transaction = new WalletTransaction();
         transaction.setSender(sender);
@@ -61,141 +163,355 @@ public class WalletService {
         transaction.setType(type);
         transaction.setDescription(description);
         transaction.setStatus(TransactionStatus.PENDING);
-        transaction.setReferenceId("TXN-" + UUID.randomUUID().toString().substring(0, 8));
+        transaction.setReferenceId(newReferenceId());
         transaction.setTransactionTime(LocalDateTime.now());
-        transaction.setOwnerUserId(ownerUserId); // Set the owner
+        transaction.setOwnerUserId(ownerUserId);
+        return transaction;
+    }
 
-        return transactionRepository.save(transaction);
+    private static String newReferenceId() {
+        return "TXN-" + UUID.randomUUID().toString().substring(0, 8);
     }
 
     /**
-     * Update transaction status and balance
+     * Move PENDING rows to PROCESSING. Fails if any of them was cancelled in the meantime.
      */
-    private void updateTransactionStatus(WalletTransaction transaction, TransactionStatus status,
-                                         BigDecimal balanceAfterTransaction, String failureReason) {
+    private void markProcessing(List<WalletTransaction> transactions) {
+        List<Long> ids = transactions.stream().map(WalletTransaction::getId).toList();
+        int updated = transactionRepository.transitionStatus(ids, TransactionStatus.PENDING, TransactionStatus.PROCESSING);
+        if (updated != ids.size()) {
+            throw new RuntimeException("Transaction is no longer pending");
+        }
+        transactions.forEach(transaction -> transaction.setStatus(TransactionStatus.PROCESSING));
+    }
+
+    /**
+     * Write the terminal status of a ledger row with one UPDATE (the row is not re-loaded).
+     * Outcomes downstream systems care about also go to the outbox, in the same transaction.
+     *
+     * @return false if the row already had a terminal status and nothing was written.
+     */
+    private boolean completeTransaction(WalletTransaction transaction, TransactionStatus status,
+                                     BigDecimal balanceAfterTransaction, String failureReason) {
         if (status == TransactionStatus.SUCCESS) {
             transaction.markAsSuccess(balanceAfterTransaction);
-        } else if (status == TransactionStatus.FAILED) {
-            transaction.markAsFailed(failureReason);
+        } else if (status == TransactionStatus.DECLINED) {
+            transaction.markAsDeclined(failureReason);
+        } else if (status == TransactionStatus.LIMIT_EXCEEDED) {
+            transaction.markAsLimitExceeded(failureReason);
         } else {
-            transaction.setStatus(status);
-            if (balanceAfterTransaction != null) {
-                transaction.setBalanceAfterTransaction(balanceAfterTransaction);
+            transaction.markAsFailed(failureReason);
+        }
+        int updated = transactionRepository.complete(transaction.getId(), transaction.getStatus(),
+                transaction.getBalanceAfterTransaction(), transaction.getFailureReason(), transaction.getCompletedTime());
+        if (updated == 0) {
+            return false;
+        }
+        if (status != TransactionStatus.FAILED) {
+            outboxRepository.save(new OutboxEvent(transaction));
+        }
+        return true;
+    }
+
+    /**
+     * Record a decline or failure after the critical section has rolled back.
+     */
+    private void recordOutcome(List<WalletTransaction> transactions, TransactionStatus status, String reason) {
+        try {
+            transactionTemplate.executeWithoutResult(tx ->
+                    transactions.forEach(transaction -> completeTransaction(transaction, status, null, reason)));
+        } catch (Exception e) {
+            log.error("Could not record {} for transactions {}: {}", status,
+                    transactions.stream().map(WalletTransaction::getId).toList(), e.getMessage());
+        }
+    }
+
+    /**
+     * Wait for the engine's acknowledgement (journaled and fsynced) and unwrap its failure.
+     */
+    private LedgerEvent awaitEngine(CompletableFuture<LedgerEvent> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
+            throw e;
         }
-        transactionRepository.save(transaction);
     }
 
-    @Transactional
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 100))
+    /**
+     * The engine works in minor units; amounts with more than two decimals are rejected.
+     */
+    private static long toMinorUnits(BigDecimal amount) {
+        try {
+            return amount.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new RuntimeException("Amount must have at most two decimal places");
+        }
+    }
+
+    /**
+     * Build the ledger row the engine's projection will write, to answer with the same response shape.
+     */
+    private WalletTransaction fromEngineEvent(WalletTransaction transaction, LedgerEvent event) {
+        if (event.getStatus() == LedgerEvent.Status.SUCCESS) {
+            transaction.markAsSuccess(BigDecimal.valueOf(event.getBalanceAfter(), 2));
+        } else {
+            transaction.markAsDeclined("Insufficient balance");
+        }
+        return transaction;
+    }
+
     public TransactionResponse addMoney(CreditDebitRequest request, Long userId) {
-        log.info("Initiating credit of {} for user {}", request.getAmount(), userId);
+        log.debug("Initiating credit of {} for user {}", request.getAmount(), userId);
+        long start = System.nanoTime();
+
+        if (balanceEngine != null) {
+            try {
+                WalletTransaction transaction = newPendingTransaction(null, userId, request.getAmount(),
+                        TransactionType.CREDIT, request.getDescription(), userId);
+                LedgerEvent event;
+                try {
+                    event = awaitEngine(balanceEngine.credit(userId, toMinorUnits(request.getAmount()),
+                            transaction.getReferenceId(), request.getDescription()));
+                } catch (RuntimeException e) {
+                    if (!(e instanceof WalletBusyException)) {
+                        operationLog.failed("credit", userId, null, transaction.getReferenceId(), e.getMessage(), start);
+                    }
+                    throw e;
+                }
+                operationLog.completed("credit", userId, null, transaction.getReferenceId(), start);
+                return buildTransactionResponse(fromEngineEvent(transaction, event));
+            } finally {
+                meterRegistry.timer("wallet.operation", "operation", "credit").record(System.nanoTime() - start,
+                        TimeUnit.NANOSECONDS);
+            }
+        }
 
         // 1. Create pending transaction (owner is the receiver)
-        WalletTransaction transaction = createPendingTransaction(
+        WalletTransaction transaction = transactionRepository.save(newPendingTransaction(
                 null,
                 userId,
                 request.getAmount(),
                 TransactionType.CREDIT,
                 request.getDescription(),
                 userId
-        );
+        ));
 
         try {
             // 2. Mark as processing
-            updateTransactionStatus(transaction, TransactionStatus.PROCESSING, null, null);
-
-            // 3. Process the credit
-            Wallet wallet = findWalletById(userId);
-            BigDecimal oldBalance = wallet.getBalance();
-
-            wallet.credit(request.getAmount());
-            wallet.setDescription(request.getDescription());
-            walletRepository.save(wallet);
-
-            BigDecimal newBalance = wallet.getBalance();
+            markProcessing(List.of(transaction));
 
-            // 4. Mark as successful
-            updateTransactionStatus(transaction, TransactionStatus.SUCCESS, newBalance, null);
-
-            log.info("Credit completed for user {}. Old balance: {}, New balance: {}",
-                    userId, oldBalance, newBalance);
+            // 3. Process the credit and mark as successful
+            criticalSection.run("credit", userId, null, () -> {
+                Wallet wallet = findWalletById(userId);
+                wallet.credit(request.getAmount());
+                wallet.setDescription(request.getDescription());
+                walletRepository.save(wallet);
+                completeTransaction(transaction, TransactionStatus.SUCCESS, wallet.getBalance(), null);
+                readRouting.recordWrite(userId);
+                return wallet.getBalance();
+            });
 
+            operationLog.completed("credit", userId, null, transaction.getReferenceId(), start);
             return buildTransactionResponse(transaction);
 
+        } catch (WalletBusyException e) {
+            recordOutcome(List.of(transaction), TransactionStatus.FAILED, e.getMessage());
+            throw e;
         } catch (Exception e) {
-            // 5. Mark as failed on any error
-            updateTransactionStatus(transaction, TransactionStatus.FAILED, null, e.getMessage());
-            log.error("Credit failed for user {}: {}", userId, e.getMessage());
+            // 4. Mark as failed on any error
+            recordOutcome(List.of(transaction), TransactionStatus.FAILED, e.getMessage());
+            operationLog.failed("credit", userId, null, transaction.getReferenceId(), e.getMessage(), start);
             throw new RuntimeException("Credit failed: " + e.getMessage());
+        } finally {
+            meterRegistry.timer("wallet.operation", "operation", "credit").record(System.nanoTime() - start,
+                    TimeUnit.NANOSECONDS);
         }
     }
 
-    @Transactional
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 100))
     public TransactionResponse debit(Long userId, WithdrawalRequest request) {
-        log.info("Initiating debit of {} for user {}", request.getAmount(), userId);
+        log.debug("Initiating debit of {} for user {}", request.getAmount(), userId);
+        long start = System.nanoTime();
+
+        if (balanceEngine != null) {
+            try {
+                WalletTransaction transaction = newPendingTransaction(userId, null, request.getAmount(),
+                        TransactionType.DEBIT, request.getDescription(), userId);
+                long limitToken = velocityLimiter.reserve(userId, request.getAmount());
+                LedgerEvent event;
+                try {
+                    event = awaitEngine(balanceEngine.debit(userId, toMinorUnits(request.getAmount()),
+                            transaction.getReferenceId(), request.getDescription()));
+                } catch (RuntimeException e) {
+                    velocityLimiter.release(userId, request.getAmount(), limitToken);
+                    if (!(e instanceof WalletBusyException)) {
+                        operationLog.failed("debit", userId, null, transaction.getReferenceId(), e.getMessage(), start);
+                    }
+                    throw e;
+                }
+                if (event.getStatus() == LedgerEvent.Status.DECLINED) {
+                    velocityLimiter.release(userId, request.getAmount(), limitToken);
+                    operationLog.declined("debit", userId, null, transaction.getReferenceId(),
+                            "Insufficient balance", start);
+                    throw new InsufficientBalanceException("Insufficient balance");
+                }
+                operationLog.completed("debit", userId, null, transaction.getReferenceId(), start);
+                return buildTransactionResponse(fromEngineEvent(transaction, event));
+            } catch (LimitExceededException e) {
+                operationLog.declined("debit", userId, null, null, e.getMessage(), start);
+                throw e;
+            } finally {
+                meterRegistry.timer("wallet.operation", "operation", "debit").record(System.nanoTime() - start,
+                        TimeUnit.NANOSECONDS);
+            }
+        }
 
         // 1. Create pending transaction (owner is the sender)
-        WalletTransaction transaction = createPendingTransaction(
+        WalletTransaction transaction = transactionRepository.save(newPendingTransaction(
                 userId,
                 null,
                 request.getAmount(),
                 TransactionType.DEBIT,
                 request.getDescription(),
                 userId
-        );
+        ));
 
+        long limitToken = 0;
         try {
-            // 2. Mark as processing
-            updateTransactionStatus(transaction, TransactionStatus.PROCESSING, null, null);
-
-            // 3. Process the debit
-            Wallet wallet = findWalletById(userId);
-            BigDecimal oldBalance = wallet.getBalance();
+            // 2. Check the spending limits, then mark as processing
+            limitToken = velocityLimiter.reserve(userId, request.getAmount());
+            markProcessing(List.of(transaction));
 
-            if (wallet.getBalance().compareTo(request.getAmount()) < 0) {
-                throw new InsufficientBalanceException("Insufficient balance");
-            }
-
-            wallet.debit(request.getAmount());
-            wallet.setDescription("Withdrawal - " + request.getDescription());
-            walletRepository.save(wallet);
-
-            BigDecimal newBalance = wallet.getBalance();
-
-            // 4. Mark as successful
-            updateTransactionStatus(transaction, TransactionStatus.SUCCESS, newBalance, null);
-
-            log.info("Debit completed for user {}. Old balance: {}, New balance: {}",
-                    userId, oldBalance, newBalance);
+            // 3. Process the debit and mark as successful
+            criticalSection.run("debit", userId, null, () -> {
+                Wallet wallet = findWalletById(userId);
+                if (wallet.getBalance().compareTo(request.getAmount()) < 0) {
+                    throw new InsufficientBalanceException("Insufficient balance");
+                }
+                wallet.debit(request.getAmount());
+                wallet.setDescription("Withdrawal - " + request.getDescription());
+                walletRepository.save(wallet);
+                completeTransaction(transaction, TransactionStatus.SUCCESS, wallet.getBalance(), null);
+                readRouting.recordWrite(userId);
+                return wallet.getBalance();
+            });
 
+            operationLog.completed("debit", userId, null, transaction.getReferenceId(), start);
             return buildTransactionResponse(transaction);
 
+        } catch (LimitExceededException e) {
+            recordOutcome(List.of(transaction), TransactionStatus.LIMIT_EXCEEDED, e.getMessage());
+            operationLog.declined("debit", userId, null, transaction.getReferenceId(), e.getMessage(), start);
+            throw e;
         } catch (InsufficientBalanceException e) {
-            // 5. Mark as failed for insufficient balance
-            updateTransactionStatus(transaction, TransactionStatus.DECLINED, null, e.getMessage());
-            log.error("Debit declined for user {}: {}", userId, e.getMessage());
+            // 4. Mark as declined for insufficient balance
+            velocityLimiter.release(userId, request.getAmount(), limitToken);
+            recordOutcome(List.of(transaction), TransactionStatus.DECLINED, e.getMessage());
+            operationLog.declined("debit", userId, null, transaction.getReferenceId(), e.getMessage(), start);
+            throw e;
+        } catch (WalletBusyException e) {
+            velocityLimiter.release(userId, request.getAmount(), limitToken);
+            recordOutcome(List.of(transaction), TransactionStatus.FAILED, e.getMessage());
             throw e;
         } catch (Exception e) {
-            // 6. Mark as failed for other errors
-            updateTransactionStatus(transaction, TransactionStatus.FAILED, null, e.getMessage());
-            log.error("Debit failed for user {}: {}", userId, e.getMessage());
+            // 5. Mark as failed for other errors
+            velocityLimiter.release(userId, request.getAmount(), limitToken);
+            recordOutcome(List.of(transaction), TransactionStatus.FAILED, e.getMessage());
+            operationLog.failed("debit", userId, null, transaction.getReferenceId(), e.getMessage(), start);
             throw new RuntimeException("Debit failed: " + e.getMessage());
+        } finally {
+            meterRegistry.timer("wallet.operation", "operation", "debit").record(System.nanoTime() - start,
+                    TimeUnit.NANOSECONDS);
         }
     }
 
-    @Transactional
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 100))
     public void transfer(TransferRequest request) {
+        transfer(request, newReferenceId());
+    }
+
+    /**
+     * Transfer under a reference id chosen by the caller, e.g. one derived from a scheduled occurrence,
+     * so the transfer can be found again after a crash: the TRANSFER_SENT row or the journal entry carries it,
+     * also when the transfer is forwarded to the sender's owner node.
+     */
+    public void transfer(TransferRequest request, String referenceId) {
         Long fromId = request.getSender();
         Long toId = request.getReceiver();
         BigDecimal amount = request.getTransferAmount();
 
-        log.info("Initiating transfer of {} from {} to {}", amount, fromId, toId);
+        log.debug("Initiating transfer of {} from {} to {}", amount, fromId, toId);
+        long start = System.nanoTime();
 
-        // 1. Create pending transaction for SENDER (owner is sender)
-        WalletTransaction senderTransaction = createPendingTransaction(
+        if (partitionRouter != null && partitionRouter.shouldForward(fromId)) {
+            // The sender's owner runs the transfer so only it writes the sender's wallet row
+            partitionClient.forwardTransfer(partitionRouter.ownerUrl(fromId), request, referenceId);
+            return;
+        }
+
+        // Quoted once, before anything is written, so the recorded rate is the one applied
+        FxRates.Conversion conversion = currencyTransfer(request);
+        if (conversion != null && (balanceEngine != null || (partitionRouter != null && !partitionRouter.isLocal(toId)))) {
+            throw new RuntimeException("Currency transfers are only supported between wallets on the same node, "
+                    + "with wallet.engine.mode=database");
+        }
+        BigDecimal limitAmount = conversion == null || baseCurrency.equals(conversion.from()) ? amount
+                : fxRateService.convert(amount, conversion.from(), baseCurrency).amount();
+        String operation = conversion == null ? "transfer" : "transfer.fx";
+
+        if (partitionRouter != null && !partitionRouter.isLocal(toId)) {
+            try {
+                transferAcrossPartitions(fromId, toId, amount, request.getDescription(), referenceId, start);
+                return;
+            } finally {
+                meterRegistry.timer("wallet.operation", "operation", "transfer.cross.partition")
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (balanceEngine != null) {
+            try {
+                long limitToken = velocityLimiter.reserve(fromId, amount);
+                LedgerEvent event;
+                try {
+                    event = awaitEngine(balanceEngine.transfer(fromId, toId, toMinorUnits(amount), referenceId,
+                            request.getDescription()));
+                } catch (RuntimeException e) {
+                    velocityLimiter.release(fromId, amount, limitToken);
+                    if (!(e instanceof WalletBusyException)) {
+                        operationLog.failed("transfer", fromId, toId, referenceId, e.getMessage(), start);
+                    }
+                    throw e;
+                }
+                if (event.getStatus() == LedgerEvent.Status.DECLINED) {
+                    velocityLimiter.release(fromId, amount, limitToken);
+                    operationLog.declined("transfer", fromId, toId, referenceId, "Insufficient balance", start);
+                    throw new InsufficientBalanceException("Insufficient balance");
+                }
+                operationLog.completed("transfer", fromId, toId, referenceId, start);
+                return;
+            } catch (LimitExceededException e) {
+                operationLog.declined("transfer", fromId, toId, referenceId, e.getMessage(), start);
+                throw e;
+            } finally {
+                meterRegistry.timer("wallet.operation", "operation", "transfer").record(System.nanoTime() - start,
+                        TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (journalLedger.isEnabled() && conversion == null) {
+            try {
+                transferJournaled(fromId, toId, amount, request.getDescription(), referenceId, start);
+                return;
+            } finally {
+                meterRegistry.timer("wallet.operation", "operation", "transfer").record(System.nanoTime() - start,
+                        TimeUnit.NANOSECONDS);
+            }
+        }
+
+        // 1. Create pending transactions for SENDER and RECEIVER in one insert transaction
+        WalletTransaction senderTransaction = newPendingTransaction(
                 fromId,
                 toId,
                 amount,
@@ -203,63 +519,391 @@ public class WalletService {
                 request.getDescription() != null ? request.getDescription() : "Transfer to user " + toId,
                 fromId
         );
-
-        // 2. Create pending transaction for RECEIVER (owner is receiver)
-        WalletTransaction receiverTransaction = createPendingTransaction(
+        WalletTransaction receiverTransaction = newPendingTransaction(
                 fromId,
                 toId,
-                amount,
+                conversion == null ? amount : conversion.amount(),
                 TransactionType.TRANSFER_RECEIVED,
                 request.getDescription() != null ? request.getDescription() : "Transfer from user " + fromId,
                 toId
         );
+        // The receiver row keeps its own reference: only cross-partition transfers link the two halves
+        senderTransaction.setReferenceId(referenceId);
+        if (conversion != null) {
+            recordCurrency(senderTransaction, conversion.from(), conversion);
+            recordCurrency(receiverTransaction, conversion.to(), conversion);
+        }
+        List<WalletTransaction> transactions = transactionRepository.saveAll(List.of(senderTransaction, receiverTransaction));
 
+        long limitToken = 0;
         try {
-            // 3. Mark both as processing
-            updateTransactionStatus(senderTransaction, TransactionStatus.PROCESSING, null, null);
-            updateTransactionStatus(receiverTransaction, TransactionStatus.PROCESSING, null, null);
+            // 2. Check the sender's spending limits (in the base currency), then mark both as processing
+            limitToken = velocityLimiter.reserve(fromId, limitAmount);
+            markProcessing(transactions);
 
-            // 4. Process the transfer
-            Wallet sender = findWalletById(fromId);
-            Wallet receiver = findWalletById(toId);
+            // 3. Process the transfer and mark both as successful
+            criticalSection.run(operation, fromId, toId, () -> {
+                BigDecimal[] balances;
+                if (conversion == null) {
+                    Wallet[] wallets = moveBalance(fromId, toId, amount, request.getDescription());
+                    balances = new BigDecimal[]{wallets[0].getBalance(), wallets[1].getBalance()};
+                } else {
+                    balances = moveCurrencyBalance(fromId, toId, amount, conversion, request.getDescription());
+                }
+                completeTransaction(senderTransaction, TransactionStatus.SUCCESS, balances[0], null);
+                completeTransaction(receiverTransaction, TransactionStatus.SUCCESS, balances[1], null);
+                return null;
+            });
+
+            operationLog.completed("transfer", fromId, toId, senderTransaction.getReferenceId(), start);
+
+        } catch (LimitExceededException e) {
+            recordOutcome(transactions, TransactionStatus.LIMIT_EXCEEDED, e.getMessage());
+            operationLog.declined("transfer", fromId, toId, senderTransaction.getReferenceId(), e.getMessage(), start);
+            throw e;
+        } catch (InsufficientBalanceException e) {
+            // 4. Mark both as declined
+            velocityLimiter.release(fromId, limitAmount, limitToken);
+            recordOutcome(transactions, TransactionStatus.DECLINED, e.getMessage());
+            operationLog.declined("transfer", fromId, toId, senderTransaction.getReferenceId(), e.getMessage(), start);
+            throw e;
+        } catch (WalletBusyException e) {
+            velocityLimiter.release(fromId, limitAmount, limitToken);
+            recordOutcome(transactions, TransactionStatus.FAILED, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            // 5. Mark both as failed
+            velocityLimiter.release(fromId, limitAmount, limitToken);
+            recordOutcome(transactions, TransactionStatus.FAILED, e.getMessage());
+            operationLog.failed("transfer", fromId, toId, senderTransaction.getReferenceId(), e.getMessage(), start);
+            throw new RuntimeException("Transfer failed: " + e.getMessage());
+        } finally {
+            meterRegistry.timer("wallet.operation", "operation", operation).record(System.nanoTime() - start,
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The conversion a transfer needs, or null when it is in the base currency on both sides.
+     */
+    private FxRates.Conversion currencyTransfer(TransferRequest request) {
+        String currency = currencyOrBase(request.getCurrency());
+        String receiverCurrency = request.getReceiverCurrency() != null
+                ? currencyOrBase(request.getReceiverCurrency()) : currency;
+        if (currency.equals(baseCurrency) && receiverCurrency.equals(baseCurrency)) {
+            return null;
+        }
+        FxRates.Conversion conversion = fxRateService.convert(request.getTransferAmount(), currency, receiverCurrency);
+        if (conversion.amount().signum() <= 0) {
+            throw new RuntimeException("Amount is too small to convert to " + receiverCurrency);
+        }
+        return conversion;
+    }
+
+    private String currencyOrBase(String currency) {
+        return currency == null || currency.isBlank() ? baseCurrency : currency.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Currency of a ledger row (left null for the base currency) and, for a conversion, the rate applied.
+     */
+    private void recordCurrency(WalletTransaction transaction, String currency, FxRates.Conversion conversion) {
+        transaction.setCurrency(baseCurrency.equals(currency) ? null : currency);
+        transaction.setFxRate(conversion.from().equals(conversion.to()) ? null : conversion.rate());
+    }
 
+    /**
+     * Debit the sender and credit the receiver inside the caller's critical section.
+     *
+     * @return the sender and receiver wallets after the change.
+     */
+    private Wallet[] moveBalance(Long fromId, Long toId, BigDecimal amount, String description) {
+        // Load in id order so opposite transfers take row locks in the same order
+        Wallet first = findWalletById(Math.min(fromId, toId));
+        Wallet second = fromId.equals(toId) ? first : findWalletById(Math.max(fromId, toId));
+        Wallet sender = first.getUserId().equals(fromId) ? first : second;
+        Wallet receiver = sender == first ? second : first;
+
+        if (sender.getBalance().compareTo(amount) < 0) {
+            throw new InsufficientBalanceException("Insufficient balance");
+        }
+
+        sender.debit(amount);
+        sender.setDescription(description);
+        receiver.credit(amount);
+
+        walletRepository.save(sender);
+        walletRepository.save(receiver);
+        readRouting.recordWrite(fromId);
+        readRouting.recordWrite(toId);
+        return new Wallet[]{sender, receiver};
+    }
+
+    /**
+     * Debit the sender in the source currency and credit the receiver the converted amount, inside the
+     * caller's critical section. A base-currency side changes the {@link Wallet}; another currency changes
+     * the wallet's balance row in that currency with a conditional update, and bumps the wallet version
+     * instead, which also checks the wallet exists. Wallet rows are taken in id order, as in moveBalance.
+     *
+     * @return the sender's and the receiver's balance after the change, each in its currency.
+     */
+    private BigDecimal[] moveCurrencyBalance(Long fromId, Long toId, BigDecimal amount, FxRates.Conversion conversion,
+                                             String description) {
+        boolean senderBase = baseCurrency.equals(conversion.from());
+        boolean receiverBase = baseCurrency.equals(conversion.to());
+        for (Long userId : fromId.equals(toId) ? List.of(fromId) : List.of(Math.min(fromId, toId), Math.max(fromId, toId))) {
+            boolean baseSide = (userId.equals(fromId) && senderBase) || (userId.equals(toId) && receiverBase);
+            if (baseSide) {
+                findWalletById(userId);
+            } else if (walletRepository.touchVersion(userId) == 0) {
+                throw new RuntimeException("Wallet not found for the id : " + userId);
+            }
+        }
+
+        BigDecimal senderBalance;
+        if (senderBase) {
+            Wallet sender = findWalletById(fromId);
             if (sender.getBalance().compareTo(amount) < 0) {
                 throw new InsufficientBalanceException("Insufficient balance");
             }
-
-            BigDecimal senderOldBalance = sender.getBalance();
-            BigDecimal receiverOldBalance = receiver.getBalance();
-
             sender.debit(amount);
-            sender.setDescription(request.getDescription());
-            receiver.credit(amount);
+            sender.setDescription(description);
+            senderBalance = walletRepository.save(sender).getBalance();
+        } else {
+            if (currencyBalanceRepository.debit(fromId, conversion.from(), amount) == 0) {
+                throw new InsufficientBalanceException("Insufficient " + conversion.from() + " balance");
+            }
+            senderBalance = currencyBalanceRepository.findBalance(fromId, conversion.from());
+        }
 
-            walletRepository.save(sender);
-            walletRepository.save(receiver);
+        BigDecimal receiverBalance;
+        if (receiverBase) {
+            Wallet receiver = findWalletById(toId);
+            receiver.credit(conversion.amount());
+            receiverBalance = walletRepository.save(receiver).getBalance();
+        } else {
+            currencyBalanceRepository.credit(toId, conversion.to(), conversion.amount());
+            receiverBalance = currencyBalanceRepository.findBalance(toId, conversion.to());
+        }
 
-            BigDecimal senderNewBalance = sender.getBalance();
-            BigDecimal receiverNewBalance = receiver.getBalance();
+        readRouting.recordWrite(fromId);
+        readRouting.recordWrite(toId);
+        return new BigDecimal[]{senderBalance, receiverBalance};
+    }
 
-            // 5. Mark both as successful
-            updateTransactionStatus(senderTransaction, TransactionStatus.SUCCESS, senderNewBalance, null);
-            updateTransactionStatus(receiverTransaction, TransactionStatus.SUCCESS, receiverNewBalance, null);
+    /**
+     * Same-node transfer in the {@link JournalLedger}: one PENDING entry is inserted, and the critical
+     * section moves it straight to SUCCESS together with the two postings. There is no PROCESSING
+     * step: if the entry was completed in the meantime, the conditional update fails and the balance
+     * change rolls back with it.
+     */
+    private void transferJournaled(Long fromId, Long toId, BigDecimal amount, String description, String referenceId,
+                                   long start) {
+        JournalEntry entry = journalLedger.open(referenceId, fromId, toId, amount, description);
+        long limitToken = 0;
+        try {
+            limitToken = velocityLimiter.reserve(fromId, amount);
+            criticalSection.run("transfer", fromId, toId, () -> {
+                Wallet[] wallets = moveBalance(fromId, toId, amount, description);
+                journalLedger.post(entry, wallets[0].getBalance(), wallets[1].getBalance());
+                return null;
+            });
+            operationLog.completed("transfer", fromId, toId, entry.getReferenceId(), start);
+        } catch (LimitExceededException e) {
+            recordJournalOutcome(entry, TransactionStatus.LIMIT_EXCEEDED, e.getMessage());
+            operationLog.declined("transfer", fromId, toId, entry.getReferenceId(), e.getMessage(), start);
+            throw e;
+        } catch (InsufficientBalanceException e) {
+            velocityLimiter.release(fromId, amount, limitToken);
+            recordJournalOutcome(entry, TransactionStatus.DECLINED, e.getMessage());
+            operationLog.declined("transfer", fromId, toId, entry.getReferenceId(), e.getMessage(), start);
+            throw e;
+        } catch (WalletBusyException e) {
+            velocityLimiter.release(fromId, amount, limitToken);
+            recordJournalOutcome(entry, TransactionStatus.FAILED, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            velocityLimiter.release(fromId, amount, limitToken);
+            recordJournalOutcome(entry, TransactionStatus.FAILED, e.getMessage());
+            operationLog.failed("transfer", fromId, toId, entry.getReferenceId(), e.getMessage(), start);
+            throw new RuntimeException("Transfer failed: " + e.getMessage());
+        }
+    }
+
+    private void recordJournalOutcome(JournalEntry entry, TransactionStatus status, String reason) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> journalLedger.complete(entry, status, reason));
+        } catch (Exception e) {
+            log.error("Could not record {} for journal entry {}: {}", status, entry.getId(), e.getMessage());
+        }
+    }
 
-            log.info("Transfer completed. Sender: {} -> {}, Receiver: {} -> {}",
-                    senderOldBalance, senderNewBalance, receiverOldBalance, receiverNewBalance);
+    /**
+     * Transfer to a wallet owned by another node, as reserve/commit over the two PENDING rows:
+     * <ol>
+     *     <li>Both rows are inserted PENDING with one shared reference id.</li>
+     *     <li>Reserve: this node debits the sender and moves the sender row to PROCESSING in one
+     *     transaction, so a PROCESSING sender row always means the money is held.</li>
+     *     <li>Commit: the receiver's owner credits the receiver and moves the receiver row from
+     *     PENDING straight to SUCCESS in one transaction.</li>
+     *     <li>The receiver row decides the outcome. If the commit cannot be confirmed, the receiver
+     *     row is aborted with a conditional PENDING -> FAILED update (presumed abort). If that wins,
+     *     the sender is refunded; if it loses, the commit happened.</li>
+     * </ol>
+     * Transfers left PROCESSING by a crash are settled the same way by
+     * {@link #recoverCrossPartitionTransfer(WalletTransaction)}.
+     */
+    private void transferAcrossPartitions(Long fromId, Long toId, BigDecimal amount, String description,
+                                          String referenceId, long start) {
+        WalletTransaction senderTransaction = newPendingTransaction(fromId, toId, amount,
+                TransactionType.TRANSFER_SENT, description != null ? description : "Transfer to user " + toId, fromId);
+        WalletTransaction receiverTransaction = newPendingTransaction(fromId, toId, amount,
+                TransactionType.TRANSFER_RECEIVED, description != null ? description : "Transfer from user " + fromId, toId);
+        senderTransaction.setReferenceId(referenceId);
+        receiverTransaction.setReferenceId(referenceId);
+        List<WalletTransaction> transactions = transactionRepository.saveAll(List.of(senderTransaction, receiverTransaction));
 
+        // 1. Check the sender's spending limits and reserve on this node
+        long limitToken = 0;
+        try {
+            limitToken = velocityLimiter.reserve(fromId, amount);
+            BigDecimal senderBalance = criticalSection.run("transfer.reserve", fromId, null, () -> {
+                Wallet sender = findWalletById(fromId);
+                if (sender.getBalance().compareTo(amount) < 0) {
+                    throw new InsufficientBalanceException("Insufficient balance");
+                }
+                sender.debit(amount);
+                walletRepository.save(sender);
+                if (transactionRepository.reserve(senderTransaction.getId(), sender.getBalance()) != 1) {
+                    throw new RuntimeException("Transaction is no longer pending");
+                }
+                readRouting.recordWrite(fromId);
+                return sender.getBalance();
+            });
+            senderTransaction.setStatus(TransactionStatus.PROCESSING);
+            senderTransaction.setBalanceAfterTransaction(senderBalance);
+        } catch (LimitExceededException e) {
+            recordOutcome(transactions, TransactionStatus.LIMIT_EXCEEDED, e.getMessage());
+            operationLog.declined("transfer", fromId, toId, senderTransaction.getReferenceId(), e.getMessage(), start);
+            throw e;
         } catch (InsufficientBalanceException e) {
-            // 6. Mark both as declined
-            updateTransactionStatus(senderTransaction, TransactionStatus.DECLINED, null, e.getMessage());
-            updateTransactionStatus(receiverTransaction, TransactionStatus.DECLINED, null, e.getMessage());
-            log.error("Transfer declined from {} to {}: {}", fromId, toId, e.getMessage());
+            velocityLimiter.release(fromId, amount, limitToken);
+            recordOutcome(transactions, TransactionStatus.DECLINED, e.getMessage());
+            operationLog.declined("transfer", fromId, toId, senderTransaction.getReferenceId(), e.getMessage(), start);
+            throw e;
+        } catch (WalletBusyException e) {
+            velocityLimiter.release(fromId, amount, limitToken);
+            recordOutcome(transactions, TransactionStatus.FAILED, e.getMessage());
             throw e;
         } catch (Exception e) {
-            // 7. Mark both as failed
-            updateTransactionStatus(senderTransaction, TransactionStatus.FAILED, null, e.getMessage());
-            updateTransactionStatus(receiverTransaction, TransactionStatus.FAILED, null, e.getMessage());
-            log.error("Transfer failed from {} to {}: {}", fromId, toId, e.getMessage());
+            velocityLimiter.release(fromId, amount, limitToken);
+            recordOutcome(transactions, TransactionStatus.FAILED, e.getMessage());
+            operationLog.failed("transfer", fromId, toId, senderTransaction.getReferenceId(), e.getMessage(), start);
             throw new RuntimeException("Transfer failed: " + e.getMessage());
         }
+
+        // 2. Commit on the receiver's owner
+        TransactionStatus receiverStatus = null;
+        try {
+            receiverStatus = TransactionStatus.valueOf(
+                    partitionClient.commitCredit(partitionRouter.ownerUrl(toId), senderTransaction.getReferenceId()));
+        } catch (Exception e) {
+            log.warn("Commit of transfer {} not confirmed: {}", senderTransaction.getReferenceId(), e.getMessage());
+        }
+
+        // 3. Settle the sender row from the receiver row's outcome
+        TransactionStatus outcome = settleCrossPartitionTransfer(senderTransaction, receiverTransaction.getId(), receiverStatus);
+        if (outcome == TransactionStatus.SUCCESS) {
+            operationLog.completed("transfer", fromId, toId, senderTransaction.getReferenceId(), start);
+        } else if (outcome == TransactionStatus.PROCESSING) {
+            throw new RuntimeException("Transfer " + senderTransaction.getReferenceId() + " is still being settled");
+        } else {
+            velocityLimiter.release(fromId, amount, limitToken);
+            throw new RuntimeException("Transfer failed: receiver did not accept the transfer");
+        }
+    }
+
+    /**
+     * Receiver half of a cross-partition transfer, run on the receiver's owner node. Idempotent.
+     *
+     * @return the receiver row's status afterwards: SUCCESS, or FAILED if it could not be applied.
+     */
+    public TransactionStatus commitTransferCredit(String referenceId) {
+        WalletTransaction transaction = transactionRepository.findByReferenceIdAndType(referenceId,
+                        TransactionType.TRANSFER_RECEIVED)
+                .orElseThrow(() -> new RuntimeException("Transaction not found"));
+        if (transaction.getStatus() != TransactionStatus.PENDING) {
+            return transactionRepository.findStatusById(transaction.getId());
+        }
+        Long receiverId = transaction.getOwnerUserId();
+        try {
+            criticalSection.run("transfer.commit", receiverId, null, () -> {
+                // Joins this transaction, so PROCESSING is never visible: the row goes PENDING -> SUCCESS
+                if (transactionRepository.transitionStatus(List.of(transaction.getId()),
+                        TransactionStatus.PENDING, TransactionStatus.PROCESSING) != 1) {
+                    return null;
+                }
+                Wallet receiver = findWalletById(receiverId);
+                receiver.credit(transaction.getAmount());
+                walletRepository.save(receiver);
+                completeTransaction(transaction, TransactionStatus.SUCCESS, receiver.getBalance(), null);
+                readRouting.recordWrite(receiverId);
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Commit of transfer {} failed for user {}: {}", referenceId, receiverId, e.getMessage());
+            transactionRepository.abortIfPending(transaction.getId(), e.getMessage(), LocalDateTime.now());
+        }
+        return transactionRepository.findStatusById(transaction.getId());
+    }
+
+    /**
+     * Settle a cross-partition transfer left PROCESSING on this node, e.g. after a crash between
+     * reserve and commit.
+     *
+     * @return the sender row's status afterwards; PROCESSING if the receiver is still undecided.
+     */
+    public TransactionStatus recoverCrossPartitionTransfer(WalletTransaction senderTransaction) {
+        return transactionRepository.findByReferenceIdAndType(senderTransaction.getReferenceId(),
+                        TransactionType.TRANSFER_RECEIVED)
+                .map(receiver -> settleCrossPartitionTransfer(senderTransaction, receiver.getId(), null))
+                .orElse(TransactionStatus.PROCESSING);
+    }
+
+    private TransactionStatus settleCrossPartitionTransfer(WalletTransaction senderTransaction, Long receiverTransactionId,
+                                                           TransactionStatus receiverStatus) {
+        if (receiverStatus == null || receiverStatus == TransactionStatus.PENDING) {
+            if (transactionRepository.abortIfPending(receiverTransactionId, "Transfer not committed", LocalDateTime.now()) == 1) {
+                receiverStatus = TransactionStatus.FAILED;
+            } else {
+                receiverStatus = transactionRepository.findStatusById(receiverTransactionId);
+            }
+        }
+        if (receiverStatus == TransactionStatus.PROCESSING) {
+            return TransactionStatus.PROCESSING;
+        }
+
+        Long senderId = senderTransaction.getOwnerUserId();
+        if (receiverStatus == TransactionStatus.SUCCESS) {
+            transactionTemplate.executeWithoutResult(tx -> completeTransaction(senderTransaction,
+                    TransactionStatus.SUCCESS, senderTransaction.getBalanceAfterTransaction(), null));
+            return TransactionStatus.SUCCESS;
+        }
+
+        // The receiver was never credited: release the hold. Only the caller that moves the sender
+        // row out of PROCESSING refunds, so a concurrent recovery cannot refund twice.
+        String reason = "Receiver did not accept the transfer: " + receiverStatus;
+        criticalSection.run("transfer.refund", senderId, null, () -> {
+            if (!completeTransaction(senderTransaction, TransactionStatus.FAILED, null, reason)) {
+                return null;
+            }
+            Wallet sender = findWalletById(senderId);
+            sender.credit(senderTransaction.getAmount());
+            walletRepository.save(sender);
+            readRouting.recordWrite(senderId);
+            return null;
+        });
+        return TransactionStatus.FAILED;
     }
 
     /**
@@ -280,31 +924,113 @@ public class WalletService {
             throw new RuntimeException("Only pending transactions can be cancelled");
         }
 
-        transaction.markAsCancelled();
-        transactionRepository.save(transaction);
+        // Conditional update so a cancel cannot overwrite a transaction that started processing
+        if (transactionRepository.cancelIfPending(transactionId, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("Only pending transactions can be cancelled");
+        }
+        readRouting.recordWrite(userId);
 
         log.info("Transaction {} cancelled by user {}", transactionId, userId);
     }
 
-    @Transactional
+    // Read paths run in read-only transactions so they can be served by the replica. Only the caller
+    // leading a single-flight load opens one; callers sharing its result take no connection.
     public BigDecimal checkBalance(Long id) {
-        log.info("Balance check for {}", id);
-        return walletRepository.findById(id)
-                .map(Wallet::getBalance)
-                .orElseThrow(() -> new RuntimeException("Wallet not found for id: " + id));
+        long start = System.nanoTime();
+        BigDecimal balance = balanceEngine != null
+                ? BigDecimal.valueOf(awaitEngine(balanceEngine.balance(id)).getBalanceAfter(), 2)
+                : balanceReads.load(id, readRouting.lastWriteMillis(id), () -> readTemplate.execute(tx ->
+                        readRouting.read(id, () -> walletRepository.findById(id))
+                                .map(Wallet::getBalance)
+                                .orElseThrow(() -> new RuntimeException("Wallet not found for id: " + id))));
+        operationLog.completed("balance", id, null, null, start);
+        return balance;
     }
 
-    @Transactional
+    public String baseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * The wallet's balances in currencies other than the base currency, by currency. Empty in memory
+     * engine mode, which has no currency transfers.
+     */
+    public Map<String, BigDecimal> currencyBalances(Long id) {
+        if (balanceEngine != null) {
+            return Map.of();
+        }
+        Map<String, BigDecimal> balances = new LinkedHashMap<>();
+        readTemplate.execute(tx -> readRouting.read(id, () -> currencyBalanceRepository.findByUserIdOrderByCurrency(id)))
+                .forEach(balance -> balances.put(balance.getCurrency(), balance.getBalance()));
+        return balances;
+    }
+
+    /**
+     * Weak ETag of the balance: the wallet's optimistic-lock version, which changes with every balance
+     * change, in any currency. Null when there is no wallet, or in memory engine mode where the database version lags.
+     */
+    public String balanceETag(Long id) {
+        if (balanceEngine != null) {
+            return null;
+        }
+        return readTemplate.execute(tx -> readRouting.read(id, () -> walletRepository.findVersionById(id)))
+                .map(version -> "W/\"" + version + "\"")
+                .orElse(null);
+    }
+
+    /**
+     * Weak ETag of the history: row count, latest id, latest completion and the number of PENDING and
+     * PROCESSING rows, so new rows and every status change (including PENDING -> PROCESSING, declines and
+     * cancels, which leave the wallet version alone) change it.
+     */
+    public String historyETag(Long id) {
+        List<WalletTransactionRepository.HistoryVersion> versions = readTemplate.execute(tx -> readRouting.read(id, () -> {
+            WalletTransactionRepository.HistoryVersion journal = journalLedger.historyVersion(id);
+            WalletTransactionRepository.HistoryVersion ledger = transactionRepository.findHistoryVersion(id);
+            return journal == null ? List.of(ledger) : List.of(ledger, journal);
+        }));
+        StringBuilder etag = new StringBuilder("W/\"");
+        for (WalletTransactionRepository.HistoryVersion version : versions) {
+            long lastCompleted = version.getLastCompleted() == null ? 0
+                    : version.getLastCompleted().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            etag.append(etag.length() > 3 ? "-" : "").append(version.getCount()).append('-')
+                    .append(version.getLastId()).append('-').append(lastCompleted).append('-')
+                    .append(version.getPending()).append('-').append(version.getProcessing());
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * The returned list is shared with concurrent callers and must not be modified.
+     */
     public List<WalletTransaction> checkTransactions(Long id) {
-        log.info("Transactions for id {}", id);
+        long start = System.nanoTime();
         // Query by ownerUserId instead of sender/receiver
-        return transactionRepository.findByOwnerUserIdOrderByTransactionTimeDesc(id);
+        List<WalletTransaction> transactions = historyReads.load(id, readRouting.lastWriteMillis(id),
+                () -> history(id, null));
+        operationLog.completed("history", id, null, null, start);
+        return transactions;
     }
 
-    @Transactional
     public List<WalletTransaction> getTransactionsByStatus(Long userId, TransactionStatus status) {
-        log.info("Fetching {} transactions for user {}", status, userId);
-        return transactionRepository.findByOwnerUserIdAndStatusOrderByTransactionTimeDesc(userId, status);
+        long start = System.nanoTime();
+        List<WalletTransaction> transactions = statusReads.load(List.of(userId, status),
+                readRouting.lastWriteMillis(userId), () -> history(userId, status));
+        operationLog.completed("history", userId, null, null, start);
+        return transactions;
+    }
+
+    /**
+     * Ledger rows with the archived ones appended, merged with journaled transfers. The archive is
+     * read outside the transaction and only deduplicated against ledger rows, whose ids it shares.
+     */
+    private List<WalletTransaction> history(Long userId, TransactionStatus status) {
+        List<List<WalletTransaction>> hot = readTemplate.execute(tx -> readRouting.read(userId, () -> List.of(
+                status == null
+                        ? transactionRepository.findByOwnerUserIdOrderByTransactionTimeDesc(userId)
+                        : transactionRepository.findByOwnerUserIdAndStatusOrderByTransactionTimeDesc(userId, status),
+                journalLedger.history(userId, status))));
+        return JournalLedger.merge(ledgerArchive.appendArchived(userId, hot.get(0), status), hot.get(1));
     }
 
     /**
@@ -315,6 +1041,8 @@ public class WalletService {
         response.setTransactionId(transaction.getId());
         response.setReferenceId(transaction.getReferenceId());
         response.setAmount(transaction.getAmount());
+        response.setCurrency(transaction.getCurrency() != null ? transaction.getCurrency() : baseCurrency);
+        response.setFxRate(transaction.getFxRate());
         response.setTransactionType(transaction.getType().toString());
         response.setTransactionStatus(transaction.getStatus().toString());
         response.setTransactionDate(transaction.getTransactionTime());
@@ -0,0 +1,81 @@
+package com.wallet.singleflight;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader and everyone who
+ * arrives while it runs gets the same result (or exception). Nothing is cached once the load ends.
+ * <p>
+ * A caller only joins a load that started after notBeforeMillis (its last committed write), so it
+ * never gets a result read before its own write. Followers wait at most maxWaitMillis and then
+ * load on their own.
+ */
+public class SingleFlight<K, V> {
+
+    private static final class Flight<V> {
+        final long startedAt;
+        final CompletableFuture<V> result = new CompletableFuture<>();
+
+        Flight(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitMillis;
+    private final Runnable onJoin;
+
+    /**
+     * @param onJoin called each time a caller shares another caller's load, e.g. to count them.
+     */
+    public SingleFlight(long maxWaitMillis, Runnable onJoin) {
+        this.maxWaitMillis = maxWaitMillis;
+        this.onJoin = onJoin;
+    }
+
+    public V load(K key, long notBeforeMillis, Supplier<V> loader) {
+        Flight<V> mine = new Flight<>(System.currentTimeMillis());
+        Flight<V> current = inFlight.compute(key,
+                (k, existing) -> existing != null && existing.startedAt > notBeforeMillis ? existing : mine);
+        if (current == mine) {
+            return lead(key, mine, loader);
+        }
+        onJoin.run();
+        try {
+            return current.result.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return loader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a read", e);
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private V lead(K key, Flight<V> flight, Supplier<V> loader) {
+        try {
+            V value = loader.get();
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            // A newer flight may have replaced this one after a write; leave it alone
+            inFlight.remove(key, flight);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.wallet.startup;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * With spring.main.lazy-initialization (the startup profile) only framework beans nothing else needs
+ * at boot become lazy, such as actuator endpoints. The application's own beans stay eager, and with
+ * them everything they depend on: the datasource, Hibernate, Flyway, and the filters, schedulers and
+ * in-memory state the first request relies on. So startup gets shorter without moving work onto
+ * the first request.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.main.lazy-initialization", havingValue = "true")
+public class LazyInitializationConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerWalletBeans() {
+        return (beanName, beanDefinition, beanType) ->
+                beanType != null && beanType.getName().startsWith("com.wallet.");
+    }
+}
@@ -0,0 +1,83 @@
+-- Moves same-node transfers from wallet_transactions into the double-entry ledger
+-- (journal_entries + postings, see wallet.ledger.journal.enabled). MySQL 8.
+--
+-- Run it before enabling the journal, with the application stopped or still writing rows. Journal
+-- entries get ids of their own; history shows a journaled transfer under its negated journal id (see
+-- JournalLedger.viewId), so moved transfers change transaction id while keeping their reference id.
+-- The tables must exist (the migrations create them).
+--
+-- Old rows do not link the two halves of a transfer (each got its own reference id), so a
+-- TRANSFER_RECEIVED row is paired with the nearest later TRANSFER_SENT row of the same sender,
+-- receiver, amount and status. Pairs that are not unique, cross-partition transfers (both halves
+-- share a reference id and keep using rows), currency transfers (the journal has no currency) and
+-- open transfers stay in wallet_transactions, where history still reads them. On large tables run it
+-- per id range by narrowing @from_id/@to_id.
+
+SET @from_id = 0;
+SET @to_id = 9223372036854775807;
+
+CREATE TABLE journal_backfill_pairs (
+    sent_id BIGINT NOT NULL PRIMARY KEY,
+    received_id BIGINT NOT NULL,
+    journal_id BIGINT NULL,
+    KEY idx_backfill_received (received_id)
+);
+
+INSERT INTO journal_backfill_pairs (sent_id, received_id)
+SELECT s.id,
+       (SELECT MIN(r.id) FROM wallet_transactions r
+        WHERE r.owner_user_id = s.receiver AND r.type = 'TRANSFER_RECEIVED' AND r.sender = s.sender
+          AND r.amount = s.amount AND r.status = s.status AND r.id > s.id
+          AND r.currency IS NULL AND r.fx_rate IS NULL) AS received_id
+FROM wallet_transactions s
+WHERE s.type = 'TRANSFER_SENT' AND s.id BETWEEN @from_id AND @to_id
+  AND s.status NOT IN ('PENDING', 'PROCESSING') AND s.currency IS NULL AND s.fx_rate IS NULL
+  AND NOT EXISTS (SELECT 1 FROM wallet_transactions x
+                  WHERE x.reference_id = s.reference_id AND x.type = 'TRANSFER_RECEIVED')
+HAVING received_id IS NOT NULL;
+
+-- Two sent rows matched to the same received row: leave both transfers as they are
+DELETE p FROM journal_backfill_pairs p
+JOIN (SELECT received_id FROM journal_backfill_pairs GROUP BY received_id HAVING COUNT(*) > 1) ambiguous
+  ON ambiguous.received_id = p.received_id;
+
+START TRANSACTION;
+
+-- The description is kept only when the caller gave one; the default text is derived on read
+INSERT INTO journal_entries (reference_id, from_user_id, to_user_id, amount, description, status,
+                             failure_reason, created_time, completed_time)
+SELECT s.reference_id, s.sender, s.receiver, s.amount,
+       NULLIF(s.description, CONCAT('Transfer to user ', s.receiver)),
+       s.status, s.failure_reason, s.transaction_time, s.completed_time
+FROM journal_backfill_pairs p
+JOIN wallet_transactions s ON s.id = p.sent_id
+ORDER BY s.id;
+
+-- Each old sent row has its own reference id, and the journal was not enabled yet
+UPDATE journal_backfill_pairs p
+JOIN wallet_transactions s ON s.id = p.sent_id
+JOIN journal_entries j ON j.reference_id = s.reference_id AND j.from_user_id = s.sender
+SET p.journal_id = j.id;
+
+INSERT INTO postings (journal_id, wallet_user_id, amount, balance_after)
+SELECT journal_id, wallet_user_id, amount, balance_after FROM (
+    SELECT p.journal_id AS journal_id, 0 AS side, s.owner_user_id AS wallet_user_id, -s.amount AS amount,
+           s.balance_after_transaction AS balance_after
+    FROM journal_backfill_pairs p
+    JOIN wallet_transactions s ON s.id = p.sent_id
+    WHERE s.status = 'SUCCESS'
+    UNION ALL
+    SELECT p.journal_id, 1, r.owner_user_id, r.amount, r.balance_after_transaction
+    FROM journal_backfill_pairs p
+    JOIN wallet_transactions s ON s.id = p.sent_id
+    JOIN wallet_transactions r ON r.id = p.received_id
+    WHERE s.status = 'SUCCESS'
+) sides
+ORDER BY journal_id, side;
+
+DELETE t FROM wallet_transactions t JOIN journal_backfill_pairs p ON t.id = p.sent_id;
+DELETE t FROM wallet_transactions t JOIN journal_backfill_pairs p ON t.id = p.received_id;
+
+COMMIT;
+
+DROP TABLE journal_backfill_pairs;
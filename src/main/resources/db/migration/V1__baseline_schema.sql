@@ -0,0 +1,38 @@
+-- Schema as spring.jpa.hibernate.ddl-auto=update created it for MySQL 8, before migrations took over.
+-- Databases that already have these tables are baselined at this version (spring.flyway.baseline-on-migrate)
+-- and only run the later migrations, so this must stay exactly the schema they have; changes go in V2+.
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    email_id VARCHAR(255) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email_id UNIQUE (email_id)
+);
+
+CREATE TABLE wallets (
+    user_id BIGINT NOT NULL,
+    balance DECIMAL(19, 2) NOT NULL,
+    version BIGINT,
+    description VARCHAR(255),
+    PRIMARY KEY (user_id)
+);
+
+CREATE TABLE wallet_transactions (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    sender BIGINT,
+    receiver BIGINT,
+    owner_user_id BIGINT,
+    amount DECIMAL(38, 2) NOT NULL,
+    type ENUM ('CREDIT', 'DEBIT', 'TRANSFER_SENT', 'TRANSFER_RECEIVED') NOT NULL,
+    status ENUM ('PENDING', 'PROCESSING', 'SUCCESS', 'FAILED', 'CANCELLED', 'REVERSED', 'DECLINED') NOT NULL,
+    description VARCHAR(255),
+    failure_reason VARCHAR(255),
+    balance_after_transaction DECIMAL(38, 2),
+    transaction_time DATETIME(6),
+    completed_time DATETIME(6),
+    reference_id VARCHAR(255),
+    PRIMARY KEY (id)
+);
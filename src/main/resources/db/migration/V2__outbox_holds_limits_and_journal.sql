@@ -0,0 +1,80 @@
+-- Schema of the outbox, holds, spending limits, double-entry journal and in-memory balance engine, on top
+-- of the V1 baseline. Baselined databases get it here too.
+--   reserved_balance  funds on hold, moved out of balance until captured, released or expired
+--   LIMIT_EXCEEDED  ledger rows declined by the per-user spending limits
+--   transaction_time NOT NULL  every row has always had it; the monthly partition key needs it
+--   idx_txn_owner_time  history reads and the velocity limit ledger check, one range per wallet
+
+ALTER TABLE wallets ADD COLUMN reserved_balance DECIMAL(19, 2) NOT NULL DEFAULT 0;
+
+ALTER TABLE wallet_transactions
+    MODIFY COLUMN status ENUM ('PENDING', 'PROCESSING', 'SUCCESS', 'FAILED', 'CANCELLED', 'REVERSED', 'DECLINED',
+        'LIMIT_EXCEEDED') NOT NULL,
+    MODIFY COLUMN transaction_time DATETIME(6) NOT NULL;
+CREATE INDEX idx_txn_owner_time ON wallet_transactions (owner_user_id, transaction_time);
+
+CREATE TABLE wallet_outbox (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    wallet_id BIGINT NOT NULL,
+    transaction_id BIGINT,
+    reference_id VARCHAR(255),
+    transaction_type ENUM ('CREDIT', 'DEBIT', 'TRANSFER_SENT', 'TRANSFER_RECEIVED') NOT NULL,
+    status ENUM ('PENDING', 'PROCESSING', 'SUCCESS', 'FAILED', 'CANCELLED', 'REVERSED', 'DECLINED',
+        'LIMIT_EXCEEDED') NOT NULL,
+    amount DECIMAL(38, 2) NOT NULL,
+    balance_after_transaction DECIMAL(38, 2),
+    created_at DATETIME(6) NOT NULL,
+    published_at DATETIME(6),
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_outbox_unpublished ON wallet_outbox (published_at, id);
+
+CREATE TABLE fund_holds (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    captured_amount DECIMAL(19, 2),
+    status ENUM ('ACTIVE', 'CAPTURED', 'RELEASED', 'EXPIRED') NOT NULL,
+    reference_id VARCHAR(255),
+    description VARCHAR(255),
+    created_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    completed_at DATETIME(6),
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_hold_status_expiry ON fund_holds (status, expires_at);
+CREATE INDEX idx_hold_user ON fund_holds (user_id);
+
+CREATE TABLE journal_entries (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    reference_id VARCHAR(32) NOT NULL,
+    from_user_id BIGINT NOT NULL,
+    to_user_id BIGINT NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    description VARCHAR(255),
+    status ENUM ('PENDING', 'PROCESSING', 'SUCCESS', 'FAILED', 'CANCELLED', 'REVERSED', 'DECLINED',
+        'LIMIT_EXCEEDED') NOT NULL,
+    failure_reason VARCHAR(255),
+    created_time DATETIME(6) NOT NULL,
+    completed_time DATETIME(6),
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_journal_from_status ON journal_entries (from_user_id, status);
+CREATE INDEX idx_journal_to_status ON journal_entries (to_user_id, status);
+
+CREATE TABLE postings (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    journal_id BIGINT NOT NULL,
+    wallet_user_id BIGINT NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    balance_after DECIMAL(19, 2) NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_posting_wallet ON postings (wallet_user_id, id);
+CREATE INDEX idx_posting_journal ON postings (journal_id);
+
+CREATE TABLE engine_projection_state (
+    id BIGINT NOT NULL,
+    projected_seq BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,10 @@
+-- Indexes for the wallet_transactions lookups that had none (MySQL 8 builds them online, without
+-- blocking writes):
+--   idx_txn_reference_type  findByReferenceIdAndType: the receiver half of a cross-partition transfer
+--   idx_txn_type_status_time  findByTypeAndStatusAndTransactionTimeBeforeAndIdGreaterThanOrderByIdAsc: stuck
+--                             cross-partition transfers
+--   idx_txn_time  LedgerArchiver's oldest-month lookup and per-month counts, velocity limit rebuild
+
+CREATE INDEX idx_txn_reference_type ON wallet_transactions (reference_id, type);
+CREATE INDEX idx_txn_type_status_time ON wallet_transactions (type, status, transaction_time);
+CREATE INDEX idx_txn_time ON wallet_transactions (transaction_time);
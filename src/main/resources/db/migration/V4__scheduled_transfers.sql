@@ -0,0 +1,41 @@
+-- Scheduled and recurring transfers.
+--   idx_schedule_due  the scheduler's claim query: ACTIVE rows with next_run_at <= now, earliest first, so
+--                     a poll reads only the due rows however many schedules exist
+--   uk_schedule_run_occurrence  one run row per occurrence; also serves a schedule's run history
+--   idx_schedule_run_status_claimed  claims left unconfirmed by a stopped scheduler
+--   idx_journal_reference  finding the journal entry of a scheduled run by its reference id
+
+CREATE TABLE scheduled_transfers (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    sender_id BIGINT NOT NULL,
+    receiver_id BIGINT NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    description VARCHAR(255),
+    frequency ENUM ('ONCE', 'DAILY', 'WEEKLY', 'MONTHLY') NOT NULL,
+    status ENUM ('ACTIVE', 'COMPLETED', 'CANCELLED') NOT NULL,
+    start_at DATETIME(6) NOT NULL,
+    end_at DATETIME(6),
+    run_count BIGINT NOT NULL,
+    next_run_at DATETIME(6),
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_schedule_due ON scheduled_transfers (status, next_run_at);
+CREATE INDEX idx_schedule_sender ON scheduled_transfers (sender_id);
+
+CREATE TABLE scheduled_transfer_runs (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    schedule_id BIGINT NOT NULL,
+    occurrence BIGINT NOT NULL,
+    scheduled_for DATETIME(6) NOT NULL,
+    reference_id VARCHAR(32) NOT NULL,
+    status ENUM ('CLAIMED', 'SUCCESS', 'DECLINED', 'LIMIT_EXCEEDED', 'FAILED', 'SKIPPED') NOT NULL,
+    failure_reason VARCHAR(255),
+    claimed_at DATETIME(6) NOT NULL,
+    completed_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_schedule_run_occurrence UNIQUE (schedule_id, occurrence)
+);
+CREATE INDEX idx_schedule_run_status_claimed ON scheduled_transfer_runs (status, claimed_at);
+
+CREATE INDEX idx_journal_reference ON journal_entries (reference_id);
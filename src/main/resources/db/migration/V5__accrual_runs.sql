@@ -0,0 +1,31 @@
+-- Checkpoints of the interest/cashback accrual batch (AccrualJob). A run fixes its parameters and user_id range
+-- when it starts; a chunk's row is inserted in the same transaction that credits its wallets, so a resumed run
+-- skips exactly the chunks already credited.
+
+CREATE TABLE accrual_runs (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    run_key VARCHAR(64) NOT NULL,
+    rate DECIMAL(19, 10) NOT NULL,
+    min_balance DECIMAL(19, 2) NOT NULL,
+    description VARCHAR(255),
+    min_user_id BIGINT NOT NULL,
+    max_user_id BIGINT NOT NULL,
+    chunk_size INT NOT NULL,
+    status ENUM ('RUNNING', 'COMPLETED') NOT NULL,
+    wallets_credited BIGINT,
+    amount_credited DECIMAL(19, 2),
+    started_at DATETIME(6) NOT NULL,
+    completed_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_accrual_run_key UNIQUE (run_key)
+);
+CREATE INDEX idx_accrual_run_status ON accrual_runs (status);
+
+CREATE TABLE accrual_chunks (
+    run_id BIGINT NOT NULL,
+    chunk_index BIGINT NOT NULL,
+    wallets INT NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    completed_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (run_id, chunk_index)
+);
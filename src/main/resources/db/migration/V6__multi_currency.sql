@@ -0,0 +1,24 @@
+-- Multi-currency wallets. wallets.balance stays the balance in the base currency (wallet.currency.base);
+-- wallet_currency_balances holds the balances in other currencies, created by the first credit in each.
+-- fx_rates is the rate table FxRateService keeps in memory: base-currency units per unit of the currency,
+-- maintained outside the application. Ledger rows and outbox events of currency transfers record the
+-- currency (NULL for the base currency) and the applied rate. Adding nullable columns is an instant
+-- change in MySQL 8, also on the partitioned wallet_transactions.
+
+CREATE TABLE fx_rates (
+    currency VARCHAR(3) NOT NULL,
+    rate DECIMAL(19, 10) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (currency)
+);
+
+CREATE TABLE wallet_currency_balances (
+    user_id BIGINT NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    balance DECIMAL(19, 2) NOT NULL,
+    PRIMARY KEY (user_id, currency)
+);
+
+ALTER TABLE wallet_transactions ADD COLUMN currency VARCHAR(3), ADD COLUMN fx_rate DECIMAL(19, 10);
+
+ALTER TABLE wallet_outbox ADD COLUMN currency VARCHAR(3);
@@ -0,0 +1,168 @@
+package com.wallet.accrual;
+
+import com.wallet.entity.Wallet;
+import com.wallet.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * A run interrupted by a failing chunk and resumed under the same key credits every eligible wallet
+ * exactly once, against an in-memory H2 in MySQL mode. The accrual tables come from their migration;
+ * the rest of the schema is generated by Hibernate.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:accrual-job;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "wallet.outbox.relay.enabled=false",
+        "wallet.schedule.scheduler.enabled=false",
+        "wallet.accrual.enabled=false"
+})
+class AccrualJobTest {
+
+    private static final BigDecimal RATE = new BigDecimal("0.01");
+    private static final BigDecimal MIN_BALANCE = new BigDecimal("10.00");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @BeforeEach
+    void schema() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS accrual_chunks");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS accrual_runs");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V5__accrual_runs.sql")).execute(dataSource);
+        jdbcTemplate.update("DELETE FROM wallet_outbox");
+        jdbcTemplate.update("DELETE FROM wallet_transactions");
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void interruptedRunResumesAndCreditsEachWalletOnce() {
+        // Three chunks of four user ids; every chunk has wallets to credit
+        Map<Long, String> balances = new LinkedHashMap<>();
+        balances.put(1L, "100.00");
+        balances.put(2L, "5.00");      // below min-balance
+        balances.put(3L, "10.50");     // 0.105 rounds half up to 0.11
+        balances.put(4L, "10.00");
+        balances.put(5L, "250.00");
+        balances.put(6L, "9.99");      // below min-balance
+        balances.put(8L, "1234.56");   // 12.3456 rounds to 12.35
+        balances.put(9L, "10.40");     // 0.104 rounds to 0.10
+        balances.put(12L, "75.25");    // 0.7525 rounds to 0.75
+        balances.forEach((userId, balance) -> {
+            Wallet wallet = new Wallet(userId);
+            wallet.credit(new BigDecimal(balance));
+            walletRepository.save(wallet);
+        });
+        Map<Long, String> expected = Map.of(1L, "101.00", 2L, "5.00", 3L, "10.61", 4L, "10.10", 5L, "252.50",
+                6L, "9.99", 8L, "1246.91", 9L, "10.50", 12L, "76.00");
+
+        // The second chunk's ledger insert fails, as if the connection was lost mid-transaction
+        AtomicInteger ledgerBatches = new AtomicInteger();
+        JdbcTemplate failing = spy(jdbcTemplate);
+        doAnswer(invocation -> {
+            if (ledgerBatches.incrementAndGet() == 2) {
+                throw new DataAccessResourceFailureException("Connection lost");
+            }
+            return invocation.callRealMethod();
+        }).when(failing).batchUpdate(startsWith("INSERT INTO wallet_transactions"), anyList());
+        AccrualJob interrupted = newJob(failing);
+        AccrualJob.Run run = interrupted.startOrResume("2026-10", RATE, MIN_BALANCE, "Interest for October");
+        assertEquals(3, run.chunks());
+
+        AccrualJob.Report first = interrupted.execute(run);
+        assertEquals(1, first.chunksCredited());
+        assertEquals(2, first.chunksLeft());
+        assertFalse(first.complete());
+        assertEquals(1, checkpoints(run));
+        // The failed chunk rolled back with its checkpoint, so only the first chunk's wallets moved
+        assertEquals(new BigDecimal("101.00"), balance(1L));
+        assertEquals(new BigDecimal("250.00"), balance(5L));
+        assertEquals(List.of("2026-10"), interrupted.unfinishedRuns());
+
+        // Resumed after a restart; the run keeps the parameters it started with
+        AccrualJob resumed = newJob(jdbcTemplate);
+        AccrualJob.Run same = resumed.startOrResume("2026-10", new BigDecimal("0.5"), BigDecimal.ZERO, "other");
+        assertEquals(run, same);
+        AccrualJob.Report second = resumed.execute(same);
+        assertEquals(1, second.chunksSkipped());
+        assertEquals(2, second.chunksCredited());
+        assertTrue(second.complete());
+        assertTrue(resumed.run("2026-10").completed());
+        assertEquals(List.of(), resumed.unfinishedRuns());
+
+        expected.forEach((userId, balance) -> assertEquals(new BigDecimal(balance), balance(userId), "wallet " + userId));
+        assertEquals(3, checkpoints(run));
+        String referenceId = "ACR-" + run.id();
+        // One ledger row and one outbox event per credited wallet, carrying its balance after the credit
+        List<Map<String, Object>> ledger = jdbcTemplate.queryForList(
+                "SELECT receiver, amount, balance_after_transaction FROM wallet_transactions "
+                        + "WHERE reference_id = ? ORDER BY receiver", referenceId);
+        assertEquals(List.of(1L, 3L, 4L, 5L, 8L, 9L, 12L),
+                ledger.stream().map(row -> ((Number) row.get("receiver")).longValue()).toList());
+        for (Map<String, Object> row : ledger) {
+            long userId = ((Number) row.get("receiver")).longValue();
+            assertEquals(balance(userId), row.get("balance_after_transaction"));
+            assertEquals(balance(userId).subtract(new BigDecimal(balances.get(userId))), row.get("amount"));
+        }
+        assertEquals(7, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_outbox WHERE reference_id = ?",
+                Integer.class, referenceId));
+        Map<String, Object> totals = jdbcTemplate.queryForMap(
+                "SELECT wallets_credited, amount_credited FROM accrual_runs WHERE id = ?", run.id());
+        assertEquals(7L, ((Number) totals.get("wallets_credited")).longValue());
+        assertEquals(new BigDecimal("16.91"), totals.get("amount_credited"));
+
+        // Executing the completed run again credits nothing
+        AccrualJob.Report again = resumed.execute(resumed.run("2026-10"));
+        assertEquals(0, again.chunksCredited());
+        assertEquals(new BigDecimal("101.00"), balance(1L));
+    }
+
+    private AccrualJob newJob(JdbcTemplate jdbc) {
+        return new AccrualJob(jdbc, transactionManager, new SimpleMeterRegistry(),
+                new AccrualThrottle(0, () -> 0, 1, 10), 1, 4);
+    }
+
+    private BigDecimal balance(long userId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM wallets WHERE user_id = ?", BigDecimal.class, userId);
+    }
+
+    private int checkpoints(AccrualJob.Run run) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM accrual_chunks WHERE run_id = ?", Integer.class,
+                run.id());
+    }
+}
@@ -0,0 +1,46 @@
+package com.wallet.accrual;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AccrualThrottleTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void chunksFromAllWorkersShareTheRate() {
+        AccrualThrottle throttle = new AccrualThrottle(1_000, () -> 0, 10, 100);
+        // Two workers finishing 500 wallets each at the same moment: the second waits for the first's slot
+        assertEquals(SECOND / 2, throttle.reserve(500, 0));
+        assertEquals(SECOND, throttle.reserve(500, 0));
+        // Later chunks queue behind the booked second
+        assertEquals(SECOND, throttle.reserve(250, SECOND / 4));
+    }
+
+    @Test
+    void idleTimeIsNotSavedUpForABurst() {
+        AccrualThrottle throttle = new AccrualThrottle(1_000, () -> 0, 10, 100);
+        throttle.reserve(100, 0);
+        assertEquals(SECOND / 10, throttle.reserve(100, 10 * SECOND));
+    }
+
+    @Test
+    void unpacedWithoutAMaximumRate() {
+        AccrualThrottle throttle = new AccrualThrottle(0, () -> 0, 10, 100);
+        assertEquals(0, throttle.reserve(1_000_000, 0));
+    }
+
+    @Test
+    void backsOffWithDoublingPausesWhileUnderPressure() throws InterruptedException {
+        AtomicInteger checks = new AtomicInteger();
+        // Requests are waiting for connections during the first three checks
+        AccrualThrottle throttle = new AccrualThrottle(0, () -> checks.incrementAndGet() <= 3 ? 1 : 0, 1, 100);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1 + 2 + 4), throttle.acquire(1_000));
+        assertEquals(4, checks.get());
+        assertEquals(0, throttle.acquire(1_000));
+    }
+}
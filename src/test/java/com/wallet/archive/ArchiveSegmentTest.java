@@ -0,0 +1,110 @@
+package com.wallet.archive;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.WalletTransaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveSegmentTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Test
+    void roundTripsEveryColumn() throws IOException {
+        Path path = Files.createTempDirectory("archive").resolve("ledger-2026-01.seg");
+        WalletTransaction row = transaction(1, 7, 0);
+        row.setSender(7L);
+        row.setReceiver(9L);
+        row.setDescription("rent");
+        row.setReferenceId("ref-1");
+        row.setCurrency("USD");
+        row.setFxRate(new BigDecimal("0.0120481928"));
+        row.setCompletedTime(START.plusSeconds(1).plusNanos(123_456_000));
+        try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(path, 4)) {
+            writer.append(row);
+            writer.finish();
+        }
+
+        ArchiveSegment segment = ArchiveSegment.open(path);
+        assertEquals(1, segment.rowCount());
+        assertEquals(START, segment.minTime());
+        WalletTransaction read = segment.findByOwner(7).get(0);
+        assertEquals(Long.valueOf(1), read.getId());
+        assertEquals(Long.valueOf(7), read.getSender());
+        assertEquals(Long.valueOf(9), read.getReceiver());
+        assertEquals(new BigDecimal("12.50"), read.getAmount());
+        assertEquals(TransactionType.TRANSFER_SENT, read.getType());
+        assertEquals(TransactionStatus.SUCCESS, read.getStatus());
+        assertEquals("rent", read.getDescription());
+        assertNull(read.getFailureReason());
+        assertEquals(new BigDecimal("100.00"), read.getBalanceAfterTransaction());
+        assertEquals(START, read.getTransactionTime());
+        assertEquals(row.getCompletedTime(), read.getCompletedTime());
+        assertEquals("ref-1", read.getReferenceId());
+        assertEquals("USD", read.getCurrency());
+        assertEquals(new BigDecimal("0.0120481928"), read.getFxRate());
+    }
+
+    @Test
+    void findsOwnersSpanningRowGroups() throws IOException {
+        Path path = Files.createTempDirectory("archive").resolve("ledger-2026-01.seg");
+        long id = 0;
+        try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(path, 4)) {
+            for (long owner = 1; owner <= 5; owner++) {
+                // owner n has n rows, so owners straddle the groups of four
+                for (int i = 0; i < owner; i++) {
+                    writer.append(transaction(++id, owner, -i));
+                }
+            }
+            writer.finish();
+        }
+
+        ArchiveSegment segment = ArchiveSegment.open(path);
+        assertEquals(15, segment.rowCount());
+        for (long owner = 1; owner <= 5; owner++) {
+            List<WalletTransaction> rows = segment.findByOwner(owner);
+            assertEquals(owner, rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(Long.valueOf(owner), rows.get(i).getOwnerUserId());
+                assertEquals(START.minusHours(i), rows.get(i).getTransactionTime());
+            }
+        }
+        assertTrue(segment.findByOwner(6).isEmpty());
+        assertTrue(segment.findByOwner(0).isEmpty());
+    }
+
+    @Test
+    void rejectsRowsOutOfOwnerOrderAndLeavesNoFile() throws IOException {
+        Path path = Files.createTempDirectory("archive").resolve("ledger-2026-01.seg");
+        try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(path, 4)) {
+            writer.append(transaction(1, 2, 0));
+            assertThrows(IllegalArgumentException.class, () -> writer.append(transaction(2, 1, 0)));
+        }
+        assertTrue(Files.notExists(path));
+        assertTrue(Files.notExists(path.resolveSibling(path.getFileName() + ".tmp")));
+    }
+
+    static WalletTransaction transaction(long id, long owner, int hoursFromStart) {
+        WalletTransaction transaction = new WalletTransaction();
+        transaction.setId(id);
+        transaction.setOwnerUserId(owner);
+        transaction.setAmount(new BigDecimal("12.50"));
+        transaction.setType(TransactionType.TRANSFER_SENT);
+        transaction.setStatus(TransactionStatus.SUCCESS);
+        transaction.setBalanceAfterTransaction(new BigDecimal("100.00"));
+        transaction.setTransactionTime(START.plusHours(hoursFromStart));
+        return transaction;
+    }
+}
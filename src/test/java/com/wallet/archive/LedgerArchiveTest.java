@@ -0,0 +1,51 @@
+package com.wallet.archive;
+
+import com.wallet.entity.WalletTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rescanPicksUpSegmentsAnotherInstanceWrote() throws IOException {
+        LedgerArchive reader = new LedgerArchive(directory.toString(), new SimpleMeterRegistry());
+        assertTrue(reader.isEmpty());
+
+        // The archiving instance writes to the shared directory
+        LedgerArchive archiving = new LedgerArchive(directory.toString(), new SimpleMeterRegistry());
+        write(archiving.pathOf(YearMonth.of(2026, 1)), ArchiveSegmentTest.transaction(1, 7, 0),
+                ArchiveSegmentTest.transaction(2, 8, 1));
+        assertTrue(reader.isEmpty());
+
+        reader.rescan();
+        List<WalletTransaction> history = reader.appendArchived(7L, List.of(), null);
+        assertEquals(1, history.size());
+        assertEquals(Long.valueOf(1), history.get(0).getId());
+
+        // And the month after
+        write(archiving.pathOf(YearMonth.of(2026, 2)), ArchiveSegmentTest.transaction(3, 7, 800));
+        reader.rescan();
+        assertEquals(2, reader.appendArchived(7L, List.of(), null).size());
+    }
+
+    private static void write(Path path, WalletTransaction... rows) throws IOException {
+        try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(path, 4)) {
+            for (WalletTransaction row : rows) {
+                writer.append(row);
+            }
+            writer.finish();
+        }
+    }
+}
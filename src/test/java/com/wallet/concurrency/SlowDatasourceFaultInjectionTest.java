@@ -0,0 +1,106 @@
+package com.wallet.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Open-loop load against a simulated datasource (a pool of 10 connections) whose queries become
+ * ten times slower halfway through, the way a struggling MySQL looks from the application. Without
+ * a limit the arrivals beyond the pool's capacity queue up and latency grows for as long as the
+ * fault lasts; with the limiter the excess is rejected at once and the admitted requests keep a
+ * bounded latency.
+ * <p>
+ * The run is a discrete-event simulation in virtual time (arrivals, FIFO connection hand-off and
+ * completions in time order), so it takes milliseconds and gives the same result on every machine.
+ */
+class SlowDatasourceFaultInjectionTest {
+
+    private static final int CONNECTIONS = 10;
+    private static final int WORKERS = 200;
+    private static final long ARRIVAL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FAST_QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long SLOW_QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long FAULT_AT = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long END = FAULT_AT + TimeUnit.SECONDS.toNanos(2);
+    // Latency of the requests that arrived during the second half of the fault
+    private static final long MEASURE_FROM = FAULT_AT + TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void limiterKeepsLatencyBoundedWhileTheDatabaseIsSlow() {
+        Result unlimited = run(null);
+        Result limited = run(new ConcurrencyLimiter(new GradientLimit(20, 4, WORKERS, 1.5), 0.2));
+
+        assertTrue(unlimited.p99Millis() > 1_000, "without a limit the queue should keep growing, p99 "
+                + unlimited.p99Millis() + " ms");
+        assertTrue(limited.p99Millis() < 250, "admitted requests should stay fast, p99 " + limited.p99Millis() + " ms");
+        assertTrue(limited.rejected > 0);
+        assertEquals(0, limited.rejectedBeforeFault, "healthy load should not be shed");
+    }
+
+    private static Result run(ConcurrencyLimiter limiter) {
+        // Time each connection becomes free; taking the earliest at arrival is a FIFO wait for the pool
+        PriorityQueue<Long> connectionFreeAt = new PriorityQueue<>();
+        for (int i = 0; i < CONNECTIONS; i++) {
+            connectionFreeAt.add(0L);
+        }
+        PriorityQueue<long[]> completions = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        List<Long> latencies = new ArrayList<>();
+        int rejected = 0;
+        int rejectedBeforeFault = 0;
+
+        for (long arrival = 0; arrival < END; arrival += ARRIVAL_INTERVAL_NANOS) {
+            complete(completions, arrival, limiter);
+            if (limiter != null && !limiter.tryAcquire(false)) {
+                rejected++;
+                if (arrival < FAULT_AT) {
+                    rejectedBeforeFault++;
+                }
+                continue;
+            }
+            long start = Math.max(arrival, connectionFreeAt.poll());
+            long done = start + (arrival < FAULT_AT ? FAST_QUERY_NANOS : SLOW_QUERY_NANOS);
+            connectionFreeAt.add(done);
+            completions.add(new long[] {done, arrival});
+            if (arrival >= MEASURE_FROM) {
+                latencies.add(done - arrival);
+            }
+        }
+        complete(completions, Long.MAX_VALUE, limiter);
+        return new Result(latencies, rejected, rejectedBeforeFault);
+    }
+
+    /**
+     * Release every request that completed by now, in completion order.
+     */
+    private static void complete(PriorityQueue<long[]> completions, long now, ConcurrencyLimiter limiter) {
+        while (!completions.isEmpty() && completions.peek()[0] <= now) {
+            long[] completion = completions.poll();
+            if (limiter != null) {
+                limiter.release(completion[0] - completion[1]);
+            }
+        }
+    }
+
+    private static final class Result {
+        private final long[] sorted;
+        private final int rejected;
+        private final int rejectedBeforeFault;
+
+        Result(List<Long> latencies, int rejected, int rejectedBeforeFault) {
+            this.sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            this.rejected = rejected;
+            this.rejectedBeforeFault = rejectedBeforeFault;
+        }
+
+        long p99Millis() {
+            return sorted.length == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(sorted[(sorted.length - 1) * 99 / 100]);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.wallet.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadYourWritesRoutingTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final ReadYourWritesRouting routing = new ReadYourWritesRouting(1_000, 1_000, 100, now::get);
+
+    @Test
+    void windowCoversLagToleranceCheckIntervalAndLagResolution() {
+        // A replica reporting 1 s behind is in rotation, may really be just under 2 s behind, and
+        // may have fallen further behind since the last check
+        assertEquals(3_000, routing.windowMillis());
+
+        routing.recordWrite(7L);
+        now.addAndGet(2_999);
+        assertTrue(routesToPrimary(7L));
+        assertFalse(routesToPrimary(8L));
+
+        now.addAndGet(2);
+        assertFalse(routesToPrimary(7L));
+    }
+
+    @Test
+    void writeCountsOnlyOnceCommitted() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            routing.recordWrite(7L);
+            assertFalse(routesToPrimary(7L));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(routesToPrimary(7L));
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplicaUnlessForcedOrLagging() {
+        AtomicBoolean replicaUsable = new AtomicBoolean(true);
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(replicaUsable::get);
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, dataSource.determineCurrentLookupKey());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            assertEquals(ReadWriteRoutingDataSource.Route.REPLICA, dataSource.determineCurrentLookupKey());
+
+            routing.recordWrite(7L);
+            assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY,
+                    routing.read(7L, dataSource::determineCurrentLookupKey));
+            assertEquals(ReadWriteRoutingDataSource.Route.REPLICA,
+                    routing.read(8L, dataSource::determineCurrentLookupKey));
+
+            replicaUsable.set(false);
+            assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, dataSource.determineCurrentLookupKey());
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    @Test
+    void forgetsWritesOutsideTheWindowWhenTrackingTooManyUsers() {
+        for (long user = 0; user < 100; user++) {
+            routing.recordWrite(user);
+        }
+        now.addAndGet(routing.windowMillis() + 1);
+        routing.recordWrite(1_000L);
+
+        assertEquals(0, routing.lastWriteMillis(0L));
+        assertTrue(routesToPrimary(1_000L));
+    }
+
+    @Test
+    void pruningWaitsForTheMapToGrowWhenEveryoneWroteRecently() {
+        for (long user = 0; user <= 100; user++) {
+            routing.recordWrite(user);
+        }
+        // That prune found nothing to forget, so the next one waits for 151 tracked users
+        now.addAndGet(routing.windowMillis() + 1);
+        for (long user = 101; user <= 150; user++) {
+            routing.recordWrite(user);
+        }
+        assertEquals(1_000_000, routing.lastWriteMillis(0L));
+
+        routing.recordWrite(151L);
+        assertEquals(0, routing.lastWriteMillis(0L));
+        assertTrue(routesToPrimary(151L));
+    }
+
+    private boolean routesToPrimary(Long userId) {
+        return routing.read(userId, ReadYourWritesRouting::isPrimaryForced);
+    }
+}
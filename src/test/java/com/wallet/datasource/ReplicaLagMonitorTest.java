@@ -0,0 +1,70 @@
+package com.wallet.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaLagMonitorTest {
+
+    private final ResultSet status = mock(ResultSet.class);
+    private final ReplicaLagMonitor monitor;
+
+    ReplicaLagMonitorTest() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(status);
+        monitor = new ReplicaLagMonitor(dataSource, 1_500);
+    }
+
+    @Test
+    void replicaWithinTheToleranceStaysInRotation() throws SQLException {
+        givenLag(1L);
+        monitor.check();
+        assertTrue(monitor.isUsable());
+    }
+
+    @Test
+    void replicaBehindTheToleranceIsTakenOutOfRotation() throws SQLException {
+        givenLag(2L);
+        monitor.check();
+        assertFalse(monitor.isUsable());
+
+        givenLag(0L);
+        monitor.check();
+        assertTrue(monitor.isUsable());
+    }
+
+    @Test
+    void stoppedReplicationIsNotUsable() throws SQLException {
+        // Seconds_Behind_Source is NULL once the replication threads stop
+        givenLag(null);
+        monitor.check();
+        assertFalse(monitor.isUsable());
+    }
+
+    @Test
+    void serverWithoutReplicationStatusIsTreatedAsCaughtUp() throws SQLException {
+        when(status.next()).thenReturn(false);
+        monitor.check();
+        assertTrue(monitor.isUsable());
+    }
+
+    private void givenLag(Long seconds) throws SQLException {
+        when(status.next()).thenReturn(true, false);
+        when(status.getLong("Seconds_Behind_Source")).thenReturn(seconds == null ? 0 : seconds);
+        when(status.wasNull()).thenReturn(seconds == null);
+    }
+}
@@ -0,0 +1,285 @@
+package com.wallet.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BalanceEngineTest {
+
+    private static final long INITIAL_BALANCE = 1_000;
+
+    @TempDir
+    Path directory;
+
+    private final RecordingProjection projection = new RecordingProjection();
+    private final List<BalanceEngine> engines = new ArrayList<>();
+
+    @AfterEach
+    void stopEngines() {
+        engines.forEach(BalanceEngine::stop);
+    }
+
+    @Test
+    void tornTailIsCutOffAndSequenceContinuesAfterIt() throws Exception {
+        BalanceEngine engine = start(1_000_000);
+        for (long userId = 1; userId <= 3; userId++) {
+            engine.credit(userId, 10 * userId, null, null).join();
+        }
+        long lastSeq = engine.durableSeq();
+        engine.stop();
+
+        // A record whose write never completed: header and part of the payload
+        Path tail = segments().get(segments().size() - 1);
+        Files.write(tail, ByteBuffer.allocate(12).putInt(100).putInt(42).putInt(7).array(), StandardOpenOption.APPEND);
+
+        BalanceEngine restarted = start(1_000_000);
+        assertEquals(lastSeq, restarted.durableSeq());
+        for (long userId = 1; userId <= 3; userId++) {
+            assertEquals(INITIAL_BALANCE + 10 * userId, balance(restarted, userId));
+        }
+        assertEquals(lastSeq + 1, restarted.credit(1, 5, null, null).join().getSeq());
+        restarted.stop();
+
+        BalanceEngine again = start(1_000_000);
+        assertEquals(INITIAL_BALANCE + 15, balance(again, 1));
+        assertContiguous(projection.seqs());
+    }
+
+    @Test
+    void corruptSegmentFollowedByLaterOnesIsNotTruncated() throws Exception {
+        Journal journal = new Journal(directory);
+        journal.recover(0, event -> { });
+        journal.openForAppend(1);
+        for (long seq = 1; seq <= 9; seq++) {
+            journal.append(List.of(new LedgerEvent(seq, LedgerEvent.Type.CREDIT, LedgerEvent.Status.SUCCESS, 1, 0,
+                    1, INITIAL_BALANCE + seq, 0, seq, null, null)));
+            if (seq % 3 == 0) {
+                journal.rotate(seq + 1);
+            }
+        }
+        journal.close();
+        List<Path> segments = segments();
+        assertEquals(4, segments.size());
+        List<Long> sizes = new ArrayList<>();
+        for (Path segment : segments) {
+            sizes.add(Files.size(segment));
+        }
+
+        byte[] first = Files.readAllBytes(segments.get(0));
+        first[first.length - 3] ^= 0x55;
+        Files.write(segments.get(0), first);
+
+        BalanceEngine engine = new BalanceEngine(directory, projection, this::load, 1024, 1_000_000, 16);
+        assertThrows(IOException.class, engine::start);
+        assertEquals(segments, segments());
+        for (int i = 0; i < segments.size(); i++) {
+            assertEquals(sizes.get(i), Files.size(segments.get(i)));
+        }
+    }
+
+    @Test
+    void restartReplaysJournalAfterTheCheckpoint() throws Exception {
+        BalanceEngine engine = start(5);
+        for (int i = 0; i < 12; i++) {
+            engine.transfer(1, 2, 10, null, null).join();
+        }
+        awaitProjected(engine);
+        long lastSeq = engine.durableSeq();
+        engine.stop();
+
+        long checkpointSeq = Checkpoint.read(directory, 16).seq;
+        assertTrue(checkpointSeq > 0 && checkpointSeq < lastSeq,
+                "checkpoint " + checkpointSeq + " should be behind " + lastSeq);
+
+        BalanceEngine restarted = start(5);
+        assertEquals(lastSeq, restarted.durableSeq());
+        assertEquals(INITIAL_BALANCE - 120, balance(restarted, 1));
+        assertEquals(INITIAL_BALANCE + 120, balance(restarted, 2));
+    }
+
+    @Test
+    void restartAfterPruningKeepsAppendingToCorrectlyNamedSegments() throws Exception {
+        BalanceEngine engine = start(4);
+        for (int i = 0; i < 20; i++) {
+            engine.credit(1, 1, null, null).join();
+            awaitProjected(engine);
+        }
+        engine.stop();
+        assertFalse(segments().contains(directory.resolve(String.format("journal-%020d.log", 1))),
+                "covered segments should have been deleted: " + segments());
+
+        BalanceEngine restarted = start(4);
+        assertEquals(INITIAL_BALANCE + 20, balance(restarted, 1));
+        for (int i = 0; i < 10; i++) {
+            restarted.credit(1, 1, null, null).join();
+            awaitProjected(restarted);
+        }
+        long lastSeq = restarted.durableSeq();
+        restarted.stop();
+        assertSegmentsNamedAfterTheirFirstRecord();
+
+        BalanceEngine again = start(4);
+        assertEquals(lastSeq, again.durableSeq());
+        assertEquals(INITIAL_BALANCE + 30, balance(again, 1));
+        assertContiguous(projection.seqs());
+    }
+
+    @Test
+    void overflowLeavesNoSequenceGap() throws Exception {
+        BalanceEngine engine = start(1_000_000);
+        engine.credit(1, 1, null, null).join();
+        long seq = engine.durableSeq();
+
+        CompletionException overflow = assertThrows(CompletionException.class,
+                () -> engine.credit(1, Long.MAX_VALUE, null, null).join());
+        assertInstanceOf(ArithmeticException.class, overflow.getCause());
+
+        assertEquals(seq + 1, engine.credit(1, 1, null, null).join().getSeq());
+    }
+
+    @Test
+    void slowAccountLoadDoesNotStallOtherAccounts() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger slowLoads = new AtomicInteger();
+        BalanceEngine engine = new BalanceEngine(directory, projection, userId -> {
+            if (userId == 99) {
+                slowLoads.incrementAndGet();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return load(userId);
+        }, 1024, 1_000_000, 16);
+        engines.add(engine);
+        engine.start();
+
+        List<CompletableFuture<LedgerEvent>> slow = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            slow.add(engine.credit(99, i, null, null));
+        }
+        assertEquals(INITIAL_BALANCE + 5, engine.credit(1, 5, null, null).get(5, TimeUnit.SECONDS).getBalanceAfter());
+        assertFalse(slow.get(0).isDone());
+
+        release.countDown();
+        assertEquals(INITIAL_BALANCE + 1, slow.get(0).get(5, TimeUnit.SECONDS).getBalanceAfter());
+        assertEquals(INITIAL_BALANCE + 3, slow.get(1).get(5, TimeUnit.SECONDS).getBalanceAfter());
+        assertEquals(INITIAL_BALANCE + 6, slow.get(2).get(5, TimeUnit.SECONDS).getBalanceAfter());
+        assertEquals(1, slowLoads.get());
+        awaitProjected(engine);
+        assertEquals(1, projection.opens(99));
+    }
+
+    @Test
+    void unknownWalletIsRejected() throws Exception {
+        BalanceEngine engine = start(1_000_000);
+
+        CompletionException missing = assertThrows(CompletionException.class,
+                () -> engine.transfer(1, 404, 1, null, null).join());
+        assertEquals("Wallet not found for the id : 404", missing.getCause().getMessage());
+        assertEquals(INITIAL_BALANCE, balance(engine, 1));
+    }
+
+    private BalanceEngine start(long checkpointInterval) throws IOException {
+        BalanceEngine engine = new BalanceEngine(directory, projection, this::load, 1024, checkpointInterval, 16);
+        engines.add(engine);
+        engine.start();
+        return engine;
+    }
+
+    private Long load(long userId) {
+        return userId < 100 ? INITIAL_BALANCE : null;
+    }
+
+    private static long balance(BalanceEngine engine, long userId) {
+        return engine.balance(userId).join().getBalanceAfter();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("journal-")).sorted().toList();
+        }
+    }
+
+    private void assertSegmentsNamedAfterTheirFirstRecord() throws IOException {
+        for (Path segment : segments()) {
+            if (Files.size(segment) == 0) {
+                continue;
+            }
+            String name = segment.getFileName().toString();
+            long named = Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length()));
+            assertEquals(named, firstSeqIn(segment), name);
+        }
+    }
+
+    private static long firstSeqIn(Path segment) throws IOException {
+        // [length][crc32] then the payload, which starts with the sequence number
+        return ByteBuffer.wrap(Files.readAllBytes(segment), 8, 8).getLong();
+    }
+
+    private static void awaitProjected(BalanceEngine engine) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (engine.projectedSeq() < engine.durableSeq() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(engine.durableSeq(), engine.projectedSeq());
+    }
+
+    private static void assertContiguous(List<Long> seqs) {
+        for (int i = 0; i < seqs.size(); i++) {
+            assertEquals(i + 1, seqs.get(i), "gap or repeat in " + seqs);
+        }
+    }
+
+    /**
+     * Stands in for the database: survives engine restarts and ignores redelivered events.
+     */
+    private static final class RecordingProjection implements LedgerProjection {
+
+        private final Map<Long, LedgerEvent> events = new ConcurrentHashMap<>();
+        private volatile long projected;
+
+        @Override
+        public long projectedSeq() {
+            return projected;
+        }
+
+        @Override
+        public void project(List<LedgerEvent> batch) {
+            batch.forEach(event -> events.putIfAbsent(event.getSeq(), event));
+            projected = batch.get(batch.size() - 1).getSeq();
+        }
+
+        List<Long> seqs() {
+            return events.keySet().stream().sorted().toList();
+        }
+
+        long opens(long userId) {
+            return events.values().stream()
+                    .filter(event -> event.getType() == LedgerEvent.Type.OPEN && event.getUserId() == userId)
+                    .count();
+        }
+    }
+}
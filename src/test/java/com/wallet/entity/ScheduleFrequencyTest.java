@@ -0,0 +1,34 @@
+package com.wallet.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ScheduleFrequencyTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 31, 9, 0);
+
+    @Test
+    void monthlyOnTheLastDayDoesNotDriftAfterShortMonths() {
+        assertEquals(LocalDateTime.of(2025, 2, 28, 9, 0), ScheduleFrequency.MONTHLY.occurrence(START, 1));
+        assertEquals(LocalDateTime.of(2025, 3, 31, 9, 0), ScheduleFrequency.MONTHLY.occurrence(START, 2));
+        assertEquals(LocalDateTime.of(2025, 4, 30, 9, 0), ScheduleFrequency.MONTHLY.occurrence(START, 3));
+        assertEquals(LocalDateTime.of(2026, 1, 31, 9, 0), ScheduleFrequency.MONTHLY.occurrence(START, 12));
+    }
+
+    @Test
+    void dailyAndWeeklyCountFromTheStart() {
+        assertEquals(START, ScheduleFrequency.DAILY.occurrence(START, 0));
+        assertEquals(LocalDateTime.of(2025, 3, 2, 9, 0), ScheduleFrequency.DAILY.occurrence(START, 30));
+        assertEquals(LocalDateTime.of(2025, 2, 14, 9, 0), ScheduleFrequency.WEEKLY.occurrence(START, 2));
+    }
+
+    @Test
+    void onceHasOnlyTheFirstOccurrence() {
+        assertEquals(START, ScheduleFrequency.ONCE.occurrence(START, 0));
+        assertNull(ScheduleFrequency.ONCE.occurrence(START, 1));
+    }
+}
@@ -0,0 +1,137 @@
+package com.wallet.executor;
+
+import com.wallet.exception.WalletBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WalletCommandExecutorTest {
+
+    private WalletCommandExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void serializesCommandsForTheSameWallet() throws Exception {
+        executor = new WalletCommandExecutor(4, 10_000);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            futures.add(callers.submit(() -> executor.execute(42L, () -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                inFlight.decrementAndGet();
+                return null;
+            })));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    void opposingCrossLaneCommandsDoNotDeadlock() throws Exception {
+        executor = new WalletCommandExecutor(8, 10_000);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        AtomicInteger done = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            long a = i % 50;
+            long b = 49 - a;
+            futures.add(callers.submit(() -> executor.execute(a, b, done::incrementAndGet)));
+            futures.add(callers.submit(() -> executor.execute(b, a, done::incrementAndGet)));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+        assertEquals(10_000, done.get());
+    }
+
+    @Test
+    void rejectsWhenLaneIsFull() throws Exception {
+        executor = new WalletCommandExecutor(1, 1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        callers.submit(() -> executor.execute(1L, () -> {
+            blocked.countDown();
+            await(release);
+            return null;
+        }));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        // Fills the single queue slot while the worker is busy
+        Future<?> queued = callers.submit(() -> executor.execute(1L, () -> null));
+        while (executor.queueDepth(0) == 0) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(WalletBusyException.class, () -> executor.execute(1L, () -> null));
+        assertEquals(1, executor.rejectedCount());
+
+        release.countDown();
+        queued.get(5, TimeUnit.SECONDS);
+        callers.shutdown();
+    }
+
+    @Test
+    void idleWorkersParkUntilACommandArrives() throws Exception {
+        List<Thread> before = laneWorkers();
+        executor = new WalletCommandExecutor(2, 100);
+        List<Thread> workers = laneWorkers().stream().filter(thread -> !before.contains(thread)).toList();
+        assertEquals(2, workers.size());
+        executor.execute(1L, () -> null);
+
+        // Parked without a timeout, not polling
+        for (Thread worker : workers) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (worker.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(Thread.State.WAITING, worker.getState());
+        }
+
+        // Every submit to an idle lane wakes it
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        for (int i = 0; i < 1_000; i++) {
+            long user = i;
+            assertEquals(user, caller.submit(() -> executor.execute(user, () -> user)).get(5, TimeUnit.SECONDS));
+        }
+        caller.shutdown();
+    }
+
+    private static List<Thread> laneWorkers() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("wallet-lane-") && thread.isAlive())
+                .toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
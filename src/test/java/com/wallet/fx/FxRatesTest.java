@@ -0,0 +1,73 @@
+package com.wallet.fx;
+
+import com.wallet.exception.FxRateUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FxRatesTest {
+
+    private final FxRates rates = new FxRates("INR", Map.of(
+            "USD", new BigDecimal("80.00"),
+            "EUR", new BigDecimal("90.50"),
+            "JPY", new BigDecimal("0.56"),
+            "KWD", new BigDecimal("270.00")), Instant.EPOCH);
+
+    @Test
+    void convertsAtTheRoundedCrossRate() {
+        FxRates.Conversion conversion = rates.convert(new BigDecimal("10.00"), "USD", "EUR");
+        // 80 / 90.5 = 0.88397790055...
+        assertEquals(new BigDecimal("0.8839779006"), conversion.rate());
+        assertEquals(new BigDecimal("8.84"), conversion.amount());
+        // The converted amount can be recomputed from the recorded rate
+        assertEquals(conversion.amount(), new BigDecimal("10.00").multiply(conversion.rate())
+                .setScale(2, RoundingMode.HALF_EVEN));
+    }
+
+    @Test
+    void roundsHalfEvenToTheTargetMinorUnit() {
+        // 1 INR = 0.0125 USD
+        assertEquals(new BigDecimal("0.01"), rates.convert(new BigDecimal("1.00"), "INR", "USD").amount());
+        assertEquals(new BigDecimal("0.04"), rates.convert(new BigDecimal("3.00"), "INR", "USD").amount());
+        assertEquals(new BigDecimal("1429"), rates.convert(new BigDecimal("10.00"), "USD", "JPY").amount());
+    }
+
+    @Test
+    void sameCurrencyConvertsAtOne() {
+        FxRates.Conversion conversion = rates.convert(new BigDecimal("5.25"), "USD", "USD");
+        assertEquals(BigDecimal.ONE, conversion.rate());
+        assertEquals(new BigDecimal("5.25"), conversion.amount());
+    }
+
+    @Test
+    void rejectsMoreDecimalsThanTheSourceCurrencyHas() {
+        assertThrows(RuntimeException.class, () -> rates.convert(new BigDecimal("1.5"), "JPY", "INR"));
+        assertEquals(new BigDecimal("0.56"), rates.convert(new BigDecimal("1.00"), "JPY", "INR").amount());
+    }
+
+    @Test
+    void leavesOutUnknownCurrenciesAndThoseWithMoreThanTwoDecimals() {
+        assertTrue(rates.supports("INR"));
+        assertFalse(rates.supports("KWD"));
+        assertFalse(rates.supports("GBP"));
+        assertThrows(FxRateUnavailableException.class, () -> rates.convert(BigDecimal.TEN, "GBP", "INR"));
+        assertThrows(FxRateUnavailableException.class, () -> rates.convert(BigDecimal.TEN, "INR", "KWD"));
+    }
+
+    @Test
+    void comparesRatesIgnoringLoadTime() {
+        FxRates reloaded = new FxRates("INR", Map.of("USD", new BigDecimal("80.00"), "EUR", new BigDecimal("90.50"),
+                "JPY", new BigDecimal("0.56")), Instant.now());
+        assertTrue(rates.sameRates(reloaded));
+        assertFalse(rates.sameRates(new FxRates("INR", Map.of("USD", new BigDecimal("80.01")), Instant.now())));
+        assertFalse(rates.sameRates(null));
+    }
+}
@@ -0,0 +1,58 @@
+package com.wallet.hold;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void firesEveryTimerOnItsTickAcrossAllLevels() {
+        long start = 1_000_000;
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1, start);
+        Map<Long, Long> deadlines = new HashMap<>();
+        Random random = new Random(42);
+        for (long id = 0; id < 50_000; id++) {
+            // Mostly near-term, some far beyond the top level
+            long delay = random.nextInt(10) == 0 ? (long) (random.nextDouble() * (1L << 28)) : random.nextInt(100_000);
+            wheel.schedule(id, start + delay);
+            deadlines.put(id, start + delay);
+        }
+
+        long now = start;
+        while (now < start + (1L << 28) + 1) {
+            long tick = now + 1;
+            wheel.advance(tick, id -> assertEquals(tick, Math.max(deadlines.remove(id), start + 1)));
+            // Jump in whole level-0 rotations once the dense part is done
+            now = tick < start + 200_000 ? tick : tick + 255;
+            wheel.advance(now, id -> assertTrue(deadlines.remove(id) <= tick + 255));
+        }
+        assertTrue(deadlines.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledAndRescheduledTimersFireOnce() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1000, 0);
+        wheel.schedule(1, 5_000);
+        wheel.schedule(2, 5_000);
+        wheel.schedule(3, 5_000);
+        assertTrue(wheel.cancel(2));
+        wheel.schedule(3, 90_000);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(10_000, fired::add);
+        assertEquals(List.of(1L), fired);
+
+        wheel.advance(100_000, fired::add);
+        assertEquals(List.of(1L, 3L), fired);
+        assertEquals(0, wheel.size());
+    }
+}
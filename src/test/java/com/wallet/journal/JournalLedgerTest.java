@@ -0,0 +1,127 @@
+package com.wallet.journal;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.JournalEntry;
+import com.wallet.entity.OutboxEvent;
+import com.wallet.entity.Posting;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.WalletTransaction;
+import com.wallet.repository.JournalEntryRepository;
+import com.wallet.repository.OutboxEventRepository;
+import com.wallet.repository.PostingRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JournalLedgerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 1, 12, 0);
+
+    private final JournalEntryRepository journalRepository = mock(JournalEntryRepository.class);
+    private final PostingRepository postingRepository = mock(PostingRepository.class);
+    private final OutboxEventRepository outboxRepository = mock(OutboxEventRepository.class);
+    private final JournalLedger ledger = new JournalLedger(true, journalRepository, postingRepository, outboxRepository);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void postWritesBothPostingsAndEventsUnderTheJournalsOwnIds() {
+        JournalEntry entry = entry(5, 1L, 2L, TransactionStatus.PENDING, 0);
+        when(journalRepository.complete(eq(5L), eq(TransactionStatus.SUCCESS), any(), any())).thenReturn(1);
+
+        ledger.post(entry, new BigDecimal("90.00"), new BigDecimal("10.00"));
+
+        ArgumentCaptor<List<Posting>> postings = ArgumentCaptor.forClass(List.class);
+        verify(postingRepository).saveAll(postings.capture());
+        assertEquals(List.of(new BigDecimal("-10.00"), new BigDecimal("10.00")),
+                postings.getValue().stream().map(Posting::getAmount).toList());
+        postings.getValue().forEach(posting -> assertEquals(Long.valueOf(5), posting.getJournalId()));
+
+        ArgumentCaptor<OutboxEvent> events = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxRepository, times(2)).save(events.capture());
+        assertEquals(List.of(TransactionType.TRANSFER_SENT, TransactionType.TRANSFER_RECEIVED),
+                events.getAllValues().stream().map(OutboxEvent::getTransactionType).toList());
+        events.getAllValues().forEach(event -> {
+            assertEquals(Long.valueOf(-5), event.getTransactionId());
+            assertEquals(TransactionStatus.SUCCESS, event.getStatus());
+        });
+    }
+
+    @Test
+    void postFailsWhenTheEntryIsNoLongerPending() {
+        JournalEntry entry = entry(5, 1L, 2L, TransactionStatus.PENDING, 0);
+        when(journalRepository.complete(eq(5L), eq(TransactionStatus.SUCCESS), any(), any())).thenReturn(0);
+
+        assertThrows(RuntimeException.class, () -> ledger.post(entry, BigDecimal.ONE, BigDecimal.ONE));
+        verify(postingRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void mergedHistoryNeverRepeatsAnIdAcrossLedgerAndJournal() {
+        when(postingRepository.findPostedByWallet(1L)).thenReturn(List.of(posted(7, 1L, 2L, "-10.00", 2)));
+        when(journalRepository.findUnposted(1L)).thenReturn(List.of(entry(8, 2L, 1L, TransactionStatus.DECLINED, 3)));
+        // Ledger rows whose ids equal the journal ids
+        List<WalletTransaction> rows = List.of(row(8, 4), row(7, 1));
+
+        List<WalletTransaction> history = JournalLedger.merge(rows, ledger.history(1L, null));
+
+        assertEquals(List.of(8L, -8L, -7L, 7L), history.stream().map(WalletTransaction::getId).toList());
+        Set<Long> ids = new HashSet<>();
+        history.forEach(transaction -> ids.add(transaction.getId()));
+        assertEquals(history.size(), ids.size());
+        WalletTransaction sent = history.get(2);
+        assertEquals(TransactionType.TRANSFER_SENT, sent.getType());
+        assertEquals(new BigDecimal("10.00"), sent.getAmount());
+        assertEquals("Transfer to user 2", sent.getDescription());
+        WalletTransaction declined = history.get(1);
+        assertEquals(TransactionType.TRANSFER_RECEIVED, declined.getType());
+        assertEquals(TransactionStatus.DECLINED, declined.getStatus());
+    }
+
+    private static JournalEntry entry(long id, Long from, Long to, TransactionStatus status, int minutes) {
+        JournalEntry entry = new JournalEntry("REF-" + id, from, to, new BigDecimal("10.00"), null);
+        ReflectionTestUtils.setField(entry, "id", id);
+        ReflectionTestUtils.setField(entry, "createdTime", START.plusMinutes(minutes));
+        entry.setStatus(status);
+        return entry;
+    }
+
+    private static WalletTransaction row(long id, int minutes) {
+        WalletTransaction transaction = new WalletTransaction();
+        transaction.setId(id);
+        transaction.setOwnerUserId(1L);
+        transaction.setType(TransactionType.CREDIT);
+        transaction.setTransactionTime(START.plusMinutes(minutes));
+        return transaction;
+    }
+
+    private static PostingRepository.PostedRow posted(long journalId, Long from, Long to, String amount, int minutes) {
+        return new PostingRepository.PostedRow() {
+            public Long getJournalId() { return journalId; }
+            public String getReferenceId() { return "REF-" + journalId; }
+            public Long getFromUserId() { return from; }
+            public Long getToUserId() { return to; }
+            public BigDecimal getAmount() { return new BigDecimal(amount); }
+            public BigDecimal getBalanceAfter() { return new BigDecimal("90.00"); }
+            public String getDescription() { return null; }
+            public LocalDateTime getCreatedTime() { return START.plusMinutes(minutes); }
+            public LocalDateTime getCompletedTime() { return START.plusMinutes(minutes); }
+        };
+    }
+}
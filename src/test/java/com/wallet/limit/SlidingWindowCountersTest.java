@@ -0,0 +1,90 @@
+package com.wallet.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowCountersTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long START = 1_000 * HOUR;
+
+    private final SlidingWindowCounters.Limits limits = new SlidingWindowCounters.Limits(1_000, 5, 3_000);
+
+    @Test
+    void declinesOverTheHourlyAmountUntilTheWindowSlides() {
+        SlidingWindowCounters counters = new SlidingWindowCounters(1_000, 4);
+        assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(1, 600, START, limits));
+        assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(1, 300, START + 30 * MINUTE, limits));
+        assertEquals(SlidingWindowCounters.Result.HOURLY_AMOUNT, counters.tryAdd(1, 200, START + 59 * MINUTE, limits));
+        // Other users are independent
+        assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(2, 1_000, START + 59 * MINUTE, limits));
+        // The first 600 leaves the hour window one minute later
+        assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(1, 200, START + 60 * MINUTE, limits));
+    }
+
+    @Test
+    void declinesOverTheHourlyCount() {
+        SlidingWindowCounters counters = new SlidingWindowCounters(1_000, 4);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(1, 1, START + i * MINUTE, limits));
+        }
+        assertEquals(SlidingWindowCounters.Result.HOURLY_COUNT, counters.tryAdd(1, 1, START + 10 * MINUTE, limits));
+    }
+
+    @Test
+    void declinesOverTheDailyAmountUntilADayHasPassed() {
+        SlidingWindowCounters counters = new SlidingWindowCounters(1_000, 4);
+        for (int hour = 0; hour < 3; hour++) {
+            assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(1, 1_000, START + hour * HOUR, limits));
+        }
+        assertEquals(SlidingWindowCounters.Result.DAILY_AMOUNT, counters.tryAdd(1, 1, START + 23 * HOUR, limits));
+        assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(1, 1, START + 24 * HOUR, limits));
+        // Idle for longer than both windows: everything has expired
+        assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(1, 1_000, START + 100 * HOUR, limits));
+    }
+
+    @Test
+    void subtractGivesBackAReservation() {
+        SlidingWindowCounters counters = new SlidingWindowCounters(1_000, 4);
+        assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(1, 1_000, START, limits));
+        counters.subtract(1, 1_000, START, START + 5 * MINUTE);
+        assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(1, 1_000, START + 5 * MINUTE, limits));
+    }
+
+    @Test
+    void reduceGivesBackPartOfAnAmountButKeepsItsCount() {
+        SlidingWindowCounters.Limits twoAnHour = new SlidingWindowCounters.Limits(1_000, 2, 3_000);
+        SlidingWindowCounters counters = new SlidingWindowCounters(1_000, 4);
+        assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(1, 1_000, START, twoAnHour));
+        counters.reduce(1, 700, START, START + MINUTE);
+        assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(1, 700, START + MINUTE, twoAnHour));
+        assertEquals(SlidingWindowCounters.Result.HOURLY_COUNT, counters.tryAdd(1, 1, START + 2 * MINUTE, twoAnHour));
+    }
+
+    @Test
+    void rebuiltHistoryCountsOnlyInsideTheWindows() {
+        SlidingWindowCounters counters = new SlidingWindowCounters(1_000, 4);
+        long now = START + 30 * HOUR;
+        counters.add(1, 5_000, now - 25 * HOUR, now);
+        counters.add(1, 2_000, now - 2 * HOUR, now);
+        counters.add(1, 900, now - 10 * MINUTE, now);
+        assertEquals(SlidingWindowCounters.Result.HOURLY_AMOUNT, counters.tryAdd(1, 101, now, limits));
+        assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(1, 100, now, limits));
+        assertEquals(SlidingWindowCounters.Result.DAILY_AMOUNT, counters.tryAdd(1, 1, now + 61 * MINUTE, limits));
+    }
+
+    @Test
+    void fullTableSweepsIdleUsersAndOtherwiseReportsFull() {
+        SlidingWindowCounters counters = new SlidingWindowCounters(64, 1);
+        for (long user = 0; user < 64; user++) {
+            assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(user, 1, START, limits));
+        }
+        assertEquals(SlidingWindowCounters.Result.TABLE_FULL, counters.tryAdd(64, 1, START + HOUR, limits));
+        // A day later the first users are idle and make room
+        assertEquals(SlidingWindowCounters.Result.OK, counters.tryAdd(64, 1, START + 25 * HOUR, limits));
+        assertTrue(counters.size() <= 64);
+    }
+}
@@ -0,0 +1,40 @@
+package com.wallet.logging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogSamplerTest {
+
+    @Test
+    void categoriesOverrideTheDefaultRate() {
+        LogSampler sampler = LogSampler.parse(1, " balance:0 , history:0.5,");
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(sampler.sample("transfer"));
+            assertFalse(sampler.sample("balance"));
+        }
+        assertEquals(0.5, sampler.rate("history"), 0.0);
+    }
+
+    @Test
+    void keepsAboutTheGivenFraction() {
+        LogSampler sampler = LogSampler.parse(0.1, "");
+        int kept = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (sampler.sample("credit")) {
+                kept++;
+            }
+        }
+        assertTrue(kept > 9_000 && kept < 11_000, "kept " + kept);
+    }
+
+    @Test
+    void rejectsRatesOutsideZeroToOne() {
+        assertThrows(IllegalArgumentException.class, () -> LogSampler.parse(0.1, "debit:2"));
+        assertThrows(IllegalArgumentException.class, () -> LogSampler.parse(-1, ""));
+        assertThrows(IllegalArgumentException.class, () -> LogSampler.parse(0.1, "debit"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.wallet.onboarding;
+
+import com.wallet.dto.BulkOnboardingReport;
+import com.wallet.dto.BulkOnboardingReport.RowFailure;
+import com.wallet.dto.CreateUserRequest;
+import com.wallet.entity.User;
+import com.wallet.repository.UserRepository;
+import com.wallet.repository.WalletRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Per-row outcomes of a bulk onboarding against an in-memory H2 in MySQL mode, which runs the same
+ * INSERT IGNORE and hash matching as MySQL. Batches of three put the first duplicate in the batch of
+ * the row it duplicates and the others in later batches.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulk-onboarding;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "wallet.outbox.relay.enabled=false",
+        "wallet.schedule.scheduler.enabled=false",
+        "wallet.onboarding.batch-size=3"
+})
+class BulkOnboardingServiceTest {
+
+    @Autowired
+    private BulkOnboardingService onboardingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Test
+    void everyRowIsCreatedOrReportedWithItsReason() {
+        Long existing = userRepository.save(new User("Existing", "existing@partner.test", "hash")).getId();
+        List<CreateUserRequest> rows = Arrays.asList(
+                new CreateUserRequest("Asha", "asha@partner.test", "pw-asha"),
+                new CreateUserRequest("", "blank-name@partner.test", "pw"),
+                new CreateUserRequest("Asha again", "asha@partner.test", "pw-other"),
+                new CreateUserRequest("Existing", "existing@partner.test", "pw"),
+                new CreateUserRequest("Bilal", "bilal@partner.test", "pw-bilal"),
+                null,
+                new CreateUserRequest("x".repeat(256), "long-name@partner.test", "pw"),
+                new CreateUserRequest("Bilal twin", "bilal@partner.test", "pw-bilal"));
+
+        BulkOnboardingReport report = onboardingService.onboard(rows);
+
+        assertEquals(8, report.getRequested());
+        assertEquals(2, report.getCreated());
+        List<String> outcomes = new ArrayList<>();
+        for (RowFailure failure : report.getFailures()) {
+            outcomes.add(failure.getRow() + " " + failure.getErrorCode());
+        }
+        assertEquals(List.of("1 INVALID", "2 DUPLICATE_EMAIL", "3 DUPLICATE_EMAIL", "5 INVALID", "6 INVALID",
+                "7 DUPLICATE_EMAIL"), outcomes);
+        assertEquals("asha@partner.test", report.getFailures().get(1).getEmail());
+
+        // One user per new email, each with its wallet; the existing user is left as it was
+        Long asha = userRepository.findCredentialsByEmailId("asha@partner.test").orElseThrow().getId();
+        Long bilal = userRepository.findCredentialsByEmailId("bilal@partner.test").orElseThrow().getId();
+        assertTrue(walletRepository.findById(asha).isPresent());
+        assertTrue(walletRepository.findById(bilal).isPresent());
+        assertFalse(walletRepository.findById(existing).isPresent());
+        assertEquals("hash", userRepository.findCredentialsByEmailId("existing@partner.test").orElseThrow().getPassword());
+        assertFalse(userRepository.existsByEmailId("blank-name@partner.test"));
+        assertEquals(3, userRepository.count());
+    }
+}
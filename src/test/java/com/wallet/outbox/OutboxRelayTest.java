@@ -0,0 +1,171 @@
+package com.wallet.outbox;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.OutboxEvent;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.WalletTransaction;
+import com.wallet.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The relay against an in-memory outbox table behind a mocked repository.
+ */
+class OutboxRelayTest {
+
+    private final List<OutboxEvent> table = new ArrayList<>();
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final RecordingSink sink = new RecordingSink();
+
+    OutboxRelayTest() {
+        when(repository.findByPublishedAtIsNullAndIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> unpublished(invocation.getArgument(0), List.of(),
+                        invocation.getArgument(1)));
+        when(repository.findByPublishedAtIsNullAndIdGreaterThanAndWalletIdNotInOrderByIdAsc(anyLong(),
+                anyCollection(), any(Pageable.class)))
+                .thenAnswer(invocation -> unpublished(invocation.getArgument(0), invocation.getArgument(1),
+                        invocation.getArgument(2)));
+        when(repository.markPublished(anyCollection(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            table.stream().filter(event -> ids.contains(event.getId()))
+                    .forEach(event -> ReflectionTestUtils.setField(event, "publishedAt",
+                            invocation.getArgument(1)));
+            return ids.size();
+        });
+    }
+
+    @Test
+    void publishesEachWalletsEventsInOrder() {
+        for (int i = 0; i < 30; i++) {
+            write(i % 3);
+        }
+        OutboxRelay relay = relay(4, 100, 1_000);
+
+        relay.poll();
+
+        assertEquals(30, sink.published.size());
+        for (long wallet = 0; wallet < 3; wallet++) {
+            assertAscending(sink.eventIdsOf(wallet));
+            assertEquals(10, sink.eventIdsOf(wallet).size());
+        }
+        assertTrue(table.stream().allMatch(event -> event.getPublishedAt() != null));
+    }
+
+    @Test
+    void failedWalletIsRetriedLaterWithoutLosingOrder() {
+        for (int i = 0; i < 6; i++) {
+            write(i % 2);
+        }
+        sink.failing.add(1L);
+        OutboxRelay relay = relay(10, 10, 0);
+
+        relay.poll();
+        assertEquals(List.of(1L, 3L, 5L), sink.eventIdsOf(0));
+        assertEquals(List.of(), sink.eventIdsOf(1));
+
+        // Written after the failure: must not overtake the events still waiting
+        write(1);
+        sink.failing.clear();
+        relay.poll();
+        assertEquals(List.of(2L, 4L, 6L, 7L), sink.eventIdsOf(1));
+        assertTrue(table.stream().allMatch(event -> event.getPublishedAt() != null));
+    }
+
+    @Test
+    void failingWalletAtTheHeadDoesNotBlockOthers() {
+        // More failing events than a batch, ahead of everyone else's
+        for (int i = 0; i < 25; i++) {
+            write(1);
+        }
+        for (int i = 0; i < 5; i++) {
+            write(2);
+        }
+        sink.failing.add(1L);
+        OutboxRelay relay = relay(10, 10, 60_000);
+
+        relay.poll();
+        assertEquals(List.of(26L, 27L, 28L, 29L, 30L), sink.eventIdsOf(2));
+
+        // Parked: the next polls read past it without offering its events again
+        write(2);
+        int attempts = sink.attempts;
+        relay.poll();
+        assertEquals(List.of(26L, 27L, 28L, 29L, 30L, 31L), sink.eventIdsOf(2));
+        assertEquals(attempts + 1, sink.attempts);
+        assertEquals(List.of(), sink.eventIdsOf(1));
+    }
+
+    private OutboxRelay relay(int batchSize, int maxBatchesPerPoll, long parkBaseMillis) {
+        return new OutboxRelay(repository, List.of(sink), new SimpleMeterRegistry(), batchSize, maxBatchesPerPoll,
+                parkBaseMillis, 60_000);
+    }
+
+    private void write(long walletId) {
+        WalletTransaction transaction = new WalletTransaction();
+        transaction.setOwnerUserId(walletId);
+        transaction.setAmount(BigDecimal.ONE);
+        transaction.setType(TransactionType.CREDIT);
+        transaction.setStatus(TransactionStatus.SUCCESS);
+        OutboxEvent event = new OutboxEvent(transaction);
+        ReflectionTestUtils.setField(event, "id", (long) table.size() + 1);
+        table.add(event);
+    }
+
+    private List<OutboxEvent> unpublished(long afterId, Collection<Long> excludedWallets, Pageable page) {
+        return table.stream()
+                .filter(event -> event.getPublishedAt() == null && event.getId() > afterId
+                        && !excludedWallets.contains(event.getWalletId()))
+                .limit(page.getPageSize())
+                .toList();
+    }
+
+    private static void assertAscending(List<Long> ids) {
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1) < ids.get(i), "out of order: " + ids);
+        }
+    }
+
+    private static final class RecordingSink implements WalletEventSink {
+
+        final List<WalletEvent> published = new ArrayList<>();
+        final Set<Long> failing = new HashSet<>();
+        int attempts;
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void publish(List<WalletEvent> events) throws Exception {
+            attempts++;
+            if (failing.contains(events.get(0).getWalletId())) {
+                throw new Exception("sink unavailable");
+            }
+            published.addAll(events);
+        }
+
+        List<Long> eventIdsOf(long walletId) {
+            return published.stream().filter(event -> event.getWalletId() == walletId)
+                    .map(WalletEvent::getEventId).toList();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.wallet.partition;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.WalletTransaction;
+import com.wallet.repository.WalletTransactionRepository;
+import com.wallet.service.WalletService;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CrossPartitionTransferRecoveryTest {
+
+    private final List<WalletTransaction> stuck = new ArrayList<>();
+    private final WalletTransactionRepository repository = mock(WalletTransactionRepository.class);
+    private final WalletService walletService = mock(WalletService.class);
+    private final PartitionRouter router = mock(PartitionRouter.class);
+    private final List<Long> recovered = new ArrayList<>();
+
+    CrossPartitionTransferRecoveryTest() {
+        when(repository.findByTypeAndStatusAndTransactionTimeBeforeAndIdGreaterThanOrderByIdAsc(
+                eq(TransactionType.TRANSFER_SENT), eq(TransactionStatus.PROCESSING), any(LocalDateTime.class),
+                anyLong(), any(Pageable.class))).thenAnswer(invocation -> stuck.stream()
+                .filter(row -> row.getId() > invocation.<Long>getArgument(3))
+                .limit(invocation.<Pageable>getArgument(4).getPageSize())
+                .toList());
+        when(walletService.recoverCrossPartitionTransfer(any())).thenAnswer(invocation -> {
+            recovered.add(invocation.<WalletTransaction>getArgument(0).getId());
+            return TransactionStatus.SUCCESS;
+        });
+        when(router.isLocal(anyLong())).thenAnswer(invocation -> invocation.<Long>getArgument(0) % 2 == 0);
+    }
+
+    @Test
+    void pagesPastOtherNodesRowsToItsOwn() {
+        // A full batch of another node's rows first, then this node's
+        for (long id = 1; id <= 10; id++) {
+            stuck(id, 1L);
+        }
+        for (long id = 11; id <= 13; id++) {
+            stuck(id, 2L);
+        }
+
+        new CrossPartitionTransferRecovery(repository, walletService, router, 0, 5).settleStuckTransfers();
+
+        assertEquals(List.of(11L, 12L, 13L), recovered);
+    }
+
+    @Test
+    void settlesAtMostOneBatchOfItsOwnRowsPerRun() {
+        for (long id = 1; id <= 12; id++) {
+            stuck(id, id % 3 == 0 ? 1L : 2L);
+        }
+
+        new CrossPartitionTransferRecovery(repository, walletService, router, 0, 5).settleStuckTransfers();
+
+        assertEquals(List.of(1L, 2L, 4L, 5L, 7L), recovered);
+    }
+
+    private void stuck(long id, long senderId) {
+        WalletTransaction transaction = new WalletTransaction();
+        transaction.setId(id);
+        transaction.setOwnerUserId(senderId);
+        transaction.setType(TransactionType.TRANSFER_SENT);
+        transaction.setStatus(TransactionStatus.PROCESSING);
+        transaction.setReferenceId("TXN-" + id);
+        stuck.add(transaction);
+    }
+}
@@ -0,0 +1,47 @@
+package com.wallet.partition;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashRingTest {
+
+    @Test
+    void spreadsUsersEvenlyAcrossNodes() {
+        HashRing ring = new HashRing(nodes(4));
+        Map<String, Integer> owned = new HashMap<>();
+        for (long userId = 1; userId <= 100_000; userId++) {
+            owned.merge(ring.ownerOf(userId), 1, Integer::sum);
+        }
+        assertEquals(4, owned.size());
+        owned.values().forEach(count -> assertTrue(count > 25_000 * 0.8 && count < 25_000 * 1.2,
+                "Unbalanced share: " + owned));
+    }
+
+    @Test
+    void joinOnlyMovesSlotsToTheNewNode() {
+        HashRing before = new HashRing(nodes(3));
+        HashRing after = before.withMember("node4", "http://localhost:8084");
+
+        int moved = before.movedSlots(after);
+        assertTrue(moved > HashRing.SLOTS / 4 * 0.8 && moved < HashRing.SLOTS / 4 * 1.2, "Moved " + moved);
+        for (long userId = 1; userId <= 10_000; userId++) {
+            if (!before.ownerOf(userId).equals(after.ownerOf(userId))) {
+                assertEquals("node4", after.ownerOf(userId));
+            }
+        }
+    }
+
+    private static Map<String, String> nodes(int count) {
+        Map<String, String> nodes = new TreeMap<>();
+        for (int i = 1; i <= count; i++) {
+            nodes.put("node" + i, "http://localhost:808" + i);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,64 @@
+package com.wallet.partition;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PartitionForwardingFilterTest {
+
+    private final PartitionRouter router = mock(PartitionRouter.class);
+    private final PartitionClient client = mock(PartitionClient.class);
+    private final PartitionForwardingFilter filter = new PartitionForwardingFilter(router, client);
+
+    @Test
+    void throttledResponseFromTheOwnerKeepsItsBackoffHint() throws Exception {
+        when(router.ownerUrl(7L)).thenReturn("http://node2");
+        HttpResponse<byte[]> owner = response(429, Map.of(
+                "Content-Type", List.of("application/json"),
+                "Retry-After", List.of("2"),
+                "Vary", List.of("Origin", "Accept"),
+                "Connection", List.of("keep-alive, X-Hop"),
+                "X-Hop", List.of("node2-only"),
+                "Content-Length", List.of("26"),
+                "Transfer-Encoding", List.of("chunked")),
+                "{\"errorCode\":\"THROTTLED\"}");
+        when(client.forward(eq("http://node2"), eq("GET"), anyString(), anyMap(), any())).thenReturn(owner);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/wallet/7/balance"), response, new MockFilterChain());
+
+        assertEquals(429, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertEquals("application/json", response.getContentType());
+        assertEquals(List.of("Origin", "Accept"), response.getHeaders("Vary"));
+        assertFalse(response.containsHeader("Connection"));
+        assertFalse(response.containsHeader("X-Hop"));
+        assertFalse(response.containsHeader("Transfer-Encoding"));
+        assertEquals("{\"errorCode\":\"THROTTLED\"}", response.getContentAsString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<byte[]> response(int status, Map<String, List<String>> headers, String body) {
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.headers()).thenReturn(HttpHeaders.of(headers, (name, value) -> true));
+        when(response.body()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        return response;
+    }
+}
@@ -0,0 +1,34 @@
+package com.wallet.partition;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionRouterTest {
+
+    private final PartitionRouter router = new PartitionRouter("node1", "http://node1", "s3cret");
+
+    @Test
+    void forwardingHeaderAloneIsNotAHop() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallet/7/balance");
+        request.addHeader(PartitionRouter.FORWARDED_HEADER, "node2");
+        assertFalse(router.isForwardedHop(request));
+
+        request.addHeader(PartitionClient.SECRET_HEADER, "guess");
+        assertFalse(router.isForwardedHop(request));
+    }
+
+    @Test
+    void hopWithThePartitionSecretIsTrusted() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallet/7/balance");
+        request.addHeader(PartitionRouter.FORWARDED_HEADER, "node2");
+        request.addHeader(PartitionClient.SECRET_HEADER, "s3cret");
+        assertTrue(router.isForwardedHop(request));
+
+        MockHttpServletRequest secretOnly = new MockHttpServletRequest("GET", "/api/wallet/7/balance");
+        secretOnly.addHeader(PartitionClient.SECRET_HEADER, "s3cret");
+        assertFalse(router.isForwardedHop(secretOnly));
+    }
+}
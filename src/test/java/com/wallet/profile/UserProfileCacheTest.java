@@ -0,0 +1,70 @@
+package com.wallet.profile;
+
+import com.wallet.dto.UserProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UserProfileCacheTest {
+
+    private static final long TTL = TimeUnit.SECONDS.toNanos(60);
+
+    @Test
+    void servesProfilesByIdAndEmailUntilTheyExpire() {
+        UserProfileCache cache = new UserProfileCache(100, 60, TimeUnit.SECONDS);
+        UserProfile profile = profile(1L, "a@example.com");
+        cache.put(profile, cache.generation(), 0);
+
+        assertSame(profile, cache.get(1L, TTL - 1));
+        assertSame(profile, cache.getByEmail("a@example.com", 0));
+        assertNull(cache.get(1L, TTL));
+        assertNull(cache.get(2L, 0));
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void doesNotCacheAProfileLoadedBeforeAnInvalidation() {
+        UserProfileCache cache = new UserProfileCache(100, 60, TimeUnit.SECONDS);
+        long generation = cache.generation();
+        cache.invalidate(1L);
+        cache.put(profile(1L, "a@example.com"), generation, 0);
+
+        assertNull(cache.get(1L, 0));
+        assertNull(cache.getByEmail("a@example.com", 0));
+    }
+
+    @Test
+    void dropsTheOldEmailWhenAProfileChanges() {
+        UserProfileCache cache = new UserProfileCache(100, 60, TimeUnit.SECONDS);
+        cache.put(profile(1L, "old@example.com"), cache.generation(), 0);
+        cache.invalidate(1L);
+        cache.put(profile(1L, "new@example.com"), cache.generation(), 0);
+
+        assertNull(cache.getByEmail("old@example.com", 0));
+        assertEquals("new@example.com", cache.getByEmail("new@example.com", 0).getEmailId());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyReadProfileWhenFull() {
+        UserProfileCache cache = new UserProfileCache(10, 60, TimeUnit.SECONDS);
+        for (long id = 0; id < 10; id++) {
+            cache.put(profile(id, id + "@example.com"), cache.generation(), 0);
+        }
+        cache.get(0L, 0);
+        cache.put(profile(10L, "10@example.com"), cache.generation(), 0);
+
+        assertEquals(10, cache.size());
+        assertEquals("0@example.com", cache.get(0L, 0).getEmailId());
+        assertNull(cache.get(1L, 0));
+        assertNull(cache.getByEmail("1@example.com", 0));
+    }
+
+    private static UserProfile profile(Long id, String email) {
+        return new UserProfile(id, "User " + id, email, "USER");
+    }
+}
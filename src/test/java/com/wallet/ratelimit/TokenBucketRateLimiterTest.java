@@ -0,0 +1,99 @@
+package com.wallet.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketRateLimiterTest {
+
+    @Test
+    void admitsBurstThenRejectsWithRetryAfter() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, 5, TimeUnit.MINUTES);
+        TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(5, 1);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("1:transfer", limit));
+        }
+        long waitNanos = limiter.tryAcquire("1:transfer", limit);
+        assertTrue(waitNanos > 0 && waitNanos <= TimeUnit.SECONDS.toNanos(1));
+
+        // Other keys have their own bucket
+        assertEquals(0, limiter.tryAcquire("2:transfer", limit));
+        assertEquals(0, limiter.tryAcquire("1:balance", limit));
+    }
+
+    @Test
+    void staysWithinBucketBoundByEvictingIdleBuckets() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 0, TimeUnit.NANOSECONDS);
+        TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(1, 1_000_000);
+
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire("user-" + i, limit);
+        }
+        assertTrue(limiter.size() <= 10);
+    }
+
+    @Test
+    void newKeysAtCapacityAreAdmittedWhileOthersEvict() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, 0, TimeUnit.NANOSECONDS);
+        TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(1, 1_000_000_000);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("idle-" + i, limit);
+        }
+
+        // Every caller needs room at once; none is refused because another is busy evicting
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            String key = "new-" + i;
+            results.add(callers.submit(() -> {
+                start.await();
+                return limiter.tryAcquire(key, limit);
+            }));
+        }
+        start.countDown();
+        for (Future<Long> result : results) {
+            assertEquals(0L, (long) result.get(10, TimeUnit.SECONDS));
+        }
+        callers.shutdown();
+        assertTrue(limiter.size() <= 100);
+    }
+
+    @Test
+    void fullTableOfActiveBucketsRefusesAfterABoundedScan() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1_000, 5, TimeUnit.MINUTES);
+        TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(5, 1);
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire("active-" + i, limit);
+        }
+
+        assertTrue(limiter.tryAcquire("late", limit) > 0);
+        assertEquals(1_000, limiter.size());
+        // Still active, so the scheduled sweep keeps them too
+        limiter.evictIdle();
+        assertEquals(1_000, limiter.size());
+    }
+
+    @Test
+    void scheduledSweepDropsIdleBuckets() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1_000, 1, TimeUnit.MILLISECONDS);
+        TokenBucketRateLimiter.Limit limit = new TokenBucketRateLimiter.Limit(5, 1_000_000);
+        for (int i = 0; i < 500; i++) {
+            limiter.tryAcquire("user-" + i, limit);
+        }
+        Thread.sleep(5);
+
+        limiter.evictIdle();
+        assertEquals(0, limiter.size());
+    }
+}
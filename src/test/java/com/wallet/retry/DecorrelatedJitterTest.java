@@ -0,0 +1,36 @@
+package com.wallet.retry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecorrelatedJitterTest {
+
+    @Test
+    void delaysStayBetweenBaseAndThreeTimesThePreviousUpToTheCap() {
+        DecorrelatedJitter jitter = new DecorrelatedJitter(10, 200);
+        for (int run = 0; run < 1_000; run++) {
+            long delay = jitter.first();
+            assertTrue(delay >= 10 && delay <= 30, "first delay " + delay);
+            for (int attempt = 0; attempt < 10; attempt++) {
+                long next = jitter.next(delay);
+                assertTrue(next >= 10 && next <= Math.min(200, delay * 3), delay + " -> " + next);
+                delay = next;
+            }
+        }
+    }
+
+    @Test
+    void concurrentCallersDoNotShareDelays() {
+        DecorrelatedJitter jitter = new DecorrelatedJitter(10, 200);
+        Set<Long> delays = new HashSet<>();
+        for (int caller = 0; caller < 100; caller++) {
+            delays.add(jitter.next(jitter.first()));
+        }
+        // A fixed backoff would put all 100 callers on one value
+        assertTrue(delays.size() > 20, "distinct delays " + delays.size());
+    }
+}
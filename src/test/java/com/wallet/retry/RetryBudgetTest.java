@@ -0,0 +1,86 @@
+package com.wallet.retry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void startsFullAndRunsDry() {
+        RetryBudget budget = new RetryBudget(0.1, 0, 5, 0);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(budget.tryAcquireRetry(0));
+        }
+        assertFalse(budget.tryAcquireRetry(0));
+    }
+
+    @Test
+    void requestsEarnRetriesAtTheRatio() {
+        RetryBudget budget = new RetryBudget(0.1, 0, 5, 0);
+        drain(budget, 0);
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+        }
+        int retries = 0;
+        while (budget.tryAcquireRetry(0)) {
+            retries++;
+        }
+        // 100 requests at 10% earn 10 retries, but the bucket holds only 5
+        assertEquals(5, retries);
+
+        for (int i = 0; i < 30; i++) {
+            budget.onRequest();
+        }
+        assertEquals(3.0, budget.available(), 1e-9);
+    }
+
+    @Test
+    void refillsAtTheMinimumRateWithoutRequests() {
+        RetryBudget budget = new RetryBudget(0.1, 2, 5, 0);
+        drain(budget, 0);
+        assertFalse(budget.tryAcquireRetry(SECOND / 4));
+        assertTrue(budget.tryAcquireRetry(SECOND));
+        assertTrue(budget.tryAcquireRetry(SECOND));
+        assertFalse(budget.tryAcquireRetry(SECOND));
+        // Long idle periods only fill the bucket up to its size
+        int retries = 0;
+        while (budget.tryAcquireRetry(100 * SECOND)) {
+            retries++;
+        }
+        assertEquals(5, retries);
+    }
+
+    @Test
+    void concurrentRetriesNeverOverdrawTheBudget() throws InterruptedException {
+        RetryBudget budget = new RetryBudget(0.1, 0, 1_000, 0);
+        AtomicInteger granted = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    if (budget.tryAcquireRetry(0)) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1_000, granted.get());
+    }
+
+    private static void drain(RetryBudget budget, long now) {
+        while (budget.tryAcquireRetry(now)) {
+            // empty the bucket
+        }
+    }
+}
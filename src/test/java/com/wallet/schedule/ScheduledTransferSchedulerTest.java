@@ -0,0 +1,238 @@
+package com.wallet.schedule;
+
+import com.wallet.dto.TransactionStatus;
+import com.wallet.dto.TransferRequest;
+import com.wallet.entity.ScheduleFrequency;
+import com.wallet.entity.ScheduleStatus;
+import com.wallet.entity.ScheduledRunStatus;
+import com.wallet.entity.ScheduledTransfer;
+import com.wallet.entity.ScheduledTransferRun;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.WalletTransaction;
+import com.wallet.exception.InsufficientBalanceException;
+import com.wallet.repository.JournalEntryRepository;
+import com.wallet.repository.ScheduledTransferRepository;
+import com.wallet.repository.ScheduledTransferRunRepository;
+import com.wallet.repository.WalletTransactionRepository;
+import com.wallet.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Claiming, advancing and settling scheduled occurrences against an in-memory H2. The transfers
+ * themselves go to a mocked WalletService; the ledger rows they would write are saved by the tests.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:scheduled-transfers;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "wallet.outbox.relay.enabled=false",
+        "wallet.schedule.scheduler.enabled=false"
+})
+class ScheduledTransferSchedulerTest {
+
+    private static final long SENDER = 7_001L;
+    private static final long RECEIVER = 7_002L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ScheduledTransferRepository scheduleRepository;
+
+    @Autowired
+    private ScheduledTransferRunRepository runRepository;
+
+    @Autowired
+    private WalletTransactionRepository transactionRepository;
+
+    @Autowired
+    private JournalEntryRepository journalRepository;
+
+    private final WalletService walletService = mock(WalletService.class);
+    private ScheduledTransferScheduler scheduler;
+
+    @AfterEach
+    void cleanUp() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        runRepository.deleteAll();
+        scheduleRepository.deleteAll();
+        transactionRepository.deleteAll();
+    }
+
+    @Test
+    void dueOccurrenceIsClaimedTransferredAndTheScheduleAdvanced() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.now().minusMinutes(5).truncatedTo(ChronoUnit.SECONDS);
+        ScheduledTransfer daily = schedule(ScheduleFrequency.DAILY, start);
+        ScheduledTransfer once = schedule(ScheduleFrequency.ONCE, start);
+        scheduler = newScheduler();
+
+        scheduler.poll();
+
+        ArgumentCaptor<TransferRequest> request = ArgumentCaptor.forClass(TransferRequest.class);
+        verify(walletService).transfer(request.capture(), eq("SCH-" + daily.getId() + "-0"));
+        assertEquals(SENDER, request.getValue().getSender());
+        assertEquals(RECEIVER, request.getValue().getReceiver());
+        assertEquals(0, new BigDecimal("25.00").compareTo(request.getValue().getTransferAmount()));
+        assertEquals(ScheduledRunStatus.SUCCESS, run(daily, 0).getStatus());
+        assertEquals(ScheduledRunStatus.SUCCESS, run(once, 0).getStatus());
+
+        ScheduledTransfer advanced = scheduleRepository.findById(daily.getId()).orElseThrow();
+        assertEquals(1, advanced.getRunCount());
+        assertEquals(start.plusDays(1), advanced.getNextRunAt());
+        assertEquals(ScheduleStatus.ACTIVE, advanced.getStatus());
+        ScheduledTransfer completed = scheduleRepository.findById(once.getId()).orElseThrow();
+        assertEquals(ScheduleStatus.COMPLETED, completed.getStatus());
+        assertNull(completed.getNextRunAt());
+
+        // Nothing is due until tomorrow
+        scheduler.poll();
+        verify(walletService, never()).transfer(any(), eq("SCH-" + daily.getId() + "-1"));
+    }
+
+    @Test
+    void declinedTransferIsRecordedOnItsRun() throws InterruptedException {
+        ScheduledTransfer daily = schedule(ScheduleFrequency.DAILY, LocalDateTime.now().minusMinutes(5));
+        doThrow(new InsufficientBalanceException("Insufficient balance"))
+                .when(walletService).transfer(any(), eq("SCH-" + daily.getId() + "-0"));
+        scheduler = newScheduler();
+
+        scheduler.poll();
+
+        ScheduledTransferRun run = run(daily, 0);
+        assertEquals(ScheduledRunStatus.DECLINED, run.getStatus());
+        assertEquals("Insufficient balance", run.getFailureReason());
+        assertNotNull(run.getCompletedAt());
+    }
+
+    @Test
+    void occurrencesClaimedLaterThanTheMaximumLatenessAreSkipped() throws InterruptedException {
+        // Two occurrences fell due during an outage longer than the one-day maximum lateness
+        ScheduledTransfer daily = schedule(ScheduleFrequency.DAILY, LocalDateTime.now().minusDays(2).minusHours(1));
+        scheduler = newScheduler();
+
+        for (int i = 0; i < 3; i++) {
+            scheduler.poll();
+        }
+
+        assertEquals(ScheduledRunStatus.SKIPPED, run(daily, 0).getStatus());
+        assertEquals(ScheduledRunStatus.SKIPPED, run(daily, 1).getStatus());
+        assertEquals(ScheduledRunStatus.SUCCESS, run(daily, 2).getStatus());
+        verify(walletService, never()).transfer(any(), eq("SCH-" + daily.getId() + "-0"));
+        verify(walletService, never()).transfer(any(), eq("SCH-" + daily.getId() + "-1"));
+        verify(walletService).transfer(any(), eq("SCH-" + daily.getId() + "-2"));
+        assertEquals(3, scheduleRepository.findById(daily.getId()).orElseThrow().getRunCount());
+    }
+
+    @Test
+    void failedCallIsSettledFromTheLedgerRowCarryingItsReference() throws InterruptedException {
+        // The owner node paid the transfer, but its answer was lost
+        ScheduledTransfer daily = schedule(ScheduleFrequency.DAILY, LocalDateTime.now().minusMinutes(5));
+        String referenceId = "SCH-" + daily.getId() + "-0";
+        doThrow(new RuntimeException("Transfer failed: owner node unreachable"))
+                .when(walletService).transfer(any(), eq(referenceId));
+        ledgerRow(referenceId, TransactionStatus.SUCCESS);
+        scheduler = newScheduler();
+
+        scheduler.poll();
+
+        ScheduledTransferRun run = run(daily, 0);
+        assertEquals(ScheduledRunStatus.SUCCESS, run.getStatus());
+        assertNull(run.getFailureReason());
+    }
+
+    @Test
+    void staleClaimsAreSettledFromTheLedger() throws InterruptedException {
+        LocalDateTime stale = LocalDateTime.now().minusHours(1);
+        claimedRun(1, stale);
+        claimedRun(2, stale);
+        claimedRun(3, stale);
+        claimedRun(4, LocalDateTime.now());
+        ledgerRow("SCH-1-0", TransactionStatus.SUCCESS);
+        ledgerRow("SCH-3-0", TransactionStatus.PROCESSING);
+        scheduler = newScheduler();
+
+        scheduler.settleStaleClaims();
+
+        assertEquals(ScheduledRunStatus.SUCCESS, run(1).getStatus());
+        ScheduledTransferRun neverStarted = run(2);
+        assertEquals(ScheduledRunStatus.FAILED, neverStarted.getStatus());
+        assertEquals("Not executed: the scheduler stopped before the transfer started", neverStarted.getFailureReason());
+        // Still settling, and claimed too recently to be stale
+        assertEquals(ScheduledRunStatus.CLAIMED, run(3).getStatus());
+        assertEquals(ScheduledRunStatus.CLAIMED, run(4).getStatus());
+    }
+
+    private ScheduledTransferScheduler newScheduler() {
+        return new ScheduledTransferScheduler(jdbcTemplate, transactionManager, walletService, scheduleRepository,
+                runRepository, transactionRepository, journalRepository, new SimpleMeterRegistry(), 2, 100, 20,
+                1440, 10);
+    }
+
+    private ScheduledTransfer schedule(ScheduleFrequency frequency, LocalDateTime start) {
+        return scheduleRepository.save(new ScheduledTransfer(SENDER, RECEIVER, new BigDecimal("25.00"), "Rent",
+                frequency, start, null));
+    }
+
+    private void claimedRun(long scheduleId, LocalDateTime claimedAt) {
+        jdbcTemplate.update("INSERT INTO scheduled_transfer_runs (schedule_id, occurrence, scheduled_for, reference_id, "
+                        + "status, claimed_at) VALUES (?, 0, ?, ?, 'CLAIMED', ?)", scheduleId,
+                Timestamp.valueOf(claimedAt), "SCH-" + scheduleId + "-0", Timestamp.valueOf(claimedAt));
+    }
+
+    private void ledgerRow(String referenceId, TransactionStatus status) {
+        WalletTransaction sent = new WalletTransaction();
+        sent.setSender(SENDER);
+        sent.setReceiver(RECEIVER);
+        sent.setOwnerUserId(SENDER);
+        sent.setAmount(new BigDecimal("25.00"));
+        sent.setType(TransactionType.TRANSFER_SENT);
+        sent.setStatus(status);
+        sent.setReferenceId(referenceId);
+        transactionRepository.save(sent);
+    }
+
+    private ScheduledTransferRun run(ScheduledTransfer schedule, long occurrence) {
+        return runRepository.findByScheduleIdOrderByOccurrenceDesc(schedule.getId(), Pageable.unpaged()).stream()
+                .filter(run -> run.getOccurrence() == occurrence)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private ScheduledTransferRun run(long scheduleId) {
+        List<ScheduledTransferRun> runs = runRepository.findByScheduleIdOrderByOccurrenceDesc(scheduleId,
+                Pageable.unpaged());
+        assertEquals(1, runs.size());
+        return runs.get(0);
+    }
+}
@@ -0,0 +1,289 @@
+package com.wallet.service;
+
+import com.wallet.datasource.ReadYourWritesRouting;
+import com.wallet.dto.CaptureRequest;
+import com.wallet.dto.HoldRequest;
+import com.wallet.dto.HoldResponse;
+import com.wallet.entity.FundHold;
+import com.wallet.entity.HoldStatus;
+import com.wallet.entity.Wallet;
+import com.wallet.entity.WalletTransaction;
+import com.wallet.exception.LimitExceededException;
+import com.wallet.executor.WalletCommandExecutor;
+import com.wallet.limit.VelocityLimiter;
+import com.wallet.repository.FundHoldRepository;
+import com.wallet.repository.JournalEntryRepository;
+import com.wallet.repository.OutboxEventRepository;
+import com.wallet.repository.WalletRepository;
+import com.wallet.repository.WalletTransactionRepository;
+import com.wallet.retry.TransientRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Holds against an in-memory fund_holds table whose conditional complete() behaves like the
+ * ACTIVE-guarded update. Critical sections run on a real command executor, which serializes them
+ * per wallet the way the row lock does.
+ */
+class HoldServiceTest {
+
+    private static final Long USER = 7L;
+
+    private final Map<Long, FundHold> holds = new ConcurrentHashMap<>();
+    private final AtomicLong nextHoldId = new AtomicLong(1);
+    private final List<WalletTransaction> captures = new CopyOnWriteArrayList<>();
+    private final Wallet wallet = new Wallet(USER);
+    private final WalletCommandExecutor executor = new WalletCommandExecutor(4, 10_000);
+    private final HoldService service;
+
+    HoldServiceTest() {
+        wallet.credit(new BigDecimal("100.00"));
+        service = newService(mock(VelocityLimiter.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void partialCaptureDebitsOnlyTheCapturedAmount() {
+        HoldResponse hold = service.placeHold(USER, holdRequest("40.00", 600));
+        assertEquals(new BigDecimal("60.00"), wallet.getBalance());
+        assertEquals(new BigDecimal("40.00"), wallet.getReservedBalance());
+
+        HoldResponse captured = service.captureHold(USER, hold.getHoldId(), captureRequest("25.00"));
+
+        assertEquals("CAPTURED", captured.getHoldStatus());
+        assertEquals(new BigDecimal("75.00"), wallet.getBalance());
+        assertEquals(new BigDecimal("0.00"), wallet.getReservedBalance());
+        assertEquals(1, captures.size());
+        assertEquals(new BigDecimal("25.00"), captures.get(0).getAmount());
+        assertThrows(RuntimeException.class, () -> service.releaseHold(USER, hold.getHoldId()));
+        assertThrows(RuntimeException.class,
+                () -> service.captureHold(USER, hold.getHoldId(), captureRequest("1.00")));
+    }
+
+    @Test
+    void releaseReturnsTheFundsOnce() {
+        HoldResponse hold = service.placeHold(USER, holdRequest("40.00", 600));
+
+        assertEquals("RELEASED", service.releaseHold(USER, hold.getHoldId()).getHoldStatus());
+        assertThrows(RuntimeException.class, () -> service.releaseHold(USER, hold.getHoldId()));
+        assertEquals(new BigDecimal("100.00"), wallet.getBalance());
+        assertEquals(new BigDecimal("0.00"), wallet.getReservedBalance());
+    }
+
+    @Test
+    void captureCannotExceedTheHold() {
+        HoldResponse hold = service.placeHold(USER, holdRequest("40.00", 600));
+
+        assertThrows(RuntimeException.class,
+                () -> service.captureHold(USER, hold.getHoldId(), captureRequest("40.01")));
+        assertEquals(HoldStatus.ACTIVE, holds.get(hold.getHoldId()).getStatus());
+    }
+
+    @Test
+    void sweepExpiresOverdueHoldsNoWheelTracks() {
+        // Placed by an instance that stopped before its wheel fired
+        wallet.hold(new BigDecimal("30.00"));
+        FundHold orphan = insertHold("30.00", LocalDateTime.now().minusMinutes(5));
+        HoldResponse current = service.placeHold(USER, holdRequest("10.00", 600));
+
+        service.sweepExpiredHolds();
+
+        assertEquals(HoldStatus.EXPIRED, holds.get(orphan.getId()).getStatus());
+        assertEquals(HoldStatus.ACTIVE, holds.get(current.getHoldId()).getStatus());
+        assertEquals(new BigDecimal("90.00"), wallet.getBalance());
+        assertEquals(new BigDecimal("10.00"), wallet.getReservedBalance());
+    }
+
+    @Test
+    void captureReleaseAndExpiryRaceToExactlyOneOutcome() throws Exception {
+        List<Long> holdIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            holdIds.add(service.placeHold(USER, holdRequest("1.00", 600)).getHoldId());
+        }
+        // All due at once, so the sweep competes with every capture and release
+        holds.values().forEach(hold -> ReflectionTestUtils.setField(hold, "expiresAt", LocalDateTime.now().minusMinutes(1)));
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long holdId : holdIds) {
+            futures.add(callers.submit(() -> {
+                start.await();
+                return service.captureHold(USER, holdId, captureRequest("0.60"));
+            }));
+            futures.add(callers.submit(() -> {
+                start.await();
+                return service.releaseHold(USER, holdId);
+            }));
+        }
+        futures.add(callers.submit(() -> {
+            start.await();
+            service.sweepExpiredHolds();
+            return null;
+        }));
+        start.countDown();
+        for (Future<?> future : futures) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException lost) {
+                // The hold had already been completed by another caller
+            }
+        }
+        callers.shutdown();
+
+        long captured = holds.values().stream().filter(hold -> hold.getStatus() == HoldStatus.CAPTURED).count();
+        holds.values().forEach(hold -> assertNotEquals(HoldStatus.ACTIVE, hold.getStatus()));
+        assertEquals(captured, captures.size());
+        assertEquals(new BigDecimal("0.00"), wallet.getReservedBalance());
+        assertEquals(new BigDecimal("100.00").subtract(new BigDecimal("0.60").multiply(BigDecimal.valueOf(captured))),
+                wallet.getBalance());
+    }
+
+    @Test
+    void openHoldsCountAgainstTheLimitsUntilReleasedExpiredOrCaptured() {
+        VelocityLimiter limiter = new VelocityLimiter(true, new BigDecimal("50"), 60, new BigDecimal("1000"), 1, 1,
+                false, mock(WalletTransactionRepository.class), mock(JournalEntryRepository.class),
+                mock(FundHoldRepository.class), new SimpleMeterRegistry());
+        limiter.rebuild();
+        HoldService limited = newService(limiter);
+
+        HoldResponse first = limited.placeHold(USER, holdRequest("30.00", 600));
+        assertThrows(LimitExceededException.class, () -> limited.placeHold(USER, holdRequest("30.00", 600)));
+        assertEquals(new BigDecimal("30.00"), wallet.getReservedBalance());
+
+        limited.releaseHold(USER, first.getHoldId());
+        HoldResponse second = limited.placeHold(USER, holdRequest("30.00", 600));
+
+        // Only the captured 10 stays counted
+        limited.captureHold(USER, second.getHoldId(), captureRequest("10.00"));
+        HoldResponse third = limited.placeHold(USER, holdRequest("40.00", 600));
+        assertThrows(LimitExceededException.class, () -> limited.placeHold(USER, holdRequest("1.00", 600)));
+
+        ReflectionTestUtils.setField(holds.get(third.getHoldId()), "expiresAt", LocalDateTime.now().minusMinutes(1));
+        limited.sweepExpiredHolds();
+        assertEquals(HoldStatus.EXPIRED, holds.get(third.getHoldId()).getStatus());
+        limited.placeHold(USER, holdRequest("40.00", 600));
+    }
+
+    private FundHold insertHold(String amount, LocalDateTime expiresAt) {
+        FundHold hold = new FundHold(USER, new BigDecimal(amount), "HLD-test", null, expiresAt);
+        ReflectionTestUtils.setField(hold, "id", nextHoldId.getAndIncrement());
+        holds.put(hold.getId(), hold);
+        return hold;
+    }
+
+    private static HoldRequest holdRequest(String amount, long expiresInSeconds) {
+        HoldRequest request = new HoldRequest();
+        request.setAmount(new BigDecimal(amount));
+        request.setExpiresInSeconds(expiresInSeconds);
+        return request;
+    }
+
+    private static CaptureRequest captureRequest(String amount) {
+        CaptureRequest request = new CaptureRequest();
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private static FundHold copy(FundHold source) {
+        FundHold copy = new FundHold(source.getUserId(), source.getAmount(), source.getReferenceId(),
+                source.getDescription(), source.getExpiresAt());
+        ReflectionTestUtils.setField(copy, "id", source.getId());
+        copy.complete(source.getStatus(), source.getCapturedAmount(), source.getCompletedAt());
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private HoldService newService(VelocityLimiter velocityLimiter) {
+        WalletRepository walletRepository = mock(WalletRepository.class);
+        when(walletRepository.findById(USER)).thenReturn(Optional.of(wallet));
+
+        FundHoldRepository holdRepository = mock(FundHoldRepository.class);
+        when(holdRepository.save(any(FundHold.class))).thenAnswer(invocation -> {
+            FundHold hold = invocation.getArgument(0);
+            ReflectionTestUtils.setField(hold, "id", nextHoldId.getAndIncrement());
+            holds.put(hold.getId(), copy(hold));
+            return hold;
+        });
+        when(holdRepository.findById(anyLong())).thenAnswer(
+                invocation -> Optional.ofNullable(holds.get(invocation.<Long>getArgument(0))).map(HoldServiceTest::copy));
+        when(holdRepository.complete(anyLong(), any(), any(), any())).thenAnswer(invocation -> {
+            synchronized (holds) {
+                FundHold hold = holds.get(invocation.<Long>getArgument(0));
+                if (hold.getStatus() != HoldStatus.ACTIVE) {
+                    return 0;
+                }
+                hold.complete(invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3));
+                return 1;
+            }
+        });
+        when(holdRepository.findActiveExpiredBefore(any(), any(Pageable.class))).thenAnswer(invocation -> {
+            LocalDateTime now = invocation.getArgument(0);
+            return holds.values().stream()
+                    .filter(hold -> hold.getStatus() == HoldStatus.ACTIVE && hold.getExpiresAt().isBefore(now))
+                    .limit(invocation.<Pageable>getArgument(1).getPageSize())
+                    .map(hold -> (FundHoldRepository.HoldExpiry) new FundHoldRepository.HoldExpiry() {
+                        @Override
+                        public Long getId() {
+                            return hold.getId();
+                        }
+
+                        @Override
+                        public LocalDateTime getExpiresAt() {
+                            return hold.getExpiresAt();
+                        }
+                    })
+                    .toList();
+        });
+
+        WalletTransactionRepository transactionRepository = mock(WalletTransactionRepository.class);
+        when(transactionRepository.save(any(WalletTransaction.class))).thenAnswer(invocation -> {
+            WalletTransaction transaction = invocation.getArgument(0);
+            transaction.setId((long) captures.size() + 1);
+            captures.add(transaction);
+            return transaction;
+        });
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<WalletCommandExecutor> executorProvider = mock(ObjectProvider.class);
+        when(executorProvider.getIfAvailable()).thenReturn(executor);
+        WalletCriticalSection criticalSection = new WalletCriticalSection(mock(PlatformTransactionManager.class),
+                meterRegistry, new TransientRetry(3, 1, 1, 0.1, 10, 100, meterRegistry), executorProvider);
+        return new HoldService(walletRepository, holdRepository, transactionRepository,
+                mock(OutboxEventRepository.class), criticalSection, new ReadYourWritesRouting(1_000, 1_000, 1_000),
+                velocityLimiter, meterRegistry, mock(ObjectProvider.class), 1_000, 500);
+    }
+}
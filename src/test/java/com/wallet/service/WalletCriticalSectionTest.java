@@ -0,0 +1,62 @@
+package com.wallet.service;
+
+import com.wallet.executor.WalletCommandExecutor;
+import com.wallet.retry.TransientRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WalletCriticalSectionTest {
+
+    // One lane, so every command shares it
+    private final WalletCommandExecutor executor = new WalletCommandExecutor(1, 100);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void backoffBetweenAttemptsLeavesTheLaneFree() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        @SuppressWarnings("unchecked")
+        ObjectProvider<WalletCommandExecutor> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(executor);
+        WalletCriticalSection section = new WalletCriticalSection(mock(PlatformTransactionManager.class),
+                meterRegistry, new TransientRetry(2, 500, 500, 1.0, 100, 100, meterRegistry), provider);
+
+        List<String> attemptThreads = new CopyOnWriteArrayList<>();
+        CountDownLatch firstAttemptFailed = new CountDownLatch(1);
+        CompletableFuture<String> retried = CompletableFuture.supplyAsync(() -> section.run("debit", 1L, null, () -> {
+            attemptThreads.add(Thread.currentThread().getName());
+            if (attemptThreads.size() == 1) {
+                firstAttemptFailed.countDown();
+                throw new OptimisticLockingFailureException("version changed");
+            }
+            return "done";
+        }));
+
+        assertTrue(firstAttemptFailed.await(5, TimeUnit.SECONDS));
+        // Another wallet's command on the same lane runs while the failed one backs off
+        assertEquals("other", CompletableFuture.supplyAsync(() -> executor.execute(2L, () -> "other"))
+                .get(300, TimeUnit.MILLISECONDS));
+        assertEquals(1, attemptThreads.size());
+
+        assertEquals("done", retried.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("wallet-lane-0", "wallet-lane-0"), attemptThreads);
+    }
+}
@@ -0,0 +1,268 @@
+package com.wallet.service;
+
+import com.wallet.archive.LedgerArchive;
+import com.wallet.datasource.ReadYourWritesRouting;
+import com.wallet.dto.TransactionStatus;
+import com.wallet.dto.TransferRequest;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.Wallet;
+import com.wallet.entity.WalletTransaction;
+import com.wallet.executor.WalletCommandExecutor;
+import com.wallet.fx.FxRateService;
+import com.wallet.journal.JournalLedger;
+import com.wallet.limit.VelocityLimiter;
+import com.wallet.logging.LogSampler;
+import com.wallet.logging.OperationLog;
+import com.wallet.partition.PartitionClient;
+import com.wallet.partition.PartitionRouter;
+import com.wallet.repository.OutboxEventRepository;
+import com.wallet.repository.WalletCurrencyBalanceRepository;
+import com.wallet.repository.WalletRepository;
+import com.wallet.repository.WalletTransactionRepository;
+import com.wallet.retry.TransientRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The reserve/commit/presumed-abort protocol of cross-partition transfers. One service plays both
+ * nodes over a shared in-memory transaction table: wallet 1 is owned here, wallet 2 elsewhere,
+ * and the mocked partition client decides what happens to the commit call.
+ */
+class WalletServiceCrossPartitionTest {
+
+    private static final String RECEIVER_NODE = "http://node2";
+
+    private final Map<Long, WalletTransaction> table = new ConcurrentHashMap<>();
+    private final Map<Long, Wallet> wallets = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private volatile boolean abortFails;
+    private final WalletRepository walletRepository = mock(WalletRepository.class);
+    private final WalletTransactionRepository transactionRepository = mock(WalletTransactionRepository.class);
+    private final PartitionRouter router = mock(PartitionRouter.class);
+    private final PartitionClient client = mock(PartitionClient.class);
+    private final WalletService service;
+
+    WalletServiceCrossPartitionTest() {
+        givenWallet(1L, "100.00");
+        givenWallet(2L, "0.00");
+        when(walletRepository.findById(anyLong())).thenAnswer(
+                invocation -> Optional.ofNullable(wallets.get(invocation.<Long>getArgument(0))));
+        when(router.isLocal(1L)).thenReturn(true);
+        when(router.ownerUrl(2L)).thenReturn(RECEIVER_NODE);
+        givenTransactionTable();
+        service = newService();
+    }
+
+    @Test
+    void lostCommitResponseStillCompletesTheTransfer() throws Exception {
+        // The receiver's owner commits, but its answer never arrives
+        when(client.commitCredit(any(), anyString())).thenAnswer(invocation -> {
+            service.commitTransferCredit(invocation.getArgument(1));
+            throw new IOException("read timed out");
+        });
+
+        service.transfer(new TransferRequest(2L, 1L, new BigDecimal("30.00")));
+
+        assertEquals(new BigDecimal("70.00"), balance(1L));
+        assertEquals(new BigDecimal("30.00"), balance(2L));
+        assertEquals(TransactionStatus.SUCCESS, row(TransactionType.TRANSFER_SENT).getStatus());
+        assertEquals(TransactionStatus.SUCCESS, row(TransactionType.TRANSFER_RECEIVED).getStatus());
+    }
+
+    @Test
+    void transferOfAWalletOwnedElsewhereIsForwardedUnderTheSameReference() {
+        when(router.shouldForward(3L)).thenReturn(true);
+        when(router.ownerUrl(3L)).thenReturn("http://node3");
+        TransferRequest request = new TransferRequest(2L, 3L, new BigDecimal("30.00"));
+
+        service.transfer(request, "SCH-7-0");
+
+        // The owner records the transfer under SCH-7-0, where the scheduler looks for it
+        verify(client).forwardTransfer("http://node3", request, "SCH-7-0");
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void commitArrivingAfterThePresumedAbortIsRefused() throws Exception {
+        when(client.commitCredit(any(), anyString())).thenThrow(new IOException("connect timed out"));
+
+        assertThrows(RuntimeException.class, () -> service.transfer(new TransferRequest(2L, 1L, new BigDecimal("30.00"))));
+        assertEquals(new BigDecimal("100.00"), balance(1L));
+        assertEquals(TransactionStatus.FAILED, row(TransactionType.TRANSFER_SENT).getStatus());
+
+        // The delayed commit request finally reaches the receiver's owner
+        String referenceId = row(TransactionType.TRANSFER_RECEIVED).getReferenceId();
+        assertEquals(TransactionStatus.FAILED, service.commitTransferCredit(referenceId));
+        assertEquals(new BigDecimal("0.00"), balance(2L));
+        assertEquals(TransactionStatus.FAILED, row(TransactionType.TRANSFER_RECEIVED).getStatus());
+    }
+
+    @Test
+    void recoveryRacingTheLiveSettleRefundsOnce() throws Exception {
+        // Recovery settles the transfer while the live request is still waiting for the commit
+        when(client.commitCredit(any(), anyString())).thenAnswer(invocation -> {
+            assertEquals(TransactionStatus.FAILED,
+                    service.recoverCrossPartitionTransfer(copy(row(TransactionType.TRANSFER_SENT))));
+            return service.commitTransferCredit(invocation.getArgument(1)).name();
+        });
+
+        assertThrows(RuntimeException.class, () -> service.transfer(new TransferRequest(2L, 1L, new BigDecimal("30.00"))));
+
+        assertEquals(new BigDecimal("100.00"), balance(1L));
+        assertEquals(new BigDecimal("0.00"), balance(2L));
+        assertEquals(TransactionStatus.FAILED, row(TransactionType.TRANSFER_SENT).getStatus());
+        assertEquals(TransactionStatus.FAILED, row(TransactionType.TRANSFER_RECEIVED).getStatus());
+    }
+
+    @Test
+    void recoveryOfACommittedTransferCompletesTheSender() throws Exception {
+        // The commit went through, then this node died before settling the sender row
+        when(client.commitCredit(any(), anyString())).thenAnswer(invocation -> {
+            service.commitTransferCredit(invocation.getArgument(1));
+            throw new IllegalStateException("node stopped");
+        });
+        abortFails = true;
+        assertThrows(RuntimeException.class, () -> service.transfer(new TransferRequest(2L, 1L, new BigDecimal("30.00"))));
+        assertEquals(TransactionStatus.PROCESSING, row(TransactionType.TRANSFER_SENT).getStatus());
+
+        abortFails = false;
+        assertEquals(TransactionStatus.SUCCESS, service.recoverCrossPartitionTransfer(copy(row(TransactionType.TRANSFER_SENT))));
+        assertEquals(new BigDecimal("70.00"), balance(1L));
+        assertEquals(new BigDecimal("30.00"), balance(2L));
+    }
+
+    private void givenWallet(Long userId, String balance) {
+        Wallet wallet = new Wallet(userId);
+        wallet.credit(new BigDecimal(balance));
+        wallets.put(userId, wallet);
+    }
+
+    private BigDecimal balance(Long userId) {
+        return wallets.get(userId).getBalance();
+    }
+
+    private WalletTransaction row(TransactionType type) {
+        return table.values().stream().filter(row -> row.getType() == type).findFirst().orElseThrow();
+    }
+
+    /**
+     * Conditional updates act on the table only, never on the caller's entity, like the JPQL updates do.
+     */
+    private void givenTransactionTable() {
+        when(transactionRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<WalletTransaction> transactions = invocation.getArgument(0);
+            for (WalletTransaction transaction : transactions) {
+                transaction.setId(nextId.getAndIncrement());
+                table.put(transaction.getId(), copy(transaction));
+            }
+            return List.copyOf(transactions);
+        });
+        when(transactionRepository.reserve(anyLong(), any())).thenAnswer(invocation -> {
+            WalletTransaction row = table.get(invocation.<Long>getArgument(0));
+            if (row.getStatus() != TransactionStatus.PENDING) {
+                return 0;
+            }
+            row.setStatus(TransactionStatus.PROCESSING);
+            row.setBalanceAfterTransaction(invocation.getArgument(1));
+            return 1;
+        });
+        when(transactionRepository.transitionStatus(anyCollection(), any(), any())).thenAnswer(invocation -> {
+            int moved = 0;
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                WalletTransaction row = table.get(id);
+                if (row.getStatus() == invocation.getArgument(1)) {
+                    row.setStatus(invocation.getArgument(2));
+                    moved++;
+                }
+            }
+            return moved;
+        });
+        when(transactionRepository.complete(anyLong(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            WalletTransaction row = table.get(invocation.<Long>getArgument(0));
+            if (row.getStatus() != TransactionStatus.PENDING && row.getStatus() != TransactionStatus.PROCESSING) {
+                return 0;
+            }
+            row.setStatus(invocation.getArgument(1));
+            row.setBalanceAfterTransaction(invocation.getArgument(2));
+            row.setFailureReason(invocation.getArgument(3));
+            return 1;
+        });
+        when(transactionRepository.abortIfPending(anyLong(), any(), any())).thenAnswer(invocation -> {
+            if (abortFails) {
+                throw new IllegalStateException("node stopped");
+            }
+            WalletTransaction row = table.get(invocation.<Long>getArgument(0));
+            if (row.getStatus() != TransactionStatus.PENDING) {
+                return 0;
+            }
+            row.setStatus(TransactionStatus.FAILED);
+            row.setFailureReason(invocation.getArgument(1));
+            return 1;
+        });
+        when(transactionRepository.findStatusById(anyLong()))
+                .thenAnswer(invocation -> table.get(invocation.<Long>getArgument(0)).getStatus());
+        when(transactionRepository.findByReferenceIdAndType(anyString(), any())).thenAnswer(invocation ->
+                table.values().stream()
+                        .filter(row -> row.getReferenceId().equals(invocation.getArgument(0))
+                                && row.getType() == invocation.getArgument(1))
+                        .findFirst()
+                        .map(WalletServiceCrossPartitionTest::copy));
+    }
+
+    private static WalletTransaction copy(WalletTransaction source) {
+        WalletTransaction copy = new WalletTransaction();
+        copy.setId(source.getId());
+        copy.setSender(source.getSender());
+        copy.setReceiver(source.getReceiver());
+        copy.setOwnerUserId(source.getOwnerUserId());
+        copy.setAmount(source.getAmount());
+        copy.setType(source.getType());
+        copy.setStatus(source.getStatus());
+        copy.setReferenceId(source.getReferenceId());
+        copy.setBalanceAfterTransaction(source.getBalanceAfterTransaction());
+        copy.setTransactionTime(source.getTransactionTime() != null ? source.getTransactionTime() : LocalDateTime.now());
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private WalletService newService() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        ObjectProvider<WalletCommandExecutor> noExecutor = mock(ObjectProvider.class);
+        WalletCriticalSection criticalSection = new WalletCriticalSection(transactionManager, meterRegistry,
+                new TransientRetry(3, 1, 1, 0.1, 10, 100, meterRegistry), noExecutor);
+        FxRateService fxRateService = mock(FxRateService.class);
+        when(fxRateService.baseCurrency()).thenReturn("INR");
+        ObjectProvider<PartitionRouter> routerProvider = mock(ObjectProvider.class);
+        when(routerProvider.getIfAvailable()).thenReturn(router);
+        ObjectProvider<PartitionClient> clientProvider = mock(ObjectProvider.class);
+        when(clientProvider.getIfAvailable()).thenReturn(client);
+        return new WalletService(walletRepository, transactionRepository, mock(OutboxEventRepository.class),
+                new ReadYourWritesRouting(1_000, 1_000, 1_000), transactionManager, meterRegistry,
+                criticalSection, mock(VelocityLimiter.class), mock(LedgerArchive.class), mock(JournalLedger.class),
+                new OperationLog(new LogSampler(0, Map.of())), mock(WalletCurrencyBalanceRepository.class),
+                fxRateService, mock(ObjectProvider.class), routerProvider, clientProvider, 10_000);
+    }
+}
@@ -0,0 +1,93 @@
+package com.wallet.service;
+
+import com.wallet.archive.LedgerArchive;
+import com.wallet.datasource.ReadYourWritesRouting;
+import com.wallet.dto.CreditDebitRequest;
+import com.wallet.dto.WithdrawalRequest;
+import com.wallet.engine.BalanceEngine;
+import com.wallet.engine.LedgerEvent;
+import com.wallet.exception.WalletBusyException;
+import com.wallet.fx.FxRateService;
+import com.wallet.journal.JournalLedger;
+import com.wallet.limit.VelocityLimiter;
+import com.wallet.logging.OperationLog;
+import com.wallet.repository.OutboxEventRepository;
+import com.wallet.repository.WalletCurrencyBalanceRepository;
+import com.wallet.repository.WalletRepository;
+import com.wallet.repository.WalletTransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Credits and debits through the balance engine (wallet.engine.mode=memory) log their outcomes
+ * like the database paths do.
+ */
+class WalletServiceEngineLoggingTest {
+
+    private static final long USER = 7L;
+
+    private final BalanceEngine engine = mock(BalanceEngine.class);
+    private final OperationLog operationLog = mock(OperationLog.class);
+    private final WalletService service = newService();
+
+    @Test
+    void engineCreditAndDebitLogTheirCompletion() {
+        LedgerEvent success = mock(LedgerEvent.class);
+        when(success.getStatus()).thenReturn(LedgerEvent.Status.SUCCESS);
+        when(engine.credit(eq(USER), eq(1_000L), anyString(), any())).thenReturn(CompletableFuture.completedFuture(success));
+        when(engine.debit(eq(USER), eq(400L), anyString(), any())).thenReturn(CompletableFuture.completedFuture(success));
+
+        service.addMoney(new CreditDebitRequest(new BigDecimal("10.00")), USER);
+        service.debit(USER, new WithdrawalRequest(new BigDecimal("4.00")));
+
+        verify(operationLog).completed(eq("credit"), eq(USER), isNull(), anyString(), anyLong());
+        verify(operationLog).completed(eq("debit"), eq(USER), isNull(), anyString(), anyLong());
+    }
+
+    @Test
+    void failedEngineCommandsAreLoggedButBusyRejectionsAreNot() {
+        when(engine.credit(eq(USER), anyLong(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Wallet not found for the id : 7")));
+        when(engine.debit(eq(USER), anyLong(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new WalletBusyException("Balance engine is busy, try again later")));
+
+        assertThrows(RuntimeException.class, () -> service.addMoney(new CreditDebitRequest(new BigDecimal("10.00")), USER));
+        assertThrows(WalletBusyException.class, () -> service.debit(USER, new WithdrawalRequest(new BigDecimal("4.00"))));
+
+        verify(operationLog).failed(eq("credit"), eq(USER), isNull(), anyString(),
+                eq("Wallet not found for the id : 7"), anyLong());
+        verify(operationLog, never()).failed(eq("debit"), any(), any(), any(), any(), anyLong());
+        verify(operationLog, never()).completed(any(), any(), any(), any(), anyLong());
+    }
+
+    @SuppressWarnings("unchecked")
+    private WalletService newService() {
+        ObjectProvider<BalanceEngine> engineProvider = mock(ObjectProvider.class);
+        when(engineProvider.getIfAvailable()).thenReturn(engine);
+        FxRateService fxRateService = mock(FxRateService.class);
+        when(fxRateService.baseCurrency()).thenReturn("INR");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new WalletService(mock(WalletRepository.class), mock(WalletTransactionRepository.class),
+                mock(OutboxEventRepository.class), new ReadYourWritesRouting(1_000, 1_000, 1_000),
+                mock(PlatformTransactionManager.class), meterRegistry, mock(WalletCriticalSection.class),
+                mock(VelocityLimiter.class), mock(LedgerArchive.class), mock(JournalLedger.class), operationLog,
+                mock(WalletCurrencyBalanceRepository.class), fxRateService, engineProvider,
+                mock(ObjectProvider.class), mock(ObjectProvider.class), 10_000);
+    }
+}
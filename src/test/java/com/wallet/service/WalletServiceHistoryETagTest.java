@@ -0,0 +1,67 @@
+package com.wallet.service;
+
+import com.wallet.dto.CreditDebitRequest;
+import com.wallet.dto.TransactionStatus;
+import com.wallet.entity.TransactionType;
+import com.wallet.entity.Wallet;
+import com.wallet.entity.WalletTransaction;
+import com.wallet.repository.WalletRepository;
+import com.wallet.repository.WalletTransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * The history ETag changes with every change a history read would show, against an in-memory H2.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:history-etag;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "wallet.outbox.relay.enabled=false",
+        "wallet.schedule.scheduler.enabled=false"
+})
+class WalletServiceHistoryETagTest {
+
+    private static final long USER = 4_242L;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private WalletTransactionRepository transactionRepository;
+
+    @Test
+    void everyStatusTransitionChangesTheETag() {
+        walletRepository.save(new Wallet(USER));
+        walletService.addMoney(new CreditDebitRequest(new BigDecimal("10.00")), USER);
+        String completed = walletService.historyETag(USER);
+
+        WalletTransaction pending = new WalletTransaction();
+        pending.setSender(USER);
+        pending.setOwnerUserId(USER);
+        pending.setAmount(new BigDecimal("1.00"));
+        pending.setType(TransactionType.DEBIT);
+        Long id = transactionRepository.save(pending).getId();
+        String added = walletService.historyETag(USER);
+        assertNotEquals(completed, added);
+
+        assertEquals(1, transactionRepository.transitionStatus(List.of(id), TransactionStatus.PENDING,
+                TransactionStatus.PROCESSING));
+        String processing = walletService.historyETag(USER);
+        assertNotEquals(added, processing);
+
+        assertEquals(processing, walletService.historyETag(USER));
+    }
+}
@@ -0,0 +1,199 @@
+package com.wallet.service;
+
+import com.wallet.archive.LedgerArchive;
+import com.wallet.datasource.ReadYourWritesRouting;
+import com.wallet.dto.TransactionStatus;
+import com.wallet.dto.TransferRequest;
+import com.wallet.dto.WithdrawalRequest;
+import com.wallet.entity.Wallet;
+import com.wallet.entity.WalletTransaction;
+import com.wallet.exception.InsufficientBalanceException;
+import com.wallet.executor.WalletCommandExecutor;
+import com.wallet.fx.FxRateService;
+import com.wallet.journal.JournalLedger;
+import com.wallet.limit.VelocityLimiter;
+import com.wallet.logging.LogSampler;
+import com.wallet.logging.OperationLog;
+import com.wallet.repository.OutboxEventRepository;
+import com.wallet.repository.WalletCurrencyBalanceRepository;
+import com.wallet.repository.WalletRepository;
+import com.wallet.repository.WalletTransactionRepository;
+import com.wallet.retry.TransientRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Which transaction each ledger write of a wallet mutation runs in. Only the wallet load, the balance
+ * change and the SUCCESS write may share the transaction that locks the wallet row; the PENDING insert,
+ * the PROCESSING update and a DECLINED outcome must be committed in transactions of their own.
+ */
+class WalletServiceLockScopeTest {
+
+    private final RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+    private final WalletRepository walletRepository = mock(WalletRepository.class);
+    private final WalletTransactionRepository transactionRepository = mock(WalletTransactionRepository.class);
+    private final FxRateService fxRateService = mock(FxRateService.class);
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    // The transaction each write ran in, null for none
+    private final List<Integer> pendingInserts = new ArrayList<>();
+    private final List<Integer> processingUpdates = new ArrayList<>();
+    private final Map<TransactionStatus, Integer> completions = new EnumMap<>(TransactionStatus.class);
+    private final Set<Integer> lockingTransactions = new HashSet<>();
+
+    WalletServiceLockScopeTest() {
+        when(fxRateService.baseCurrency()).thenReturn("INR");
+        when(transactionRepository.save(any(WalletTransaction.class))).thenAnswer(invocation -> {
+            pendingInserts.add(transactionManager.current());
+            WalletTransaction transaction = invocation.getArgument(0);
+            transaction.setId(nextId.getAndIncrement());
+            return transaction;
+        });
+        when(transactionRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<WalletTransaction> transactions = invocation.getArgument(0);
+            List<WalletTransaction> saved = new ArrayList<>();
+            for (WalletTransaction transaction : transactions) {
+                pendingInserts.add(transactionManager.current());
+                transaction.setId(nextId.getAndIncrement());
+                saved.add(transaction);
+            }
+            return saved;
+        });
+        when(transactionRepository.transitionStatus(anyCollection(), eq(TransactionStatus.PENDING),
+                eq(TransactionStatus.PROCESSING))).thenAnswer(invocation -> {
+            processingUpdates.add(transactionManager.current());
+            return invocation.<Collection<?>>getArgument(0).size();
+        });
+        when(transactionRepository.complete(anyLong(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            completions.put(invocation.getArgument(1), transactionManager.current());
+            return 1;
+        });
+    }
+
+    @Test
+    void declinedDebitWritesItsLedgerRowsOutsideTheLockingTransaction() {
+        givenWallet(1L, "5.00");
+        WalletService service = newService();
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> service.debit(1L, new WithdrawalRequest(new BigDecimal("10.00"))));
+
+        assertEquals(1, lockingTransactions.size());
+        Integer locking = lockingTransactions.iterator().next();
+        assertTrue(transactionManager.rolledBack.contains(locking));
+        assertEquals(List.of(), nonNull(pendingInserts));
+        assertEquals(List.of(), nonNull(processingUpdates));
+        Integer declined = completions.get(TransactionStatus.DECLINED);
+        assertNotNull(declined);
+        assertFalse(lockingTransactions.contains(declined));
+        assertTrue(transactionManager.committed.contains(declined));
+    }
+
+    @Test
+    void successfulTransferOnlyCompletesInsideTheLockingTransaction() {
+        givenWallet(1L, "50.00");
+        givenWallet(2L, "0.00");
+        WalletService service = newService();
+
+        service.transfer(new TransferRequest(2L, 1L, new BigDecimal("10.00")));
+
+        assertEquals(1, lockingTransactions.size());
+        Integer locking = lockingTransactions.iterator().next();
+        assertEquals(2, pendingInserts.size());
+        pendingInserts.forEach(Assertions::assertNull);
+        processingUpdates.forEach(Assertions::assertNull);
+        assertEquals(locking, completions.get(TransactionStatus.SUCCESS));
+        assertTrue(transactionManager.committed.contains(locking));
+    }
+
+    private void givenWallet(Long userId, String balance) {
+        Wallet wallet = new Wallet(userId);
+        wallet.credit(new BigDecimal(balance));
+        when(walletRepository.findById(userId)).thenAnswer(invocation -> {
+            Integer current = transactionManager.current();
+            assertNotNull(current, "wallet loaded outside a transaction");
+            lockingTransactions.add(current);
+            return Optional.of(wallet);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private WalletService newService() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<WalletCommandExecutor> noExecutor = mock(ObjectProvider.class);
+        WalletCriticalSection criticalSection = new WalletCriticalSection(transactionManager, meterRegistry,
+                new TransientRetry(3, 1, 1, 0.1, 10, 100, meterRegistry), noExecutor);
+        return new WalletService(walletRepository, transactionRepository, mock(OutboxEventRepository.class),
+                new ReadYourWritesRouting(1_000, 1_000, 1_000), transactionManager, meterRegistry,
+                criticalSection, mock(VelocityLimiter.class), mock(LedgerArchive.class), mock(JournalLedger.class),
+                new OperationLog(new LogSampler(0, Map.of())), mock(WalletCurrencyBalanceRepository.class),
+                fxRateService, mock(ObjectProvider.class), mock(ObjectProvider.class), mock(ObjectProvider.class),
+                10_000);
+    }
+
+    private static List<Integer> nonNull(List<Integer> transactions) {
+        return transactions.stream().filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Numbers every transaction it begins and knows which one is open on the calling thread.
+     */
+    private static final class RecordingTransactionManager implements PlatformTransactionManager {
+
+        private final ThreadLocal<Deque<Integer>> open = ThreadLocal.withInitial(ArrayDeque::new);
+        private int started;
+        final Set<Integer> committed = new HashSet<>();
+        final Set<Integer> rolledBack = new HashSet<>();
+
+        Integer current() {
+            return open.get().peek();
+        }
+
+        @Override
+        public org.springframework.transaction.TransactionStatus getTransaction(TransactionDefinition definition) {
+            open.get().push(++started);
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(org.springframework.transaction.TransactionStatus status) {
+            committed.add(open.get().pop());
+        }
+
+        @Override
+        public void rollback(org.springframework.transaction.TransactionStatus status) {
+            rolledBack.add(open.get().pop());
+        }
+    }
+}
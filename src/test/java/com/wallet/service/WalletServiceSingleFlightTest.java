@@ -0,0 +1,118 @@
+package com.wallet.service;
+
+import com.wallet.archive.LedgerArchive;
+import com.wallet.datasource.ReadYourWritesRouting;
+import com.wallet.entity.Wallet;
+import com.wallet.fx.FxRateService;
+import com.wallet.journal.JournalLedger;
+import com.wallet.limit.VelocityLimiter;
+import com.wallet.logging.LogSampler;
+import com.wallet.logging.OperationLog;
+import com.wallet.repository.OutboxEventRepository;
+import com.wallet.repository.WalletCurrencyBalanceRepository;
+import com.wallet.repository.WalletRepository;
+import com.wallet.repository.WalletTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WalletServiceSingleFlightTest {
+
+    private static final int CALLERS = 1_000;
+
+    private final WalletRepository walletRepository = mock(WalletRepository.class);
+    private final WalletTransactionRepository transactionRepository = mock(WalletTransactionRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReadYourWritesRouting readRouting = new ReadYourWritesRouting(1_000, 1_000, 1_000);
+
+    @SuppressWarnings("unchecked")
+    private WalletService newService() {
+        return new WalletService(walletRepository, transactionRepository, mock(OutboxEventRepository.class),
+                readRouting, mock(PlatformTransactionManager.class), meterRegistry,
+                mock(WalletCriticalSection.class), mock(VelocityLimiter.class), mock(LedgerArchive.class),
+                mock(JournalLedger.class), new OperationLog(new LogSampler(0, Map.of())),
+                mock(WalletCurrencyBalanceRepository.class), mock(FxRateService.class),
+                mock(ObjectProvider.class), mock(ObjectProvider.class), mock(ObjectProvider.class), 10_000);
+    }
+
+    @Test
+    void concurrentIdenticalBalanceReadsRunOneQuery() throws Exception {
+        Wallet wallet = new Wallet(7L);
+        wallet.credit(new BigDecimal("42.00"));
+        Counter coalesced = meterRegistry.counter("wallet.read.coalesced", "read", "balance");
+        // Hold the query open until every other caller has joined it
+        when(walletRepository.findById(7L)).thenAnswer(invocation -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (coalesced.count() < CALLERS - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            return Optional.of(wallet);
+        });
+        WalletService service = newService();
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BigDecimal>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(() -> {
+                start.await();
+                return service.checkBalance(7L);
+            }));
+        }
+        start.countDown();
+        for (Future<BigDecimal> result : results) {
+            assertEquals(new BigDecimal("42.00"), result.get(20, TimeUnit.SECONDS));
+        }
+        callers.shutdown();
+
+        verify(walletRepository, times(1)).findById(7L);
+        assertEquals(CALLERS - 1, (long) coalesced.count());
+    }
+
+    @Test
+    void readsOfDifferentUsersAreNotShared() throws Exception {
+        Wallet first = new Wallet(1L);
+        first.credit(new BigDecimal("1.00"));
+        Wallet second = new Wallet(2L);
+        second.credit(new BigDecimal("2.00"));
+        CountDownLatch bothLoading = new CountDownLatch(2);
+        when(walletRepository.findById(1L)).thenAnswer(invocation -> {
+            bothLoading.countDown();
+            bothLoading.await(5, TimeUnit.SECONDS);
+            return Optional.of(first);
+        });
+        when(walletRepository.findById(2L)).thenAnswer(invocation -> {
+            bothLoading.countDown();
+            bothLoading.await(5, TimeUnit.SECONDS);
+            return Optional.of(second);
+        });
+        WalletService service = newService();
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        Future<BigDecimal> one = callers.submit(() -> service.checkBalance(1L));
+        Future<BigDecimal> two = callers.submit(() -> service.checkBalance(2L));
+        assertEquals(new BigDecimal("1.00"), one.get(10, TimeUnit.SECONDS));
+        assertEquals(new BigDecimal("2.00"), two.get(10, TimeUnit.SECONDS));
+        callers.shutdown();
+        assertEquals(0, bothLoading.getCount());
+    }
+}
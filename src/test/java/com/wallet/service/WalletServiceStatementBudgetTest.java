@@ -0,0 +1,125 @@
+package com.wallet.service;
+
+import com.wallet.diagnostics.StatementCounter;
+import com.wallet.dto.CreditDebitRequest;
+import com.wallet.dto.TransferRequest;
+import com.wallet.dto.WithdrawalRequest;
+import com.wallet.entity.Wallet;
+import com.wallet.repository.WalletRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Upper bounds on the JDBC work of the wallet operations, against an in-memory H2 in MySQL mode with
+ * the schema Hibernate generates. A change that adds a query to one of these paths, or loads rows one
+ * by one, fails here. Round trips are the statements plus one commit per transaction.
+ * <p>
+ * If an operation legitimately needs more, raise its budget in the same change and say why.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement-budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "wallet.outbox.relay.enabled=false",
+        "wallet.schedule.scheduler.enabled=false",
+        "wallet.diagnostics.statements.enabled=true"
+})
+class WalletServiceStatementBudgetTest {
+
+    private static final AtomicLong NEXT_USER = new AtomicLong(1_000);
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Test
+    void credit() {
+        long user = newWallet("100.00");
+        // Insert PENDING; mark PROCESSING; load wallet, update wallet, complete row, outbox insert
+        assertBudget("credit", measure(() -> walletService.addMoney(new CreditDebitRequest(amount("10.00")), user)),
+                6, 9, 6);
+    }
+
+    @Test
+    void debit() {
+        long user = newWallet("100.00");
+        // As credit; the spending limits are checked in memory
+        assertBudget("debit", measure(() -> walletService.debit(user, new WithdrawalRequest(amount("10.00")))),
+                6, 9, 6);
+    }
+
+    @Test
+    void transfer() {
+        long sender = newWallet("100.00");
+        long receiver = newWallet("0.00");
+        // Two PENDING inserts; one PROCESSING update; load and update both wallets, complete both rows,
+        // two outbox inserts
+        assertBudget("transfer", measure(() -> walletService.transfer(
+                new TransferRequest(receiver, sender, amount("10.00")))), 11, 14, 12);
+    }
+
+    @Test
+    void balanceRead() {
+        long user = newWallet("100.00");
+        // What GET /api/wallet/{id}/balance runs: the ETag version, the balance, then the balances in
+        // other currencies (one range of the wallet_currency_balances primary key, none here)
+        assertBudget("balance", measure(() -> {
+            walletService.balanceETag(user);
+            walletService.checkBalance(user);
+            walletService.currencyBalances(user);
+        }), 3, 6, 2);
+    }
+
+    @Test
+    void historyReadDoesNotGrowWithTheRows() {
+        long user = newWallet("0.00");
+        int rows = 20;
+        for (int i = 0; i < rows; i++) {
+            walletService.addMoney(new CreditDebitRequest(amount("1.00")), user);
+        }
+        // What GET /api/wallet/{id}/transactions runs: the ETag aggregate, then one query for all rows
+        StatementCounter.Scope used = measure(() -> {
+            walletService.historyETag(user);
+            assertEquals(rows, walletService.checkTransactions(user).size());
+        });
+        assertBudget("history of " + rows + " rows", used, 2, 4, rows + 1);
+    }
+
+    private long newWallet(String balance) {
+        Wallet wallet = new Wallet(NEXT_USER.incrementAndGet());
+        wallet.credit(amount(balance));
+        return walletRepository.save(wallet).getUserId();
+    }
+
+    private static BigDecimal amount(String value) {
+        return new BigDecimal(value);
+    }
+
+    private static StatementCounter.Scope measure(Runnable operation) {
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            operation.run();
+            return scope;
+        }
+    }
+
+    private static void assertBudget(String operation, StatementCounter.Scope used, long statements,
+                                     long roundTrips, long rows) {
+        String actual = operation + " used " + used;
+        assertTrue(used.statements() <= statements, actual + ", budget is " + statements + " statements");
+        assertTrue(used.roundTrips() <= roundTrips, actual + ", budget is " + roundTrips + " round trips");
+        assertTrue(used.rows() <= rows, actual + ", budget is " + rows + " rows");
+        // Guards against the counting itself silently breaking
+        assertTrue(used.statements() > 0, actual);
+    }
+}